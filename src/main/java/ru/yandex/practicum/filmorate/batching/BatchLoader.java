@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.batching;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.tracing.RequestTrace;
+import ru.yandex.practicum.filmorate.tracing.TraceContext;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects by-key lookups that arrive close together and answers them with one set query.
+ *
+ * <p>The first caller of a batch leads it: when other lookups are running it waits up to the window, or
+ * until the batch is full, then runs the batch function on its own thread and completes everyone's
+ * result. A caller with no concurrent company dispatches at once, so an idle system pays no added latency.
+ * Keys the batch function leaves out of its result resolve to {@code null}. The statements of a batch count
+ * towards the leader's request trace; the other callers' traces show the wait as a joined span.
+ *
+ * <p>A batch runs on the leader's thread and so inside the leader's transaction, if it has one. A caller with
+ * an active transaction therefore never joins or leads a batch: its lookup runs alone on its own thread so it
+ * sees its own uncommitted writes and holds its own locks. Write paths should not use a loader at all.
+ * The same goes for a request pinned to the primary ({@link ReadRouting#isPinned()}): a batch led by an
+ * unpinned request may read from a replica that has not yet applied the pinned client's write.
+ */
+public class BatchLoader<K, V> {
+
+    private final String name;
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+
+    private final AtomicInteger activeCallers = new AtomicInteger();
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private Batch<K, V> current;
+
+
+    public BatchLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction, BatchingProperties properties) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+    }
+
+    public V load(K key) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || ReadRouting.isPinned()) {
+            lookups.increment();
+            return loadAlone(key);
+        }
+
+        activeCallers.incrementAndGet();
+        lookups.increment();
+        try {
+            Batch<K, V> batch;
+            CompletableFuture<V> result;
+            boolean leader;
+
+            synchronized (lock) {
+                leader = current == null;
+                if (leader) {
+                    current = new Batch<>();
+                }
+                batch = current;
+                result = batch.results.computeIfAbsent(key, k -> new CompletableFuture<>());
+
+                if (batch.results.size() >= maxBatchSize) {
+                    current = null;
+                    lock.notifyAll();
+                }
+            }
+
+            RequestTrace trace = TraceContext.current();
+            RequestTrace.Span span = trace == null ? null
+                    : trace.openSpan("BatchLoader." + name + (leader ? "" : " (joined)"));
+            try {
+                if (leader) {
+                    close(batch);
+                    dispatch(batch);
+                }
+
+                return await(result);
+            } finally {
+                if (span != null) {
+                    trace.closeSpan(span);
+                }
+            }
+        } finally {
+            activeCallers.decrementAndGet();
+        }
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+
+    private V loadAlone(K key) {
+        Batch<K, V> batch = new Batch<>();
+        CompletableFuture<V> result = new CompletableFuture<>();
+        batch.results.put(key, result);
+
+        dispatch(batch);
+        return await(result);
+    }
+
+    private void close(Batch<K, V> batch) {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + windowNanos;
+
+            while (current == batch && activeCallers.get() > 1) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            if (current == batch) {
+                current = null;
+            }
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batches.increment();
+        try {
+            Map<K, V> values = batchFunction.apply(batch.results.keySet());
+            batch.results.forEach((key, result) -> result.complete(values.get(key)));
+        } catch (RuntimeException | Error ex) {
+            batch.results.values().forEach(result -> result.completeExceptionally(ex));
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+
+    private static final class Batch<K, V> {
+
+        private final Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.batching;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+@Configuration
+@EnableConfigurationProperties(BatchingProperties.class)
+public class BatchingConfiguration {
+
+    @Bean
+    public BatchLoader<Integer, Film> filmLoader(FilmRepository filmRepository, BatchingProperties properties) {
+        return new BatchLoader<>("films.findByIds", filmRepository::findByIds, properties);
+    }
+
+    @Bean
+    public BatchLoader<Integer, User> userLoader(UserRepository userRepository, BatchingProperties properties) {
+        return new BatchLoader<>("users.findByIds", userRepository::findByIds, properties);
+    }
+
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.batching;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.batching")
+public class BatchingProperties {
+
+    /**
+     * How long the first lookup of a batch waits for others to join it. Zero dispatches every lookup alone.
+     */
+    private Duration window = Duration.ofMillis(1);
+
+    private int maxBatchSize = 100;
+
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.bloom;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+@Configuration
+@EnableConfigurationProperties(BloomProperties.class)
+public class BloomConfiguration {
+
+    @Bean
+    public UserKeyFilters userKeyFilters(UserRepository userRepository, BloomProperties properties) {
+        return new UserKeyFilters(userRepository, properties);
+    }
+
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.bloom;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.bloom")
+public class BloomProperties {
+
+    /**
+     * Keys each filter is sized for at first; a filter holding more than that is rebuilt twice as large.
+     */
+    private long expectedUsers = 100_000;
+
+    private double falsePositiveRate = 0.01;
+
+}
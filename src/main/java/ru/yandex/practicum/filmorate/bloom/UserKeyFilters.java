@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.bloom;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filters over USERS.EMAIL and USERS.LOGIN that let a new user's uniqueness checks skip the database
+ * when neither value has been seen. A "maybe" still goes to the database, and the unique constraints stay
+ * the authority for concurrent inserts.
+ *
+ * <p>Filters are filled from the table once all beans, including the schema migrator, are ready, and every
+ * saved or updated user is added to them. Bloom filters cannot forget a key, so deleted and replaced values
+ * linger as false positives; once they outnumber the live ones, or the filters hold more keys than they
+ * were sized for, the next check rebuilds them from the table.
+ */
+@Slf4j
+public class UserKeyFilters implements SmartInitializingSingleton {
+
+    private final UserRepository userRepository;
+
+    private final double falsePositiveRate;
+
+    private final AtomicLong live = new AtomicLong();
+
+    private final AtomicLong stale = new AtomicLong();
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder rebuilds = new LongAdder();
+
+    private volatile long capacity;
+
+    private volatile Filters filters;
+
+
+    public UserKeyFilters(UserRepository userRepository, BloomProperties properties) {
+        this.userRepository = userRepository;
+        this.falsePositiveRate = properties.getFalsePositiveRate();
+        this.capacity = Math.max(1, properties.getExpectedUsers());
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public boolean mightHaveEmail(String email) {
+        return check(current().emails, email);
+    }
+
+    public boolean mightHaveLogin(String login) {
+        return check(current().logins, login);
+    }
+
+    public void added(User user) {
+        Filters current = current();
+        current.emails.put(user.getEmail());
+        current.logins.put(user.getLogin());
+        live.incrementAndGet();
+    }
+
+    public void updated(User user) {
+        added(user);
+        live.decrementAndGet();
+        stale.incrementAndGet();
+    }
+
+    public void removed() {
+        live.decrementAndGet();
+        stale.incrementAndGet();
+    }
+
+    public void cleared() {
+        stale.addAndGet(live.getAndSet(0));
+    }
+
+    /**
+     * Rebuilds the filters from the table after its rows were replaced wholesale.
+     */
+    public synchronized void reload() {
+        filters = null;
+        rebuild();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Filters current = filters;
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("bits", current == null ? 0 : current.emails.getBitSize());
+        statistics.put("hashes", current == null ? 0 : current.emails.getHashCount());
+        statistics.put("capacity", capacity);
+        statistics.put("live", live.get());
+        statistics.put("stale", stale.get());
+        statistics.put("checks", checks.sum());
+        statistics.put("skipped", skipped.sum());
+        statistics.put("rebuilds", rebuilds.sum());
+        return statistics;
+    }
+
+
+    private boolean check(BloomFilter filter, String key) {
+        checks.increment();
+        if (key == null || !filter.mightContain(key)) {
+            skipped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private Filters current() {
+        Filters current = filters;
+
+        if (current == null || live.get() + stale.get() > capacity || stale.get() > Math.max(live.get(), 1024)) {
+            return rebuild();
+        }
+        return current;
+    }
+
+    /**
+     * Builds new filters from the table. Keys added while the scan runs go to both the old and the new
+     * filters, because {@link #added} writes to whichever filters are current and the new ones are only
+     * published after the scan, so a user saved concurrently could be missing from them; such a miss only
+     * means the insert reaches the unique constraint instead of being caught early.
+     */
+    private synchronized Filters rebuild() {
+        Filters current = filters;
+        if (current != null && live.get() + stale.get() <= capacity && stale.get() <= Math.max(live.get(), 1024)) {
+            return current;
+        }
+
+        long started = System.currentTimeMillis();
+        long[] count = new long[1];
+        long expected = capacity;
+        Filters rebuilt;
+
+        do {
+            capacity = expected;
+            rebuilt = new Filters(BloomFilter.create(capacity, falsePositiveRate),
+                    BloomFilter.create(capacity, falsePositiveRate));
+            Filters target = rebuilt;
+            count[0] = 0;
+            userRepository.loadUserKeys((email, login) -> {
+                target.emails.put(email);
+                target.logins.put(login);
+                count[0]++;
+            });
+            expected = Math.max(capacity, count[0] * 2);
+        } while (count[0] > capacity);
+
+        filters = rebuilt;
+        live.set(count[0]);
+        stale.set(0);
+        rebuilds.increment();
+
+        log.info("Rebuilt user key filters with {} users in {} ms ({} bits, {} hashes each)", count[0],
+                System.currentTimeMillis() - started, rebuilt.emails.getBitSize(), rebuilt.emails.getHashCount());
+        return rebuilt;
+    }
+
+
+    private static class Filters {
+
+        private final BloomFilter emails;
+
+        private final BloomFilter logins;
+
+
+        Filters(BloomFilter emails, BloomFilter logins) {
+            this.emails = emails;
+            this.logins = logins;
+        }
+
+    }
+
+}
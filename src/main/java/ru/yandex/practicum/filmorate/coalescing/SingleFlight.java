@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lets concurrent callers asking for the same key share one computation: the first caller runs the loader,
+ * everyone arriving while it runs waits for and receives the same result or exception. Nothing is kept once
+ * the call completes, so this is also the loader to put behind a cache to stop a stampede when an entry
+ * expires.
+ *
+ * <p>With {@link #execute(Object, Supplier)} every caller gets the same object, which suits immutable values.
+ * Mutable results go through {@link #execute(Object, Supplier, UnaryOperator)}: the loaded value stays with the
+ * flight and each caller, the one that ran the loader included, receives its own copy.
+ *
+ * <p>A request pinned to the primary ({@link ReadRouting#isPinned()}) runs the loader on its own and neither
+ * joins nor leads a flight: a flight led by another request may be reading from a replica that has not yet
+ * applied the pinned client's write.
+ */
+public class SingleFlight<K, V> {
+
+    private static final int MAX_TRACKED_KEYS = 1_000;
+
+    private final String name;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<K, LongAdder> coalescedByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, loader, UnaryOperator.identity());
+    }
+
+    public V execute(K key, Supplier<V> loader, UnaryOperator<V> copy) {
+        if (ReadRouting.isPinned()) {
+            executions.increment();
+            return copy.apply(loader.get());
+        }
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+
+        if (inFlight != null) {
+            recordCoalesced(key);
+            return copy.apply(await(inFlight));
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return copy.apply(value);
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Makes the next caller for the key start a new computation instead of joining one that may have read
+     * the data before a write.
+     */
+    public void forget(K key) {
+        calls.remove(key);
+    }
+
+    public void forgetAll() {
+        calls.clear();
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public int getInFlight() {
+        return calls.size();
+    }
+
+    public Map<String, Long> getTopCoalescedKeys(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+
+        coalescedByKey.entrySet().stream()
+                .map(entry -> Map.entry(String.valueOf(entry.getKey()), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+
+        return top;
+    }
+
+
+    private void recordCoalesced(K key) {
+        coalesced.increment();
+
+        LongAdder counter = coalescedByKey.get(key);
+        if (counter == null && coalescedByKey.size() < MAX_TRACKED_KEYS) {
+            counter = coalescedByKey.computeIfAbsent(key, k -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class SingleFlightRegistry {
+
+    private static final int TOP_KEYS = 20;
+
+    private final ConcurrentMap<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+
+
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> get(String name) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, SingleFlight::new);
+    }
+
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> statistics = new ArrayList<>();
+
+        for (SingleFlight<?, ?> flight : flights.values()) {
+            Map<String, Object> flightStatistics = new LinkedHashMap<>();
+            flightStatistics.put("name", flight.getName());
+            flightStatistics.put("executions", flight.getExecutions());
+            flightStatistics.put("coalesced", flight.getCoalesced());
+            flightStatistics.put("inFlight", flight.getInFlight());
+            flightStatistics.put("topCoalescedKeys", flight.getTopCoalescedKeys(TOP_KEYS));
+            statistics.add(flightStatistics);
+        }
+
+        return statistics;
+    }
+
+}
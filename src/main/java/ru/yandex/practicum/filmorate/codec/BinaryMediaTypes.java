@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Map;
+
+public final class BinaryMediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.valueOf(APPLICATION_PROTOBUF_VALUE);
+
+    private static final Map<MediaType, String> VARIANTS = Map.of(
+            MediaType.APPLICATION_CBOR, "cbor",
+            APPLICATION_SMILE, "smile",
+            APPLICATION_PROTOBUF, "protobuf");
+
+
+    private BinaryMediaTypes() {
+    }
+
+    public static boolean isBinary(String contentType) {
+        if (contentType == null || contentType.isEmpty()) {
+            return false;
+        }
+
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return VARIANTS.keySet().stream().anyMatch(binary -> binary.includes(mediaType));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Short name of the binary encoding the {@code Accept} header prefers, or {@code null} when JSON is
+     * acceptable at least as much as any of them.
+     */
+    public static String variantOf(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return null;
+        }
+
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptable);
+
+        for (MediaType mediaType : acceptable) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            for (Map.Entry<MediaType, String> variant : VARIANTS.entrySet()) {
+                if (mediaType.includes(variant.getKey())) {
+                    return variant.getValue();
+                }
+            }
+        }
+
+        return null;
+    }
+
+}
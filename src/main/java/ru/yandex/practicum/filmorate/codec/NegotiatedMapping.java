@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a handler that answers in JSON or, when the client asks for it, in one of the binary encodings.
+ * Defaults to GET.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@RequestMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryMediaTypes.APPLICATION_SMILE_VALUE, BinaryMediaTypes.APPLICATION_PROTOBUF_VALUE})
+public @interface NegotiatedMapping {
+
+    @AliasFor(annotation = RequestMapping.class)
+    String[] value() default {};
+
+    @AliasFor(annotation = RequestMapping.class)
+    String[] params() default {};
+
+    @AliasFor(annotation = RequestMapping.class)
+    RequestMethod[] method() default RequestMethod.GET;
+
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Writes films, users, genres and ratings as {@code application/x-protobuf}. Responses only: requests are
+ * still read as JSON.
+ */
+public class ProtobufModelHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public ProtobufModelHttpMessageConverter() {
+        super(BinaryMediaTypes.APPLICATION_PROTOBUF);
+    }
+
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MappingJacksonValue.class.isAssignableFrom(clazz)
+                || Collection.class.isAssignableFrom(clazz)
+                || ProtobufWriter.supports(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+
+        ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        Class<?> rawType = resolved.toClass();
+
+        if (MappingJacksonValue.class.isAssignableFrom(rawType)) {
+            return true;
+        }
+        if (Collection.class.isAssignableFrom(rawType)) {
+            return ProtobufWriter.supports(resolved.asCollection().resolveGeneric(0));
+        }
+
+        return ProtobufWriter.supports(rawType);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Object value = body instanceof MappingJacksonValue ? ((MappingJacksonValue) body).getValue() : body;
+
+        if (!ProtobufWriter.supports(value)) {
+            throw new HttpMessageNotWritableException("No protobuf message for " + value);
+        }
+
+        ProtobufWriter.write(value, outputMessage.getBody());
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+}
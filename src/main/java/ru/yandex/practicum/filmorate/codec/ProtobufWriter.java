@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encodes the models as the messages declared in {@code src/main/proto/filmorate.proto}; field numbers here
+ * have to follow that file. A collection is written as the matching {@code *List} message, whose repeated
+ * field is always number 1. Null fields are omitted, which also keeps projected responses small.
+ */
+public final class ProtobufWriter {
+
+    private static final Set<Class<?>> MESSAGES = Set.of(Film.class, User.class, Genre.class, Rating.class,
+            ErrorResponse.class);
+
+
+    private ProtobufWriter() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return type != null && MESSAGES.contains(type);
+    }
+
+    public static boolean supports(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream()
+                    .allMatch(element -> element != null && supports(element.getClass()));
+        }
+
+        return value != null && supports(value.getClass());
+    }
+
+    public static void write(Object value, OutputStream outputStream) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputStream);
+
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                writeMessage(out, 1, element);
+            }
+        } else {
+            writeFields(out, value);
+        }
+
+        out.flush();
+    }
+
+
+    private static int size(Object value) {
+        if (value instanceof Film) {
+            Film film = (Film) value;
+            int size = int32Size(1, film.getId())
+                    + stringSize(2, film.getName())
+                    + stringSize(3, film.getDescription())
+                    + dateSize(4, film.getReleaseDate())
+                    + int32Size(5, film.getDuration())
+                    + messageSize(6, film.getMpa())
+                    + int32Size(7, film.getPopularity());
+            for (Genre genre : genres(film)) {
+                size += messageSize(8, genre);
+            }
+            return size;
+        }
+        if (value instanceof User) {
+            User user = (User) value;
+            return int32Size(1, user.getId())
+                    + stringSize(2, user.getName())
+                    + stringSize(3, user.getEmail())
+                    + stringSize(4, user.getLogin())
+                    + dateSize(5, user.getBirthday());
+        }
+        if (value instanceof Genre) {
+            Genre genre = (Genre) value;
+            return int32Size(1, genre.getId()) + stringSize(2, genre.getName());
+        }
+        if (value instanceof Rating) {
+            Rating rating = (Rating) value;
+            return int32Size(1, rating.getId()) + stringSize(2, rating.getName());
+        }
+        if (value instanceof ErrorResponse) {
+            return stringSize(1, ((ErrorResponse) value).getError());
+        }
+
+        throw new IllegalArgumentException("No protobuf message for " + value.getClass().getName());
+    }
+
+    private static void writeFields(CodedOutputStream out, Object value) throws IOException {
+        if (value instanceof Film) {
+            Film film = (Film) value;
+            writeInt32(out, 1, film.getId());
+            writeString(out, 2, film.getName());
+            writeString(out, 3, film.getDescription());
+            writeDate(out, 4, film.getReleaseDate());
+            writeInt32(out, 5, film.getDuration());
+            writeMessage(out, 6, film.getMpa());
+            writeInt32(out, 7, film.getPopularity());
+            for (Genre genre : genres(film)) {
+                writeMessage(out, 8, genre);
+            }
+        } else if (value instanceof User) {
+            User user = (User) value;
+            writeInt32(out, 1, user.getId());
+            writeString(out, 2, user.getName());
+            writeString(out, 3, user.getEmail());
+            writeString(out, 4, user.getLogin());
+            writeDate(out, 5, user.getBirthday());
+        } else if (value instanceof Genre) {
+            Genre genre = (Genre) value;
+            writeInt32(out, 1, genre.getId());
+            writeString(out, 2, genre.getName());
+        } else if (value instanceof Rating) {
+            Rating rating = (Rating) value;
+            writeInt32(out, 1, rating.getId());
+            writeString(out, 2, rating.getName());
+        } else if (value instanceof ErrorResponse) {
+            writeString(out, 1, ((ErrorResponse) value).getError());
+        } else {
+            throw new IllegalArgumentException("No protobuf message for " + value.getClass().getName());
+        }
+    }
+
+    private static List<Genre> genres(Film film) {
+        return film.getGenres() == null ? List.of() : film.getGenres();
+    }
+
+
+    private static int messageSize(int field, Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        int size = size(value);
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static void writeMessage(CodedOutputStream out, int field, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(size(value));
+        writeFields(out, value);
+    }
+
+    private static int int32Size(int field, Integer value) {
+        return value == null || value == 0 ? 0 : CodedOutputStream.computeInt32Size(field, value);
+    }
+
+    private static void writeInt32(CodedOutputStream out, int field, Integer value) throws IOException {
+        if (value != null && value != 0) {
+            out.writeInt32(field, value);
+        }
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null || value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static int dateSize(int field, LocalDate value) {
+        return value == null || value.toEpochDay() == 0
+                ? 0 : CodedOutputStream.computeSInt32Size(field, (int) value.toEpochDay());
+    }
+
+    private static void writeDate(CodedOutputStream out, int field, LocalDate value) throws IOException {
+        if (value != null && value.toEpochDay() != 0) {
+            out.writeSInt32(field, (int) value.toEpochDay());
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spare direct buffers of one chunk size, handed back by released {@link TextArena}s so that the next arena
+ * reuses them instead of allocating off-heap memory that only the GC could reclaim. At most
+ * {@code maxSpareChunks} are kept; chunks beyond that, and oversized chunks made for a single large value,
+ * are dropped and left to the GC.
+ */
+public final class ChunkPool {
+
+    private final int chunkSize;
+
+    private final int maxSpareChunks;
+
+    private final Deque<ByteBuffer> spare = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger spareCount = new AtomicInteger();
+
+    private final LongAdder allocated = new LongAdder();
+
+    private final LongAdder reused = new LongAdder();
+
+
+    public ChunkPool(int chunkSize, int maxSpareChunks) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.maxSpareChunks = Math.max(0, maxSpareChunks);
+    }
+
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getAllocatedChunks() {
+        return allocated.sum();
+    }
+
+    public long getReusedChunks() {
+        return reused.sum();
+    }
+
+    public int getSpareChunks() {
+        return spareCount.get();
+    }
+
+
+    ByteBuffer take(int minCapacity) {
+        if (minCapacity <= chunkSize) {
+            ByteBuffer chunk = spare.pollFirst();
+            if (chunk != null) {
+                spareCount.decrementAndGet();
+                reused.increment();
+                return chunk.clear();
+            }
+        }
+
+        allocated.increment();
+        return ByteBuffer.allocateDirect(Math.max(chunkSize, minCapacity));
+    }
+
+    void give(ByteBuffer chunk) {
+        if (chunk.capacity() != chunkSize) {
+            return;
+        }
+
+        if (spareCount.incrementAndGet() <= maxSpareChunks) {
+            spare.addFirst(chunk);
+        } else {
+            spareCount.decrementAndGet();
+        }
+    }
+
+}
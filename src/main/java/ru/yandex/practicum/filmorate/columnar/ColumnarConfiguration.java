@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@EnableConfigurationProperties(ColumnarProperties.class)
+public class ColumnarConfiguration {
+
+    @Bean
+    public ColumnarScanner columnarScanner(ColumnarProperties properties) {
+        return new ColumnarScanner(new ForkJoinPool(properties.getParallelism()), properties.getSplitThreshold());
+    }
+
+}
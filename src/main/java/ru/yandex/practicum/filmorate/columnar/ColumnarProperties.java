@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.columnar")
+public class ColumnarProperties {
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Rows scanned by one fork-join task; larger ranges are split in half.
+     */
+    private int splitThreshold = 16384;
+
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Predicate scans over {@link FilmColumns}. The row range is split in halves until it is at most
+ * {@code splitThreshold} rows long, leaves run on the fork-join pool and their partial results are combined
+ * pairwise on the way back up.
+ */
+public class ColumnarScanner implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+
+    private final int splitThreshold;
+
+
+    public ColumnarScanner(ForkJoinPool pool, int splitThreshold) {
+        if (splitThreshold < 1) {
+            throw new IllegalArgumentException("Split threshold must be positive");
+        }
+        this.pool = pool;
+        this.splitThreshold = splitThreshold;
+    }
+
+
+    /**
+     * Returns the ids of the matching films in ascending order.
+     */
+    public int[] filter(FilmColumns columns, FilmFilter filter) {
+        FilmColumns.Predicate predicate = columns.compile(filter);
+        if (predicate.isEmpty()) {
+            return new int[0];
+        }
+
+        return scan(columns, new Scan<int[]>() {
+            @Override
+            public int[] leaf(int from, int to) {
+                int[] ids = new int[to - from];
+                int count = 0;
+                for (int row = from; row < to; row++) {
+                    if (predicate.test(row)) {
+                        ids[count++] = columns.filmIdAt(row);
+                    }
+                }
+                return Arrays.copyOf(ids, count);
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                int[] ids = Arrays.copyOf(left, left.length + right.length);
+                System.arraycopy(right, 0, ids, left.length, right.length);
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * Returns the ids of at most {@code limit} matching films, most popular first and by id among equals.
+     */
+    public int[] topByPopularity(FilmColumns columns, FilmFilter filter, int limit) {
+        FilmColumns.Predicate predicate = columns.compile(filter);
+        if (predicate.isEmpty()) {
+            return new int[0];
+        }
+
+        // Popularity in the high half and the inverted id in the low half: descending keys give the final order.
+        long[] keys = scan(columns, new Scan<long[]>() {
+            @Override
+            public long[] leaf(int from, int to) {
+                long[] matches = new long[to - from];
+                int count = 0;
+                for (int row = from; row < to; row++) {
+                    if (predicate.test(row)) {
+                        long invertedId = ~columns.filmIdAt(row) & 0xFFFFFFFFL;
+                        matches[count++] = (long) columns.popularityAt(row) << 32 | invertedId;
+                    }
+                }
+                return top(matches, count, limit);
+            }
+
+            @Override
+            public long[] combine(long[] left, long[] right) {
+                long[] merged = Arrays.copyOf(left, left.length + right.length);
+                System.arraycopy(right, 0, merged, left.length, right.length);
+                return top(merged, merged.length, limit);
+            }
+        });
+
+        int[] ids = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ids[i] = ~(int) keys[keys.length - 1 - i];
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the number of matching films per release year, for the years that have any.
+     */
+    public Map<Integer, Long> releaseYearHistogram(FilmColumns columns, FilmFilter filter) {
+        FilmColumns.Predicate predicate = columns.compile(filter);
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        if (predicate.isEmpty() || columns.size() == 0) {
+            return histogram;
+        }
+
+        int minYear = columns.minYear();
+        long[] counts = scan(columns, new Scan<long[]>() {
+            @Override
+            public long[] leaf(int from, int to) {
+                long[] leafCounts = new long[columns.maxYear() - minYear + 1];
+                for (int row = from; row < to; row++) {
+                    if (predicate.test(row)) {
+                        leafCounts[columns.releaseYearAt(row) - minYear]++;
+                    }
+                }
+                return leafCounts;
+            }
+
+            @Override
+            public long[] combine(long[] left, long[] right) {
+                for (int i = 0; i < left.length; i++) {
+                    left[i] += right[i];
+                }
+                return left;
+            }
+        });
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                histogram.put(minYear + i, counts[i]);
+            }
+        }
+        return histogram;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+
+    private <R> R scan(FilmColumns columns, Scan<R> scan) {
+        if (columns.size() <= splitThreshold) {
+            return scan.leaf(0, columns.size());
+        }
+        return pool.invoke(new ScanTask<>(scan, 0, columns.size()));
+    }
+
+    /**
+     * Sorts the first {@code count} keys ascending and keeps the largest {@code limit} of them.
+     */
+    private static long[] top(long[] keys, int count, int limit) {
+        Arrays.sort(keys, 0, count);
+        return Arrays.copyOfRange(keys, Math.max(0, count - limit), count);
+    }
+
+
+    private interface Scan<R> {
+
+        R leaf(int from, int to);
+
+        R combine(R left, R right);
+
+    }
+
+    private final class ScanTask<R> extends RecursiveTask<R> {
+
+        private final Scan<R> scan;
+
+        private final int from;
+
+        private final int to;
+
+
+        ScanTask(Scan<R> scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected R compute() {
+            if (to - from <= splitThreshold) {
+                return scan.leaf(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask<R> left = new ScanTask<>(scan, from, middle);
+            left.fork();
+            R right = new ScanTask<>(scan, middle, to).compute();
+            return scan.combine(left.join(), right);
+        }
+
+    }
+
+}
@@ -0,0 +1,430 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-wise copy of FILMS. Row {@code i} of every array describes the film {@code filmIds[i]};
+ * rows are ordered by film id. Genres are kept as a bitmask of {@code words} longs per row, with bit positions
+ * assigned to genre ids in the order they were first seen. Names and descriptions live in a {@link TextArena}
+ * and are decoded only when a row is turned back into a {@link Film}.
+ *
+ * <p>Copies made by {@link #withPopularity} share every column but popularity, including the arena. A caller
+ * that decodes rows while the owning view may replace the snapshot brackets the work with {@link #acquire()}
+ * and {@link #release()}.
+ */
+public final class FilmColumns {
+
+    private final int size;
+
+    private final int[] filmIds;
+
+    private final int[] durations;
+
+    private final int[] releaseDays;
+
+    private final int[] releaseYears;
+
+    private final int[] ratingIds;
+
+    private final int[] popularity;
+
+    private final long[] genreMasks;
+
+    private final int words;
+
+    private final Map<Integer, Integer> genreBits;
+
+    private final int[] bitGenreIds;
+
+    private final TextArena text;
+
+    private final long[] nameRefs;
+
+    private final int[] nameLengths;
+
+    private final long[] descriptionRefs;
+
+    private final int[] descriptionLengths;
+
+    private final Map<Integer, String> genreNames;
+
+    private final Map<Integer, String> ratingNames;
+
+    private final int minYear;
+
+    private final int maxYear;
+
+
+    private FilmColumns(Builder builder) {
+        this.size = builder.size;
+        this.filmIds = Arrays.copyOf(builder.filmIds, size);
+        this.durations = Arrays.copyOf(builder.durations, size);
+        this.releaseDays = Arrays.copyOf(builder.releaseDays, size);
+        this.ratingIds = Arrays.copyOf(builder.ratingIds, size);
+        this.popularity = Arrays.copyOf(builder.popularity, size);
+        this.genreMasks = Arrays.copyOf(builder.genreMasks, size * builder.words);
+        this.words = builder.words;
+        this.genreBits = Map.copyOf(builder.genreBits);
+        this.text = builder.text;
+        this.nameRefs = Arrays.copyOf(builder.nameRefs, size);
+        this.nameLengths = Arrays.copyOf(builder.nameLengths, size);
+        this.descriptionRefs = Arrays.copyOf(builder.descriptionRefs, size);
+        this.descriptionLengths = Arrays.copyOf(builder.descriptionLengths, size);
+        this.genreNames = Map.copyOf(builder.genreNames);
+        this.ratingNames = Map.copyOf(builder.ratingNames);
+
+        this.bitGenreIds = new int[genreBits.size()];
+        genreBits.forEach((genreId, bit) -> bitGenreIds[bit] = genreId);
+
+        this.releaseYears = new int[size];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int year = LocalDate.ofEpochDay(releaseDays[i]).getYear();
+            releaseYears[i] = year;
+            min = Math.min(min, year);
+            max = Math.max(max, year);
+        }
+        this.minYear = min;
+        this.maxYear = max;
+    }
+
+    private FilmColumns(FilmColumns source, int[] popularity) {
+        this.size = source.size;
+        this.filmIds = source.filmIds;
+        this.durations = source.durations;
+        this.releaseDays = source.releaseDays;
+        this.releaseYears = source.releaseYears;
+        this.ratingIds = source.ratingIds;
+        this.popularity = popularity;
+        this.genreMasks = source.genreMasks;
+        this.words = source.words;
+        this.genreBits = source.genreBits;
+        this.bitGenreIds = source.bitGenreIds;
+        this.text = source.text;
+        this.nameRefs = source.nameRefs;
+        this.nameLengths = source.nameLengths;
+        this.descriptionRefs = source.descriptionRefs;
+        this.descriptionLengths = source.descriptionLengths;
+        this.genreNames = source.genreNames;
+        this.ratingNames = source.ratingNames;
+        this.minYear = source.minYear;
+        this.maxYear = source.maxYear;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public int filmIdAt(int row) {
+        return filmIds[row];
+    }
+
+    /**
+     * Returns the row of the film, or {@code -1} if the film is not in this snapshot.
+     */
+    public int rowOf(int filmId) {
+        int row = Arrays.binarySearch(filmIds, filmId);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Decodes the row into a new {@link Film} with its genres in ascending id order.
+     */
+    public Film filmAt(int row) {
+        Integer ratingId = ratingIds[row] == 0 ? null : ratingIds[row];
+
+        List<Genre> genres = new ArrayList<>();
+        for (int word = 0; word < words; word++) {
+            long mask = genreMasks[row * words + word];
+            while (mask != 0) {
+                int genreId = bitGenreIds[word * Long.SIZE + Long.numberOfTrailingZeros(mask)];
+                genres.add(new Genre(genreId, genreNames.get(genreId)));
+                mask &= mask - 1;
+            }
+        }
+        genres.sort((first, second) -> Integer.compare(first.getId(), second.getId()));
+
+        return new Film(filmIds[row], text.read(nameRefs[row], nameLengths[row]),
+                text.read(descriptionRefs[row], descriptionLengths[row]), LocalDate.ofEpochDay(releaseDays[row]),
+                durations[row], ratingId == null ? null : new Rating(ratingId, ratingNames.get(ratingId)),
+                popularity[row], genres);
+    }
+
+    /**
+     * Returns a copy with the popularity of the given films replaced, or {@code null} if one of them is not in
+     * this snapshot. Only the popularity column is copied; the text arena is shared.
+     */
+    public FilmColumns withPopularity(Map<Integer, Integer> popularityById) {
+        int[] updated = popularity.clone();
+        for (Map.Entry<Integer, Integer> entry : popularityById.entrySet()) {
+            int row = rowOf(entry.getKey());
+            if (row < 0) {
+                return null;
+            }
+            updated[row] = entry.getValue();
+        }
+        return new FilmColumns(this, updated);
+    }
+
+    /**
+     * Keeps the text arena readable until {@link #release()}; returns {@code false} if it is already gone, in
+     * which case the caller should read the view again.
+     */
+    public boolean acquire() {
+        return text.retain();
+    }
+
+    public void release() {
+        text.release();
+    }
+
+    public long getTextBytes() {
+        return text.getAllocatedBytes();
+    }
+
+    int popularityAt(int row) {
+        return popularity[row];
+    }
+
+    int releaseYearAt(int row) {
+        return releaseYears[row];
+    }
+
+    int minYear() {
+        return minYear;
+    }
+
+    int maxYear() {
+        return maxYear;
+    }
+
+    /**
+     * Translates the filter into primitive bounds once, so that the scan loop only compares ints.
+     */
+    Predicate compile(FilmFilter filter) {
+        int genreWord = -1;
+        long genreBit = 0;
+        boolean empty = false;
+
+        if (filter.getGenreId() != null) {
+            Integer bit = genreBits.get(filter.getGenreId());
+            if (bit == null) {
+                empty = true;
+            } else {
+                genreWord = bit / Long.SIZE;
+                genreBit = 1L << (bit % Long.SIZE);
+            }
+        }
+
+        return new Predicate(
+                filter.getMinDuration() == null ? Integer.MIN_VALUE : filter.getMinDuration(),
+                filter.getMaxDuration() == null ? Integer.MAX_VALUE : filter.getMaxDuration(),
+                filter.getReleasedFrom() == null ? Integer.MIN_VALUE : (int) filter.getReleasedFrom().toEpochDay(),
+                filter.getReleasedTo() == null ? Integer.MAX_VALUE : (int) filter.getReleasedTo().toEpochDay(),
+                filter.getRatingId() == null ? -1 : filter.getRatingId(),
+                genreWord, genreBit, empty);
+    }
+
+
+    final class Predicate {
+
+        private final int minDuration;
+
+        private final int maxDuration;
+
+        private final int fromDay;
+
+        private final int toDay;
+
+        private final int ratingId;
+
+        private final int genreWord;
+
+        private final long genreBit;
+
+        private final boolean empty;
+
+
+        private Predicate(int minDuration, int maxDuration, int fromDay, int toDay, int ratingId, int genreWord,
+                          long genreBit, boolean empty) {
+            this.minDuration = minDuration;
+            this.maxDuration = maxDuration;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.ratingId = ratingId;
+            this.genreWord = genreWord;
+            this.genreBit = genreBit;
+            this.empty = empty;
+        }
+
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        boolean test(int row) {
+            int duration = durations[row];
+            int day = releaseDays[row];
+            return duration >= minDuration && duration <= maxDuration
+                    && day >= fromDay && day <= toDay
+                    && (ratingId < 0 || ratingIds[row] == ratingId)
+                    && (genreWord < 0 || (genreMasks[row * words + genreWord] & genreBit) != 0);
+        }
+
+    }
+
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int size;
+
+        private int[] filmIds = new int[INITIAL_CAPACITY];
+
+        private int[] durations = new int[INITIAL_CAPACITY];
+
+        private int[] releaseDays = new int[INITIAL_CAPACITY];
+
+        private int[] ratingIds = new int[INITIAL_CAPACITY];
+
+        private int[] popularity = new int[INITIAL_CAPACITY];
+
+        private long[] genreMasks = new long[INITIAL_CAPACITY];
+
+        private int words = 1;
+
+        private final Map<Integer, Integer> genreBits = new HashMap<>();
+
+        private final TextArena text;
+
+        private long[] nameRefs = new long[INITIAL_CAPACITY];
+
+        private int[] nameLengths = new int[INITIAL_CAPACITY];
+
+        private long[] descriptionRefs = new long[INITIAL_CAPACITY];
+
+        private int[] descriptionLengths = new int[INITIAL_CAPACITY];
+
+        private final Map<Integer, String> genreNames = new HashMap<>();
+
+        private final Map<Integer, String> ratingNames = new HashMap<>();
+
+
+        public Builder() {
+            this(new TextArena());
+        }
+
+        public Builder(TextArena text) {
+            this.text = text;
+        }
+
+
+        public Builder addGenreName(int genreId, String name) {
+            genreNames.put(genreId, name);
+            return this;
+        }
+
+        public Builder addRatingName(int ratingId, String name) {
+            ratingNames.put(ratingId, name);
+            return this;
+        }
+
+        /**
+         * Films must be added in ascending id order.
+         */
+        public Builder addFilm(int filmId, String name, String description, LocalDate releaseDate, int duration,
+                               Integer ratingId, int filmPopularity) {
+            if (size > 0 && filmIds[size - 1] >= filmId) {
+                throw new IllegalArgumentException("Films must be added in ascending id order, got " + filmId +
+                        " after " + filmIds[size - 1]);
+            }
+
+            if (size == filmIds.length) {
+                grow(size * 2);
+            }
+
+            filmIds[size] = filmId;
+            durations[size] = duration;
+            releaseDays[size] = (int) releaseDate.toEpochDay();
+            ratingIds[size] = ratingId == null ? 0 : ratingId;
+            popularity[size] = filmPopularity;
+
+            byte[] nameUtf8 = name.getBytes(StandardCharsets.UTF_8);
+            nameRefs[size] = text.append(nameUtf8);
+            nameLengths[size] = nameUtf8.length;
+
+            byte[] descriptionUtf8 = description.getBytes(StandardCharsets.UTF_8);
+            descriptionRefs[size] = text.append(descriptionUtf8);
+            descriptionLengths[size] = descriptionUtf8.length;
+
+            size++;
+            return this;
+        }
+
+        /**
+         * Tags an already added film with the genre; unknown films are ignored.
+         */
+        public Builder addGenre(int filmId, int genreId) {
+            int row = Arrays.binarySearch(filmIds, 0, size, filmId);
+            if (row < 0) {
+                return this;
+            }
+
+            int bit = genreBits.computeIfAbsent(genreId, id -> genreBits.size());
+            if (bit >= words * Long.SIZE) {
+                widen();
+            }
+            genreMasks[row * words + bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+            return this;
+        }
+
+        public FilmColumns build() {
+            return new FilmColumns(this);
+        }
+
+        /**
+         * Gives back the arena of a build that is abandoned.
+         */
+        public void release() {
+            text.release();
+        }
+
+
+        private void grow(int capacity) {
+            filmIds = Arrays.copyOf(filmIds, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            releaseDays = Arrays.copyOf(releaseDays, capacity);
+            ratingIds = Arrays.copyOf(ratingIds, capacity);
+            popularity = Arrays.copyOf(popularity, capacity);
+            genreMasks = Arrays.copyOf(genreMasks, capacity * words);
+            nameRefs = Arrays.copyOf(nameRefs, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            descriptionRefs = Arrays.copyOf(descriptionRefs, capacity);
+            descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+        }
+
+        private void widen() {
+            int capacity = filmIds.length;
+            long[] widened = new long[capacity * (words + 1)];
+            for (int row = 0; row < capacity; row++) {
+                System.arraycopy(genreMasks, row * words, widened, row * (words + 1), words);
+            }
+            genreMasks = widened;
+            words++;
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.materialized.MaterializedView;
+import ru.yandex.practicum.filmorate.materialized.RefreshContext;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.RatingRepository;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Columnar replica of FILMS.
+ *
+ * <p>The film service reports like changes and other film writes separately. When only likes changed, a
+ * refresh re-reads the popularity of the reported films and copies the popularity column; the text arena and
+ * every other column are shared with the previous snapshot. Any other write, or a change to genres or
+ * ratings, rebuilds the replica from one ordered pass over the table. A rebuild releases the previous arena,
+ * whose chunks return to the {@link ChunkPool} for the next rebuild as soon as no reader holds it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmColumnsView implements MaterializedView<FilmColumns> {
+
+    public static final String NAME = "film-columns";
+
+    private static final int MAX_SPARE_CHUNKS = 64;
+
+    private final FilmRepository filmRepository;
+
+    private final GenreRepository genreRepository;
+
+    private final RatingRepository ratingRepository;
+
+    private final ChunkPool chunkPool = new ChunkPool(TextArena.DEFAULT_CHUNK_SIZE, MAX_SPARE_CHUNKS);
+
+    private final Set<Integer> likedFilms = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean filmsChanged = new AtomicBoolean();
+
+    private FilmColumns current;
+
+
+    /**
+     * Like {@link #filmsChanged()}, must be called before the write is published to {@code DataVersions}, so
+     * that the refresh it triggers already sees it.
+     */
+    public void likesChanged(Integer filmId) {
+        likedFilms.add(filmId);
+    }
+
+    public void filmsChanged() {
+        filmsChanged.set(true);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Set<DataDomain> getSources() {
+        return EnumSet.of(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS);
+    }
+
+    @Override
+    public FilmColumns refresh(RefreshContext<FilmColumns> context) {
+        List<Integer> filmIds = new ArrayList<>(likedFilms);
+        likedFilms.removeAll(filmIds);
+        boolean rebuild = filmsChanged.getAndSet(false) || context.isFull() || current == null || filmIds.isEmpty()
+                || context.hasChanged(DataDomain.GENRES) || context.hasChanged(DataDomain.RATINGS);
+
+        if (!rebuild) {
+            Map<Integer, Integer> popularity = filmRepository.findPopularity(filmIds);
+            FilmColumns updated = popularity.size() == filmIds.size() ? current.withPopularity(popularity) : null;
+            if (updated != null) {
+                current = updated;
+                log.debug("Updated popularity of {} films in {}", filmIds.size(), NAME);
+                return updated;
+            }
+        }
+
+        return rebuild();
+    }
+
+    public ChunkPool getChunkPool() {
+        return chunkPool;
+    }
+
+
+    private FilmColumns rebuild() {
+        FilmColumns.Builder builder = new FilmColumns.Builder(new TextArena(chunkPool));
+        FilmColumns columns;
+        try {
+            for (Genre genre : genreRepository.findAll()) {
+                builder.addGenreName(genre.getId(), genre.getName());
+            }
+            for (Rating rating : ratingRepository.findAll()) {
+                builder.addRatingName(rating.getId(), rating.getName());
+            }
+            filmRepository.loadFilmColumns(builder);
+            columns = builder.build();
+        } catch (RuntimeException ex) {
+            builder.release();
+            throw ex;
+        }
+
+        FilmColumns previous = current;
+        current = columns;
+        if (previous != null) {
+            previous.release();
+        }
+
+        log.debug("Built {} with {} films, {} bytes of off-heap text", NAME, columns.size(), columns.getTextBytes());
+        return columns;
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Conjunction of optional bounds, bound from query parameters of the same name; a {@code null} bound does not
+ * restrict the scan.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmFilter {
+
+    private Integer minDuration;
+
+    private Integer maxDuration;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedTo;
+
+    private Integer ratingId;
+
+    private Integer genreId;
+
+}
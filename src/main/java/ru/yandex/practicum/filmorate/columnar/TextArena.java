@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only store of UTF-8 text in direct (off-heap) buffers, so that large catalogs do not keep one
+ * {@code String} per field on the heap. A value is addressed by the reference returned from {@link #append}
+ * (chunk index in the high half, offset in the low half) plus its encoded length, both of which callers keep
+ * in primitive arrays. Values never span chunks; a value larger than a chunk gets a chunk of its own.
+ *
+ * <p>Appending is single-threaded; once the arena is published, any number of threads may read.
+ *
+ * <p>The arena is reference counted. It starts with one reference held by its owner; readers that may still
+ * be running when the owner lets go take their own with {@link #retain()}. When the last reference is
+ * released, the chunks go back to the {@link ChunkPool} and the arena must not be read again.
+ */
+public final class TextArena {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ChunkPool pool;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private ByteBuffer current;
+
+    private long usedBytes;
+
+
+    public TextArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public TextArena(int chunkSize) {
+        this(new ChunkPool(chunkSize, 0));
+    }
+
+    public TextArena(ChunkPool pool) {
+        this.pool = pool;
+    }
+
+
+    public long append(byte[] utf8) {
+        if (current == null || current.remaining() < utf8.length) {
+            current = pool.take(utf8.length);
+            chunks.add(current);
+        }
+
+        long reference = (long) (chunks.size() - 1) << 32 | current.position();
+        current.put(utf8);
+        usedBytes += utf8.length;
+        return reference;
+    }
+
+    public String read(long reference, int length) {
+        byte[] utf8 = new byte[length];
+        copy(reference, utf8, length);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the encoded value into the start of {@code target}, which must hold at least its length.
+     */
+    public void copy(long reference, byte[] target, int length) {
+        ByteBuffer chunk = chunks.get((int) (reference >>> 32)).duplicate();
+        chunk.position((int) reference);
+        chunk.get(target, 0, length);
+    }
+
+    /**
+     * Takes a reference for a reader; returns {@code false} if the arena has already been released.
+     */
+    public boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        int count = references.decrementAndGet();
+        if (count < 0) {
+            throw new IllegalStateException("Text arena released more often than retained");
+        }
+        if (count == 0) {
+            for (ByteBuffer chunk : chunks) {
+                pool.give(chunk);
+            }
+            chunks.clear();
+            current = null;
+        }
+    }
+
+    public boolean isReleased() {
+        return references.get() == 0;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer chunk : chunks) {
+            allocated += chunk.capacity();
+        }
+        return allocated;
+    }
+
+}
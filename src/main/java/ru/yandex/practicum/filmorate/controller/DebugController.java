@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.batching.BatchLoader;
+import ru.yandex.practicum.filmorate.bloom.UserKeyFilters;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlightRegistry;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
+import ru.yandex.practicum.filmorate.logging.AsyncLogSink;
+import ru.yandex.practicum.filmorate.logging.SamplingStrategy;
+import ru.yandex.practicum.filmorate.materialized.MaterializedViews;
+import ru.yandex.practicum.filmorate.replication.Replication;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
+import ru.yandex.practicum.filmorate.sharding.ShardRebalancer;
+import ru.yandex.practicum.filmorate.tracing.RequestTrace;
+import ru.yandex.practicum.filmorate.tracing.TraceStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/debug")
+public class DebugController {
+
+    private AsyncLogSink asyncLogSink;
+
+    private SamplingStrategy samplingStrategy;
+
+    private TraceStore traceStore;
+
+    private SingleFlightRegistry singleFlightRegistry;
+
+    private List<BatchLoader<?, ?>> batchLoaders;
+
+    private MaterializedViews materializedViews;
+
+    private ResponseCache responseCache;
+
+    private LikeIngestion likeIngestion;
+
+    private UserKeyFilters userKeyFilters;
+
+    private ShardRebalancer shardRebalancer;
+
+    private Replication replication;
+
+
+    @GetMapping(value = "/logbook", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Long> getLogbookCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("written", asyncLogSink.getWritten());
+        counters.put("queued", (long) asyncLogSink.getQueued());
+        counters.put("dropped", asyncLogSink.getDropped());
+        counters.put("sampledOut", samplingStrategy.getSampledOut());
+        return counters;
+    }
+
+    @GetMapping(value = "/traces", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<RequestTrace> getSlowestTraces() {
+        return traceStore.getSlowest();
+    }
+
+    @DeleteMapping("/traces")
+    public void clearTraces() {
+        traceStore.clear();
+    }
+
+    @GetMapping(value = "/single-flight", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> getSingleFlightStatistics() {
+        return singleFlightRegistry.getStatistics();
+    }
+
+    @GetMapping(value = "/batching", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> getBatchingStatistics() {
+        List<Map<String, Object>> statistics = new ArrayList<>();
+
+        for (BatchLoader<?, ?> loader : batchLoaders) {
+            Map<String, Object> loaderStatistics = new LinkedHashMap<>();
+            loaderStatistics.put("name", loader.getName());
+            loaderStatistics.put("lookups", loader.getLookups());
+            loaderStatistics.put("batches", loader.getBatches());
+            statistics.add(loaderStatistics);
+        }
+
+        return statistics;
+    }
+
+    @GetMapping(value = "/views", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> getViewStatistics() {
+        return materializedViews.getStatistics();
+    }
+
+    @GetMapping(value = "/response-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getResponseCacheStatistics() {
+        return responseCache.getStatistics();
+    }
+
+    @GetMapping(value = "/likes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getLikeIngestionStatistics() {
+        return likeIngestion.getStatistics();
+    }
+
+    @GetMapping(value = "/bloom", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getBloomStatistics() {
+        return userKeyFilters.getStatistics();
+    }
+
+    @GetMapping(value = "/shards", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Integer> getShardUserCounts() {
+        return shardRebalancer.countUsers();
+    }
+
+    @GetMapping(value = "/replication", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getReplicationStatistics() {
+        return replication.getStatistics();
+    }
+
+}
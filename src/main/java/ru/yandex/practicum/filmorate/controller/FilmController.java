@@ -3,10 +3,22 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.codec.NegotiatedMapping;
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
+import ru.yandex.practicum.filmorate.service.FilmScanService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+import ru.yandex.practicum.filmorate.versioning.EntityTag;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -21,6 +33,14 @@ public class FilmController {
 
     private FilmService filmService;
 
+    private FilmScanService filmScanService;
+
+    private DataVersions dataVersions;
+
+    private ResponseCache responseCache;
+
+    private LikeIngestion likeIngestion;
+
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public Film save(@Valid @RequestBody Film newFilm) {
@@ -39,15 +59,25 @@ public class FilmController {
     }
 
 
-    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Film findByID(@PathVariable("id") Integer filmID) {
+    @NegotiatedMapping("/{id}")
+    public Film findByID(@PathVariable("id") Integer filmID, WebRequest request) {
         log.info("Start fetching film with id = {}", filmID);
+        EntityTag tag = likeIngestion.pendingLikes(filmID) > 0 ? null : dataVersions.filmTag(filmID);
+        if (tag != null && tag.checkNotModified(request)) {
+            log.info("Finish fetching film with id = {}: not modified", filmID);
+            return null;
+        }
+        if (tag != null && responseCache.serve("films/" + filmID, () -> dataVersions.filmTag(filmID), request,
+                () -> filmService.findById(filmID))) {
+            log.info("Finish fetching film with id = {}: written from the response cache", filmID);
+            return null;
+        }
         Film fetchedFilm = filmService.findById(filmID);
         log.info("Finish fetching film with id = {}", fetchedFilm.getId());
         return fetchedFilm;
     }
 
-    @GetMapping(value = "/name/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @NegotiatedMapping("/name/{name}")
     public Film findByName(@PathVariable("name") String filmName) {
         log.info("Start fetching film with name = {}", filmName);
         Film fetchedFilm = filmService.findByName(filmName);
@@ -55,12 +85,50 @@ public class FilmController {
         return fetchedFilm;
     }
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Film> findAll() {
+    @NegotiatedMapping
+    public MappingJacksonValue findAll(@RequestParam(required = false) String fields,
+                                       @RequestParam(required = false) String include,
+                                       WebRequest request) {
         log.info("Start fetching all films");
-        List<Film> fetchedFilms = filmService.findAll();
+        Projection projection = Projection.forFilms(fields, include);
+        EntityTag tag = dataVersions.tagOf(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching all films: not modified");
+            return null;
+        }
+        List<Film> fetchedFilms = filmService.findAll(projection);
         log.info("Finish fetching all films");
-        return fetchedFilms;
+        return projection.apply(fetchedFilms);
+    }
+
+    @NegotiatedMapping(params = "ids")
+    public ResponseEntity<MappingJacksonValue> findByIds(@RequestParam List<Integer> ids,
+                                                         @RequestParam(required = false) String fields,
+                                                         @RequestParam(required = false) String include,
+                                                         WebRequest request) {
+        log.info("Start fetching films with ids = {}", ids);
+        MultiGet.checkIds(ids);
+        Projection projection = Projection.forFilms(fields, include);
+        EntityTag tag = dataVersions.tagOf(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching films with ids = {}: not modified", ids);
+            return null;
+        }
+        List<Film> fetchedFilms = filmService.findByIds(ids, projection);
+        log.info("Finish fetching {} of {} films by ids", fetchedFilms.size(), ids.size());
+        return MultiGet.respond(ids, fetchedFilms, Film::getId, projection);
+    }
+
+    @NegotiatedMapping(value = "/by-ids", method = RequestMethod.POST)
+    public ResponseEntity<MappingJacksonValue> findByIds(@RequestBody List<Integer> ids,
+                                                         @RequestParam(required = false) String fields,
+                                                         @RequestParam(required = false) String include) {
+        log.info("Start fetching {} films by ids", ids == null ? 0 : ids.size());
+        MultiGet.checkIds(ids);
+        Projection projection = Projection.forFilms(fields, include);
+        List<Film> fetchedFilms = filmService.findByIds(ids, projection);
+        log.info("Finish fetching {} of {} films by ids", fetchedFilms.size(), ids.size());
+        return MultiGet.respond(ids, fetchedFilms, Film::getId, projection);
     }
 
     @DeleteMapping(value = "/{id}")
@@ -80,10 +148,16 @@ public class FilmController {
     }
 
     @PutMapping("/{id}/like/{userId}")
-    public void addLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
+    public ResponseEntity<Void> addLike(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
         log.info("Start adding like to film with id = {} from user with id = {}", filmId, userId);
+        if (likeIngestion.isAsync()) {
+            filmService.acceptLike(filmId, userId);
+            log.info("Finish accepting like to film with id = {} from user with id = {}", filmId, userId);
+            return ResponseEntity.accepted().build();
+        }
         filmService.addLike(filmId, userId);
         log.info("Finish adding like to film with id = {} from user with id = {}", filmId, userId);
+        return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/like/{userId}")
@@ -94,12 +168,40 @@ public class FilmController {
         return isRemoved;
     }
 
-    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Film> getTopByLikes(@RequestParam(defaultValue = "10")  @Positive Integer count) {
+    @NegotiatedMapping("/popular")
+    public MappingJacksonValue getTopByLikes(@RequestParam(defaultValue = "10")  @Positive Integer count,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String include,
+                                             WebRequest request) {
         log.info("Start fetching {} top films by likes", count);
-        List<Film> topFilms = filmService.getTopByLikes(count);
+        Projection projection = Projection.forFilms(fields, include);
+        EntityTag tag = dataVersions.tagOf(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching {} top films by likes: not modified", count);
+            return null;
+        }
+        if (responseCache.serve("films/popular?count=" + count + "&fields=" + fields + "&include=" + include,
+                () -> dataVersions.tagOf(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS), request,
+                () -> projection.apply(filmService.getTopByLikes(count, projection)))) {
+            log.info("Finish fetching {} top films by likes: written from the response cache", count);
+            return null;
+        }
+        List<Film> topFilms = filmService.getTopByLikes(count, projection);
         log.info("Finish fetching {} top films by likes", count);
-        return topFilms;
+        return projection.apply(topFilms);
+    }
+
+    @NegotiatedMapping("/scan")
+    public MappingJacksonValue scan(FilmFilter filter,
+                                    @RequestParam(defaultValue = "id") String sort,
+                                    @RequestParam(defaultValue = "100") Integer limit,
+                                    @RequestParam(required = false) String fields,
+                                    @RequestParam(required = false) String include) {
+        log.info("Start scanning films by {}, sort = {}, limit = {}", filter, sort, limit);
+        Projection projection = Projection.forFilms(fields, include);
+        List<Film> films = filmScanService.scan(filter, sort, limit);
+        log.info("Finish scanning films by {}: {} films", filter, films.size());
+        return projection.apply(films);
     }
 
-}
\ No newline at end of file
+}
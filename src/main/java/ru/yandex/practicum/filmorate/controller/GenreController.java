@@ -4,8 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+import ru.yandex.practicum.filmorate.versioning.EntityTag;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -18,6 +23,10 @@ public class GenreController {
 
     private GenreService genreService;
 
+    private DataVersions dataVersions;
+
+    private ResponseCache responseCache;
+
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public Genre save(@Valid @RequestBody Genre newGenre) {
@@ -35,8 +44,13 @@ public class GenreController {
     }
 
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Genre findByID(@PathVariable("id") Integer genreID) {
+    public Genre findByID(@PathVariable("id") Integer genreID, WebRequest request) {
         log.info("Start fetching genre with id = {}", genreID);
+        EntityTag tag = dataVersions.tagOf(DataDomain.GENRES);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching genre with id = {}: not modified", genreID);
+            return null;
+        }
         Genre fetchedGenre = genreService.findByID(genreID);
         log.info("Finish fetching genre with id = {}", fetchedGenre.getId());
         return fetchedGenre;
@@ -51,8 +65,18 @@ public class GenreController {
     }
 
     @GetMapping
-    public List<Genre> findAll() {
+    public List<Genre> findAll(WebRequest request) {
         log.info("Start fetching all genres");
+        EntityTag tag = dataVersions.tagOf(DataDomain.GENRES);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching all genres: not modified");
+            return null;
+        }
+        if (responseCache.serve("genres", () -> dataVersions.tagOf(DataDomain.GENRES), request,
+                genreService::findAll)) {
+            log.info("Finish fetching all genres: written from the response cache");
+            return null;
+        }
         List<Genre> fetchedFilms = genreService.findAll();
         log.info("Finish fetching all genres");
         return fetchedFilms;
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.yandex.practicum.filmorate.projection.Projection;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Shared handling of the {@code ?ids=} and {@code /by-ids} lookups: entities come back in request order,
+ * ids that matched nothing are listed in the {@value #MISSING_IDS_HEADER} header instead of failing the call.
+ */
+final class MultiGet {
+
+    static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+
+    static final int MAX_IDS = 500;
+
+
+    private MultiGet() {
+    }
+
+    static void checkIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids can be requested at once");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("Ids must not be empty");
+        }
+    }
+
+    static <T> ResponseEntity<MappingJacksonValue> respond(List<Integer> ids, List<T> found,
+                                                           Function<T, Integer> idOf, Projection projection) {
+        Set<Integer> missing = new LinkedHashSet<>(ids);
+        found.forEach(entity -> missing.remove(idOf.apply(entity)));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!missing.isEmpty()) {
+            response.header(MISSING_IDS_HEADER,
+                    missing.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        return response.body(projection.apply(found));
+    }
+
+}
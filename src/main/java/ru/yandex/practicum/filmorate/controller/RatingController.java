@@ -4,8 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
 import ru.yandex.practicum.filmorate.service.RatingService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+import ru.yandex.practicum.filmorate.versioning.EntityTag;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -18,6 +23,10 @@ public class RatingController {
 
     private RatingService ratingService;
 
+    private DataVersions dataVersions;
+
+    private ResponseCache responseCache;
+
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public Rating save(@Valid @RequestBody Rating newRating) {
@@ -35,8 +44,13 @@ public class RatingController {
     }
 
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Rating findByID(@PathVariable("id") Integer ratingID) {
+    public Rating findByID(@PathVariable("id") Integer ratingID, WebRequest request) {
         log.info("Start fetching rating with id = {}", ratingID);
+        EntityTag tag = dataVersions.tagOf(DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching rating with id = {}: not modified", ratingID);
+            return null;
+        }
         Rating fetchedRating = ratingService.findByID(ratingID);
         log.info("Finish fetching rating with id = {}", fetchedRating.getId());
         return fetchedRating;
@@ -51,8 +65,18 @@ public class RatingController {
     }
 
     @GetMapping
-    public List<Rating> findAll() {
+    public List<Rating> findAll(WebRequest request) {
         log.info("Start fetching all ratings");
+        EntityTag tag = dataVersions.tagOf(DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching all ratings: not modified");
+            return null;
+        }
+        if (responseCache.serve("mpa", () -> dataVersions.tagOf(DataDomain.RATINGS), request,
+                ratingService::findAll)) {
+            log.info("Finish fetching all ratings: written from the response cache");
+            return null;
+        }
         List<Rating> fetchedRatings = ratingService.findAll();
         log.info("Finish fetching all ratings");
         return fetchedRatings;
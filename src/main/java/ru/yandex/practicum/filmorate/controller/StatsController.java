@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+import ru.yandex.practicum.filmorate.service.FilmScanService;
+import ru.yandex.practicum.filmorate.service.StatsService;
+
+import java.util.Map;
+
+@RestController
+@Slf4j
+@AllArgsConstructor
+@RequestMapping("/stats")
+public class StatsController {
+
+    private StatsService statsService;
+
+    private FilmScanService filmScanService;
+
+
+    @GetMapping(value = "/catalog", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CatalogStats getCatalogStats() {
+        log.info("Start fetching catalog statistics");
+        CatalogStats stats = statsService.getCatalogStats();
+        log.info("Finish fetching catalog statistics: {} films", stats.getFilms());
+        return stats;
+    }
+
+    @GetMapping(value = "/release-years", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<Integer, Long> getReleaseYearHistogram(FilmFilter filter) {
+        log.info("Start fetching release year histogram for {}", filter);
+        Map<Integer, Long> histogram = filmScanService.getReleaseYearHistogram(filter);
+        log.info("Finish fetching release year histogram for {}: {} years", filter, histogram.size());
+        return histogram;
+    }
+
+}
@@ -3,9 +3,23 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.codec.NegotiatedMapping;
+import ru.yandex.practicum.filmorate.model.Connection;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserProfile;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.service.ConnectionService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ProfileService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+import ru.yandex.practicum.filmorate.versioning.EntityTag;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -18,6 +32,14 @@ public class UserController {
 
     private UserService userService;
 
+    private FilmService filmService;
+
+    private DataVersions dataVersions;
+
+    private ProfileService profileService;
+
+    private ConnectionService connectionService;
+
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public User save(@Valid @RequestBody User newUser) {
@@ -35,15 +57,20 @@ public class UserController {
         return updatedUser;
     }
 
-    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public User findByID(@PathVariable("id") Integer userID) {
+    @NegotiatedMapping("/{id}")
+    public User findByID(@PathVariable("id") Integer userID, WebRequest request) {
         log.info("Start fetching user with id = {}", userID);
+        EntityTag tag = dataVersions.userTag(userID);
+        if (tag != null && tag.checkNotModified(request)) {
+            log.info("Finish fetching user with id = {}: not modified", userID);
+            return null;
+        }
         User fetchedUser = userService.findById(userID);
         log.info("Finish fetching user with id = {}", fetchedUser.getId());
         return fetchedUser;
     }
 
-    @GetMapping(value = "/name/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @NegotiatedMapping("/name/{name}")
     public User findByName(@PathVariable("name") String userName) {
         log.info("Start fetching user with name = {}", userName);
         User fetchedUser = userService.findByName(userName);
@@ -51,12 +78,46 @@ public class UserController {
         return fetchedUser;
     }
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<User> findAll() {
+    @NegotiatedMapping
+    public MappingJacksonValue findAll(@RequestParam(required = false) String fields, WebRequest request) {
         log.info("Start fetching all users");
-        List<User> fetchedUsers = userService.findAll();
+        Projection projection = Projection.forUsers(fields);
+        EntityTag tag = dataVersions.tagOf(DataDomain.USERS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching all users: not modified");
+            return null;
+        }
+        List<User> fetchedUsers = userService.findAll(projection);
         log.info("Finish fetching all users");
-        return fetchedUsers;
+        return projection.apply(fetchedUsers);
+    }
+
+    @NegotiatedMapping(params = "ids")
+    public ResponseEntity<MappingJacksonValue> findByIds(@RequestParam List<Integer> ids,
+                                                         @RequestParam(required = false) String fields,
+                                                         WebRequest request) {
+        log.info("Start fetching users with ids = {}", ids);
+        MultiGet.checkIds(ids);
+        Projection projection = Projection.forUsers(fields);
+        EntityTag tag = dataVersions.tagOf(DataDomain.USERS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching users with ids = {}: not modified", ids);
+            return null;
+        }
+        List<User> fetchedUsers = userService.findByIds(ids, projection);
+        log.info("Finish fetching {} of {} users by ids", fetchedUsers.size(), ids.size());
+        return MultiGet.respond(ids, fetchedUsers, User::getId, projection);
+    }
+
+    @NegotiatedMapping(value = "/by-ids", method = RequestMethod.POST)
+    public ResponseEntity<MappingJacksonValue> findByIds(@RequestBody List<Integer> ids,
+                                                         @RequestParam(required = false) String fields) {
+        log.info("Start fetching {} users by ids", ids == null ? 0 : ids.size());
+        MultiGet.checkIds(ids);
+        Projection projection = Projection.forUsers(fields);
+        List<User> fetchedUsers = userService.findByIds(ids, projection);
+        log.info("Finish fetching {} of {} users by ids", fetchedUsers.size(), ids.size());
+        return MultiGet.respond(ids, fetchedUsers, User::getId, projection);
     }
 
     @DeleteMapping(value = "/{id}")
@@ -90,20 +151,78 @@ public class UserController {
         return isRemoved;
     }
 
-    @GetMapping(value = "/{id}/friends", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<User> findFriendsById(@PathVariable("id") Integer userID) {
+    @NegotiatedMapping("/{id}/friends")
+    public MappingJacksonValue findFriendsById(@PathVariable("id") Integer userID,
+                                               @RequestParam(required = false) String fields,
+                                               WebRequest request) {
         log.info("Start fetching all friends of user with id = {}", userID);
-        List<User> fetchedUsers = userService.findFriendsById(userID);
+        Projection projection = Projection.forUsers(fields);
+        EntityTag tag = dataVersions.tagOf(DataDomain.USERS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching all friends of user with id = {}: not modified", userID);
+            return null;
+        }
+        List<User> fetchedUsers = userService.findFriendsById(userID, projection);
         log.info("Finish fetching all friends of user with id = {}", userID);
-        return fetchedUsers;
+        return projection.apply(fetchedUsers);
     }
 
-    @GetMapping(value = "/{id}/friends/common/{otherId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<User> getCommonFriends(@PathVariable("id") Integer user1ID, @PathVariable("otherId") Integer user2ID) {
+    @NegotiatedMapping("/{id}/friends/common/{otherId}")
+    public MappingJacksonValue getCommonFriends(@PathVariable("id") Integer user1ID,
+                                                @PathVariable("otherId") Integer user2ID,
+                                                @RequestParam(required = false) String fields,
+                                                WebRequest request) {
         log.info("Start fetching common friends of users with id = {} and id = {}", user1ID, user2ID);
-        List<User> fetchedUsers = userService.getCommonFriends(user1ID, user2ID);
+        Projection projection = Projection.forUsers(fields);
+        EntityTag tag = dataVersions.tagOf(DataDomain.USERS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching common friends of users with id = {} and id = {}: not modified",
+                    user1ID, user2ID);
+            return null;
+        }
+        List<User> fetchedUsers = userService.getCommonFriends(user1ID, user2ID, projection);
         log.info("Finish fetching common friends of users with id = {} and id = {}", user1ID, user2ID);
-        return fetchedUsers;
+        return projection.apply(fetchedUsers);
+    }
+
+    @NegotiatedMapping("/{id}/likes")
+    public MappingJacksonValue findLikedFilms(@PathVariable("id") Integer userID,
+                                              @RequestParam(defaultValue = "0") Integer from,
+                                              @RequestParam(defaultValue = "20") Integer size,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestParam(required = false) String include,
+                                              WebRequest request) {
+        log.info("Start fetching films liked by user with id = {}", userID);
+        Projection projection = Projection.forFilms(fields, include);
+        EntityTag tag = dataVersions.tagOf(DataDomain.USERS, DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS);
+        if (tag.checkNotModified(request)) {
+            log.info("Finish fetching films liked by user with id = {}: not modified", userID);
+            return null;
+        }
+        List<Film> likedFilms = filmService.findLikedByUser(userID, from, size, projection);
+        log.info("Finish fetching films liked by user with id = {}", userID);
+        return projection.apply(likedFilms);
+    }
+
+    @GetMapping(value = "/{id}/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+    public UserProfile getProfile(@PathVariable("id") Integer userID,
+                                  @RequestParam(defaultValue = "10") Integer recommendations) {
+        log.info("Start assembling profile of user with id = {}", userID);
+        UserProfile profile = profileService.getProfile(userID, recommendations);
+        log.info("Finish assembling profile of user with id = {}, incomplete sections: {}", userID,
+                profile.getIncomplete());
+        return profile;
+    }
+
+    @GetMapping(value = "/{id}/distance/{otherId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Connection findConnection(@PathVariable("id") Integer userID,
+                                     @PathVariable("otherId") Integer otherID,
+                                     @RequestParam(required = false) Integer maxHops) {
+        log.info("Start searching connection between users with id = {} and id = {}", userID, otherID);
+        Connection connection = connectionService.findConnection(userID, otherID, maxHops);
+        log.info("Finish searching connection between users with id = {} and id = {}: {}", userID, otherID,
+                connection.getStatus());
+        return connection;
     }
 
 }
\ No newline at end of file
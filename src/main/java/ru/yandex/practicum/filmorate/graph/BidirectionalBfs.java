@@ -0,0 +1,254 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import ru.yandex.practicum.filmorate.model.ConnectionStatus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shortest friend path between two users, searched level by level from both ends at once: friendships are
+ * followed forwards from the source and backwards from the target, always expanding the smaller frontier.
+ *
+ * <p>Queues, parent links and visited bitsets are preallocated per graph size and handed from search to
+ * search. Only the entries a search touched are cleared afterwards, so a short search on a large graph
+ * costs nothing proportional to the graph. At most {@code maxPooledScratch} scratch areas are retained.
+ */
+public class BidirectionalBfs {
+
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    private final Queue<Scratch> pool = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final int maxPooledScratch;
+
+
+    public BidirectionalBfs(int maxPooledScratch) {
+        this.maxPooledScratch = maxPooledScratch;
+    }
+
+
+    public SearchResult search(FriendGraph graph, int source, int target, int maxHops, long deadlineNanos) {
+        if (source == target) {
+            return new SearchResult(ConnectionStatus.CONNECTED, new int[]{source});
+        }
+
+        Scratch scratch = borrow(graph.size());
+        try {
+            return search(graph, scratch, source, target, maxHops, deadlineNanos);
+        } finally {
+            scratch.clear();
+            release(scratch);
+        }
+    }
+
+
+    private static SearchResult search(FriendGraph graph, Scratch s, int source, int target, int maxHops,
+                                       long deadlineNanos) {
+        s.forwardQueue[s.forwardTail++] = source;
+        set(s.forwardVisited, source);
+        s.forwardParent[source] = -1;
+
+        s.backwardQueue[s.backwardTail++] = target;
+        set(s.backwardVisited, target);
+        s.backwardParent[target] = -1;
+
+        int forwardHead = 0;
+        int backwardHead = 0;
+        int forwardLevel = 0;
+        int backwardLevel = 0;
+        int relaxed = 0;
+
+        while (true) {
+            if (forwardLevel + backwardLevel >= maxHops) {
+                return new SearchResult(ConnectionStatus.HOP_LIMIT_REACHED, null);
+            }
+            if (System.nanoTime() - deadlineNanos > 0) {
+                return new SearchResult(ConnectionStatus.TIME_BUDGET_EXCEEDED, null);
+            }
+
+            boolean forward = s.forwardTail - forwardHead <= s.backwardTail - backwardHead;
+            int[] offsets = forward ? graph.outOffsets() : graph.inOffsets();
+            int[] adjacency = forward ? graph.outTargets() : graph.inTargets();
+            int[] queue = forward ? s.forwardQueue : s.backwardQueue;
+            long[] visited = forward ? s.forwardVisited : s.backwardVisited;
+            long[] opposite = forward ? s.backwardVisited : s.forwardVisited;
+            int[] parent = forward ? s.forwardParent : s.backwardParent;
+            int head = forward ? forwardHead : backwardHead;
+            int tail = forward ? s.forwardTail : s.backwardTail;
+            int levelEnd = tail;
+
+            for (int i = head; i < levelEnd; i++) {
+                int node = queue[i];
+
+                for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                    int next = adjacency[edge];
+
+                    if ((++relaxed & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadlineNanos > 0) {
+                        s.sync(forward, tail);
+                        return new SearchResult(ConnectionStatus.TIME_BUDGET_EXCEEDED, null);
+                    }
+
+                    if (isSet(visited, next)) {
+                        continue;
+                    }
+
+                    set(visited, next);
+                    parent[next] = node;
+                    queue[tail++] = next;
+
+                    // Frontiers were disjoint before this level, so the first meeting is a shortest path.
+                    if (isSet(opposite, next)) {
+                        s.sync(forward, tail);
+                        return new SearchResult(ConnectionStatus.CONNECTED, path(s, next));
+                    }
+                }
+            }
+
+            s.sync(forward, tail);
+            if (levelEnd == tail) {
+                return new SearchResult(ConnectionStatus.NOT_CONNECTED, null);
+            }
+
+            if (forward) {
+                forwardHead = levelEnd;
+                forwardLevel++;
+            } else {
+                backwardHead = levelEnd;
+                backwardLevel++;
+            }
+        }
+    }
+
+    private static int[] path(Scratch s, int meeting) {
+        int forwardLength = 0;
+        for (int node = meeting; node != -1; node = s.forwardParent[node]) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        for (int node = s.backwardParent[meeting]; node != -1; node = s.backwardParent[node]) {
+            backwardLength++;
+        }
+
+        int[] path = new int[forwardLength + backwardLength];
+        int position = forwardLength - 1;
+        for (int node = meeting; node != -1; node = s.forwardParent[node]) {
+            path[position--] = node;
+        }
+        position = forwardLength;
+        for (int node = s.backwardParent[meeting]; node != -1; node = s.backwardParent[node]) {
+            path[position++] = node;
+        }
+        return path;
+    }
+
+    private Scratch borrow(int size) {
+        Scratch scratch = pool.poll();
+        if (scratch == null) {
+            return new Scratch(size);
+        }
+
+        pooled.decrementAndGet();
+        return scratch.capacity() >= size ? scratch : new Scratch(size);
+    }
+
+    private void release(Scratch scratch) {
+        if (pooled.incrementAndGet() <= maxPooledScratch) {
+            pool.offer(scratch);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+
+    public static final class SearchResult {
+
+        private final ConnectionStatus status;
+
+        private final int[] path;
+
+
+        SearchResult(ConnectionStatus status, int[] path) {
+            this.status = status;
+            this.path = path;
+        }
+
+
+        public ConnectionStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Dense indexes of the users on the path, source first; {@code null} unless {@link ConnectionStatus#CONNECTED}.
+         */
+        public int[] getPath() {
+            return path;
+        }
+
+    }
+
+    private static final class Scratch {
+
+        private final int[] forwardQueue;
+
+        private final int[] backwardQueue;
+
+        private final int[] forwardParent;
+
+        private final int[] backwardParent;
+
+        private final long[] forwardVisited;
+
+        private final long[] backwardVisited;
+
+        private int forwardTail;
+
+        private int backwardTail;
+
+
+        Scratch(int size) {
+            forwardQueue = new int[size];
+            backwardQueue = new int[size];
+            forwardParent = new int[size];
+            backwardParent = new int[size];
+            forwardVisited = new long[(size + 63) >>> 6];
+            backwardVisited = new long[(size + 63) >>> 6];
+        }
+
+
+        int capacity() {
+            return forwardQueue.length;
+        }
+
+        void sync(boolean forward, int tail) {
+            if (forward) {
+                forwardTail = tail;
+            } else {
+                backwardTail = tail;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < forwardTail; i++) {
+                forwardVisited[forwardQueue[i] >>> 6] = 0;
+            }
+            for (int i = 0; i < backwardTail; i++) {
+                backwardVisited[backwardQueue[i] >>> 6] = 0;
+            }
+            forwardTail = 0;
+            backwardTail = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of USER_FRIENDSHIP in compressed sparse row form. Users are addressed by a dense index
+ * (their position among the sorted user ids); {@code outTargets[outOffsets[i] .. outOffsets[i + 1])} are the
+ * friends of user {@code i} and {@code inTargets[inOffsets[i] .. inOffsets[i + 1])} the users who added them.
+ */
+public final class FriendGraph {
+
+    private final int[] userIds;
+
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final int[] inOffsets;
+
+    private final int[] inTargets;
+
+
+    private FriendGraph(int[] userIds, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inTargets) {
+        this.userIds = userIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+    }
+
+
+    public int size() {
+        return userIds.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Returns the dense index of the user, or {@code -1} if the user is not in this snapshot.
+     */
+    public int indexOf(int userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index >= 0 ? index : -1;
+    }
+
+    public int userIdAt(int index) {
+        return userIds[index];
+    }
+
+    public int[] friendsAt(int index) {
+        return Arrays.copyOfRange(outTargets, outOffsets[index], outOffsets[index + 1]);
+    }
+
+    int[] outOffsets() {
+        return outOffsets;
+    }
+
+    int[] outTargets() {
+        return outTargets;
+    }
+
+    int[] inOffsets() {
+        return inOffsets;
+    }
+
+    int[] inTargets() {
+        return inTargets;
+    }
+
+
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int[] users = new int[INITIAL_CAPACITY];
+
+        private int userCount;
+
+        private int[] edgeFrom = new int[INITIAL_CAPACITY];
+
+        private int[] edgeTo = new int[INITIAL_CAPACITY];
+
+        private int edgeCount;
+
+
+        public Builder addUser(int userId) {
+            if (userCount == users.length) {
+                users = Arrays.copyOf(users, userCount * 2);
+            }
+            users[userCount++] = userId;
+            return this;
+        }
+
+        public Builder addFriendship(int userId, int friendId) {
+            if (edgeCount == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+            }
+            edgeFrom[edgeCount] = userId;
+            edgeTo[edgeCount] = friendId;
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Friendships that refer to a user that was not added are dropped.
+         */
+        public FriendGraph build() {
+            int[] userIds = Arrays.copyOf(users, userCount);
+            Arrays.sort(userIds);
+
+            int[] from = new int[edgeCount];
+            int[] to = new int[edgeCount];
+            int edges = 0;
+            for (int i = 0; i < edgeCount; i++) {
+                int source = Arrays.binarySearch(userIds, edgeFrom[i]);
+                int target = Arrays.binarySearch(userIds, edgeTo[i]);
+                if (source >= 0 && target >= 0) {
+                    from[edges] = source;
+                    to[edges] = target;
+                    edges++;
+                }
+            }
+
+            int[] outOffsets = new int[userIds.length + 1];
+            int[] outTargets = new int[edges];
+            fill(from, to, edges, outOffsets, outTargets);
+
+            int[] inOffsets = new int[userIds.length + 1];
+            int[] inTargets = new int[edges];
+            fill(to, from, edges, inOffsets, inTargets);
+
+            return new FriendGraph(userIds, outOffsets, outTargets, inOffsets, inTargets);
+        }
+
+        private static void fill(int[] sources, int[] targets, int edges, int[] offsets, int[] adjacency) {
+            for (int i = 0; i < edges; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+
+            int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int i = 0; i < edges; i++) {
+                adjacency[next[sources[i]]++] = targets[i];
+            }
+        }
+
+    }
+
+}
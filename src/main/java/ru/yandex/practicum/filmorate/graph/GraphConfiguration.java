@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(GraphProperties.class)
+public class GraphConfiguration {
+
+    @Bean
+    public BidirectionalBfs bidirectionalBfs(GraphProperties properties) {
+        return new BidirectionalBfs(properties.getMaxPooledScratch());
+    }
+
+}
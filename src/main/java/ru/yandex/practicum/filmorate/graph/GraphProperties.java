@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.graph")
+public class GraphProperties {
+
+    /**
+     * Longest friend path searched for; requests may ask for less but not for more.
+     */
+    private int maxHops = 6;
+
+    private Duration timeBudget = Duration.ofMillis(50);
+
+    private int maxPooledScratch = Runtime.getRuntime().availableProcessors();
+
+}
@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
+import ru.yandex.practicum.filmorate.exceptions.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Likes accepted ahead of being persisted.
+ *
+ * <p>Accepted likes wait in a bounded queue and stay visible through the overlay ({@link #isPending},
+ * {@link #pendingLikes}) until the writer thread has committed them. The writer drains the queue in
+ * batches of up to {@code batchSize}, each in one transaction, and only then takes the batch off the
+ * overlay, so a reader may briefly count a like twice but never miss it. If a batch fails, for instance
+ * because a film was deleted meanwhile, its likes are retried one by one and the failing ones dropped. A batch
+ * that cannot be written at all, for instance because no transaction could be started, is dropped as a whole;
+ * either way its likes leave the overlay and the listener is told.
+ * All draining happens under one lock, so after {@link #flush()} nothing accepted earlier is in flight.
+ */
+@Slf4j
+public class LikeIngestion implements AutoCloseable {
+
+    private final FilmRepository filmRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean async;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final BlockingQueue<FilmLike> queue;
+
+    private final Set<FilmLike> pending = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentMap<Integer, Integer> pendingByFilm = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder persisted = new LongAdder();
+
+    private final LongAdder ignored = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile Consumer<Set<Integer>> listener = filmIds -> { };
+
+    private volatile boolean running = true;
+
+
+    public LikeIngestion(FilmRepository filmRepository, PlatformTransactionManager transactionManager,
+                         LikeIngestionProperties properties) {
+        this.filmRepository = filmRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.async = properties.isAsync();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+
+        if (async) {
+            writer = new Thread(this::run, "like-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Registers the callback told which films' likes have left the overlay, persisted or not.
+     */
+    public void onPersisted(Consumer<Set<Integer>> listener) {
+        this.listener = listener;
+    }
+
+    public void accept(int filmId, int userId) {
+        FilmLike like = new FilmLike(filmId, userId);
+
+        if (!pending.add(like)) {
+            throw new EntityAlreadyExistsException(Integer.class,
+                    "User with id = " + userId + " has already liked film with id = '" + filmId + "'");
+        }
+
+        pendingByFilm.merge(filmId, 1, Integer::sum);
+        if (!queue.offer(like)) {
+            release(like);
+            rejected.increment();
+            throw new TooManyRequestsException("Too many likes are waiting to be saved, try again later");
+        }
+        accepted.increment();
+    }
+
+    public boolean isPending(int filmId, int userId) {
+        return !pending.isEmpty() && pending.contains(new FilmLike(filmId, userId));
+    }
+
+    public boolean hasPending() {
+        return !pendingByFilm.isEmpty();
+    }
+
+    public int pendingLikes(int filmId) {
+        return pendingByFilm.getOrDefault(filmId, 0);
+    }
+
+    public Set<Integer> pendingFilms() {
+        return pendingByFilm.isEmpty() ? Collections.emptySet() : Set.copyOf(pendingByFilm.keySet());
+    }
+
+    /**
+     * Films the user has liked whose likes are still waiting, in id order. Scans everything pending, which the
+     * queue capacity bounds.
+     */
+    public SortedSet<Integer> pendingFilmsOf(int userId) {
+        SortedSet<Integer> filmIds = new TreeSet<>();
+        for (FilmLike like : pending) {
+            if (like.getUserId() == userId) {
+                filmIds.add(like.getFilmId());
+            }
+        }
+        return filmIds;
+    }
+
+    /**
+     * Persists everything accepted so far on the calling thread.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            while (writeBatch() > 0) {
+                // keep draining
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("async", async);
+        statistics.put("queued", queue.size());
+        statistics.put("accepted", accepted.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("persisted", persisted.sum());
+        statistics.put("ignored", ignored.sum());
+        statistics.put("dropped", dropped.sum());
+        statistics.put("batches", batches.sum());
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
+
+    private void run() {
+        while (running) {
+            int written;
+            try {
+                synchronized (writeLock) {
+                    written = writeBatch();
+                }
+            } catch (RuntimeException ex) {
+                log.error("Like writer failed", ex);
+                written = 0;
+            }
+
+            if (written < batchSize) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private int writeBatch() {
+        List<FilmLike> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        queue.drainTo(batch, batchSize);
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        int failed = 0;
+        boolean completed = false;
+        try {
+            try {
+                written = transactionTemplate.execute(status -> filmRepository.addLikes(batch)).size();
+            } catch (DataAccessException ex) {
+                log.warn("Batch of {} likes failed, saving them one by one", batch.size(), ex);
+                for (FilmLike like : batch) {
+                    try {
+                        written += transactionTemplate.execute(status -> filmRepository.addLikes(List.of(like)))
+                                .size();
+                    } catch (DataAccessException likeEx) {
+                        log.warn("Dropping like of film {} by user {}: {}", like.getFilmId(), like.getUserId(),
+                                likeEx.getMessage());
+                        failed++;
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            batches.increment();
+            persisted.add(written);
+            if (completed) {
+                dropped.add(failed);
+                ignored.add(batch.size() - written - failed);
+            } else {
+                dropped.add(batch.size() - written);
+            }
+
+            Set<Integer> filmIds = new LinkedHashSet<>();
+            for (FilmLike like : batch) {
+                release(like);
+                filmIds.add(like.getFilmId());
+            }
+            listener.accept(filmIds);
+        }
+
+        return batch.size();
+    }
+
+    private void release(FilmLike like) {
+        pending.remove(like);
+        pendingByFilm.computeIfPresent(like.getFilmId(), (filmId, count) -> count > 1 ? count - 1 : null);
+    }
+
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.ingestion;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+@Configuration
+@EnableConfigurationProperties(LikeIngestionProperties.class)
+public class LikeIngestionConfiguration {
+
+    @Bean
+    public LikeIngestion likeIngestion(FilmRepository filmRepository, PlatformTransactionManager transactionManager,
+                                       LikeIngestionProperties properties) {
+        return new LikeIngestion(filmRepository, transactionManager, properties);
+    }
+
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.ingestion;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.likes")
+public class LikeIngestionProperties {
+
+    /**
+     * When set, likes are answered with 202 once queued and persisted in batches by a background writer.
+     */
+    private boolean async = false;
+
+    /**
+     * Likes waiting to be persisted; a like that does not fit is rejected with 429.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Most likes written in one transaction.
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * How long the writer lets likes accumulate when the queue has run dry.
+     */
+    private Duration flushInterval = Duration.ofMillis(20);
+
+}
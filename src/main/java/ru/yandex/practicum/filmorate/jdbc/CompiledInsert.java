@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An insert into a fixed table and column list, compiled against the table metadata on first use and then
+ * shared by all threads. Compiling is deferred rather than done at construction because repositories are
+ * created before the schema migrations have run. The insert is compiled once per {@link JdbcTemplate}, so a
+ * repository writing to several shards runs each insert against the template it was given.
+ */
+public final class CompiledInsert {
+
+    private final String table;
+
+    private final String generatedKey;
+
+    private final String[] columns;
+
+    private final ConcurrentMap<JdbcTemplate, SimpleJdbcInsert> inserts = new ConcurrentHashMap<>();
+
+
+    public CompiledInsert(String table, String generatedKey, String... columns) {
+        this.table = table;
+        this.generatedKey = generatedKey;
+        this.columns = columns;
+    }
+
+
+    public Number executeAndReturnKey(JdbcTemplate jdbcTemplate, Map<String, ?> values) {
+        return compiled(jdbcTemplate).executeAndReturnKey(values);
+    }
+
+
+    private SimpleJdbcInsert compiled(JdbcTemplate jdbcTemplate) {
+        SimpleJdbcInsert compiled = inserts.get(jdbcTemplate);
+        if (compiled == null) {
+            compiled = inserts.computeIfAbsent(jdbcTemplate, template -> {
+                SimpleJdbcInsert insert = new SimpleJdbcInsert(template)
+                        .withTableName(table)
+                        .usingColumns(columns)
+                        .usingGeneratedKeyColumns(generatedKey);
+                insert.compile();
+                return insert;
+            });
+        }
+        return compiled;
+    }
+
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.jdbc;
+
+@FunctionalInterface
+public interface StatementListener {
+
+    void onStatement(String sql, long elapsedNanos);
+
+}
@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import ru.yandex.practicum.filmorate.codec.BinaryMediaTypes;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies each exchange into a ring buffer on the request thread and formats and writes it
+ * on a background thread. Entries that don't fit into the buffer are dropped and counted.
+ */
+@Slf4j
+public class AsyncLogSink implements Sink, AutoCloseable {
+
+    private static final Logger HTTP_LOG = LoggerFactory.getLogger("org.zalando.logbook.Logbook");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final RingBuffer<Exchange> buffer;
+
+    private final int maxBodySize;
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+
+
+    public AsyncLogSink(LoggingProperties properties) {
+        this.buffer = new RingBuffer<>(properties.getBufferCapacity());
+        this.maxBodySize = properties.getMaxBodySize();
+        this.drainer = new Thread(this::drain, "logbook-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return HTTP_LOG.isTraceEnabled();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        enqueue(new Exchange(precorrelation.getId(), requestLine(request), headers(request), body(request),
+                0, null, null, null));
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        enqueue(new Exchange(correlation.getId(), null, null, null,
+                correlation.getDuration().toMillis(), statusLine(response), headers(response), body(response)));
+    }
+
+    @Override
+    public void writeBoth(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        enqueue(new Exchange(correlation.getId(), requestLine(request), headers(request), body(request),
+                correlation.getDuration().toMillis(), statusLine(response), headers(response), body(response)));
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getQueued() {
+        return buffer.size();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+
+    private void enqueue(Exchange exchange) {
+        if (!buffer.offer(exchange)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        while (running || buffer.size() > 0) {
+            Exchange exchange = buffer.poll();
+
+            if (exchange == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                HTTP_LOG.trace(exchange.format());
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Failed to write HTTP exchange {}", exchange.id, e);
+            }
+        }
+    }
+
+    private static String requestLine(HttpRequest request) {
+        return request.getMethod() + " " + request.getRequestUri() + " " + request.getProtocolVersion();
+    }
+
+    private static String statusLine(HttpResponse response) {
+        return response.getProtocolVersion() + " " + response.getStatus() + " " + response.getReasonPhrase();
+    }
+
+    private static String headers(HttpMessage message) {
+        StringBuilder headers = new StringBuilder();
+
+        for (Map.Entry<String, List<String>> header : message.getHeaders().entrySet()) {
+            headers.append(header.getKey()).append(": ").append(String.join(", ", header.getValue())).append('\n');
+        }
+
+        return headers.toString();
+    }
+
+    private String body(HttpMessage message) throws IOException {
+        byte[] body = message.getBody();
+        Charset charset = message.getCharset();
+
+        if (BinaryMediaTypes.isBinary(message.getContentType())) {
+            return "<" + body.length + " bytes of " + message.getContentType() + ">";
+        }
+
+        if (body.length <= maxBodySize) {
+            return new String(body, charset);
+        }
+
+        return new String(Arrays.copyOf(body, maxBodySize), charset) + "...(" + body.length + " bytes)";
+    }
+
+
+    @RequiredArgsConstructor
+    private static final class Exchange {
+
+        private final String id;
+
+        private final String requestLine;
+
+        private final String requestHeaders;
+
+        private final String requestBody;
+
+        private final long durationMillis;
+
+        private final String statusLine;
+
+        private final String responseHeaders;
+
+        private final String responseBody;
+
+
+        private String format() {
+            StringBuilder message = new StringBuilder(256);
+
+            if (requestLine != null) {
+                message.append("Incoming Request: ").append(id).append('\n')
+                        .append(requestLine).append('\n')
+                        .append(requestHeaders).append('\n')
+                        .append(requestBody);
+            }
+
+            if (statusLine != null) {
+                if (message.length() > 0) {
+                    message.append("\n\n");
+                }
+                message.append("Outgoing Response: ").append(id).append('\n')
+                        .append("Duration: ").append(durationMillis).append(" ms\n")
+                        .append(statusLine).append('\n')
+                        .append(responseHeaders).append('\n')
+                        .append(responseBody);
+            }
+
+            return message.toString();
+        }
+
+    }
+
+}
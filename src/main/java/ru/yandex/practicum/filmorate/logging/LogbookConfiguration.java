@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+
+import javax.annotation.PostConstruct;
+
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LogbookConfiguration {
+
+    @Bean
+    public SamplingStrategy samplingStrategy(LoggingProperties properties) {
+        return new SamplingStrategy(properties);
+    }
+
+    @Bean(destroyMethod = "close")
+    public AsyncLogSink asyncLogSink(LoggingProperties properties) {
+        return new AsyncLogSink(properties);
+    }
+
+    @PostConstruct
+    public void registerControllerLogSampling() {
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+
+        if (loggerFactory instanceof LoggerContext) {
+            ((LoggerContext) loggerFactory).addTurboFilter(
+                    new SampledRequestTurboFilter(FilmController.class.getPackageName()));
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.logging")
+public class LoggingProperties {
+
+    private int bufferCapacity = 8192;
+
+    private int maxBodySize = 1024;
+
+    private double defaultSampleRate = 1.0;
+
+    /**
+     * Sample rate per request path pattern, e.g. {@code filmorate.logging.sample-rates.[/films/**]=0.1}.
+     * The first matching pattern wins.
+     */
+    private Map<String, Double> sampleRates = new LinkedHashMap<>();
+
+}
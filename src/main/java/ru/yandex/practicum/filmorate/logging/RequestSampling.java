@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.logging;
+
+/**
+ * Per-thread sampling decision for the HTTP request being processed.
+ * Outside of a request everything is treated as sampled.
+ */
+public final class RequestSampling {
+
+    private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+
+
+    private RequestSampling() {
+    }
+
+    public static void set(boolean sampled) {
+        SAMPLED.set(sampled);
+    }
+
+    public static boolean isSampled() {
+        Boolean sampled = SAMPLED.get();
+        return sampled == null || sampled;
+    }
+
+    public static void clear() {
+        SAMPLED.remove();
+    }
+
+}
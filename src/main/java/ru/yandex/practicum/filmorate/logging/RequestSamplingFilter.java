@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Clears the {@link RequestSampling} decision around every request, so that a request which fails before
+ * its response is logged does not hand its decision to the next request served by the pooled thread.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestSamplingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSampling.clear();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestSampling.clear();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * Drops INFO and lower events of the given logger prefix for requests that were not sampled.
+ * Turbo filters run before the logging event (and its arguments' toString) is built.
+ */
+public class SampledRequestTurboFilter extends TurboFilter {
+
+    private final String loggerPrefix;
+
+
+    public SampledRequestTurboFilter(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        return RequestSampling.isSampled() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides once per request whether it is logged, using the sample rate of the first matching path pattern.
+ * Responses with status 400 and above are always logged; the decision is also exposed through
+ * {@link RequestSampling} so that controller logs follow it.
+ */
+@RequiredArgsConstructor
+public class SamplingStrategy implements Strategy {
+
+    private static final int ERROR_STATUS = 400;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final AtomicLong sampledOut = new AtomicLong();
+
+    private final LoggingProperties properties;
+
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        double rate = rateFor(request.getPath());
+        RequestSampling.set(rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate);
+        return request.withBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // the request is written together with the response once the status is known
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        try {
+            if (response.getStatus() >= ERROR_STATUS || RequestSampling.isSampled()) {
+                sink.writeBoth(correlation, request, response);
+            } else {
+                sampledOut.incrementAndGet();
+            }
+        } finally {
+            RequestSampling.clear();
+        }
+    }
+
+    public long getSampledOut() {
+        return sampledOut.get();
+    }
+
+
+    private double rateFor(String path) {
+        for (Map.Entry<String, Double> entry : properties.getSampleRates().entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+
+        return properties.getDefaultSampleRate();
+    }
+
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Resolves the positions of a mapper's columns once per result set, so that rows are read by index instead of
+ * by a name lookup per column and row. Each thread remembers the last result set it resolved; a mapper called
+ * for the next row of the same result set gets the cached positions back. A column absent from the select list
+ * is only an error when the mapper reads it, so projections may select a subset of the columns.
+ */
+final class ColumnIndexes {
+
+    private final String[] labels;
+
+    private final ThreadLocal<Positions> last = new ThreadLocal<>();
+
+
+    ColumnIndexes(String... labels) {
+        this.labels = labels;
+    }
+
+
+    Positions of(ResultSet rs) throws SQLException {
+        Positions positions = last.get();
+        if (positions == null || positions.resultSet.get() != rs) {
+            positions = new Positions(rs, resolve(rs.getMetaData()));
+            last.set(positions);
+        }
+        return positions;
+    }
+
+
+    private int[] resolve(ResultSetMetaData metaData) throws SQLException {
+        int[] indexes = new int[labels.length];
+        for (int column = metaData.getColumnCount(); column >= 1; column--) {
+            String label = metaData.getColumnLabel(column);
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equalsIgnoreCase(label)) {
+                    indexes[i] = column;
+                }
+            }
+        }
+        return indexes;
+    }
+
+
+    final class Positions {
+
+        private final WeakReference<ResultSet> resultSet;
+
+        private final int[] indexes;
+
+
+        private Positions(ResultSet resultSet, int[] indexes) {
+            this.resultSet = new WeakReference<>(resultSet);
+            this.indexes = indexes;
+        }
+
+
+        /**
+         * Returns the result set position of the mapper's column number {@code column}.
+         *
+         * @throws SQLException if the column is not in the select list
+         */
+        int at(int column) throws SQLException {
+            int index = indexes[column];
+            if (index == 0) {
+                throw new SQLException("Column " + labels[column] + " is not in the result set");
+            }
+            return index;
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 64-bit fingerprint of a film's content, stored in FILMS.CONTENT_HASH under a unique index.
+ *
+ * <p>Name and description are compared after Unicode compatibility normalization, trimming, collapsing
+ * whitespace runs and lower-casing, so films that differ only in spacing or case count as the same film.
+ * The value is the first 8 bytes of the SHA-256 of the normalized fields.
+ */
+public final class FilmContentHash {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final char SEPARATOR = '\u0000';
+
+
+    private FilmContentHash() {
+    }
+
+    public static long of(Film film) {
+        return of(film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration());
+    }
+
+    public static long of(String name, String description, LocalDate releaseDate, int duration) {
+        String content = normalize(name) + SEPARATOR + normalize(description) + SEPARATOR + releaseDate +
+                SEPARATOR + duration;
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -5,6 +5,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,19 +17,73 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FilmMapper implements RowMapper<Film> {
 
+    private static final int FILM_ID = 0;
+
+    private static final int NAME = 1;
+
+    private static final int DESCRIPTION = 2;
+
+    private static final int RELEASE_DATE = 3;
+
+    private static final int DURATION = 4;
+
+    private static final int POPULARITY = 5;
+
+    private static final int RATING_ID = 6;
+
+    private static final int RATING_NAME = 7;
+
+    private final ColumnIndexes columns = new ColumnIndexes(
+            "film_id", "name", "description", "release_date", "duration", "popularity", "rating_id", "rating_name");
+
+
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
-        int filmId = rs.getInt("film_id");
-        String name = rs.getString("name");
-        String description = rs.getString("description");
-        LocalDate releaseDate = rs.getDate("release_date").toLocalDate();
-        int duration = rs.getInt("duration");
-        int popularity = rs.getInt("popularity");
-        Rating rating = new Rating(rs.getInt("rating_id"), rs.getString("rating_name"));
+        ColumnIndexes.Positions index = columns.of(rs);
+
+        int filmId = rs.getInt(index.at(FILM_ID));
+        String name = rs.getString(index.at(NAME));
+        String description = rs.getString(index.at(DESCRIPTION));
+        LocalDate releaseDate = rs.getDate(index.at(RELEASE_DATE)).toLocalDate();
+        int duration = rs.getInt(index.at(DURATION));
+        int popularity = rs.getInt(index.at(POPULARITY));
+        Rating rating = new Rating(rs.getInt(index.at(RATING_ID)), rs.getString(index.at(RATING_NAME)));
 
         return new Film(filmId, name, description, releaseDate, duration, rating, popularity);
     }
 
+    public Film mapRow(ResultSet rs, Projection projection) throws SQLException {
+        if (projection.isAll()) {
+            return mapRow(rs, rs.getRow());
+        }
+
+        ColumnIndexes.Positions index = columns.of(rs);
+
+        Film film = new Film();
+        film.setId(rs.getInt(index.at(FILM_ID)));
+
+        if (projection.has("name")) {
+            film.setName(rs.getString(index.at(NAME)));
+        }
+        if (projection.has("description")) {
+            film.setDescription(rs.getString(index.at(DESCRIPTION)));
+        }
+        if (projection.has("releaseDate")) {
+            film.setReleaseDate(rs.getDate(index.at(RELEASE_DATE)).toLocalDate());
+        }
+        if (projection.has("duration")) {
+            film.setDuration(rs.getInt(index.at(DURATION)));
+        }
+        if (projection.has("mpa")) {
+            film.setMpa(new Rating(rs.getInt(index.at(RATING_ID)), rs.getString(index.at(RATING_NAME))));
+        }
+        if (projection.has("popularity")) {
+            film.setPopularity(rs.getInt(index.at(POPULARITY)));
+        }
+
+        return film;
+    }
+
     public Map<String, Object> toMap(Film film) {
         Map<String, Object> values = new HashMap<>();
         values.put("name", film.getName());
@@ -36,6 +91,7 @@ public class FilmMapper implements RowMapper<Film> {
         values.put("release_date", film.getReleaseDate());
         values.put("duration", film.getDuration());
         values.put("rating_id", film.getMpa().getId());
+        values.put("content_hash", FilmContentHash.of(film));
 
         return values;
     }
@@ -11,11 +11,20 @@ import java.util.Map;
 @Component
 public class GenreMapper implements RowMapper<Genre> {
 
+    private static final int GENRE_ID = 0;
+
+    private static final int GENRE_NAME = 1;
+
+    private final ColumnIndexes columns = new ColumnIndexes("genre_id", "genre_name");
+
+
     @Override
     public Genre mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ColumnIndexes.Positions index = columns.of(rs);
+
         return new Genre(
-                rs.getInt("genre_id"),
-                rs.getString("genre_name"));
+                rs.getInt(index.at(GENRE_ID)),
+                rs.getString(index.at(GENRE_NAME)));
     }
 
     public Map<String, Object> toMap(Genre genre) {
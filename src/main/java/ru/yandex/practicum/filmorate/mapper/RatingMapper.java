@@ -11,11 +11,20 @@ import java.util.Map;
 @Component
 public class RatingMapper implements RowMapper<Rating> {
 
+    private static final int RATING_ID = 0;
+
+    private static final int RATING_NAME = 1;
+
+    private final ColumnIndexes columns = new ColumnIndexes("rating_id", "rating_name");
+
+
     @Override
     public Rating mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ColumnIndexes.Positions index = columns.of(rs);
+
         return new Rating(
-                rs.getInt("rating_id"),
-                rs.getString("rating_name"));
+                rs.getInt(index.at(RATING_ID)),
+                rs.getString(index.at(RATING_NAME)));
     }
 
     public Map<String, Object> toMap(Rating rating) {
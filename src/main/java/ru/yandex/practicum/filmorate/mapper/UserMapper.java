@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.mapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -11,14 +12,55 @@ import java.util.Map;
 @Component
 public class UserMapper implements RowMapper<User> {
 
+    private static final int USER_ID = 0;
+
+    private static final int NAME = 1;
+
+    private static final int EMAIL = 2;
+
+    private static final int LOGIN = 3;
+
+    private static final int DATE_OF_BIRTH = 4;
+
+    private final ColumnIndexes columns = new ColumnIndexes("user_id", "name", "email", "login", "date_of_birth");
+
+
     @Override
     public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ColumnIndexes.Positions index = columns.of(rs);
+
         return new User(
-                rs.getInt("user_id"),
-                rs.getString("name"),
-                rs.getString("email"),
-                rs.getString("login"),
-                rs.getDate("date_of_birth").toLocalDate());
+                rs.getInt(index.at(USER_ID)),
+                rs.getString(index.at(NAME)),
+                rs.getString(index.at(EMAIL)),
+                rs.getString(index.at(LOGIN)),
+                rs.getDate(index.at(DATE_OF_BIRTH)).toLocalDate());
+    }
+
+    public User mapRow(ResultSet rs, Projection projection) throws SQLException {
+        if (projection.isAll()) {
+            return mapRow(rs, rs.getRow());
+        }
+
+        ColumnIndexes.Positions index = columns.of(rs);
+
+        User user = new User();
+        user.setId(rs.getInt(index.at(USER_ID)));
+
+        if (projection.has("name")) {
+            user.setName(rs.getString(index.at(NAME)));
+        }
+        if (projection.has("email")) {
+            user.setEmail(rs.getString(index.at(EMAIL)));
+        }
+        if (projection.has("login")) {
+            user.setLogin(rs.getString(index.at(LOGIN)));
+        }
+        if (projection.has("birthday")) {
+            user.setBirthday(rs.getDate(index.at(DATE_OF_BIRTH)).toLocalDate());
+        }
+
+        return user;
     }
 
     public Map<String, Object> toMap(User user) {
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.materialized;
+
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.util.Set;
+
+/**
+ * Derived data kept as an immutable snapshot by {@link MaterializedViews}. Declare implementations as beans
+ * to have them registered.
+ */
+public interface MaterializedView<T> {
+
+    String getName();
+
+    /**
+     * Domains whose writes make the snapshot stale.
+     */
+    Set<DataDomain> getSources();
+
+    /**
+     * Computes the next snapshot. On a {@linkplain RefreshContext#isFull() full} refresh there is no previous
+     * snapshot; otherwise the view may derive the result from the previous one, which must not be modified.
+     */
+    T refresh(RefreshContext<T> context);
+
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.materialized;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.util.stream.Collectors;
+
+@Configuration
+@EnableConfigurationProperties(ViewProperties.class)
+public class MaterializedViewConfiguration {
+
+    @Bean
+    public MaterializedViews materializedViews(ObjectProvider<MaterializedView<?>> views, DataVersions dataVersions,
+                                               ViewProperties properties) {
+        return new MaterializedViews(views.orderedStream().collect(Collectors.toList()), dataVersions, properties);
+    }
+
+}
@@ -0,0 +1,282 @@
+package ru.yandex.practicum.filmorate.materialized;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of {@link MaterializedView}s. Reads are served from the current immutable snapshot, which is
+ * replaced atomically after each refresh.
+ *
+ * <p>A view is built on its first read. After that, a background task refreshes it whenever a write to one
+ * of its sources has been recorded in {@link DataVersions} since the snapshot was taken. Staleness is
+ * counted from the first such write, not from when the snapshot was taken: a read that finds its view has
+ * been stale for longer than the view's max staleness refreshes it on the calling thread. A failed refresh
+ * keeps the previous snapshot.
+ */
+@Slf4j
+public class MaterializedViews implements AutoCloseable {
+
+    private final Map<String, ViewState<?>> states = new LinkedHashMap<>();
+
+    private final DataVersions dataVersions;
+
+    private final ViewProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+
+
+    public MaterializedViews(List<MaterializedView<?>> views, DataVersions dataVersions, ViewProperties properties) {
+        this.dataVersions = dataVersions;
+        this.properties = properties;
+
+        for (MaterializedView<?> view : views) {
+            if (states.put(view.getName(), new ViewState<>(view)) != null) {
+                throw new IllegalStateException("Duplicate materialized view " + view.getName());
+            }
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("view-refresh-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        dataVersions.onChange(this::sourceChanged);
+
+        long interval = properties.getRefreshInterval().toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::refreshStale, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+
+    public <T> T read(MaterializedView<T> view) {
+        ViewState<T> state = state(view);
+        Snapshot<T> snapshot = state.snapshot;
+
+        if (snapshot == null
+                || state.isStale(snapshot) && state.staleFor(snapshot).compareTo(maxStaleness(view)) >= 0) {
+            snapshot = state.refresh();
+        }
+
+        return snapshot.value;
+    }
+
+    /**
+     * Brings the view up to date now, e.g. from a write path that must see its own write.
+     */
+    public <T> T refresh(MaterializedView<T> view) {
+        return state(view).refresh().value;
+    }
+
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> statistics = new ArrayList<>();
+
+        for (ViewState<?> state : states.values()) {
+            statistics.add(state.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+
+    private void sourceChanged(DataDomain domain) {
+        for (ViewState<?> state : states.values()) {
+            if (state.view.getSources().contains(domain)) {
+                state.staleSince.compareAndSet(null, Instant.now());
+            }
+        }
+    }
+
+    private void refreshStale() {
+        for (ViewState<?> state : states.values()) {
+            try {
+                state.refreshIfStale();
+            } catch (RuntimeException ex) {
+                log.warn("Scheduled refresh of view {} failed", state.view.getName(), ex);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ViewState<T> state(MaterializedView<T> view) {
+        ViewState<T> state = (ViewState<T>) states.get(view.getName());
+        if (state == null) {
+            throw new IllegalArgumentException("Materialized view " + view.getName() + " is not registered");
+        }
+        return state;
+    }
+
+    private Duration maxStaleness(MaterializedView<?> view) {
+        return properties.getMaxStaleness().getOrDefault(view.getName(), properties.getDefaultMaxStaleness());
+    }
+
+
+    private final class ViewState<T> {
+
+        private final MaterializedView<T> view;
+
+        private final DataDomain[] sources;
+
+        private volatile Snapshot<T> snapshot;
+
+        /**
+         * Time of the first write to a source since the snapshot was taken, {@code null} while it is current.
+         */
+        private final AtomicReference<Instant> staleSince = new AtomicReference<>();
+
+        private volatile long fullRefreshes;
+
+        private volatile long deltaRefreshes;
+
+        private volatile long failures;
+
+        private volatile long lastRefreshNanos;
+
+
+        ViewState(MaterializedView<T> view) {
+            this.view = view;
+            this.sources = view.getSources().toArray(DataDomain[]::new);
+        }
+
+
+        boolean isStale(Snapshot<T> snapshot) {
+            return !Arrays.equals(snapshot.sourceVersions, sourceVersions());
+        }
+
+        /**
+         * Falls back to the snapshot's age if a write was counted but not yet stamped, which overstates the lag
+         * rather than hiding it.
+         */
+        Duration staleFor(Snapshot<T> snapshot) {
+            Instant since = staleSince.get();
+            return Duration.between(since == null ? snapshot.startedAt : since, Instant.now());
+        }
+
+        void refreshIfStale() {
+            Snapshot<T> current = snapshot;
+            if (current != null && isStale(current)) {
+                refresh();
+            }
+        }
+
+        Map<String, Object> getStatistics() {
+            Snapshot<T> current = snapshot;
+            boolean stale = current != null && isStale(current);
+
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("name", view.getName());
+            statistics.put("sources", view.getSources());
+            statistics.put("refreshedAt", current == null ? null : current.startedAt.toString());
+            statistics.put("stale", stale);
+            statistics.put("lagMillis", stale ? staleFor(current).toMillis() : 0);
+            statistics.put("fullRefreshes", fullRefreshes);
+            statistics.put("deltaRefreshes", deltaRefreshes);
+            statistics.put("failures", failures);
+            statistics.put("lastRefreshMillis", lastRefreshNanos / 1_000_000.0);
+            return statistics;
+        }
+
+        synchronized Snapshot<T> refresh() {
+            Snapshot<T> current = snapshot;
+            if (current != null && !isStale(current)) {
+                return current;
+            }
+
+            Instant staleAt = staleSince.get();
+            long[] versions = sourceVersions();
+            Instant startedAt = Instant.now();
+            boolean full = current == null || Duration.between(current.lastFullAt, startedAt)
+                    .compareTo(properties.getFullRefreshInterval()) >= 0;
+
+            long start = System.nanoTime();
+            T value;
+            try {
+                value = view.refresh(full
+                        ? new RefreshContext<>(null, null)
+                        : new RefreshContext<>(current.value, current.startedAt, changedSources(current, versions)));
+            } catch (RuntimeException ex) {
+                failures++;
+                if (current == null) {
+                    throw ex;
+                }
+                log.warn("Refresh of view {} failed, serving the snapshot from {}", view.getName(),
+                        current.startedAt, ex);
+                return current;
+            }
+            lastRefreshNanos = System.nanoTime() - start;
+
+            if (full) {
+                fullRefreshes++;
+            } else {
+                deltaRefreshes++;
+            }
+
+            Snapshot<T> refreshed = new Snapshot<>(value, versions, startedAt, full ? startedAt : current.lastFullAt);
+            snapshot = refreshed;
+            if (!staleSince.compareAndSet(staleAt, null) || isStale(refreshed)) {
+                staleSince.set(startedAt);
+            }
+            log.debug("Refreshed view {} ({}) in {} us", view.getName(), full ? "full" : "delta",
+                    lastRefreshNanos / 1000);
+            return refreshed;
+        }
+
+        private Set<DataDomain> changedSources(Snapshot<T> current, long[] versions) {
+            Set<DataDomain> changed = EnumSet.noneOf(DataDomain.class);
+            for (int i = 0; i < sources.length; i++) {
+                if (current.sourceVersions[i] != versions[i]) {
+                    changed.add(sources[i]);
+                }
+            }
+            return changed;
+        }
+
+        private long[] sourceVersions() {
+            long[] versions = new long[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                versions[i] = dataVersions.versionOf(sources[i]);
+            }
+            return versions;
+        }
+
+    }
+
+    private static final class Snapshot<T> {
+
+        private final T value;
+
+        private final long[] sourceVersions;
+
+        private final Instant startedAt;
+
+        private final Instant lastFullAt;
+
+
+        Snapshot(T value, long[] sourceVersions, Instant startedAt, Instant lastFullAt) {
+            this.value = value;
+            this.sourceVersions = sourceVersions;
+            this.startedAt = startedAt;
+            this.lastFullAt = lastFullAt;
+        }
+
+    }
+
+}
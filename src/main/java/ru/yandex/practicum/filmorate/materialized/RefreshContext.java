@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.materialized;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.time.Instant;
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+public class RefreshContext<T> {
+
+    private final T previous;
+
+    /**
+     * When the refresh that produced {@link #getPrevious()} started; rows written since then may be missing
+     * from it.
+     */
+    private final Instant previousStartedAt;
+
+    /**
+     * Sources written since {@link #getPrevious()} was taken; {@code null} when not known.
+     */
+    private final Set<DataDomain> changedSources;
+
+
+    public RefreshContext(T previous, Instant previousStartedAt) {
+        this(previous, previousStartedAt, null);
+    }
+
+
+    public boolean isFull() {
+        return previous == null;
+    }
+
+    /**
+     * Whether the source may have been written since the previous value; {@code true} when not known.
+     */
+    public boolean hasChanged(DataDomain source) {
+        return changedSources == null || changedSources.contains(source);
+    }
+
+}
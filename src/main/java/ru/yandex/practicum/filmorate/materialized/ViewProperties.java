@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.materialized;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.views")
+public class ViewProperties {
+
+    /**
+     * How often the scheduler looks for views whose sources changed.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    /**
+     * How old a stale snapshot may be before a read refreshes it itself instead of waiting for the scheduler.
+     */
+    private Duration defaultMaxStaleness = Duration.ofSeconds(5);
+
+    /**
+     * Max staleness per view name, e.g. {@code filmorate.views.max-staleness.catalog-stats=30s}.
+     */
+    private Map<String, Duration> maxStaleness = new LinkedHashMap<>();
+
+    /**
+     * Delta refreshes are replaced by a full one once the last full refresh is this old.
+     */
+    private Duration fullRefreshInterval = Duration.ofMinutes(10);
+
+}
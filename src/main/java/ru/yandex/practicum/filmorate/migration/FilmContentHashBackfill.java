@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.mapper.FilmContentHash;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Fills FILMS.CONTENT_HASH for rows written before V005, walking the table in FILM_ID order. Of films with
+ * the same content only the first keeps a hash; the others are left NULL, which the unique index allows,
+ * and reported so they can be merged by hand. Updates keep such a film without a hash until its content no
+ * longer collides, see {@link ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl#update}.
+ *
+ * <p>Each chunk commits on its own, so FILMS rows are only locked while their chunk is written. A run that
+ * fails halfway leaves the hashed chunks in place and the next start continues with the rest.
+ */
+@Slf4j
+@Component
+public class FilmContentHashBackfill implements JavaMigration {
+
+    private static final int CHUNK_SIZE = 1_000;
+
+
+    @Override
+    public int getVersion() {
+        return 6;
+    }
+
+    @Override
+    public String getDescription() {
+        return "backfill film content hash";
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void migrate(JdbcTemplate jdbcTemplate) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(Objects.requireNonNull(jdbcTemplate.getDataSource())));
+        Set<Long> seen = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT CONTENT_HASH FROM FILMS WHERE CONTENT_HASH IS NOT NULL", Long.class));
+        int hashed = 0;
+        int duplicates = 0;
+        int lastId = 0;
+
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            int from = lastId;
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query("SELECT FILM_ID, NAME, DESCRIPTION, RELEASE_DATE, DURATION FROM FILMS " +
+                        "WHERE CONTENT_HASH IS NULL AND FILM_ID > ? ORDER BY FILM_ID LIMIT ?", rs -> {
+                            int filmId = rs.getInt("FILM_ID");
+                            long hash = FilmContentHash.of(rs.getString("NAME"), rs.getString("DESCRIPTION"),
+                                    rs.getDate("RELEASE_DATE").toLocalDate(), rs.getInt("DURATION"));
+
+                            ids.add(filmId);
+                            if (seen.add(hash)) {
+                                updates.add(new Object[]{hash, filmId});
+                            } else {
+                                log.warn("Film {} duplicates the content of an earlier film, left without a hash",
+                                        filmId);
+                            }
+                        }, from, CHUNK_SIZE);
+
+                jdbcTemplate.batchUpdate("UPDATE FILMS SET CONTENT_HASH = ? WHERE FILM_ID = ?", updates);
+            });
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            hashed += updates.size();
+            duplicates += ids.size() - updates.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        log.info("Content hash backfill hashed {} films, {} duplicates left without a hash", hashed, duplicates);
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.migration;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * A migration step that cannot be expressed as a single SQL script, e.g. a chunked backfill.
+ * Versions share one sequence with the {@code db/migration/V*.sql} scripts.
+ */
+public interface JavaMigration {
+
+    int getVersion();
+
+    String getDescription();
+
+    void migrate(JdbcTemplate jdbcTemplate);
+
+    /**
+     * Whether the migrator wraps the migration in one transaction with its SCHEMA_VERSION row. A migration
+     * that returns {@code false} commits as it goes, so that a long backfill does not hold its row locks to the
+     * end; it must then be safe to run again after failing halfway.
+     */
+    default boolean isTransactional() {
+        return true;
+    }
+
+}
@@ -0,0 +1,244 @@
+package ru.yandex.practicum.filmorate.migration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Applies pending {@code db/migration/V<version>__<description>.sql} scripts and {@link JavaMigration} beans
+ * in version order, recording each one with its checksum in SCHEMA_VERSION.
+ *
+ * <p>Each migration runs in its own transaction together with its SCHEMA_VERSION row, so a failing one leaves
+ * no version behind and is retried on the next start. H2 commits DDL statements immediately, which is why
+ * scripts stay re-runnable through {@code IF NOT EXISTS}. A {@link JavaMigration} that is not
+ * {@linkplain JavaMigration#isTransactional() transactional} runs outside that transaction and commits its own
+ * chunks; its version is recorded once it has finished.
+ *
+ * <p>H2 builds an index in one step that locks its table, so a {@code CREATE INDEX} on a large table still
+ * blocks writes to it for the duration of the build.
+ */
+@Slf4j
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<JavaMigration> javaMigrations;
+
+    private final String location;
+
+    private final TransactionTemplate transactionTemplate;
+
+
+    @Autowired
+    public SchemaMigrator(JdbcTemplate jdbcTemplate, List<JavaMigration> javaMigrations) {
+        this(jdbcTemplate, javaMigrations, LOCATION);
+    }
+
+    public SchemaMigrator(JdbcTemplate jdbcTemplate, List<JavaMigration> javaMigrations, String location) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.javaMigrations = javaMigrations;
+        this.location = location;
+        this.transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(Objects.requireNonNull(jdbcTemplate.getDataSource())));
+    }
+
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (" +
+                "VERSION INTEGER NOT NULL PRIMARY KEY, " +
+                "DESCRIPTION CHARACTER VARYING NOT NULL, " +
+                "CHECKSUM BIGINT NOT NULL, " +
+                "INSTALLED_ON TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, " +
+                "EXECUTION_TIME INTEGER NOT NULL)");
+
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT VERSION, CHECKSUM FROM SCHEMA_VERSION",
+                (RowCallbackHandler) rs -> applied.put(rs.getInt("VERSION"), rs.getLong("CHECKSUM")));
+
+        List<Migration> migrations = collectMigrations();
+        warnAboutRemoved(applied, migrations);
+
+        int pending = 0;
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version);
+
+            if (checksum != null) {
+                if (migration.legacyChecksum != null && checksum.equals(migration.legacyChecksum)) {
+                    jdbcTemplate.update("UPDATE SCHEMA_VERSION SET CHECKSUM = ? WHERE VERSION = ?",
+                            migration.checksum, migration.version);
+                    continue;
+                }
+                if (checksum != migration.checksum) {
+                    throw new IllegalStateException("Migration V" + migration.version + " (" + migration.description +
+                            ") has been changed after it was applied");
+                }
+                continue;
+            }
+
+            long start = System.currentTimeMillis();
+            int executionTime;
+            if (migration.transactional) {
+                executionTime = transactionTemplate.execute(status -> apply(migration, start));
+            } else {
+                executionTime = apply(migration, start);
+            }
+
+            log.info("Applied migration V{} ({}) in {} ms", migration.version, migration.description, executionTime);
+            pending++;
+        }
+
+        log.info("Schema is up to date, {} migration(s) applied", pending);
+    }
+
+
+    private int apply(Migration migration, long start) {
+        migration.action.accept(jdbcTemplate);
+        int elapsed = (int) (System.currentTimeMillis() - start);
+
+        jdbcTemplate.update("INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, CHECKSUM, EXECUTION_TIME) " +
+                        "VALUES (?, ?, ?, ?)",
+                migration.version, migration.description, migration.checksum, elapsed);
+        return elapsed;
+    }
+
+    private List<Migration> collectMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                migrations.add(new Migration(
+                        Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '),
+                        checksum(resource),
+                        null,
+                        true,
+                        jdbc -> jdbc.execute((Connection connection) -> {
+                            ScriptUtils.executeSqlScript(connection,
+                                    new EncodedResource(resource, StandardCharsets.UTF_8));
+                            return null;
+                        })));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read migration scripts", e);
+        }
+
+        for (JavaMigration javaMigration : javaMigrations) {
+            Class<?> migrationClass = ClassUtils.getUserClass(javaMigration);
+            CRC32 legacy = new CRC32();
+            legacy.update(migrationClass.getName().getBytes(StandardCharsets.UTF_8));
+
+            migrations.add(new Migration(javaMigration.getVersion(), javaMigration.getDescription(),
+                    checksum(migrationClass), legacy.getValue(), javaMigration.isTransactional(),
+                    javaMigration::migrate));
+        }
+
+        migrations.sort(Comparator.comparingInt(m -> m.version));
+
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new IllegalStateException("Duplicate migration version " + migrations.get(i).version);
+            }
+        }
+
+        return migrations;
+    }
+
+    /**
+     * A version recorded as applied whose migration is gone was removed on purpose, as V7 was when sharding
+     * stopped dropping the user foreign keys, so it does not stop the start; it is only reported.
+     */
+    private static void warnAboutRemoved(Map<Integer, Long> applied, List<Migration> migrations) {
+        Set<Integer> known = migrations.stream().map(m -> m.version).collect(Collectors.toSet());
+
+        applied.keySet().stream()
+                .filter(version -> !known.contains(version))
+                .sorted()
+                .forEach(version -> log.warn("Migration V{} is recorded as applied but no longer exists", version));
+    }
+
+    /**
+     * CRC of the migration's bytecode, so that a changed body is noticed like a changed script.
+     */
+    private static long checksum(Class<?> migrationClass) {
+        Resource resource = new ClassPathResource(ClassUtils.convertClassNameToResourcePath(
+                migrationClass.getName()) + ClassUtils.CLASS_FILE_SUFFIX, migrationClass.getClassLoader());
+        try {
+            return checksum(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the bytecode of " + migrationClass.getName(), e);
+        }
+    }
+
+    private static long checksum(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            CRC32 crc = new CRC32();
+            crc.update(StreamUtils.copyToByteArray(in));
+            return crc.getValue();
+        }
+    }
+
+
+    @RequiredArgsConstructor
+    private static class Migration {
+
+        private final int version;
+
+        private final String description;
+
+        private final long checksum;
+
+        /**
+         * Checksum recorded by earlier versions of the migrator, which only covered the class name; replaced
+         * by the bytecode checksum the first time it is seen.
+         */
+        private final Long legacyChecksum;
+
+        private final boolean transactional;
+
+        private final Consumer<JdbcTemplate> action;
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogStats {
+
+    private long films;
+
+    private long likes;
+
+    private double averageDuration;
+
+    private List<CatalogBucket> byGenre;
+
+    private List<CatalogBucket> byRating;
+
+    /**
+     * Buckets keyed by the first year of the decade, e.g. {@code 1990}.
+     */
+    private List<CatalogBucket> byDecade;
+
+    /**
+     * Number of films tagged with both genres, for every pair that occurs at least once.
+     */
+    private List<GenrePair> genrePairs;
+
+    private Instant computedAt;
+
+}
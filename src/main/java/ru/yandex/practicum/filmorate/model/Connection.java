@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Connection {
+
+    private Integer userId;
+
+    private Integer otherId;
+
+    private ConnectionStatus status;
+
+    /**
+     * Number of friendships between the two users; {@code null} unless {@link ConnectionStatus#CONNECTED}.
+     */
+    private Integer distance;
+
+    private List<User> path;
+
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum ConnectionStatus {
+
+    CONNECTED,
+
+    NOT_CONNECTED,
+
+    HOP_LIMIT_REACHED,
+
+    TIME_BUDGET_EXCEEDED
+
+}
@@ -1,10 +1,12 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.yandex.practicum.filmorate.annotations.MinimumDate;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -16,6 +18,7 @@ import java.util.List;
 
 
 @Data
+@JsonFilter(Projection.FILTER)
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -79,4 +82,17 @@ public class Film {
         genres.add(genre);
     }
 
+    public Film copy() {
+        List<Genre> genresCopy = null;
+        if (genres != null) {
+            genresCopy = new ArrayList<>(genres.size());
+            for (Genre genre : genres) {
+                genresCopy.add(genre == null ? null : new Genre(genre.getId(), genre.getName()));
+            }
+        }
+
+        return new Film(id, name, description, releaseDate, duration,
+                mpa == null ? null : new Rating(mpa.getId(), mpa.getName()), popularity, genresCopy);
+    }
+
 }
\ No newline at end of file
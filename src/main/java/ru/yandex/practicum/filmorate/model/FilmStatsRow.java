@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmStatsRow {
+
+    private int filmId;
+
+    private Integer ratingId;
+
+    private LocalDate releaseDate;
+
+    private int duration;
+
+    private int likes;
+
+    private List<Integer> genreIds = new ArrayList<>();
+
+}
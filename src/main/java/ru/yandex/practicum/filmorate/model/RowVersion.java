@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+
+@Data
+@AllArgsConstructor
+public class RowVersion {
+
+    private long version;
+
+    private Instant updatedAt;
+
+}
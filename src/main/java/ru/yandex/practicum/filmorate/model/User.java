@@ -1,14 +1,17 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import javax.validation.constraints.*;
 import java.time.LocalDate;
 
 
 @Data
+@JsonFilter(Projection.FILTER)
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
@@ -49,4 +52,8 @@ public class User {
         return this;
     }
 
+    public User copy() {
+        return new User(id, name, email, login, birthday);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserProfile {
+
+    private User user;
+
+    private List<User> friends;
+
+    private List<Film> likedFilms;
+
+    private List<Film> recommendations;
+
+    /**
+     * Sections left {@code null} because they failed or did not finish before the deadline.
+     */
+    private List<String> incomplete = new ArrayList<>();
+
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.profile;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolExecutorFactoryBean;
+
+@Configuration
+@EnableConfigurationProperties(ProfileProperties.class)
+public class ProfileConfiguration {
+
+    /**
+     * On shutdown the pool stops taking sections and waits for the running ones instead of interrupting them,
+     * since an interrupt inside an H2 JDBC call can close the database's file channel.
+     */
+    @Bean
+    public ThreadPoolExecutorFactoryBean profileExecutor(ProfileProperties properties) {
+        ThreadPoolExecutorFactoryBean executor = new ThreadPoolExecutorFactoryBean();
+        executor.setThreadNamePrefix("profile-fetch-");
+        executor.setDaemon(true);
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(properties.getShutdownTimeout().toMillis());
+        return executor;
+    }
+
+}
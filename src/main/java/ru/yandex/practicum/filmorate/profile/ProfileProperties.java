@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.profile;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.profile")
+public class ProfileProperties {
+
+    private int threads = 4;
+
+    private int queueCapacity = 64;
+
+    /**
+     * Deadline for all sections of a profile together; sections still running then are left out.
+     */
+    private Duration timeout = Duration.ofMillis(500);
+
+    /**
+     * Size of the liked films page a profile shows; the full list is paged through the user's liked films.
+     */
+    private int likedFilms = 20;
+
+    /**
+     * How long shutdown waits for sections that are still running.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.projection;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import lombok.EqualsAndHashCode;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields a client asked for with {@code ?fields=} and the relations it asked for with {@code ?include=}.
+ * An empty field list means the full representation.
+ */
+@EqualsAndHashCode
+public class Projection {
+
+    public static final String FILTER = "projection";
+
+    public static final Set<String> FILM_FIELDS = Set.of(
+            "id", "name", "description", "releaseDate", "duration", "mpa", "popularity", "genres");
+
+    public static final Set<String> FILM_INCLUDES = Set.of("genres");
+
+    public static final Set<String> USER_FIELDS = Set.of("id", "name", "email", "login", "birthday");
+
+    private static final Projection ALL = new Projection(Collections.emptySet(), Collections.emptySet());
+
+    private final Set<String> fields;
+
+    private final Set<String> includes;
+
+
+    private Projection(Set<String> fields, Set<String> includes) {
+        this.fields = fields;
+        this.includes = includes;
+    }
+
+    public static Projection all() {
+        return ALL;
+    }
+
+    public static Projection forFilms(String fields, String include) {
+        return of(fields, FILM_FIELDS, include, FILM_INCLUDES);
+    }
+
+    public static Projection forUsers(String fields) {
+        return of(fields, USER_FIELDS, null, Collections.emptySet());
+    }
+
+    private static Projection of(String fields, Set<String> allowedFields, String include, Set<String> allowedIncludes) {
+        Set<String> requestedFields = parse(fields, allowedFields, "field");
+        Set<String> requestedIncludes = parse(include, allowedIncludes, "include");
+
+        if (requestedFields.isEmpty() && requestedIncludes.isEmpty()) {
+            return ALL;
+        }
+
+        return new Projection(requestedFields, requestedIncludes);
+    }
+
+    private static Set<String> parse(String value, Set<String> allowed, String kind) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> names = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        for (String name : names) {
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Unknown " + kind + " '" + name + "', expected one of " + allowed);
+            }
+        }
+
+        return names;
+    }
+
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    public boolean has(String field) {
+        return fields.isEmpty() || fields.contains(field) || includes.contains(field);
+    }
+
+    public MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+
+        if (!isAll()) {
+            Set<String> written = new LinkedHashSet<>(fields);
+            written.addAll(includes);
+            value.setFilters(new SimpleFilterProvider()
+                    .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(written)));
+        }
+
+        return value;
+    }
+
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.projection;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ProjectionConfiguration {
+
+    /**
+     * Serializes every property of a {@link Projection#FILTER} bean unless a response supplies its own filter.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer projectionFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+}
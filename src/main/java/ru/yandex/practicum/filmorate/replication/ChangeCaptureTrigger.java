@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * H2 row trigger that appends the key of every inserted, updated or deleted row to REPLICATION_LOG in the
+ * writing transaction, so the log only keeps changes that were committed. H2 creates the trigger instances
+ * itself, which is why the highest captured log id is kept in a static field.
+ */
+public class ChangeCaptureTrigger implements Trigger {
+
+    /**
+     * Replicated tables with their key columns, parents before children.
+     */
+    public static final Map<String, List<String>> KEYS = new LinkedHashMap<>();
+
+    private static final AtomicLong CAPTURED = new AtomicLong();
+
+    static {
+        KEYS.put("FILM_RATING", List.of("RATING_ID"));
+        KEYS.put("GENRES", List.of("GENRE_ID"));
+        KEYS.put("USERS", List.of("USER_ID"));
+        KEYS.put("FILMS", List.of("FILM_ID"));
+        KEYS.put("FILM_GENRE", List.of("FILM_ID", "GENRE_ID"));
+        KEYS.put("FILM_FANS", List.of("FILM_ID", "USER_ID"));
+        KEYS.put("USER_FRIENDSHIP", List.of("USER_ID", "FRIEND_ID"));
+    }
+
+    private String tableName;
+
+    private int[] keyIndexes;
+
+
+    /**
+     * Highest log id handed out so far, committed or not.
+     */
+    public static long captured() {
+        return CAPTURED.get();
+    }
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName, boolean before,
+                     int type) throws SQLException {
+        List<String> keys = KEYS.get(tableName);
+        if (keys == null) {
+            throw new SQLException("Table " + tableName + " is not replicated");
+        }
+
+        this.tableName = tableName;
+        this.keyIndexes = new int[keys.size()];
+        try (ResultSet columns = connection.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (columns.next()) {
+                int key = keys.indexOf(columns.getString("COLUMN_NAME"));
+                if (key >= 0) {
+                    keyIndexes[key] = columns.getInt("ORDINAL_POSITION") - 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (newRow != null) {
+            capture(connection, newRow);
+        }
+        if (oldRow != null && (newRow == null || !sameKey(oldRow, newRow))) {
+            capture(connection, oldRow);
+        }
+    }
+
+
+    private void capture(Connection connection, Object[] row) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO REPLICATION_LOG (TABLE_NAME, KEY1, KEY2) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, tableName);
+            statement.setObject(2, row[keyIndexes[0]]);
+            statement.setObject(3, keyIndexes.length > 1 ? row[keyIndexes[1]] : null);
+            statement.executeUpdate();
+
+            try (ResultSet generated = statement.getGeneratedKeys()) {
+                if (generated.next()) {
+                    long id = generated.getLong(1);
+                    CAPTURED.accumulateAndGet(id, Math::max);
+                }
+            }
+        }
+    }
+
+    private boolean sameKey(Object[] oldRow, Object[] newRow) {
+        for (int index : keyIndexes) {
+            if (!Objects.equals(oldRow[index], newRow[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.replication;
+
+/**
+ * Thread-bound routing hints: whether the running code only reads and may use a replica, and whether the
+ * current request is pinned to the primary because its client wrote recently.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+
+    private ReadRouting() {
+    }
+
+
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    /**
+     * Marks the thread as reading and returns the previous mark for {@link #restore}.
+     */
+    public static boolean enterReplicaRead() {
+        boolean previous = isReplicaRead();
+        REPLICA_READ.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restore(boolean previous) {
+        if (previous) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+
+    public static void pin(boolean pinned) {
+        if (pinned) {
+            PINNED.set(Boolean.TRUE);
+        } else {
+            PINNED.remove();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.LongAdder;
+
+@Getter
+public class Replica {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LongAdder reads = new LongAdder();
+
+    /**
+     * Log id up to which every committed change has been applied, or -1 until the first copy completes.
+     */
+    private volatile long applied = -1;
+
+    private volatile long caughtUpAt;
+
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+
+    void setApplied(long applied) {
+        this.applied = applied;
+    }
+
+    void setCaughtUpAt(long caughtUpAt) {
+        this.caughtUpAt = caughtUpAt;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Pins a client's requests to the primary for {@code pinAfterWrite} after it wrote, through a cookie holding
+ * the time the pin ends, so a lagging replica never hides the client's own change. Pinned requests also bring
+ * the materialized views they read up to date, which is why the interceptor is registered with or without
+ * replicas.
+ */
+public class ReplicaPinningInterceptor implements HandlerInterceptor {
+
+    static final String COOKIE = "filmorate-primary-until";
+
+    private final long pinAfterWriteMillis;
+
+
+    public ReplicaPinningInterceptor(long pinAfterWriteMillis) {
+        this.pinAfterWriteMillis = pinAfterWriteMillis;
+    }
+
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.currentTimeMillis();
+
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + pinAfterWriteMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, pinAfterWriteMillis / 1000));
+            response.addCookie(cookie);
+            ReadRouting.pin(true);
+            return true;
+        }
+
+        ReadRouting.pin(pinnedUntil(request) > now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadRouting.pin(false);
+    }
+
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Marks calls to {@link ReplicaRead} methods so that the statements they run may go to a replica. Calls a
+ * bean makes on itself bypass the proxy, hence every overload that reads is annotated on its own.
+ */
+public class ReplicaReadBeanPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> beanClass = AopUtils.getTargetClass(bean);
+        Set<Method> readMethods = MethodIntrospector.selectMethods(beanClass,
+                (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                        AnnotatedElementUtils.hasAnnotation(method, ReplicaRead.class) ? Boolean.TRUE : null)
+                .keySet();
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(beanClass);
+
+        if (readMethods.isEmpty() || interfaces.length == 0) {
+            return bean;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(interfaces);
+        proxyFactory.setTarget(bean);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (!readMethods.contains(AopUtils.getMostSpecificMethod(invocation.getMethod(), beanClass))) {
+                return invocation.proceed();
+            }
+
+            boolean previous = ReadRouting.enterReplicaRead();
+            try {
+                return invocation.proceed();
+            } finally {
+                ReadRouting.restore(previous);
+            }
+        });
+        return proxyFactory.getProxy(beanClass.getClassLoader());
+    }
+
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out a replica connection inside {@link ReplicaRead} methods when {@link Replication#choose} finds a
+ * replica fresh enough, and a primary connection otherwise. A transaction keeps the connection it started
+ * with, so everything inside one runs on the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Replication replication;
+
+
+    public ReplicaRoutingDataSource(Replication replication) {
+        this.replication = replication;
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (Replica replica : replication.getReplicas()) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replication.getPrimary());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadRouting.isReplicaRead()) {
+            return null;
+        }
+
+        Replica replica = replication.choose();
+        return replica != null ? replica.getName() : null;
+    }
+
+}
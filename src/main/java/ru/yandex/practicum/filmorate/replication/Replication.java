@@ -0,0 +1,437 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps local H2 replicas in step with the primary and picks the replica that may serve a read.
+ *
+ * <p>{@link ChangeCaptureTrigger} logs the key of every changed row on the primary. A single replicator thread
+ * tails REPLICATION_LOG and, for each changed key, copies the row's current state from the primary to every
+ * replica, or deletes it when the row is gone. Applying a key twice is harmless.
+ *
+ * <p>Log ids are handed out when a row is written but only become visible when the writing transaction
+ * commits, so the tail can read a higher id before a lower one. An id skipped over is kept as a gap and looked
+ * for again on every poll. A gap is only given up, as a rolled back transaction, once a poll has found no
+ * session on the primary holding uncommitted changes; that needs the replication user to see all sessions,
+ * which the admin user does. A replica is caught up, and may serve pinned reads, only up to the first open
+ * gap.
+ *
+ * <p>A replica is filled with a copy of the primary made by {@code SCRIPT} between two polls. Every change
+ * the tail has read so far was committed before the copy, and every other change is an open gap or lies
+ * beyond the tail, so the tail picks up whatever the copy missed. Replicas get no foreign keys or triggers:
+ * the primary already enforced the former and cascades reach the log as ordinary row changes.
+ */
+@Slf4j
+public class Replication implements SmartInitializingSingleton, AutoCloseable {
+
+    private static final String TRIGGER_CLASS = ChangeCaptureTrigger.class.getName();
+
+    private final DataSource primary;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<Replica> replicas;
+
+    private final long pollIntervalNanos;
+
+    private final int batchSize;
+
+    private final long maxStalenessMillis;
+
+    private final long retryIntervalMillis;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder primaryReads = new LongAdder();
+
+    private final LongAdder appliedChanges = new LongAdder();
+
+    private final LongAdder copies = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread replicator;
+
+    /**
+     * Highest log id the tail has read.
+     */
+    private long scanned;
+
+    /**
+     * Ids below {@link #scanned} that were not in the log when it was read, by transactions still open then.
+     */
+    private final NavigableSet<Long> gaps = new TreeSet<>();
+
+    /**
+     * Whether {@link #scanned} is a log position yet; the tail of an empty log starts at the first change.
+     */
+    private boolean positioned;
+
+    private long purged;
+
+
+    public Replication(DataSource primary, List<Replica> replicas, ReplicationProperties properties) {
+        this.primary = primary;
+        this.jdbcTemplate = new JdbcTemplate(primary);
+        this.replicas = replicas;
+        this.pollIntervalNanos = properties.getPollInterval().toNanos();
+        this.batchSize = properties.getBatchSize();
+        this.maxStalenessMillis = properties.getMaxStaleness().toMillis();
+        this.retryIntervalMillis = properties.getRetryInterval().toMillis();
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isEnabled()) {
+            for (String table : ChangeCaptureTrigger.KEYS.keySet()) {
+                jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + table + "_REPLICATION");
+            }
+            jdbcTemplate.update("DELETE FROM REPLICATION_LOG");
+            return;
+        }
+
+        for (String table : ChangeCaptureTrigger.KEYS.keySet()) {
+            jdbcTemplate.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_REPLICATION " +
+                    "AFTER INSERT, UPDATE, DELETE ON " + table + " FOR EACH ROW CALL \"" + TRIGGER_CLASS + "\"");
+        }
+
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(ID) - 1 FROM REPLICATION_LOG", Long.class);
+        scanned = oldest == null ? 0 : oldest;
+        positioned = oldest != null;
+        purged = scanned;
+
+        running = true;
+        replicator = new Thread(this::run, "replicator");
+        replicator.setDaemon(true);
+        replicator.start();
+    }
+
+    public boolean isEnabled() {
+        return !replicas.isEmpty();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Picks a replica, round robin, that has applied every change captured so far, or that did so no longer
+     * than {@code maxStaleness} ago when the request is not pinned to the primary; {@code null} means the
+     * primary.
+     */
+    public Replica choose() {
+        long now = System.currentTimeMillis();
+        long captured = ChangeCaptureTrigger.captured();
+        boolean pinned = ReadRouting.isPinned();
+
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            long applied = replica.getApplied();
+
+            if (applied < 0) {
+                continue;
+            }
+
+            if (applied >= captured || (!pinned && now - replica.getCaughtUpAt() < maxStalenessMillis)) {
+                replica.getReads().increment();
+                return replica;
+            }
+        }
+
+        primaryReads.increment();
+        return null;
+    }
+
+    public Map<String, Object> getStatistics() {
+        long captured = ChangeCaptureTrigger.captured();
+
+        List<Map<String, Object>> replicaStatistics = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("name", replica.getName());
+            statistics.put("applied", replica.getApplied());
+            statistics.put("caughtUp", replica.getApplied() >= 0 && replica.getApplied() >= captured);
+            statistics.put("reads", replica.getReads().sum());
+            replicaStatistics.add(statistics);
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", isEnabled());
+        statistics.put("captured", captured);
+        statistics.put("appliedChanges", appliedChanges.sum());
+        statistics.put("copies", copies.sum());
+        statistics.put("primaryReads", primaryReads.sum());
+        statistics.put("replicas", replicaStatistics);
+        return statistics;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (replicator != null) {
+            LockSupport.unpark(replicator);
+            replicator.join();
+        }
+
+        for (Replica replica : replicas) {
+            closeQuietly(replica.getDataSource());
+        }
+        closeQuietly(primary);
+    }
+
+
+    private void run() {
+        while (running) {
+            try {
+                for (Replica replica : replicas) {
+                    if (replica.getApplied() < 0) {
+                        copy(replica);
+                    }
+                }
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Replication failed, retrying in {} ms", retryIntervalMillis, e);
+                LockSupport.parkNanos(retryIntervalMillis * 1_000_000);
+            }
+
+            LockSupport.parkNanos(pollIntervalNanos);
+        }
+    }
+
+    /**
+     * Replaces the replica's content with a copy of the primary. Runs on the replicator thread between polls,
+     * so the tail position cannot move while the copy is taken.
+     */
+    private void copy(Replica replica) {
+        long start = System.currentTimeMillis();
+        JdbcTemplate target = replica.getJdbcTemplate();
+
+        target.execute("DROP ALL OBJECTS");
+        jdbcTemplate.query("SCRIPT NOSETTINGS", (RowCallbackHandler) rs -> {
+            String sql = rs.getString(1);
+            if (isCopied(sql)) {
+                target.execute(sql);
+            }
+        });
+
+        replica.setApplied(safePoint());
+        copies.increment();
+        log.info("Copied the primary to replica {} in {} ms, tailing from change {}", replica,
+                System.currentTimeMillis() - start, replica.getApplied());
+    }
+
+    private void poll() {
+        boolean synced = replicas.stream().anyMatch(replica -> replica.getApplied() >= 0);
+        if (!synced) {
+            return;
+        }
+
+        long allocated = ChangeCaptureTrigger.captured();
+        boolean quiet = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE CONTAINS_UNCOMMITTED", Integer.class) == 0;
+        List<Long> checked = new ArrayList<>(gaps).subList(0, Math.min(gaps.size(), batchSize));
+        boolean checkedAll = checked.size() == gaps.size();
+
+        List<Change> changes = new ArrayList<>();
+        if (!checked.isEmpty()) {
+            String inSql = String.join(",", Collections.nCopies(checked.size(), "?"));
+            changes.addAll(jdbcTemplate.query("SELECT ID, TABLE_NAME, KEY1, KEY2 FROM REPLICATION_LOG " +
+                    "WHERE ID IN (" + inSql + ") ORDER BY ID", Change::read, checked.toArray()));
+        }
+        gaps.removeAll(checked);
+
+        List<Change> tail = jdbcTemplate.query(
+                "SELECT ID, TABLE_NAME, KEY1, KEY2 FROM REPLICATION_LOG WHERE ID > ? ORDER BY ID LIMIT ?",
+                Change::read, scanned, batchSize);
+        for (Change change : tail) {
+            if (!positioned) {
+                scanned = change.id - 1;
+                positioned = true;
+            }
+            for (long id = scanned + 1; id < change.id; id++) {
+                gaps.add(id);
+            }
+            scanned = change.id;
+        }
+        changes.addAll(tail);
+
+        if (quiet) {
+            // every id handed out before the check belongs to a transaction that has ended since, and what
+            // it committed has just been read, unless it lies beyond what this poll looked at
+            if (checkedAll && tail.size() < batchSize) {
+                gaps.headSet(allocated, true).clear();
+                if (allocated > scanned) {
+                    scanned = allocated;
+                    positioned = true;
+                }
+            }
+        } else {
+            gaps.addAll(checked);
+            changes.stream().map(change -> change.id).forEach(gaps::remove);
+        }
+
+        if (!changes.isEmpty()) {
+            apply(changes);
+        }
+
+        long now = System.currentTimeMillis();
+        long safePoint = safePoint();
+        long captured = ChangeCaptureTrigger.captured();
+        for (Replica replica : replicas) {
+            if (replica.getApplied() < 0) {
+                continue;
+            }
+
+            replica.setApplied(safePoint);
+            if (safePoint >= captured) {
+                replica.setCaughtUpAt(now);
+            }
+        }
+
+        if (safePoint - purged >= batchSize) {
+            jdbcTemplate.update("DELETE FROM REPLICATION_LOG WHERE ID <= ?", safePoint);
+            purged = safePoint;
+        }
+    }
+
+    /**
+     * Log id up to which every committed change has been read: just below the first open gap, or the tail.
+     */
+    private long safePoint() {
+        return gaps.isEmpty() ? scanned : gaps.first() - 1;
+    }
+
+    /**
+     * Copies the current state of every changed key once, in the order of its latest change, to each synced
+     * replica. A replica that fails is copied again from scratch.
+     */
+    private void apply(List<Change> changes) {
+        Map<String, Change> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            String key = change.table + ":" + change.key1 + ":" + change.key2;
+            latest.remove(key);
+            latest.put(key, change);
+        }
+
+        Map<Change, Map<String, Object>> rows = new LinkedHashMap<>();
+        for (Change change : latest.values()) {
+            List<Map<String, Object>> current = jdbcTemplate.queryForList(
+                    "SELECT * FROM " + change.table + " WHERE " + change.where(), change.keyValues());
+            rows.put(change, current.isEmpty() ? null : current.get(0));
+        }
+
+        for (Replica replica : replicas) {
+            if (replica.getApplied() < 0) {
+                continue;
+            }
+
+            try {
+                rows.forEach((change, row) -> {
+                    write(replica.getJdbcTemplate(), change, row);
+                    appliedChanges.increment();
+                });
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply changes to replica {}, copying it again", replica, e);
+                replica.setApplied(-1);
+            }
+        }
+    }
+
+    private void write(JdbcTemplate target, Change change, Map<String, Object> row) {
+        if (row == null) {
+            target.update("DELETE FROM " + change.table + " WHERE " + change.where(), change.keyValues());
+            return;
+        }
+
+        String columns = String.join(", ", row.keySet());
+        String placeholders = String.join(", ", Collections.nCopies(row.size(), "?"));
+        target.update("MERGE INTO " + change.table + " (" + columns + ") " +
+                        "KEY (" + String.join(", ", ChangeCaptureTrigger.KEYS.get(change.table)) + ") " +
+                        "VALUES (" + placeholders + ")",
+                row.values().toArray());
+    }
+
+    private static boolean isCopied(String sql) {
+        return !sql.startsWith("--")
+                && !sql.startsWith("CREATE USER")
+                && !sql.startsWith("CREATE FORCE TRIGGER")
+                && !sql.contains(" FOREIGN KEY(")
+                && !sql.contains("\"REPLICATION_LOG\"");
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", dataSource, e);
+            }
+        }
+    }
+
+
+    private static class Change {
+
+        private final long id;
+
+        private final String table;
+
+        private final int key1;
+
+        private final Integer key2;
+
+
+        Change(long id, String table, int key1, Integer key2) {
+            if (!ChangeCaptureTrigger.KEYS.containsKey(table)) {
+                throw new IllegalStateException("Change log refers to unknown table " + table);
+            }
+
+            this.id = id;
+            this.table = table;
+            this.key1 = key1;
+            this.key2 = key2;
+        }
+
+
+        String where() {
+            List<String> keys = ChangeCaptureTrigger.KEYS.get(table);
+            return keys.size() > 1 ? keys.get(0) + " = ? AND " + keys.get(1) + " = ?" : keys.get(0) + " = ?";
+        }
+
+        static Change read(ResultSet rs, int rowNum) throws SQLException {
+            return new Change(rs.getLong("ID"), rs.getString("TABLE_NAME"), rs.getInt("KEY1"),
+                    (Integer) rs.getObject("KEY2"));
+        }
+
+        Object[] keyValues() {
+            return key2 != null ? new Object[]{key1, key2} : new Object[]{key1};
+        }
+
+    }
+
+}
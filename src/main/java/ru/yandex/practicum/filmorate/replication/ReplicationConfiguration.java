@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfiguration implements WebMvcConfigurer {
+
+    private final ReplicationProperties properties;
+
+
+    public ReplicationConfiguration(ReplicationProperties properties) {
+        this.properties = properties;
+    }
+
+
+    @Bean
+    public static ReplicaReadBeanPostProcessor replicaReadBeanPostProcessor() {
+        return new ReplicaReadBeanPostProcessor();
+    }
+
+    @Bean
+    public Replication replication(DataSourceProperties dataSourceProperties) {
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        List<Replica> replicas = new ArrayList<>();
+
+        properties.getReplicas().forEach((name, url) -> replicas.add(new Replica(name, DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build())));
+
+        return new Replication(primary, replicas, properties);
+    }
+
+    @Bean
+    public DataSource dataSource(Replication replication) {
+        return replication.isEnabled() ? new ReplicaRoutingDataSource(replication) : replication.getPrimary();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!properties.getPinAfterWrite().isZero()) {
+            registry.addInterceptor(new ReplicaPinningInterceptor(properties.getPinAfterWrite().toMillis()));
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.replication")
+public class ReplicationProperties {
+
+    /**
+     * JDBC URLs of the H2 replicas keyed by name; without any, every statement goes to the primary.
+     */
+    private Map<String, String> replicas = new LinkedHashMap<>();
+
+    private String username = "sa";
+
+    private String password = "password";
+
+    private Duration pollInterval = Duration.ofMillis(10);
+
+    private int batchSize = 1000;
+
+    /**
+     * How far behind the primary a replica may be and still serve reads. With the default of zero a replica
+     * only serves reads while it has applied every committed change; anything larger may also leave a stale
+     * body in the response cache until the resource changes again.
+     */
+    private Duration maxStaleness = Duration.ZERO;
+
+    /**
+     * How long a client keeps reading from the primary, unless a replica has caught up, after it wrote.
+     */
+    private Duration pinAfterWrite = Duration.ofSeconds(2);
+
+    /**
+     * How long the replicator waits after a failed poll or copy before it tries again.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+}
@@ -1,9 +1,16 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmStatsRow;
+import ru.yandex.practicum.filmorate.model.RowVersion;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FilmRepository {
 
@@ -13,6 +20,10 @@ public interface FilmRepository {
 
     Film findById(Integer id);
 
+    Map<Integer, Film> findByIds(Collection<Integer> ids);
+
+    Map<Integer, Film> findByIds(Collection<Integer> ids, Projection projection);
+
     Film findByName(String filmName);
 
     Integer findIdByName(String name);
@@ -22,6 +33,10 @@ public interface FilmRepository {
 
     List<Film> findAll();
 
+    List<Film> findAll(Projection projection);
+
+    RowVersion findRowVersion(Integer id);
+
     boolean deleteById(Integer filmID);
 
     boolean deleteAll();
@@ -30,10 +45,26 @@ public interface FilmRepository {
 
     boolean removeLike(Integer filmId, Integer userId);
 
+    List<FilmLike> addLikes(List<FilmLike> likes);
+
     List<Integer> findFansIds(Integer filmId);
 
+    List<Film> findLikedByUser(Integer userId, Integer from, Integer size, Projection projection);
+
+    List<Film> findRecommendations(Integer userId, Integer count);
+
     boolean existsLike(Integer filmId, Integer userId);
 
     List<Film> getTopByLikes(Integer count);
 
+    List<Film> getTopByLikes(Integer count, Projection projection);
+
+    List<FilmStatsRow> findStatsRows();
+
+    List<FilmStatsRow> findStatsRows(Collection<Integer> ids);
+
+    void loadFilmColumns(FilmColumns.Builder builder);
+
+    Map<Integer, Integer> findPopularity(Collection<Integer> ids);
+
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.model.RowVersion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public interface UserRepository {
 
@@ -12,6 +18,10 @@ public interface UserRepository {
 
     User findById(Integer id);
 
+    Map<Integer, User> findByIds(Collection<Integer> ids);
+
+    Map<Integer, User> findByIds(Collection<Integer> ids, Projection projection);
+
     User findByName(String userName);
 
     User findByEmail(String email);
@@ -22,6 +32,10 @@ public interface UserRepository {
 
     List<User> findAll();
 
+    List<User> findAll(Projection projection);
+
+    RowVersion findRowVersion(Integer id);
+
     boolean deleteById(Integer userID);
 
     boolean deleteAll();
@@ -32,6 +46,14 @@ public interface UserRepository {
 
     List<User> findFriendsById(Integer userId);
 
+    List<User> findFriendsById(Integer userId, Projection projection);
+
     List<User> getCommonFriends(Integer user1ID, Integer user2ID);
 
+    List<User> getCommonFriends(Integer user1ID, Integer user2ID, Projection projection);
+
+    void loadFriendGraph(FriendGraph.Builder builder);
+
+    void loadUserKeys(BiConsumer<String, String> consumer);
+
 }
\ No newline at end of file
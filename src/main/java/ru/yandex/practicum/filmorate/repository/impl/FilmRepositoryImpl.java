@@ -3,15 +3,32 @@ package ru.yandex.practicum.filmorate.repository.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
+import ru.yandex.practicum.filmorate.jdbc.CompiledInsert;
+import ru.yandex.practicum.filmorate.mapper.FilmContentHash;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmStatsRow;
+import ru.yandex.practicum.filmorate.model.RowVersion;
+import ru.yandex.practicum.filmorate.projection.Projection;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+import static java.util.function.UnaryOperator.identity;
 
 
 @Slf4j
@@ -19,6 +36,17 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FilmRepositoryImpl implements FilmRepository {
 
+    private static final Map<String, String> PROJECTED_COLUMNS = Map.of(
+            "name", "f.NAME",
+            "description", "f.DESCRIPTION",
+            "releaseDate", "f.RELEASE_DATE",
+            "duration", "f.DURATION",
+            "mpa", "f.RATING_ID, fr.RATING_NAME",
+            "popularity", "f.POPULARITY");
+
+    private final CompiledInsert filmInsert = new CompiledInsert("FILMS", "film_id",
+            "name", "description", "release_date", "duration", "rating_id", "content_hash");
+
     private final JdbcTemplate jdbcTemplate;
 
     private final FilmMapper filmMapper;
@@ -27,12 +55,9 @@ public class FilmRepositoryImpl implements FilmRepository {
     @Override
     public Film save(Film film) {
 
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("FILMS")
-                .usingGeneratedKeyColumns("film_id");
-
         Map<String, Object> parameters = filmMapper.toMap(film);
-        Number newFilmId = simpleJdbcInsert.executeAndReturnKey(parameters);
+
+        Number newFilmId = filmInsert.executeAndReturnKey(jdbcTemplate, parameters);
         film.setId(newFilmId.intValue());
 
         return film;
@@ -40,11 +65,21 @@ public class FilmRepositoryImpl implements FilmRepository {
     }
 
 
+    /**
+     * A film the content hash backfill left without a hash duplicates an earlier film. It keeps no hash for as
+     * long as its content still collides with another film's, so that editing, say, its rating does not fail
+     * on the duplicate it already was.
+     */
     @Override
     public boolean update(Film film) {
         String sqlQuery = "UPDATE FILMS SET NAME = ?, DESCRIPTION = ?, RELEASE_DATE = ?, DURATION = ?, " +
-                "RATING_ID = ?, POPULARITY = ? WHERE FILM_ID = ?";
+                "RATING_ID = ?, POPULARITY = ?, " +
+                "CONTENT_HASH = CASE WHEN CONTENT_HASH IS NULL AND EXISTS (SELECT 1 FROM FILMS d " +
+                "WHERE d.CONTENT_HASH = ? AND d.FILM_ID <> ?) THEN NULL ELSE ? END, " +
+                "VERSION = VERSION + 1, UPDATED_AT = LOCALTIMESTAMP " +
+                "WHERE FILM_ID = ?";
 
+        long contentHash = FilmContentHash.of(film);
         int rowsAffected = jdbcTemplate.update(sqlQuery,
                 film.getName(),
                 film.getDescription(),
@@ -52,6 +87,9 @@ public class FilmRepositoryImpl implements FilmRepository {
                 film.getDuration(),
                 film.getMpa().getId(),
                 film.getPopularity(),
+                contentHash,
+                film.getId(),
+                contentHash,
                 film.getId());
 
         return rowsAffected > 0;
@@ -67,6 +105,28 @@ public class FilmRepositoryImpl implements FilmRepository {
         return jdbcTemplate.queryForObject(sqlQuery, filmMapper, id);
     }
 
+    @Override
+    public Map<Integer, Film> findByIds(Collection<Integer> ids) {
+        return findByIds(ids, Projection.all());
+    }
+
+    @Override
+    public Map<Integer, Film> findByIds(Collection<Integer> ids, Projection projection) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
+
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
+                "FROM FILMS f " +
+                "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID " +
+                "WHERE f.FILM_ID IN (" + inSql + ")";
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> filmMapper.mapRow(rs, projection), ids.toArray()).stream()
+                .collect(Collectors.toMap(Film::getId, identity()));
+    }
+
     @Override
     public Film findByName(String filmName) {
         return jdbcTemplate.queryForObject(
@@ -89,15 +149,18 @@ public class FilmRepositoryImpl implements FilmRepository {
         }
     }
 
+    /**
+     * Finds the film with the same normalized content through the unique CONTENT_HASH index.
+     */
     @Override
     public Film findByNameDescriptionReleaseDateAndDuration(String name, String description, LocalDate releaseDate, int duration) {
         List<Film> films = jdbcTemplate.query(
                 "SELECT f.*, fr.RATING_NAME " +
                         "FROM FILMS f " +
                         "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID " +
-                        "WHERE f.NAME = ? AND f.DESCRIPTION = ? AND f.RELEASE_DATE = ? AND f.DURATION = ?",
+                        "WHERE f.CONTENT_HASH = ?",
                 filmMapper,
-                name, description, releaseDate, duration);
+                FilmContentHash.of(name, description, releaseDate, duration));
 
         if (films.isEmpty()) {
             return null;
@@ -108,10 +171,30 @@ public class FilmRepositoryImpl implements FilmRepository {
 
     @Override
     public List<Film> findAll() {
-        String sqlQuery = "SELECT f.*, fr.RATING_NAME " +
+        return findAll(Projection.all());
+    }
+
+    @Override
+    public List<Film> findAll(Projection projection) {
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
                 "FROM FILMS f " +
                 "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID";
-        return jdbcTemplate.query(sqlQuery, filmMapper);
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> filmMapper.mapRow(rs, projection));
+    }
+
+
+    @Override
+    public RowVersion findRowVersion(Integer id) {
+        List<RowVersion> versions = jdbcTemplate.query(
+                "SELECT VERSION, UPDATED_AT FROM FILMS WHERE FILM_ID = ?",
+                (rs, rowNum) -> new RowVersion(rs.getLong("version"), rs.getTimestamp("updated_at").toInstant()),
+                id);
+
+        if (versions.isEmpty()) {
+            return null;
+        } else {
+            return versions.get(0);
+        }
     }
 
 
@@ -139,7 +222,8 @@ public class FilmRepositoryImpl implements FilmRepository {
                 userId);
 
         String sqlQuery2 = "UPDATE FILMS SET POPULARITY = " +
-                "(SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?) " +
+                "(SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?), " +
+                "VERSION = VERSION + 1, UPDATED_AT = LOCALTIMESTAMP " +
                 "WHERE FILM_ID = ?";
 
         jdbcTemplate.update(sqlQuery2, filmId, filmId);
@@ -153,7 +237,8 @@ public class FilmRepositoryImpl implements FilmRepository {
 
         if (rowsDeleted > 0) {
             String sqlQuery2 = "UPDATE FILMS SET POPULARITY = " +
-                    "(SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?) " +
+                    "(SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?), " +
+                    "VERSION = VERSION + 1, UPDATED_AT = LOCALTIMESTAMP " +
                     "WHERE FILM_ID = ?";
             jdbcTemplate.update(sqlQuery2, filmId, filmId);
             return true;
@@ -162,14 +247,56 @@ public class FilmRepositoryImpl implements FilmRepository {
         }
     }
 
+    /**
+     * Inserts the likes that are not there yet and raises the popularity of each film by the number of its
+     * likes actually inserted. Returns the inserted likes.
+     */
+    @Override
+    public List<FilmLike> addLikes(List<FilmLike> likes) {
+        String sqlQuery = "INSERT INTO FILM_FANS(FILM_ID, USER_ID) " +
+                "SELECT CAST(? AS INTEGER), CAST(? AS INTEGER) " +
+                "WHERE NOT EXISTS (SELECT 1 FROM FILM_FANS WHERE FILM_ID = ? AND USER_ID = ?)";
+
+        int[] inserted = jdbcTemplate.batchUpdate(sqlQuery, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like.getFilmId());
+            ps.setInt(2, like.getUserId());
+            ps.setInt(3, like.getFilmId());
+            ps.setInt(4, like.getUserId());
+        })[0];
+
+        List<FilmLike> added = new ArrayList<>();
+        Map<Integer, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < likes.size(); i++) {
+            if (inserted[i] > 0) {
+                added.add(likes.get(i));
+                deltas.merge(likes.get(i).getFilmId(), 1, Integer::sum);
+            }
+        }
+
+        String sqlQuery2 = "UPDATE FILMS SET POPULARITY = POPULARITY + ?, " +
+                "VERSION = VERSION + 1, UPDATED_AT = LOCALTIMESTAMP " +
+                "WHERE FILM_ID = ?";
+        jdbcTemplate.batchUpdate(sqlQuery2, new ArrayList<>(deltas.entrySet()), deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setInt(2, delta.getKey());
+        });
+
+        return added;
+    }
+
     @Override
     public List<Film> getTopByLikes(Integer count) {
-        String sqlQuery = "SELECT f.*, fr.RATING_NAME " +
+        return getTopByLikes(count, Projection.all());
+    }
+
+    @Override
+    public List<Film> getTopByLikes(Integer count, Projection projection) {
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
                 "FROM FILMS f JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID " +
-                "ORDER BY POPULARITY DESC " +
+                "ORDER BY f.POPULARITY DESC " +
                 "LIMIT ?";
 
-        return jdbcTemplate.query(sqlQuery, filmMapper, count);
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> filmMapper.mapRow(rs, projection), count);
     }
 
     @Override
@@ -179,6 +306,37 @@ public class FilmRepositoryImpl implements FilmRepository {
         return jdbcTemplate.queryForList(sqlQuery, Integer.class, filmId);
     }
 
+    @Override
+    public List<Film> findLikedByUser(Integer userId, Integer from, Integer size, Projection projection) {
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
+                "FROM FILM_FANS ff " +
+                "JOIN FILMS f ON ff.FILM_ID = f.FILM_ID " +
+                "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID " +
+                "WHERE ff.USER_ID = ? " +
+                "ORDER BY ff.FILM_ID " +
+                "LIMIT ? OFFSET ?";
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> filmMapper.mapRow(rs, projection), userId, size, from);
+    }
+
+    @Override
+    public List<Film> findRecommendations(Integer userId, Integer count) {
+        String sqlQuery = "SELECT f.*, fr.RATING_NAME " +
+                "FROM FILMS f " +
+                "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID " +
+                "JOIN (SELECT other.FILM_ID, COUNT(*) AS SCORE " +
+                "FROM FILM_FANS mine " +
+                "JOIN FILM_FANS peer ON peer.FILM_ID = mine.FILM_ID AND peer.USER_ID <> mine.USER_ID " +
+                "JOIN FILM_FANS other ON other.USER_ID = peer.USER_ID " +
+                "WHERE mine.USER_ID = ? " +
+                "AND other.FILM_ID NOT IN (SELECT FILM_ID FROM FILM_FANS WHERE USER_ID = ?) " +
+                "GROUP BY other.FILM_ID) r ON f.FILM_ID = r.FILM_ID " +
+                "ORDER BY r.SCORE DESC, f.POPULARITY DESC, f.FILM_ID " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sqlQuery, filmMapper, userId, userId, count);
+    }
+
     @Override
     public boolean existsLike(Integer filmId, Integer userId) {
         String sqlQuery = "SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ? AND USER_ID = ?";
@@ -186,4 +344,104 @@ public class FilmRepositoryImpl implements FilmRepository {
         return count > 0;
     }
 
+
+    @Override
+    public List<FilmStatsRow> findStatsRows() {
+        String sqlQuery = "SELECT f.FILM_ID, f.RATING_ID, f.RELEASE_DATE, f.DURATION, COALESCE(l.LIKES, 0) AS LIKES " +
+                "FROM FILMS f " +
+                "LEFT JOIN (SELECT FILM_ID, COUNT(*) AS LIKES FROM FILM_FANS GROUP BY FILM_ID) l " +
+                "ON l.FILM_ID = f.FILM_ID";
+
+        return withGenreIds(jdbcTemplate.query(sqlQuery, this::mapStatsRow),
+                "SELECT FILM_ID, GENRE_ID FROM FILM_GENRE");
+    }
+
+    @Override
+    public List<FilmStatsRow> findStatsRows(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
+
+        String sqlQuery = "SELECT f.FILM_ID, f.RATING_ID, f.RELEASE_DATE, f.DURATION, " +
+                "(SELECT COUNT(*) FROM FILM_FANS ff WHERE ff.FILM_ID = f.FILM_ID) AS LIKES " +
+                "FROM FILMS f " +
+                "WHERE f.FILM_ID IN (" + inSql + ")";
+
+        return withGenreIds(jdbcTemplate.query(sqlQuery, this::mapStatsRow, ids.toArray()),
+                "SELECT FILM_ID, GENRE_ID FROM FILM_GENRE WHERE FILM_ID IN (" + inSql + ")", ids.toArray());
+    }
+
+    @Override
+    public void loadFilmColumns(FilmColumns.Builder builder) {
+        jdbcTemplate.query("SELECT FILM_ID, NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID, POPULARITY " +
+                "FROM FILMS ORDER BY FILM_ID", (rs) -> {
+            builder.addFilm(rs.getInt("FILM_ID"), rs.getString("NAME"), rs.getString("DESCRIPTION"),
+                    rs.getDate("RELEASE_DATE").toLocalDate(), rs.getInt("DURATION"),
+                    (Integer) rs.getObject("RATING_ID"), rs.getInt("POPULARITY"));
+        });
+
+        jdbcTemplate.query("SELECT FILM_ID, GENRE_ID FROM FILM_GENRE", (rs) -> {
+            builder.addGenre(rs.getInt("FILM_ID"), rs.getInt("GENRE_ID"));
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> findPopularity(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
+
+        Map<Integer, Integer> popularity = new HashMap<>();
+        jdbcTemplate.query("SELECT FILM_ID, POPULARITY FROM FILMS WHERE FILM_ID IN (" + inSql + ")", (rs) -> {
+            popularity.put(rs.getInt("FILM_ID"), rs.getInt("POPULARITY"));
+        }, ids.toArray());
+        return popularity;
+    }
+
+
+    private FilmStatsRow mapStatsRow(ResultSet rs, int rowNum) throws SQLException {
+        FilmStatsRow row = new FilmStatsRow();
+        row.setFilmId(rs.getInt("film_id"));
+        row.setRatingId((Integer) rs.getObject("rating_id"));
+        row.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        row.setDuration(rs.getInt("duration"));
+        row.setLikes(rs.getInt("likes"));
+        return row;
+    }
+
+    private List<FilmStatsRow> withGenreIds(List<FilmStatsRow> rows, String genreQuery, Object... args) {
+        Map<Integer, FilmStatsRow> rowsById = new LinkedHashMap<>();
+        for (FilmStatsRow row : rows) {
+            rowsById.put(row.getFilmId(), row);
+        }
+
+        jdbcTemplate.query(genreQuery, rs -> {
+            FilmStatsRow row = rowsById.get(rs.getInt("film_id"));
+            if (row != null) {
+                row.getGenreIds().add(rs.getInt("genre_id"));
+            }
+        }, args);
+
+        return rows;
+    }
+
+    private String selectList(Projection projection) {
+        if (projection.isAll()) {
+            return "f.*, fr.RATING_NAME";
+        }
+
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("f.FILM_ID");
+        PROJECTED_COLUMNS.forEach((field, column) -> {
+            if (projection.has(field)) {
+                columns.add(column);
+            }
+        });
+        return columns.toString();
+    }
+
 }
\ No newline at end of file
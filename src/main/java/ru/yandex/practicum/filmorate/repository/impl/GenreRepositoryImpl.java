@@ -3,8 +3,8 @@ package ru.yandex.practicum.filmorate.repository.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.jdbc.CompiledInsert;
 import ru.yandex.practicum.filmorate.mapper.GenreMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -24,6 +24,8 @@ import static java.util.function.UnaryOperator.identity;
 @Repository
 public class GenreRepositoryImpl implements GenreRepository {
 
+    private final CompiledInsert genreInsert = new CompiledInsert("GENRES", "genre_id", "genre_name");
+
     private final JdbcTemplate jdbcTemplate;
 
     private final GenreMapper genreMapper;
@@ -31,11 +33,7 @@ public class GenreRepositoryImpl implements GenreRepository {
 
     @Override
     public Genre save(Genre genre) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("GENRES")
-                .usingGeneratedKeyColumns("genre_id");
-
-        int id = simpleJdbcInsert.executeAndReturnKey(genreMapper.toMap(genre)).intValue();
+        int id = genreInsert.executeAndReturnKey(jdbcTemplate, genreMapper.toMap(genre)).intValue();
         return genre.setId(id);
     }
 
@@ -2,8 +2,8 @@ package ru.yandex.practicum.filmorate.repository.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.jdbc.CompiledInsert;
 import ru.yandex.practicum.filmorate.mapper.RatingMapper;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.repository.RatingRepository;
@@ -15,6 +15,8 @@ import java.util.List;
 @Repository
 public class RatingRepositoryImpl implements RatingRepository {
 
+    private final CompiledInsert ratingInsert = new CompiledInsert("FILM_RATING", "rating_id", "rating_name");
+
     private final JdbcTemplate jdbcTemplate;
 
     private final RatingMapper ratingMapper;
@@ -22,11 +24,7 @@ public class RatingRepositoryImpl implements RatingRepository {
 
     @Override
     public Rating save(Rating rating) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("FILM_RATING")
-                .usingGeneratedKeyColumns("rating_id");
-
-        int id = simpleJdbcInsert.executeAndReturnKey(ratingMapper.toMap(rating)).intValue();
+        int id = ratingInsert.executeAndReturnKey(jdbcTemplate, ratingMapper.toMap(rating)).intValue();
         return rating.setId(id);
     }
 
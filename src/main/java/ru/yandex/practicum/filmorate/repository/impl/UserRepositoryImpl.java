@@ -2,15 +2,32 @@ package ru.yandex.practicum.filmorate.repository.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.jdbc.CompiledInsert;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.RowVersion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static java.util.function.UnaryOperator.identity;
 
 
 @Slf4j
@@ -18,19 +35,31 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserRepositoryImpl implements UserRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final Map<String, String> PROJECTED_COLUMNS = Map.of(
+            "name", "U.NAME",
+            "email", "U.EMAIL",
+            "login", "U.LOGIN",
+            "birthday", "U.DATE_OF_BIRTH");
+
+    private final CompiledInsert userInsert = new CompiledInsert("USERS", "user_id",
+            "name", "email", "login", "date_of_birth");
+
+    private final CompiledInsert userKeyInsert = new CompiledInsert("USER_KEYS", "user_id", "email", "login");
+
+    private final ShardRouter shardRouter;
 
     private final UserMapper userMapper;
 
 
     @Override
     public User save(User user) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("USERS")
-                .usingGeneratedKeyColumns("user_id");
+        if (shardRouter.isSharded()) {
+            return shardRouter.writingUsers(() -> saveSharded(user));
+        }
 
         Map<String, Object> parameters = userMapper.toMap(user);
-        Number newUserId = simpleJdbcInsert.executeAndReturnKey(parameters);
+
+        Number newUserId = userInsert.executeAndReturnKey(shardRouter.primary(), parameters);
 
         user.setId(newUserId.intValue());
 
@@ -40,26 +69,34 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public boolean update(User user) {
-        String sqlQuery = "UPDATE USERS SET NAME = ?, EMAIL = ?, LOGIN = ?, DATE_OF_BIRTH = ? " +
+        String sqlQuery = "UPDATE USERS SET NAME = ?, EMAIL = ?, LOGIN = ?, DATE_OF_BIRTH = ?, " +
+                "VERSION = VERSION + 1, UPDATED_AT = LOCALTIMESTAMP " +
                 "WHERE USER_ID = ?";
 
-        int rowsAffected = jdbcTemplate.update(sqlQuery,
-                user.getName(),
-                user.getEmail(),
-                user.getLogin(),
-                user.getBirthday(),
-                user.getId());
-
-        return rowsAffected > 0;
+        return shardRouter.writingUsers(() -> {
+            if (shardRouter.isSharded()) {
+                shardRouter.primary().update("UPDATE USER_KEYS SET EMAIL = ?, LOGIN = ? WHERE USER_ID = ?",
+                        user.getEmail(), user.getLogin(), user.getId());
+            }
+
+            int rowsAffected = shardRouter.updateUser(user.getId(), jdbcTemplate -> jdbcTemplate.update(sqlQuery,
+                    user.getName(),
+                    user.getEmail(),
+                    user.getLogin(),
+                    user.getBirthday(),
+                    user.getId()));
+
+            return rowsAffected > 0;
+        });
     }
 
 
     @Override
     public User findById(Integer id) {
-        List<User> users = jdbcTemplate.query(
+        List<User> users = shardRouter.queryUser(id, jdbcTemplate -> jdbcTemplate.query(
                 "SELECT * FROM USERS WHERE USER_ID = ?",
                 userMapper,
-                id);
+                id));
 
         if (users.isEmpty()) {
             return null;
@@ -68,20 +105,57 @@ public class UserRepositoryImpl implements UserRepository {
         }
     }
 
+    @Override
+    public Map<Integer, User> findByIds(Collection<Integer> ids) {
+        return findByIds(ids, Projection.all());
+    }
+
+    @Override
+    public Map<Integer, User> findByIds(Collection<Integer> ids, Projection projection) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        BiFunction<JdbcTemplate, List<Integer>, List<User>> query = (jdbcTemplate, shardIds) -> {
+            String inSql = String.join(",", Collections.nCopies(shardIds.size(), "?"));
+
+            return jdbcTemplate.query(
+                    "SELECT " + selectList(projection) + " FROM USERS AS U WHERE U.USER_ID IN (" + inSql + ")",
+                    (rs, rowNum) -> userMapper.mapRow(rs, projection),
+                    shardIds.toArray());
+        };
+
+        Map<Integer, User> users = shardRouter.scatter(ids, query).stream()
+                .collect(Collectors.toMap(User::getId, identity(), (first, second) -> first));
+
+        if (shardRouter.isSharded() && users.size() < ids.size()) {
+            List<Integer> missing = ids.stream()
+                    .filter(id -> !users.containsKey(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                shardRouter.scatter(jdbcTemplate -> query.apply(jdbcTemplate, missing))
+                        .forEach(user -> users.putIfAbsent(user.getId(), user));
+            }
+        }
+
+        return users;
+    }
+
     @Override
     public User findByName(String userName) {
-        return jdbcTemplate.queryForObject(
+        return DataAccessUtils.requiredSingleResult(shardRouter.scatter(jdbcTemplate -> jdbcTemplate.query(
                 "SELECT * FROM USERS WHERE NAME = ?",
                 userMapper,
-                userName);
+                userName)));
     }
 
     @Override
     public User findByEmail(String email) {
-        List<User> users = jdbcTemplate.query(
+        List<User> users = shardRouter.scatter(jdbcTemplate -> jdbcTemplate.query(
                 "SELECT * FROM USERS WHERE EMAIL = ?",
                 userMapper,
-                email);
+                email));
 
         if (users.isEmpty()) {
             return null;
@@ -92,10 +166,10 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public User findByLogin(String login) {
-        List<User> users = jdbcTemplate.query(
+        List<User> users = shardRouter.scatter(jdbcTemplate -> jdbcTemplate.query(
                 "SELECT * FROM USERS WHERE LOGIN = ?",
                 userMapper,
-                login);
+                login));
 
         if (users.isEmpty()) {
             return null;
@@ -107,7 +181,8 @@ public class UserRepositoryImpl implements UserRepository {
     @Override
     public Integer findIdByName(String name) {
         String sql = "SELECT USER_ID FROM USERS WHERE NAME = ?";
-        List<Integer> userIds = jdbcTemplate.queryForList(sql, Integer.class, name);
+        List<Integer> userIds = shardRouter.scatter(jdbcTemplate ->
+                jdbcTemplate.queryForList(sql, Integer.class, name));
 
         if (!userIds.isEmpty()) {
             return userIds.get(0);
@@ -118,9 +193,29 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public List<User> findAll() {
-       return jdbcTemplate.query(
-               "SELECT * FROM USERS ORDER BY USER_ID",
-               userMapper);
+        return findAll(Projection.all());
+    }
+
+    @Override
+    public List<User> findAll(Projection projection) {
+       return sortedById(shardRouter.scatter(jdbcTemplate -> jdbcTemplate.query(
+               "SELECT " + selectList(projection) + " FROM USERS AS U ORDER BY U.USER_ID",
+               (rs, rowNum) -> userMapper.mapRow(rs, projection))));
+    }
+
+
+    @Override
+    public RowVersion findRowVersion(Integer id) {
+        List<RowVersion> versions = shardRouter.queryUser(id, jdbcTemplate -> jdbcTemplate.query(
+                "SELECT VERSION, UPDATED_AT FROM USERS WHERE USER_ID = ?",
+                (rs, rowNum) -> new RowVersion(rs.getLong("version"), rs.getTimestamp("updated_at").toInstant()),
+                id));
+
+        if (versions.isEmpty()) {
+            return null;
+        } else {
+            return versions.get(0);
+        }
     }
 
 
@@ -128,14 +223,36 @@ public class UserRepositoryImpl implements UserRepository {
     public boolean deleteById(Integer userID) {
         String sqlQuery = "DELETE FROM USERS WHERE USER_ID = ?";
 
-        return jdbcTemplate.update(sqlQuery, userID) > 0;
+        return shardRouter.writingUsers(() -> {
+            boolean isDeleted = shardRouter.updateUser(userID,
+                    jdbcTemplate -> jdbcTemplate.update(sqlQuery, userID)) > 0;
+
+            // unsharded, the foreign keys cascade the delete to friendships and likes
+            if (isDeleted && shardRouter.isSharded()) {
+                shardRouter.primary().update("DELETE FROM USER_KEYS WHERE USER_ID = ?", userID);
+                shardRouter.forEach(jdbcTemplate ->
+                        jdbcTemplate.update("DELETE FROM USER_FRIENDSHIP WHERE FRIEND_ID = ?", userID));
+                shardRouter.primary().update("DELETE FROM FILM_FANS WHERE USER_ID = ?", userID);
+            }
+
+            return isDeleted;
+        });
     }
 
     @Override
     public boolean deleteAll() {
         String sqlQuery = "DELETE FROM USERS";
 
-        return jdbcTemplate.update(sqlQuery) > 0;
+        return shardRouter.writingUsers(() -> {
+            boolean[] areDeleted = new boolean[1];
+            shardRouter.forEach(jdbcTemplate -> areDeleted[0] |= jdbcTemplate.update(sqlQuery) > 0);
+            if (shardRouter.isSharded()) {
+                shardRouter.primary().update("DELETE FROM FILM_FANS");
+                shardRouter.primary().update("DELETE FROM USER_KEYS");
+            }
+
+            return areDeleted[0];
+        });
     }
 
 
@@ -143,41 +260,140 @@ public class UserRepositoryImpl implements UserRepository {
     public void addFriend(Integer userId, Integer friendId) {
         String sqlQuery = "INSERT INTO USER_FRIENDSHIP(USER_ID, FRIEND_ID) VALUES (?, ?)";
 
-        jdbcTemplate.update(sqlQuery,
+        shardRouter.writingUsers(() -> shardRouter.holding(userId).update(sqlQuery,
                 userId,
-                friendId);
+                friendId));
     }
 
     @Override
     public boolean removeFriend(Integer userId, Integer friendId) {
         String sqlQuery = "DELETE FROM USER_FRIENDSHIP " +
                 "WHERE USER_ID = ? AND FRIEND_ID = ?";
-        int rowsDeleted = jdbcTemplate.update(sqlQuery, userId, friendId);
+        int rowsDeleted = shardRouter.writingUsers(() ->
+                shardRouter.holding(userId).update(sqlQuery, userId, friendId));
         return rowsDeleted > 0;
     }
 
 
     @Override
     public List<User> findFriendsById(Integer userId) {
-        String sqlQuery = "SELECT U.* " +
+        return findFriendsById(userId, Projection.all());
+    }
+
+    @Override
+    public List<User> findFriendsById(Integer userId, Projection projection) {
+        if (shardRouter.isSharded()) {
+            return sortedById(findByIds(findFriendIds(userId), projection).values());
+        }
+
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
                 "FROM USERS AS U " +
                 "JOIN USER_FRIENDSHIP AS UF ON U.USER_ID = UF.FRIEND_ID " +
                 "WHERE UF.USER_ID = ? " +
                 "ORDER BY U.USER_ID";
 
-        return jdbcTemplate.query(sqlQuery, userMapper, userId);
+        return shardRouter.primary().query(sqlQuery, (rs, rowNum) -> userMapper.mapRow(rs, projection), userId);
     }
 
     @Override
     public List<User> getCommonFriends(Integer user1ID, Integer user2ID) {
-        String sqlQuery = "SELECT U.* " +
+        return getCommonFriends(user1ID, user2ID, Projection.all());
+    }
+
+    @Override
+    public List<User> getCommonFriends(Integer user1ID, Integer user2ID, Projection projection) {
+        if (shardRouter.isSharded()) {
+            Set<Integer> commonIds = new HashSet<>(findFriendIds(user1ID));
+            commonIds.retainAll(findFriendIds(user2ID));
+            return sortedById(findByIds(commonIds, projection).values());
+        }
+
+        String sqlQuery = "SELECT " + selectList(projection) + " " +
                 "FROM USERS AS U " +
                 "JOIN USER_FRIENDSHIP AS UF1 ON U.USER_ID = UF1.FRIEND_ID " +
                 "JOIN USER_FRIENDSHIP AS UF2 ON U.USER_ID = UF2.FRIEND_ID " +
                 "WHERE UF1.USER_ID = ? AND UF2.USER_ID = ? " +
                 "ORDER BY U.USER_ID";
 
-        return jdbcTemplate.query(sqlQuery, userMapper, user1ID, user2ID);
+        return shardRouter.primary().query(sqlQuery, (rs, rowNum) -> userMapper.mapRow(rs, projection),
+                user1ID, user2ID);
+    }
+
+    @Override
+    public void loadFriendGraph(FriendGraph.Builder builder) {
+        shardRouter.forEach(jdbcTemplate -> jdbcTemplate.query("SELECT USER_ID FROM USERS", (rs) -> {
+            builder.addUser(rs.getInt("USER_ID"));
+        }));
+
+        shardRouter.forEach(jdbcTemplate ->
+                jdbcTemplate.query("SELECT USER_ID, FRIEND_ID FROM USER_FRIENDSHIP", (rs) -> {
+                    builder.addFriendship(rs.getInt("USER_ID"), rs.getInt("FRIEND_ID"));
+                }));
+    }
+
+    @Override
+    public void loadUserKeys(BiConsumer<String, String> consumer) {
+        shardRouter.forEach(jdbcTemplate -> jdbcTemplate.query("SELECT EMAIL, LOGIN FROM USERS", (rs) -> {
+            consumer.accept(rs.getString("EMAIL"), rs.getString("LOGIN"));
+        }));
+    }
+
+
+    /**
+     * Shards cannot hand out ids of their own, so the id comes from the USER_KEYS row on the primary, whose
+     * unique constraints also keep emails and logins unique across shards. The key row is removed again if the
+     * user cannot be written to its shard.
+     */
+    private User saveSharded(User user) {
+        Number newUserId = userKeyInsert.executeAndReturnKey(shardRouter.primary(),
+                Map.of("email", user.getEmail(), "login", user.getLogin()));
+        user.setId(newUserId.intValue());
+
+        try {
+            shardRouter.forUser(user.getId()).update(
+                    "INSERT INTO USERS (USER_ID, NAME, EMAIL, LOGIN, DATE_OF_BIRTH) VALUES (?, ?, ?, ?, ?)",
+                    user.getId(),
+                    user.getName(),
+                    user.getEmail(),
+                    user.getLogin(),
+                    user.getBirthday());
+        } catch (RuntimeException ex) {
+            shardRouter.primary().update("DELETE FROM USER_KEYS WHERE USER_ID = ?", user.getId());
+            throw ex;
+        }
+
+        return user;
+    }
+
+    private List<Integer> findFriendIds(Integer userId) {
+        return shardRouter.holding(userId).queryForList(
+                "SELECT FRIEND_ID FROM USER_FRIENDSHIP WHERE USER_ID = ?", Integer.class, userId);
+    }
+
+    /**
+     * Restores the id order of a result gathered from several shards.
+     */
+    private List<User> sortedById(Collection<User> users) {
+        List<User> sorted = new ArrayList<>(users);
+        if (shardRouter.isSharded()) {
+            sorted.sort(Comparator.comparing(User::getId));
+        }
+        return sorted;
+    }
+
+    private String selectList(Projection projection) {
+        if (projection.isAll()) {
+            return "U.*";
+        }
+
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("U.USER_ID");
+        PROJECTED_COLUMNS.forEach((field, column) -> {
+            if (projection.has(field)) {
+                columns.add(column);
+            }
+        });
+        return columns.toString();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlight;
+import ru.yandex.practicum.filmorate.codec.BinaryMediaTypes;
+import ru.yandex.practicum.filmorate.versioning.EntityTag;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of the hottest GETs, serialized once and kept as bytes together with a gzip variant.
+ *
+ * <p>An entry is stamped with the tag of the data it was built from. Every write path bumps the versions
+ * the tags are made of, so the next read after a write finds a different tag and rebuilds the entry in
+ * place; there is nothing to evict explicitly. Binary representations are not cached and go through the
+ * message converters as before.
+ *
+ * <p>Concurrent misses for the same key and tag share one build. A body is only stored if the tag still
+ * reads the same once it has been built: a write that lands while the body is loaded may or may not be in
+ * it, and such a body is sent to the callers that asked for it but never cached under the older tag.
+ */
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final int gzipMinSize;
+
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final SingleFlight<String, Entry> builds = new SingleFlight<>("response-cache");
+
+
+    public ResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.gzipMinSize = properties.getGzipMinSize();
+
+        int maxEntries = properties.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+
+    /**
+     * Writes the cached JSON for {@code key} straight to the servlet response, building it from {@code body}
+     * first if the cached one was made for another tag. The tag is read before the body is loaded and again
+     * after it. Returns {@code false}, having written nothing, when the client wants a representation other
+     * than JSON or the resource has no tag.
+     */
+    public boolean serve(String key, Supplier<EntityTag> tag, WebRequest request, Supplier<?> body) {
+        HttpServletResponse response = request instanceof NativeWebRequest
+                ? ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class) : null;
+
+        if (response == null || !acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return false;
+        }
+
+        EntityTag current = tag.get();
+        if (current == null) {
+            return false;
+        }
+
+        String etag = current.getEtag();
+        Entry entry = get(key, etag);
+        if (entry == null) {
+            entry = builds.execute(key + " " + etag, () -> {
+                misses.incrementAndGet();
+                Entry built = build(etag, body.get());
+                EntityTag after = tag.get();
+                if (after != null && after.getEtag().equals(etag)) {
+                    put(key, built);
+                }
+                return built;
+            });
+        } else {
+            hits.incrementAndGet();
+        }
+
+        write(entry, acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)), response);
+        return true;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        long bytes = 0;
+        long gzipBytes = 0;
+
+        for (Entry entry : entries.values()) {
+            bytes += entry.identity.length;
+            gzipBytes += entry.gzip == null ? entry.identity.length : entry.gzip.length;
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("entries", entries.size());
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("coalesced", builds.getCoalesced());
+        statistics.put("bytes", bytes);
+        statistics.put("gzipBytes", gzipBytes);
+        return statistics;
+    }
+
+
+    private synchronized Entry get(String key, String etag) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.etag.equals(etag) ? entry : null;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    private Entry build(String etag, Object body) {
+        try {
+            ObjectWriter writer = objectMapper.writer();
+            Object value = body;
+
+            if (body instanceof MappingJacksonValue) {
+                MappingJacksonValue container = (MappingJacksonValue) body;
+                if (container.getFilters() != null) {
+                    writer = writer.with(container.getFilters());
+                }
+                value = container.getValue();
+            }
+
+            byte[] identity = writer.writeValueAsBytes(value);
+            return new Entry(etag, identity, identity.length < gzipMinSize ? null : gzip(identity));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize cached response", ex);
+        }
+    }
+
+    private static void write(Entry entry, boolean gzip, HttpServletResponse response) {
+        byte[] bytes = entry.identity;
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (entry.gzip != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                bytes = entry.gzip;
+            }
+        }
+        response.setContentLength(bytes.length);
+
+        try {
+            response.getOutputStream().write(bytes);
+            response.flushBuffer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return true;
+        }
+        if (BinaryMediaTypes.variantOf(accept) != null) {
+            return false;
+        }
+
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.getQualityValue() > 0
+                            && mediaType.includes(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    private static class Entry {
+
+        private final String etag;
+
+        private final byte[] identity;
+
+        private final byte[] gzip;
+
+
+        Entry(String etag, byte[] identity, byte[] gzip) {
+            this.etag = etag;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfiguration {
+
+    @Bean
+    public ResponseCache responseCache(ObjectMapper objectMapper, ResponseCacheProperties properties) {
+        return new ResponseCache(objectMapper, properties);
+    }
+
+}
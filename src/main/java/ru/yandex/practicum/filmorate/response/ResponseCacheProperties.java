@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.response;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * How many serialized responses are kept; the least recently served one is dropped first.
+     */
+    private int maxEntries = 1024;
+
+    /**
+     * Bodies smaller than this are not worth a gzip variant and are always sent as is.
+     */
+    private int gzipMinSize = 256;
+
+}
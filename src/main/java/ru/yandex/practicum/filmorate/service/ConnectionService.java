@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Connection;
+
+public interface ConnectionService {
+
+    Connection findConnection(Integer userId, Integer otherId, Integer maxHops);
+
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scans over the columnar replica of FILMS. Results may lag writes by up to the film-columns view's max
+ * staleness ({@code filmorate.views.default-max-staleness}), except for a request pinned to the primary
+ * because its client wrote recently: that one brings the replica up to date before scanning.
+ */
+public interface FilmScanService {
+
+    List<Film> scan(FilmFilter filter, String sort, Integer limit);
+
+    Map<Integer, Long> getReleaseYearHistogram(FilmFilter filter);
+
+}
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import java.util.List;
 
@@ -16,14 +17,34 @@ public interface FilmService {
 
     List<Film> findAll();
 
+    List<Film> findAll(Projection projection);
+
+    List<Film> findByIds(List<Integer> ids, Projection projection);
+
     boolean deleteById(Integer filmID);
 
     boolean deleteAll();
 
     void addLike(Integer filmId, Integer userId);
 
+    /**
+     * Queues the like for the background writer. The film and user are checked against in-memory state; the
+     * like itself is looked up so that one already persisted is not counted again in the overlay.
+     */
+    void acceptLike(Integer filmId, Integer userId);
+
     boolean removeLike(Integer filmId, Integer userId);
 
     List<Film> getTopByLikes(Integer count);
 
+    List<Film> getTopByLikes(Integer count, Projection projection);
+
+    List<Film> findLikedByUser(Integer userId, Integer from, Integer size, Projection projection);
+
+    /**
+     * Films liked by the users who share likes with this one, leaving out the films the user has liked already,
+     * including likes still waiting in the ingestion queue.
+     */
+    List<Film> findRecommendations(Integer userId, Integer count);
+
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.UserProfile;
+
+public interface ProfileService {
+
+    UserProfile getProfile(Integer userId, Integer recommendationCount);
+
+}
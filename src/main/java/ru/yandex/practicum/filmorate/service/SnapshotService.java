@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.nio.file.Path;
+
+public interface SnapshotService {
+
+    void export(Path path);
+
+    void restore(Path path);
+
+    boolean isDatabaseEmpty();
+
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+
+public interface StatsService {
+
+    CatalogStats getCatalogStats();
+
+}
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
 
 import java.util.List;
 
@@ -16,6 +17,10 @@ public interface UserService {
 
     List<User> findAll();
 
+    List<User> findAll(Projection projection);
+
+    List<User> findByIds(List<Integer> ids, Projection projection);
+
     boolean deleteById(Integer userID);
 
     boolean deleteAll();
@@ -24,8 +29,12 @@ public interface UserService {
 
     List<User> findFriendsById(Integer userId);
 
+    List<User> findFriendsById(Integer userId, Projection projection);
+
     boolean removeFriend(Integer userId, Integer friendId);
 
     List<User> getCommonFriends(Integer user1ID, Integer user2ID);
 
+    List<User> getCommonFriends(Integer user1ID, Integer user2ID, Projection projection);
+
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.graph.BidirectionalBfs;
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.graph.GraphProperties;
+import ru.yandex.practicum.filmorate.model.Connection;
+import ru.yandex.practicum.filmorate.model.ConnectionStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.service.ConnectionService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers connection queries from an in-memory {@link FriendGraph} that is rebuilt after any write to the
+ * users domain.
+ *
+ * <p>Only the first query builds the graph on the calling thread. After that, a query that finds the graph
+ * stale starts one rebuild on a background thread and is answered from the previous graph. A query right
+ * after a friendship change may therefore not see it yet.
+ */
+@Slf4j
+@Service
+public class ConnectionServiceImpl implements ConnectionService {
+
+    private final UserRepository userRepository;
+
+    private final DataVersions dataVersions;
+
+    private final GraphProperties graphProperties;
+
+    private final BidirectionalBfs bidirectionalBfs;
+
+    private final ExecutorService rebuilder;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile GraphSnapshot snapshot;
+
+
+    public ConnectionServiceImpl(UserRepository userRepository, DataVersions dataVersions,
+                                 GraphProperties graphProperties, BidirectionalBfs bidirectionalBfs) {
+        this.userRepository = userRepository;
+        this.dataVersions = dataVersions;
+        this.graphProperties = graphProperties;
+        this.bidirectionalBfs = bidirectionalBfs;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("friend-graph-");
+        threadFactory.setDaemon(true);
+        this.rebuilder = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+
+    @Override
+    public Connection findConnection(Integer userId, Integer otherId, Integer maxHops) {
+        int hopLimit = maxHops == null ? graphProperties.getMaxHops() : maxHops;
+        if (hopLimit < 1 || hopLimit > graphProperties.getMaxHops()) {
+            throw new IllegalArgumentException("Parameter 'maxHops' must be between 1 and "
+                    + graphProperties.getMaxHops());
+        }
+
+        Map<Integer, User> ends = userRepository.findByIds(List.of(userId, otherId));
+        if (!ends.containsKey(userId)) {
+            throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+        }
+        if (!ends.containsKey(otherId)) {
+            throw new EntityNotFoundException(User.class, "User with id = " + otherId + " hasn't been found");
+        }
+
+        FriendGraph graph = currentGraph();
+        int source = graph.indexOf(userId);
+        int target = graph.indexOf(otherId);
+
+        if (source < 0 || target < 0) {
+            return new Connection(userId, otherId, ConnectionStatus.NOT_CONNECTED, null, null);
+        }
+
+        long deadline = System.nanoTime() + graphProperties.getTimeBudget().toNanos();
+        BidirectionalBfs.SearchResult result = bidirectionalBfs.search(graph, source, target, hopLimit, deadline);
+
+        if (result.getStatus() != ConnectionStatus.CONNECTED) {
+            return new Connection(userId, otherId, result.getStatus(), null, null);
+        }
+
+        int[] path = result.getPath();
+        List<Integer> pathIds = new ArrayList<>(path.length);
+        for (int index : path) {
+            pathIds.add(graph.userIdAt(index));
+        }
+
+        Map<Integer, User> usersById = path.length <= 2 ? ends : userRepository.findByIds(pathIds);
+        List<User> users = new ArrayList<>(path.length);
+        for (Integer id : pathIds) {
+            users.add(usersById.get(id));
+        }
+
+        return new Connection(userId, otherId, ConnectionStatus.CONNECTED, path.length - 1, users);
+    }
+
+
+    private FriendGraph currentGraph() {
+        GraphSnapshot current = snapshot;
+        if (current == null) {
+            return rebuild().graph;
+        }
+
+        if (current.version != dataVersions.versionOf(DataDomain.USERS)) {
+            rebuildInBackground();
+        }
+        return current.graph;
+    }
+
+    private void rebuildInBackground() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException ex) {
+                    log.warn("Friend graph rebuild failed, keeping the previous graph", ex);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rebuilding.set(false);
+        }
+    }
+
+    private synchronized GraphSnapshot rebuild() {
+        long version = dataVersions.versionOf(DataDomain.USERS);
+        GraphSnapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+
+        long start = System.nanoTime();
+        FriendGraph.Builder builder = new FriendGraph.Builder();
+        userRepository.loadFriendGraph(builder);
+        FriendGraph graph = builder.build();
+        current = new GraphSnapshot(version, graph);
+        snapshot = current;
+
+        log.info("Built friend graph of {} users and {} friendships in {} ms", graph.size(), graph.edgeCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return current;
+    }
+
+
+    private static final class GraphSnapshot {
+
+        private final long version;
+
+        private final FriendGraph graph;
+
+
+        GraphSnapshot(long version, FriendGraph graph) {
+            this.version = version;
+            this.graph = graph;
+        }
+
+    }
+
+}
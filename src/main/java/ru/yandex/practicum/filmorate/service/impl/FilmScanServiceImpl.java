@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.columnar.ColumnarScanner;
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+import ru.yandex.practicum.filmorate.materialized.MaterializedViews;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.service.FilmScanService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class FilmScanServiceImpl implements FilmScanService {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private MaterializedViews materializedViews;
+
+    private FilmColumnsView filmColumnsView;
+
+    private ColumnarScanner columnarScanner;
+
+
+    @Override
+    public List<Film> scan(FilmFilter filter, String sort, Integer limit) {
+        validateFilter(filter);
+        if (limit == null || limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Parameter 'limit' must be between 1 and " + MAX_LIMIT);
+        }
+
+        if (!"popularity".equals(sort) && !"id".equals(sort)) {
+            throw new IllegalArgumentException("Unknown sort '" + sort + "', expected 'id' or 'popularity'");
+        }
+
+        FilmColumns columns = acquireColumns();
+        try {
+            int[] ids = "popularity".equals(sort)
+                    ? columnarScanner.topByPopularity(columns, filter, limit)
+                    : columnarScanner.filter(columns, filter);
+
+            List<Film> page = new ArrayList<>(Math.min(ids.length, limit));
+            for (int i = 0; i < ids.length && i < limit; i++) {
+                page.add(columns.filmAt(columns.rowOf(ids[i])));
+            }
+
+            log.debug("Scanned {} films, {} matched", columns.size(), ids.length);
+            return page;
+        } finally {
+            columns.release();
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> getReleaseYearHistogram(FilmFilter filter) {
+        validateFilter(filter);
+        return columnarScanner.releaseYearHistogram(readColumns(), filter);
+    }
+
+
+    /**
+     * Holds the snapshot's text arena while rows are decoded. A snapshot whose arena a rebuild has just
+     * released is only visible until the rebuilt one is published, so reading again soon gets a live one.
+     */
+    private FilmColumns acquireColumns() {
+        while (true) {
+            FilmColumns columns = readColumns();
+            if (columns.acquire()) {
+                return columns;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private FilmColumns readColumns() {
+        return ReadRouting.isPinned()
+                ? materializedViews.refresh(filmColumnsView)
+                : materializedViews.read(filmColumnsView);
+    }
+
+    private void validateFilter(FilmFilter filter) {
+        if (filter.getMinDuration() != null && filter.getMaxDuration() != null
+                && filter.getMinDuration() > filter.getMaxDuration()) {
+            throw new IllegalArgumentException("Parameter 'minDuration' must not exceed 'maxDuration'");
+        }
+        if (filter.getReleasedFrom() != null && filter.getReleasedTo() != null
+                && filter.getReleasedFrom().isAfter(filter.getReleasedTo())) {
+            throw new IllegalArgumentException("Parameter 'releasedFrom' must not be after 'releasedTo'");
+        }
+    }
+
+}
@@ -2,19 +2,33 @@ package ru.yandex.practicum.filmorate.service.impl;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.batching.BatchLoader;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlightRegistry;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
 import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.replication.ReplicaRead;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.GenreRepository;
 import ru.yandex.practicum.filmorate.repository.RatingRepository;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
 
 @Slf4j
@@ -22,6 +36,10 @@ import java.util.*;
 @AllArgsConstructor
 public class FilmServiceImpl implements FilmService {
 
+    private static final String FIND_BY_ID = "films.findById";
+
+    private static final String TOP_BY_LIKES = "films.getTopByLikes";
+
     private GenreService genreService;
 
     private FilmRepository filmRepository;
@@ -30,6 +48,27 @@ public class FilmServiceImpl implements FilmService {
 
     private RatingRepository ratingRepository;
 
+    private DataVersions dataVersions;
+
+    private SingleFlightRegistry singleFlights;
+
+    private BatchLoader<Integer, Film> filmLoader;
+
+    private BatchLoader<Integer, User> userLoader;
+
+    private CatalogStatsView catalogStatsView;
+
+    private FilmColumnsView filmColumnsView;
+
+    private LikeIngestion likeIngestion;
+
+    private ShardRouter shardRouter;
+
+
+    @PostConstruct
+    public void listenForPersistedLikes() {
+        likeIngestion.onPersisted(filmIds -> filmIds.forEach(this::likesChanged));
+    }
 
     @Override
     public Film save(Film newFilm) {
@@ -39,7 +78,13 @@ public class FilmServiceImpl implements FilmService {
             throw new IllegalArgumentException("Rating with id " + newFilm.getMpa().getId() + " does not exist");
         }
 
-        Film savedFilm = filmRepository.save(newFilm);
+        Film savedFilm;
+        try {
+            savedFilm = filmRepository.save(newFilm);
+        } catch (DuplicateKeyException ex) {
+            throw new EntityAlreadyExistsException(Film.class, "Film '" + newFilm.getName() + "' released on " +
+                    newFilm.getReleaseDate() + " already exists");
+        }
 
         List<Genre> genres = newFilm.getGenres();
 
@@ -71,12 +116,19 @@ public class FilmServiceImpl implements FilmService {
             savedFilm.setGenres(savedGenres);
         }
 
+        filmChanged(savedFilm.getId());
         return savedFilm;
     }
 
     @Override
     public Film update(Film film) {
-        boolean isSuccess = filmRepository.update(film);
+        boolean isSuccess;
+        try {
+            isSuccess = filmRepository.update(film);
+        } catch (DuplicateKeyException ex) {
+            throw new EntityAlreadyExistsException(Film.class, "Film '" + film.getName() + "' released on " +
+                    film.getReleaseDate() + " already exists");
+        }
 
         if (!isSuccess) {
             throw new EntityNotFoundException(Film.class,
@@ -101,19 +153,28 @@ public class FilmServiceImpl implements FilmService {
         genreRepository.add(film.getId(), uniqueGenres);
         film.setGenres(uniqueGenres);
 
+        filmChanged(film.getId());
         return film;
     }
 
 
     @Override
+    @ReplicaRead
     public Film findById(Integer id) {
-        try {
-            Film film = filmRepository.findById(id);
-            genreService.load(List.of(film));
-            return film;
-        } catch (EmptyResultDataAccessException ex) {
+        return singleFlights.<Integer, Film>get(FIND_BY_ID).execute(id, () -> loadById(id), Film::copy);
+    }
+
+    private Film loadById(Integer id) {
+        Film loaded = filmLoader.load(id);
+
+        if (loaded == null) {
             throw new EntityNotFoundException(Film.class, "Film with id = " + id + " hasn't been found");
         }
+
+        Film film = new Film(loaded.getId(), loaded.getName(), loaded.getDescription(), loaded.getReleaseDate(),
+                loaded.getDuration(), loaded.getMpa(), loaded.getPopularity() + likeIngestion.pendingLikes(id));
+        genreService.load(List.of(film));
+        return film;
     }
 
     @Override
@@ -128,63 +189,280 @@ public class FilmServiceImpl implements FilmService {
     }
 
     @Override
+    @ReplicaRead
     public List<Film> findAll() {
-        List<Film> all = filmRepository.findAll();
-        genreService.load(all);
+        return findAll(Projection.all());
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> findAll(Projection projection) {
+        List<Film> all = filmRepository.findAll(projection);
+        addPendingLikes(all);
+        if (projection.has("genres")) {
+            genreService.load(all);
+        }
         return all;
     }
 
+    @Override
+    @ReplicaRead
+    public List<Film> findByIds(List<Integer> ids, Projection projection) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Integer, Film> filmsById = filmRepository.findByIds(uniqueIds, projection);
+
+        List<Film> films = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+
+        addPendingLikes(films);
+        if (projection.has("genres") && !films.isEmpty()) {
+            genreService.load(films);
+        }
+        return films;
+    }
+
     @Override
     public boolean deleteById(Integer filmID) {
-        return filmRepository.deleteById(filmID);
+        boolean isDeleted = filmRepository.deleteById(filmID);
+        filmChanged(filmID);
+        return isDeleted;
     }
 
     @Override
     public boolean deleteAll() {
-        return filmRepository.deleteAll();
+        boolean areDeleted = filmRepository.deleteAll();
+        catalogStatsView.allFilmsChanged();
+        filmColumnsView.filmsChanged();
+        dataVersions.allFilmsChanged();
+        singleFlights.get(FIND_BY_ID).forgetAll();
+        singleFlights.get(TOP_BY_LIKES).forgetAll();
+        return areDeleted;
     }
 
     @Override
     public void addLike(Integer filmId, Integer userId) {
 
-        Film film = filmRepository.findById(filmId);
+        Film film = filmRepository.findByIds(List.of(filmId)).get(filmId);
 
         if (film == null) {
             throw new EntityNotFoundException(Film.class, "Film with id = " + filmId + " hasn't been found");
         }
 
+        // unsharded, the FILM_FANS foreign key rejects an unknown user without a lookup up front
+        if (shardRouter.isSharded() && !dataVersions.userExists(userId)) {
+            throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+        }
+
+        if (likeIngestion.isPending(filmId, userId) || filmRepository.existsLike(filmId, userId)) {
+            throw new EntityAlreadyExistsException(Integer.class,
+                    "User with id = " + userId + " has already liked film with id = '" + filmId + "'");
+        }
+
+        try {
+            filmRepository.addLike(filmId, userId);
+        } catch (DataIntegrityViolationException ex) {
+            if (!dataVersions.userExists(userId)) {
+                throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+            }
+            throw ex;
+        }
+        likesChanged(filmId);
+
+    }
+
+    @Override
+    public void acceptLike(Integer filmId, Integer userId) {
+
+        if (!dataVersions.filmExists(filmId)) {
+            throw new EntityNotFoundException(Film.class, "Film with id = " + filmId + " hasn't been found");
+        }
+
+        if (!dataVersions.userExists(userId)) {
+            throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+        }
+
         if (filmRepository.existsLike(filmId, userId)) {
             throw new EntityAlreadyExistsException(Integer.class,
                     "User with id = " + userId + " has already liked film with id = '" + filmId + "'");
         }
 
-        filmRepository.addLike(filmId, userId);
+        likeIngestion.accept(filmId, userId);
+        filmColumnsView.likesChanged(filmId);
+        dataVersions.changed(DataDomain.FILMS);
+        singleFlights.get(FIND_BY_ID).forget(filmId);
+        singleFlights.get(TOP_BY_LIKES).forgetAll();
 
     }
 
     @Override
     public boolean removeLike(Integer filmId, Integer userId) {
 
-        Film film = filmRepository.findById(filmId);
+        Film film = filmRepository.findByIds(List.of(filmId)).get(filmId);
 
         if (film == null) {
             throw new EntityNotFoundException(Film.class, "Film with id = " + filmId + " hasn't been found");
         }
 
+        if (likeIngestion.isPending(filmId, userId)) {
+            likeIngestion.flush();
+        }
+
         if (!filmRepository.existsLike(filmId, userId)) {
             throw new EntityNotFoundException(Integer.class,
                     "User with id = " + userId + " hasn't liked film with id = '" + filmId + "' yet");
         }
 
-        return filmRepository.removeLike(filmId, userId);
+        boolean isRemoved = filmRepository.removeLike(filmId, userId);
+        likesChanged(filmId);
+        return isRemoved;
 
     }
 
     @Override
+    @ReplicaRead
     public List<Film> getTopByLikes(Integer count) {
-        List<Film> top = filmRepository.getTopByLikes(count);
-        genreService.load(top);
-        return top;
+        return getTopByLikes(count, Projection.all());
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> getTopByLikes(Integer count, Projection projection) {
+        return singleFlights.<List<Object>, List<Film>>get(TOP_BY_LIKES).execute(List.of(count, projection), () -> {
+            List<Film> top = withPendingLikes(filmRepository.getTopByLikes(count, projection), count, projection);
+            if (projection.has("genres")) {
+                genreService.load(top);
+            }
+            return top;
+        }, FilmServiceImpl::copyAll);
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> findLikedByUser(Integer userId, Integer from, Integer size, Projection projection) {
+        if (from == null || from < 0) {
+            throw new IllegalArgumentException("Parameter 'from' must not be negative");
+        }
+        if (size == null || size < 1) {
+            throw new IllegalArgumentException("Parameter 'size' must be positive");
+        }
+
+        if (userLoader.load(userId) == null) {
+            throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+        }
+
+        List<Film> liked = withPendingFilmsOf(userId, from, size, projection);
+        addPendingLikes(liked);
+        if (projection.has("genres") && !liked.isEmpty()) {
+            genreService.load(liked);
+        }
+        return liked;
+    }
+
+    @Override
+    @ReplicaRead
+    public List<Film> findRecommendations(Integer userId, Integer count) {
+        Set<Integer> pendingFilms = likeIngestion.pendingFilmsOf(userId);
+        List<Film> recommended = new ArrayList<>(
+                filmRepository.findRecommendations(userId, count + pendingFilms.size()));
+        recommended.removeIf(film -> pendingFilms.contains(film.getId()));
+        if (recommended.size() > count) {
+            recommended = new ArrayList<>(recommended.subList(0, count));
+        }
+        addPendingLikes(recommended);
+        if (!recommended.isEmpty()) {
+            genreService.load(recommended);
+        }
+        return recommended;
+    }
+
+    /**
+     * Pages the user's liked films together with the likes still waiting in the ingestion queue, in film id order
+     * like the repository page. Without pending likes this is the repository page as it is.
+     */
+    private List<Film> withPendingFilmsOf(Integer userId, Integer from, Integer size, Projection projection) {
+        Set<Integer> pendingFilms = likeIngestion.pendingFilmsOf(userId);
+        if (pendingFilms.isEmpty()) {
+            return filmRepository.findLikedByUser(userId, from, size, projection);
+        }
+
+        int end = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+        Map<Integer, Film> liked = new TreeMap<>();
+        for (Film film : filmRepository.findLikedByUser(userId, 0, end, projection)) {
+            liked.put(film.getId(), film);
+        }
+        filmRepository.findByIds(pendingFilms, projection).forEach(liked::putIfAbsent);
+
+        List<Film> ordered = new ArrayList<>(liked.values());
+        if (from >= ordered.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(ordered.subList(from, Math.min(end, ordered.size())));
+    }
+
+
+    /**
+     * Re-ranks a top list with the likes still waiting in the ingestion queue, pulling in films that those
+     * likes may have lifted into it.
+     */
+    private List<Film> withPendingLikes(List<Film> top, Integer count, Projection projection) {
+        Set<Integer> pendingFilms = likeIngestion.pendingFilms();
+        if (pendingFilms.isEmpty() || !projection.has("popularity")) {
+            return top;
+        }
+
+        Map<Integer, Film> candidates = new LinkedHashMap<>();
+        for (Film film : top) {
+            candidates.put(film.getId(), film);
+        }
+        filmRepository.findByIds(pendingFilms, projection).forEach(candidates::putIfAbsent);
+        addPendingLikes(candidates.values());
+
+        List<Film> ranked = new ArrayList<>(candidates.values());
+        ranked.sort(Comparator.comparing(Film::getPopularity).reversed());
+        return new ArrayList<>(ranked.subList(0, Math.min(count, ranked.size())));
+    }
+
+    private void addPendingLikes(Collection<Film> films) {
+        if (!likeIngestion.hasPending()) {
+            return;
+        }
+
+        for (Film film : films) {
+            int pending = likeIngestion.pendingLikes(film.getId());
+            if (pending > 0 && film.getPopularity() != null) {
+                film.setPopularity(film.getPopularity() + pending);
+            }
+        }
+    }
+
+    private void filmChanged(Integer filmId) {
+        filmColumnsView.filmsChanged();
+        publishChange(filmId);
+    }
+
+    private void likesChanged(Integer filmId) {
+        filmColumnsView.likesChanged(filmId);
+        publishChange(filmId);
+    }
+
+    private void publishChange(Integer filmId) {
+        catalogStatsView.filmChanged(filmId);
+        dataVersions.filmChanged(filmId);
+        singleFlights.get(FIND_BY_ID).forget(filmId);
+        singleFlights.get(TOP_BY_LIKES).forgetAll();
+    }
+
+    private static List<Film> copyAll(List<Film> films) {
+        List<Film> copies = new ArrayList<>(films.size());
+        for (Film film : films) {
+            copies.add(film.copy());
+        }
+        return copies;
     }
 
-}
\ No newline at end of file
+}
@@ -9,6 +9,8 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.GenreRepository;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
 
 import java.util.List;
 
@@ -18,6 +20,8 @@ public class GenreServiceImpl implements GenreService {
 
     private GenreRepository genreRepository;
 
+    private DataVersions dataVersions;
+
 
     @Override
     public Genre save(Genre genre) {
@@ -28,7 +32,9 @@ public class GenreServiceImpl implements GenreService {
                     "Genre with name '" + genre.getName() + "' already exists");
         }
 
-        return genreRepository.save(genre);
+        Genre savedGenre = genreRepository.save(genre);
+        dataVersions.changed(DataDomain.GENRES);
+        return savedGenre;
     }
 
     @Override
@@ -39,6 +45,8 @@ public class GenreServiceImpl implements GenreService {
             throw new EntityNotFoundException(Genre.class,
                     "Genre with id = " + genre.getId() + " hasn't been found");
         }
+
+        dataVersions.changed(DataDomain.GENRES);
     }
 
     @Override
@@ -66,12 +74,16 @@ public class GenreServiceImpl implements GenreService {
 
     @Override
     public boolean deleteById(Integer genreID) {
-        return genreRepository.deleteById(genreID);
+        boolean isDeleted = genreRepository.deleteById(genreID);
+        dataVersions.changed(DataDomain.GENRES);
+        return isDeleted;
     }
 
     @Override
     public boolean deleteAll() {
-        return genreRepository.deleteAll();
+        boolean areDeleted = genreRepository.deleteAll();
+        dataVersions.changed(DataDomain.GENRES);
+        return areDeleted;
     }
 
     @Override
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserProfile;
+import ru.yandex.practicum.filmorate.profile.ProfileProperties;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ProfileService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.tracing.TraceContext;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ProfileServiceImpl implements ProfileService {
+
+    private UserService userService;
+
+    private FilmService filmService;
+
+    private ExecutorService profileExecutor;
+
+    private ProfileProperties profileProperties;
+
+
+    @Override
+    public UserProfile getProfile(Integer userId, Integer recommendationCount) {
+        if (recommendationCount == null || recommendationCount < 1) {
+            throw new IllegalArgumentException("Recommendation count must be positive");
+        }
+
+        User user = userService.findById(userId);
+        long deadline = System.nanoTime() + profileProperties.getTimeout().toNanos();
+
+        Future<List<User>> friends = submit(() -> userService.findFriendsById(userId));
+        Future<List<Film>> likedFilms = submit(
+                () -> filmService.findLikedByUser(userId, 0, profileProperties.getLikedFilms(), Projection.all()));
+        Future<List<Film>> recommendations = submit(
+                () -> filmService.findRecommendations(userId, recommendationCount));
+
+        UserProfile profile = new UserProfile();
+        profile.setUser(user);
+        profile.setFriends(await("friends", friends, deadline, profile));
+        profile.setLikedFilms(await("likedFilms", likedFilms, deadline, profile));
+        profile.setRecommendations(await("recommendations", recommendations, deadline, profile));
+        return profile;
+    }
+
+
+    /**
+     * Runs a section on the pool with the caller's trace and primary pin, so a client that just wrote still
+     * reads its own writes in every section.
+     */
+    private <T> Future<T> submit(Callable<T> section) {
+        boolean pinned = ReadRouting.isPinned();
+        Callable<T> routed = () -> {
+            ReadRouting.pin(pinned);
+            try {
+                return section.call();
+            } finally {
+                ReadRouting.pin(false);
+            }
+        };
+        try {
+            return profileExecutor.submit(TraceContext.wrap(routed));
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Waits for a section until the shared deadline. A late section is cancelled without interrupting it:
+     * interrupting a thread inside an H2 JDBC call can close the file channel of the whole database, so a
+     * section that already started runs to completion on its pool thread and its result is dropped.
+     */
+    private <T> T await(String section, Future<T> result, long deadline, UserProfile profile) {
+        if (result == null) {
+            log.warn("Profile section {} skipped: executor is saturated", section);
+            profile.getIncomplete().add(section);
+            return null;
+        }
+
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            result.cancel(false);
+            log.warn("Profile section {} did not finish before the deadline", section);
+        } catch (ExecutionException ex) {
+            log.warn("Profile section {} failed", section, ex.getCause());
+        } catch (InterruptedException ex) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+        }
+
+        profile.getIncomplete().add(section);
+        return null;
+    }
+
+}
@@ -8,6 +8,8 @@ import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.RatingRepository;
 import ru.yandex.practicum.filmorate.service.RatingService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
 
 import java.util.List;
 
@@ -17,6 +19,8 @@ public class RatingServiceImpl implements RatingService {
 
     private RatingRepository ratingRepository;
 
+    private DataVersions dataVersions;
+
 
     @Override
     public Rating save(Rating rating) {
@@ -27,7 +31,9 @@ public class RatingServiceImpl implements RatingService {
                     "Rating with name '" + rating.getName() + "' already exists");
         }
 
-        return ratingRepository.save(rating);
+        Rating savedRating = ratingRepository.save(rating);
+        dataVersions.changed(DataDomain.RATINGS);
+        return savedRating;
     }
 
     @Override
@@ -38,6 +44,8 @@ public class RatingServiceImpl implements RatingService {
             throw new EntityNotFoundException(Rating.class,
                     "Rating with id = " + rating.getId() + " hasn't been found");
         }
+
+        dataVersions.changed(DataDomain.RATINGS);
     }
 
     @Override
@@ -65,12 +73,18 @@ public class RatingServiceImpl implements RatingService {
 
     @Override
     public boolean deleteById(Integer ratingID) {
-        return ratingRepository.deleteById(ratingID);
+        boolean isDeleted = ratingRepository.deleteById(ratingID);
+        dataVersions.allFilmsChanged();
+        dataVersions.changed(DataDomain.RATINGS);
+        return isDeleted;
     }
 
     @Override
     public boolean deleteAll() {
-        return ratingRepository.deleteAll();
+        boolean areDeleted = ratingRepository.deleteAll();
+        dataVersions.allFilmsChanged();
+        dataVersions.changed(DataDomain.RATINGS);
+        return areDeleted;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.service.SnapshotService;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotColumn;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotReader;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotTable;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnapshotServiceImpl implements SnapshotService {
+
+    /**
+     * Bookkeeping tables that describe the database itself rather than its content.
+     */
+    private static final Set<String> EXCLUDED_TABLES = Set.of("SCHEMA_VERSION", "REPLICATION_LOG");
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShardRouter shardRouter;
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(Path path) {
+        requireUnsharded();
+        long start = System.currentTimeMillis();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        List<TableInfo> tables = readTableInfos();
+
+        try (SnapshotWriter writer = new SnapshotWriter(tmp)) {
+            writer.writeHeader(start, tables.size());
+
+            for (TableInfo table : tables) {
+                writer.writeTable(readTable(table));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + path, e);
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to move snapshot into " + path, e);
+        }
+
+        log.info("Snapshot {} exported in {} ms", path, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * H2 commits DDL immediately, so the identities are moved above the snapshot's keys before the rows are
+     * replaced, and the rows are replaced in one transaction of their own. A failure leaves either the old
+     * rows or all the snapshot's rows, at worst behind identities that skip some values.
+     */
+    @Override
+    public void restore(Path path) {
+        requireUnsharded();
+        long start = System.currentTimeMillis();
+        List<SnapshotTable> tables;
+
+        try {
+            tables = new SnapshotReader(path).readTables();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read snapshot " + path, e);
+        }
+
+        Map<String, SnapshotTable> tablesByName = new HashMap<>();
+        for (SnapshotTable table : tables) {
+            tablesByName.put(table.getName(), table);
+        }
+
+        List<TableInfo> current = readTableInfos();
+        for (TableInfo info : current) {
+            SnapshotTable table = tablesByName.get(info.name);
+            if (table != null) {
+                advanceIdentities(table, info);
+            }
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(Objects.requireNonNull(jdbcTemplate.getDataSource())));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = current.size() - 1; i >= 0; i--) {
+                jdbcTemplate.update("DELETE FROM " + current.get(i).name);
+            }
+
+            for (TableInfo info : current) {
+                SnapshotTable table = tablesByName.get(info.name);
+                if (table == null) {
+                    log.warn("Table {} is missing from snapshot {}, left empty", info.name, path);
+                    continue;
+                }
+
+                insertTable(table, info);
+            }
+        });
+
+        current.forEach(info -> tablesByName.remove(info.name));
+        for (String name : tablesByName.keySet()) {
+            log.warn("Skipping unknown table {} from snapshot {}", name, path);
+        }
+
+        log.info("Snapshot {} restored in {} ms", path, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public boolean isDatabaseEmpty() {
+        Integer films = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILMS", Integer.class);
+        Integer users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USERS", Integer.class);
+        return films == 0 && users == 0;
+    }
+
+
+    private void requireUnsharded() {
+        if (shardRouter.isSharded()) {
+            throw new IllegalStateException("Snapshots only cover the primary database, users are sharded across " +
+                    shardRouter.getShards());
+        }
+    }
+
+    /**
+     * Application tables of the current schema with their key and identity columns, parents before the tables
+     * that reference them.
+     */
+    private List<TableInfo> readTableInfos() {
+        return jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String schema = connection.getSchema();
+            Map<String, TableInfo> tables = new TreeMap<>();
+
+            try (ResultSet rs = metaData.getTables(null, schema, null, new String[]{"TABLE", "BASE TABLE"})) {
+                while (rs.next()) {
+                    String name = rs.getString("TABLE_NAME");
+                    if (!EXCLUDED_TABLES.contains(name)) {
+                        tables.put(name, new TableInfo(name));
+                    }
+                }
+            }
+
+            for (TableInfo table : tables.values()) {
+                Map<Short, String> keyColumns = new TreeMap<>();
+                try (ResultSet rs = metaData.getPrimaryKeys(null, schema, table.name)) {
+                    while (rs.next()) {
+                        keyColumns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+                    }
+                }
+                table.keyColumns.addAll(keyColumns.values());
+
+                try (ResultSet rs = metaData.getColumns(null, schema, table.name, null)) {
+                    while (rs.next()) {
+                        table.columns.add(rs.getString("COLUMN_NAME"));
+                        if ("YES".equals(rs.getString("IS_AUTOINCREMENT"))) {
+                            table.identityColumns.add(rs.getString("COLUMN_NAME"));
+                        }
+                    }
+                }
+
+                try (ResultSet rs = metaData.getImportedKeys(null, schema, table.name)) {
+                    while (rs.next()) {
+                        String parent = rs.getString("PKTABLE_NAME");
+                        if (!parent.equals(table.name) && tables.containsKey(parent)) {
+                            table.parents.add(parent);
+                        }
+                    }
+                }
+            }
+
+            List<TableInfo> ordered = new ArrayList<>();
+            Set<String> visited = new HashSet<>();
+            for (TableInfo table : tables.values()) {
+                visit(table, tables, visited, ordered);
+            }
+            return ordered;
+        });
+    }
+
+    private static void visit(TableInfo table, Map<String, TableInfo> tables, Set<String> visited,
+                              List<TableInfo> ordered) {
+        if (!visited.add(table.name)) {
+            return;
+        }
+
+        for (String parent : table.parents) {
+            visit(tables.get(parent), tables, visited, ordered);
+        }
+        ordered.add(table);
+    }
+
+    private SnapshotTable readTable(TableInfo info) {
+        int rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + info.name, Integer.class);
+        String orderBy = info.keyColumns.isEmpty() ? "" : " ORDER BY " + String.join(", ", info.keyColumns);
+
+        return jdbcTemplate.query("SELECT * FROM " + info.name + orderBy, rs -> {
+            SnapshotTable table = new SnapshotTable(info.name);
+            ResultSetMetaData metaData = rs.getMetaData();
+
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                table.addColumn(new SnapshotColumn(metaData.getColumnName(i),
+                        SnapshotColumn.typeOf(metaData.getColumnType(i)), rows));
+            }
+
+            List<SnapshotColumn> columns = table.getColumns();
+            while (rs.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    columns.get(i).read(rs, i + 1);
+                }
+            }
+
+            return table;
+        });
+    }
+
+    /**
+     * Restarts each identity column of the table above the highest value the snapshot holds for it, unless it
+     * is already there.
+     */
+    private void advanceIdentities(SnapshotTable table, TableInfo info) {
+        for (String identity : info.identityColumns) {
+            long maxId = 0;
+            for (SnapshotColumn column : table.getColumns()) {
+                if (column.getName().equals(identity)) {
+                    for (int row = 0; row < table.getRowCount(); row++) {
+                        Object value = column.get(row);
+                        if (value instanceof Number) {
+                            maxId = Math.max(maxId, ((Number) value).longValue());
+                        }
+                    }
+                }
+            }
+
+            Long next = jdbcTemplate.queryForObject("SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS " +
+                    "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? AND COLUMN_NAME = ?", Long.class,
+                    info.name, identity);
+            if (next == null || next <= maxId) {
+                jdbcTemplate.execute("ALTER TABLE " + info.name + " ALTER COLUMN " + identity +
+                        " RESTART WITH " + (maxId + 1));
+            }
+        }
+    }
+
+    /**
+     * Inserts the snapshot columns that still exist in the table; columns added since the snapshot was taken
+     * get their defaults.
+     */
+    private void insertTable(SnapshotTable table, TableInfo info) {
+        List<SnapshotColumn> columns = table.getColumns().stream()
+                .filter(column -> info.columns.contains(column.getName()))
+                .collect(Collectors.toList());
+        String columnList = columns.stream().map(SnapshotColumn::getName).collect(Collectors.joining(", "));
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        String sqlQuery = "INSERT INTO " + table.getName() + " (" + columnList + ") VALUES (" + placeholders + ")";
+
+        int rows = table.getRowCount();
+        for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+            int from = offset;
+            int size = Math.min(BATCH_SIZE, rows - offset);
+
+            jdbcTemplate.batchUpdate(sqlQuery, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    for (int c = 0; c < columns.size(); c++) {
+                        ps.setObject(c + 1, columns.get(c).get(from + i));
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+
+    private static class TableInfo {
+
+        private final String name;
+
+        private final List<String> keyColumns = new ArrayList<>();
+
+        private final Set<String> columns = new HashSet<>();
+
+        private final List<String> identityColumns = new ArrayList<>();
+
+        private final Set<String> parents = new TreeSet<>();
+
+
+        TableInfo(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.materialized.MaterializedViews;
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+import ru.yandex.practicum.filmorate.service.StatsService;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class StatsServiceImpl implements StatsService {
+
+    private MaterializedViews materializedViews;
+
+    private CatalogStatsView catalogStatsView;
+
+
+    @Override
+    public CatalogStats getCatalogStats() {
+        return materializedViews.read(catalogStatsView);
+    }
+
+}
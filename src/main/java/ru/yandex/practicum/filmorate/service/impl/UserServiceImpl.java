@@ -2,64 +2,111 @@ package ru.yandex.practicum.filmorate.service.impl;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.batching.BatchLoader;
+import ru.yandex.practicum.filmorate.bloom.UserKeyFilters;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlightRegistry;
 import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.replication.ReplicaRead;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final String FRIENDS_BY_ID = "users.findFriendsById";
+
     private UserRepository userRepository;
 
+    private DataVersions dataVersions;
+
+    private SingleFlightRegistry singleFlights;
+
+    private BatchLoader<Integer, User> userLoader;
+
+    private UserKeyFilters userKeyFilters;
+
 
     @Override
     public User save(User newUser) {
         validateUser(newUser);
 
-        User existingUserByEmail = userRepository.findByEmail(newUser.getEmail());
-        if (existingUserByEmail != null && existingUserByEmail.getId() != newUser.getId()) {
-            throw new EntityAlreadyExistsException(User.class,
-                    "User with email '" + newUser.getEmail() + "' already exists");
+        if (userKeyFilters.mightHaveEmail(newUser.getEmail())) {
+            User existingUserByEmail = userRepository.findByEmail(newUser.getEmail());
+            if (existingUserByEmail != null && existingUserByEmail.getId() != newUser.getId()) {
+                throw new EntityAlreadyExistsException(User.class,
+                        "User with email '" + newUser.getEmail() + "' already exists");
+            }
         }
 
-        User existingUserByLogin = userRepository.findByLogin(newUser.getLogin());
-        if (existingUserByLogin != null && existingUserByLogin.getId() != newUser.getId()) {
-            throw new EntityAlreadyExistsException(User.class,
-                    "User with login '" + newUser.getLogin() + "' already exists");
+        if (userKeyFilters.mightHaveLogin(newUser.getLogin())) {
+            User existingUserByLogin = userRepository.findByLogin(newUser.getLogin());
+            if (existingUserByLogin != null && existingUserByLogin.getId() != newUser.getId()) {
+                throw new EntityAlreadyExistsException(User.class,
+                        "User with login '" + newUser.getLogin() + "' already exists");
+            }
         }
 
-        return userRepository.save(newUser);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(newUser);
+        } catch (DuplicateKeyException ex) {
+            throw alreadyExists(newUser);
+        }
+
+        userKeyFilters.added(savedUser);
+        dataVersions.userChanged(savedUser.getId());
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
+        return savedUser;
     }
 
     @Override
     public User update(User user) {
         validateUser(user);
 
-        boolean isSuccess = userRepository.update(user);
+        boolean isSuccess;
+        try {
+            isSuccess = userRepository.update(user);
+        } catch (DuplicateKeyException ex) {
+            throw alreadyExists(user);
+        }
 
         if (!isSuccess) {
             throw new EntityNotFoundException(User.class,
                     "User with id = " + user.getId() + " hasn't been found");
         }
 
+        userKeyFilters.updated(user);
+        dataVersions.userChanged(user.getId());
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
         return user;
     }
 
     @Override
+    @ReplicaRead
     public User findById(Integer id) {
-        if (userRepository.findById(id) == null) {
+        User user = userLoader.load(id);
+
+        if (user == null) {
             throw new EntityNotFoundException(User.class, "User with id = " + id + " hasn't been found");
         }
 
-        return userRepository.findById(id);
+        return user.copy();
     }
 
     @Override
@@ -72,25 +119,59 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @ReplicaRead
     public List<User> findAll() {
-        return userRepository.findAll();
+        return findAll(Projection.all());
+    }
+
+    @Override
+    @ReplicaRead
+    public List<User> findAll(Projection projection) {
+        return userRepository.findAll(projection);
+    }
+
+    @Override
+    @ReplicaRead
+    public List<User> findByIds(List<Integer> ids, Projection projection) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Integer, User> usersById = userRepository.findByIds(uniqueIds, projection);
+
+        List<User> users = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
     }
 
     @Override
     public boolean deleteById(Integer userID) {
-        return userRepository.deleteById(userID);
+        boolean isDeleted = userRepository.deleteById(userID);
+        if (isDeleted) {
+            userKeyFilters.removed();
+        }
+        dataVersions.userChanged(userID);
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
+        return isDeleted;
     }
 
     @Override
     public boolean deleteAll() {
-        return userRepository.deleteAll();
+        boolean areDeleted = userRepository.deleteAll();
+        userKeyFilters.cleared();
+        dataVersions.allUsersChanged();
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
+        return areDeleted;
     }
 
     @Override
     public void addFriend(Integer userId, Integer friendId) {
 
-        User user = userRepository.findById(userId);
-        User friend = userRepository.findById(friendId);
+        Map<Integer, User> users = userRepository.findByIds(List.of(userId, friendId));
+        User user = users.get(userId);
+        User friend = users.get(friendId);
         List<User> usersFriends = userRepository.findFriendsById(userId);
 
         if (user == null) {
@@ -111,23 +192,35 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.addFriend(userId, friendId);
+        dataVersions.changed(DataDomain.USERS);
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
 
     }
 
     @Override
+    @ReplicaRead
     public List<User> findFriendsById(Integer userId) {
-        if (userRepository.findById(userId) == null) {
-            throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
-        }
+        return findFriendsById(userId, Projection.all());
+    }
 
-        return userRepository.findFriendsById(userId);
+    @Override
+    @ReplicaRead
+    public List<User> findFriendsById(Integer userId, Projection projection) {
+        return singleFlights.<List<Object>, List<User>>get(FRIENDS_BY_ID).execute(List.of(userId, projection), () -> {
+            if (userLoader.load(userId) == null) {
+                throw new EntityNotFoundException(User.class, "User with id = " + userId + " hasn't been found");
+            }
+
+            return userRepository.findFriendsById(userId, projection);
+        }, UserServiceImpl::copyAll);
     }
 
     @Override
     public boolean removeFriend(Integer userId, Integer friendId) {
 
-        User user = userRepository.findById(userId);
-        User friend = userRepository.findById(friendId);
+        Map<Integer, User> users = userRepository.findByIds(List.of(userId, friendId));
+        User user = users.get(userId);
+        User friend = users.get(friendId);
         //List<Integer> usersFriendsIds = userRepository.findFriendsIdsById(userId);
 
         if (user == null) {
@@ -148,15 +241,25 @@ public class UserServiceImpl implements UserService {
 //                    " is not yet in the list of friends of user with id = " + userId);
 //        }
 
-        return userRepository.removeFriend(userId, friendId);
+        boolean isRemoved = userRepository.removeFriend(userId, friendId);
+        dataVersions.changed(DataDomain.USERS);
+        singleFlights.get(FRIENDS_BY_ID).forgetAll();
+        return isRemoved;
 
     }
 
     @Override
+    @ReplicaRead
     public List<User> getCommonFriends(Integer user1ID, Integer user2ID) {
+        return getCommonFriends(user1ID, user2ID, Projection.all());
+    }
 
-        User user1 = userRepository.findById(user1ID);
-        User user2 = userRepository.findById(user2ID);
+    @Override
+    @ReplicaRead
+    public List<User> getCommonFriends(Integer user1ID, Integer user2ID, Projection projection) {
+
+        User user1 = userLoader.load(user1ID);
+        User user2 = userLoader.load(user2ID);
 
         if (user1 == null) {
             throw new EntityNotFoundException(User.class, "User with id = " + user1ID + " hasn't been found");
@@ -170,11 +273,24 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("First user_ID matches second user_ID");
         }
 
-        return userRepository.getCommonFriends(user1ID, user2ID);
+        return userRepository.getCommonFriends(user1ID, user2ID, projection);
 
     }
 
 
+    /**
+     * Names the key a unique constraint rejected; runs only when the filters let a duplicate through, e.g. when
+     * two requests registered the same email at once.
+     */
+    private EntityAlreadyExistsException alreadyExists(User user) {
+        User existingUserByEmail = userRepository.findByEmail(user.getEmail());
+        if (existingUserByEmail != null && !existingUserByEmail.getId().equals(user.getId())) {
+            return new EntityAlreadyExistsException(User.class,
+                    "User with email '" + user.getEmail() + "' already exists");
+        }
+        return new EntityAlreadyExistsException(User.class, "User with login '" + user.getLogin() + "' already exists");
+    }
+
     private void validateUser(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             log.info("Имя отсутствует, в качестве имени будет использован логин {}", user.getLogin());
@@ -182,4 +298,12 @@ public class UserServiceImpl implements UserService {
         }
     }
 
-}
\ No newline at end of file
+    private static List<User> copyAll(List<User> users) {
+        List<User> copies = new ArrayList<>(users.size());
+        for (User user : users) {
+            copies.add(user.copy());
+        }
+        return copies;
+    }
+
+}
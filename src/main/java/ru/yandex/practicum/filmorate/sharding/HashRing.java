@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring over node names. Every node is placed at {@code virtualNodes} points derived from its
+ * name, and a key belongs to the first point at or after its own hash, so adding or removing a node only
+ * moves the keys between that node's points and their predecessors.
+ */
+public class HashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+
+    public HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Hash ring needs at least one node");
+        }
+
+        MessageDigest md5 = md5();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] digest = md5.digest((node + "#" + i).getBytes(StandardCharsets.UTF_8));
+
+                long point = 0;
+                for (int b = 0; b < 8; b++) {
+                    point = (point << 8) | (digest[b] & 0xff);
+                }
+                points.putIfAbsent(point, node);
+            }
+        }
+    }
+
+
+    public String locate(int key) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+
+    /**
+     * SplitMix64 finalizer, so that consecutive ids land far apart on the ring.
+     */
+    private static long mix(long key) {
+        long hash = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Getter
+@RequiredArgsConstructor
+public class Shard {
+
+    private final String name;
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
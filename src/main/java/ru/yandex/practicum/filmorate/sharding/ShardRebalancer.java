@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves users, with the friendships they own, to the shard the hash ring assigns them after shards were added
+ * or removed. Each chunk is copied with MERGE before it is deleted from its old shard, so an interrupted run
+ * leaves at most duplicates that the next run cleans up. Until a user is moved, {@link ShardRouter} finds it on
+ * its old shard. A write landing on the old shard between the copy and the delete would be lost, so a run holds
+ * back user writes through {@link ShardRouter#withUserWritesBlocked} until it is done. User ids do not change,
+ * so USER_KEYS needs no update.
+ *
+ * <p>A run moves every misplaced user at once, so it is not exposed over HTTP: it runs at startup, before the
+ * web server accepts requests, when {@code filmorate.sharding.rebalance-on-startup} is set.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String USER_COLUMNS = "USER_ID, NAME, EMAIL, LOGIN, DATE_OF_BIRTH, VERSION, UPDATED_AT";
+
+    private final ShardRouter shardRouter;
+
+    private final int chunkSize;
+
+
+    public ShardRebalancer(ShardRouter shardRouter, int chunkSize) {
+        this.shardRouter = shardRouter;
+        this.chunkSize = chunkSize;
+    }
+
+
+    public synchronized Map<String, Object> rebalance() {
+        return shardRouter.withUserWritesBlocked(this::moveMisplacedUsers);
+    }
+
+    public Map<String, Integer> countUsers() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Shard shard : shardRouter.getShards()) {
+            counts.put(shard.getName(),
+                    shard.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM USERS", Integer.class));
+        }
+        return counts;
+    }
+
+
+    private Map<String, Object> moveMisplacedUsers() {
+        long start = System.currentTimeMillis();
+        long scanned = 0;
+        long movedUsers = 0;
+        long movedFriendships = 0;
+
+        for (Shard source : shardRouter.getShards()) {
+            JdbcTemplate sourceTemplate = source.getJdbcTemplate();
+            int lastId = 0;
+
+            while (true) {
+                List<Map<String, Object>> users = sourceTemplate.queryForList(
+                        "SELECT " + USER_COLUMNS + " FROM USERS WHERE USER_ID > ? ORDER BY USER_ID LIMIT ?",
+                        lastId, chunkSize);
+                if (users.isEmpty()) {
+                    break;
+                }
+                scanned += users.size();
+                lastId = ((Number) users.get(users.size() - 1).get("USER_ID")).intValue();
+
+                Map<Shard, List<Map<String, Object>>> misplaced = new LinkedHashMap<>();
+                for (Map<String, Object> user : users) {
+                    Shard target = shardRouter.shardOf(((Number) user.get("USER_ID")).intValue());
+                    if (target != source) {
+                        misplaced.computeIfAbsent(target, shard -> new ArrayList<>()).add(user);
+                    }
+                }
+
+                for (Map.Entry<Shard, List<Map<String, Object>>> entry : misplaced.entrySet()) {
+                    movedFriendships += move(sourceTemplate, entry.getKey().getJdbcTemplate(), entry.getValue());
+                    movedUsers += entry.getValue().size();
+                }
+            }
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("scanned", scanned);
+        statistics.put("movedUsers", movedUsers);
+        statistics.put("movedFriendships", movedFriendships);
+        statistics.put("millis", System.currentTimeMillis() - start);
+        statistics.put("users", countUsers());
+
+        log.info("Rebalanced user shards: {}", statistics);
+        return statistics;
+    }
+
+    private int move(JdbcTemplate source, JdbcTemplate target, List<Map<String, Object>> users) {
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+        for (Map<String, Object> user : users) {
+            userRows.add(user.values().toArray());
+            ids.add(user.get("USER_ID"));
+        }
+
+        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object[]> friendships = source.query(
+                "SELECT USER_ID, FRIEND_ID FROM USER_FRIENDSHIP WHERE USER_ID IN (" + inSql + ")",
+                (rs, rowNum) -> new Object[]{rs.getInt("USER_ID"), rs.getInt("FRIEND_ID")},
+                ids.toArray());
+
+        target.batchUpdate("MERGE INTO USERS (" + USER_COLUMNS + ") KEY (USER_ID) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                userRows);
+        if (!friendships.isEmpty()) {
+            target.batchUpdate("MERGE INTO USER_FRIENDSHIP (USER_ID, FRIEND_ID) KEY (USER_ID, FRIEND_ID) " +
+                    "VALUES (?, ?)", friendships);
+        }
+
+        source.update("DELETE FROM USER_FRIENDSHIP WHERE USER_ID IN (" + inSql + ")", ids.toArray());
+        source.update("DELETE FROM USERS WHERE USER_ID IN (" + inSql + ")", ids.toArray());
+        return friendships.size();
+    }
+
+}
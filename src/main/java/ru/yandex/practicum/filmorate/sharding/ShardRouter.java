@@ -0,0 +1,292 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Routes user-keyed statements to the H2 database that owns the user. The primary database is always the shard
+ * named {@value #PRIMARY}; further shards join it on a {@link HashRing} keyed by user id.
+ *
+ * <p>Scatter-gather queries run the primary's part on the calling thread, so that it stays inside the caller's
+ * transaction, and the other shards' parts in parallel on a small pool. Statements on the other shards are
+ * not covered by the primary's transactions.
+ *
+ * <p>After shards are added a user stays on its old shard until the rebalancer moves it, so the user-keyed
+ * helpers {@link #queryUser}, {@link #updateUser} and {@link #holding} fall back to the other shards when the
+ * one the ring names does not have the user. User writes go through {@link #writingUsers} and the rebalancer
+ * through {@link #withUserWritesBlocked}, so no write lands on a user between its copy and its delete.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private final Shard primary;
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+
+    private final HashRing ring;
+
+    private final ExecutorService executor;
+
+    private final ReentrantReadWriteLock userWrites = new ReentrantReadWriteLock();
+
+
+    public ShardRouter(JdbcTemplate primary) {
+        this(primary, List.of(), 1);
+    }
+
+    public ShardRouter(JdbcTemplate primary, List<Shard> others, int virtualNodes) {
+        this.primary = new Shard(PRIMARY, primary);
+        this.shards.put(PRIMARY, this.primary);
+        for (Shard shard : others) {
+            if (shards.putIfAbsent(shard.getName(), shard) != null) {
+                throw new IllegalArgumentException("Duplicate shard name '" + shard.getName() + "'");
+            }
+        }
+
+        this.ring = new HashRing(new ArrayList<>(shards.keySet()), virtualNodes);
+
+        if (others.isEmpty()) {
+            this.executor = null;
+        } else {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-query-");
+            threadFactory.setDaemon(true);
+            this.executor = Executors.newFixedThreadPool(others.size(), threadFactory);
+        }
+    }
+
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    public List<Shard> getShards() {
+        return new ArrayList<>(shards.values());
+    }
+
+    public JdbcTemplate primary() {
+        return primary.getJdbcTemplate();
+    }
+
+    public Shard shardOf(Integer userId) {
+        return shards.get(ring.locate(userId));
+    }
+
+    public JdbcTemplate forUser(Integer userId) {
+        return shardOf(userId).getJdbcTemplate();
+    }
+
+    /**
+     * Runs the query on the shard that owns the user and, if it finds nothing, on the other shards.
+     */
+    public <T> List<T> queryUser(Integer userId, Function<JdbcTemplate, List<T>> query) {
+        Shard owner = shardOf(userId);
+        List<T> results = query.apply(owner.getJdbcTemplate());
+
+        if (!results.isEmpty() || !isSharded()) {
+            return results;
+        }
+
+        Map<Shard, Function<JdbcTemplate, List<T>>> queries = new LinkedHashMap<>();
+        for (Shard shard : shards.values()) {
+            if (shard != owner) {
+                queries.put(shard, query);
+            }
+        }
+        return gather(queries);
+    }
+
+    /**
+     * Runs the update on the shard that owns the user and, if it changes no row, on the other shards until one
+     * does. Returns the number of rows changed.
+     */
+    public int updateUser(Integer userId, ToIntFunction<JdbcTemplate> update) {
+        Shard owner = shardOf(userId);
+        int rows = update.applyAsInt(owner.getJdbcTemplate());
+
+        for (Shard shard : shards.values()) {
+            if (rows > 0) {
+                break;
+            }
+            if (shard != owner) {
+                rows = update.applyAsInt(shard.getJdbcTemplate());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the shard the user's row is on, which is the owning shard unless a rebalance has yet to move it.
+     * Costs one lookup per shard tried when sharded.
+     */
+    public JdbcTemplate holding(Integer userId) {
+        Shard owner = shardOf(userId);
+        if (!isSharded() || hasUser(owner, userId)) {
+            return owner.getJdbcTemplate();
+        }
+
+        for (Shard shard : shards.values()) {
+            if (shard != owner && hasUser(shard, userId)) {
+                return shard.getJdbcTemplate();
+            }
+        }
+        return owner.getJdbcTemplate();
+    }
+
+    /**
+     * Runs a user write while no rebalance is moving users. Writes share the lock with each other; inside a
+     * transaction it is held until the transaction completes, since the rebalancer would otherwise copy a row
+     * before the write commits. Unsharded, there is nothing to rebalance and the write runs directly.
+     */
+    public <T> T writingUsers(Supplier<T> write) {
+        if (!isSharded()) {
+            return write.get();
+        }
+
+        Lock lock = userWrites.readLock();
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return write.get();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return write.get();
+    }
+
+    /**
+     * Runs the work once every user write in progress has finished, and holds new ones back until it is done.
+     */
+    public <T> T withUserWritesBlocked(Supplier<T> work) {
+        Lock lock = userWrites.writeLock();
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the callback against every shard in turn, for callers that feed a single consumer.
+     */
+    public void forEach(Consumer<JdbcTemplate> callback) {
+        for (Shard shard : shards.values()) {
+            callback.accept(shard.getJdbcTemplate());
+        }
+    }
+
+    /**
+     * Runs the query on every shard and concatenates the results in shard order.
+     */
+    public <T> List<T> scatter(Function<JdbcTemplate, List<T>> query) {
+        Map<Shard, Function<JdbcTemplate, List<T>>> queries = new LinkedHashMap<>();
+        for (Shard shard : shards.values()) {
+            queries.put(shard, query);
+        }
+        return gather(queries);
+    }
+
+    /**
+     * Splits the user ids by owning shard and runs the query on each shard that owns any of them.
+     */
+    public <T> List<T> scatter(Collection<Integer> userIds, BiFunction<JdbcTemplate, List<Integer>, List<T>> query) {
+        Map<Shard, List<Integer>> idsByShard = userIds.stream()
+                .collect(Collectors.groupingBy(this::shardOf, LinkedHashMap::new, Collectors.toList()));
+
+        Map<Shard, Function<JdbcTemplate, List<T>>> queries = new LinkedHashMap<>();
+        idsByShard.forEach((shard, ids) -> queries.put(shard, jdbcTemplate -> query.apply(jdbcTemplate, ids)));
+        return gather(queries);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        for (Shard shard : shards.values()) {
+            DataSource dataSource = shard.getJdbcTemplate().getDataSource();
+            if (shard != primary && dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) dataSource).close();
+                } catch (IOException ignored) {
+                    // the pool is going away with the application anyway
+                }
+            }
+        }
+    }
+
+
+    private static boolean hasUser(Shard shard, Integer userId) {
+        return !shard.getJdbcTemplate().queryForList("SELECT 1 FROM USERS WHERE USER_ID = ?", Integer.class, userId)
+                .isEmpty();
+    }
+
+    private <T> List<T> gather(Map<Shard, Function<JdbcTemplate, List<T>>> queries) {
+        if (queries.size() == 1) {
+            Map.Entry<Shard, Function<JdbcTemplate, List<T>>> only = queries.entrySet().iterator().next();
+            return only.getValue().apply(only.getKey().getJdbcTemplate());
+        }
+
+        Map<Shard, Future<List<T>>> remote = new LinkedHashMap<>();
+        queries.forEach((shard, query) -> {
+            if (shard != primary) {
+                remote.put(shard, executor.submit(() -> query.apply(shard.getJdbcTemplate())));
+            }
+        });
+
+        List<T> results = new ArrayList<>();
+        Function<JdbcTemplate, List<T>> primaryQuery = queries.get(primary);
+        if (primaryQuery != null) {
+            results.addAll(primaryQuery.apply(primary.getJdbcTemplate()));
+        }
+
+        for (Map.Entry<Shard, Future<List<T>>> entry : remote.entrySet()) {
+            try {
+                results.addAll(entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while querying shard " + entry.getKey(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Query on shard " + entry.getKey() + " failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fits the primary database to the configured shards once the migrations have run. Whether users are sharded
+ * is a matter of configuration rather than schema version, so this runs on every start instead of as a
+ * migration.
+ *
+ * <p>When sharded, the foreign keys that cannot reach users on other databases are dropped, USER_KEYS is
+ * rebuilt from all shards and its identity moved above the highest user id; from then on USER_KEYS hands out
+ * user ids and enforces email and login uniqueness across shards. Otherwise the foreign keys are restored
+ * where the data allows it, and the identity of USERS is moved above the ids inserted explicitly while the
+ * users were sharded.
+ *
+ * <p>Given a rebalancer, it then moves users to the shards the ring assigns them. That runs after the foreign
+ * keys are dropped, since deleting a moved user from the primary would otherwise cascade to its likes.
+ */
+@Slf4j
+public class ShardedSchema implements SmartInitializingSingleton {
+
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final ShardRouter shardRouter;
+
+    private final ShardRebalancer startupRebalancer;
+
+
+    public ShardedSchema(ShardRouter shardRouter) {
+        this(shardRouter, null);
+    }
+
+    public ShardedSchema(ShardRouter shardRouter, ShardRebalancer startupRebalancer) {
+        this.shardRouter = shardRouter;
+        this.startupRebalancer = startupRebalancer;
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        apply();
+        if (startupRebalancer != null && shardRouter.isSharded()) {
+            startupRebalancer.rebalance();
+        }
+    }
+
+    public void apply() {
+        JdbcTemplate primary = shardRouter.primary();
+
+        if (shardRouter.isSharded()) {
+            primary.execute("ALTER TABLE FILM_FANS DROP CONSTRAINT IF EXISTS FILM_FANS_USERS_FK");
+            primary.execute("ALTER TABLE USER_FRIENDSHIP DROP CONSTRAINT IF EXISTS USER_FRIENDSHIP_USERS_FK_1");
+            int maxUserId = rebuildUserKeys(primary);
+            advanceIdentity(primary, "USER_KEYS", maxUserId);
+            log.info("Primary database prepared for {} user shards", shardRouter.getShards().size());
+        } else {
+            restoreForeignKey(primary, "ALTER TABLE FILM_FANS ADD CONSTRAINT IF NOT EXISTS FILM_FANS_USERS_FK " +
+                    "FOREIGN KEY (USER_ID) REFERENCES USERS ON DELETE CASCADE");
+            restoreForeignKey(primary, "ALTER TABLE USER_FRIENDSHIP ADD CONSTRAINT IF NOT EXISTS " +
+                    "USER_FRIENDSHIP_USERS_FK_1 FOREIGN KEY (FRIEND_ID) REFERENCES USERS ON DELETE CASCADE");
+            advanceIdentity(primary, "USERS", primary.queryForObject(
+                    "SELECT GREATEST((SELECT COALESCE(MAX(USER_ID), 0) FROM USERS), " +
+                            "(SELECT COALESCE(MAX(USER_ID), 0) FROM USER_KEYS))", Integer.class));
+        }
+    }
+
+
+    /**
+     * Refills USER_KEYS from the users of every shard and returns the highest user id found.
+     */
+    private int rebuildUserKeys(JdbcTemplate primary) {
+        primary.update("DELETE FROM USER_KEYS");
+
+        int[] maxUserId = new int[1];
+        shardRouter.forEach(jdbcTemplate -> {
+            List<Object[]> keys = new ArrayList<>();
+            jdbcTemplate.query("SELECT USER_ID, EMAIL, LOGIN FROM USERS", rs -> {
+                int userId = rs.getInt("USER_ID");
+                maxUserId[0] = Math.max(maxUserId[0], userId);
+                keys.add(new Object[]{userId, rs.getString("EMAIL"), rs.getString("LOGIN")});
+
+                if (keys.size() == CHUNK_SIZE) {
+                    insertKeys(primary, keys);
+                }
+            });
+            insertKeys(primary, keys);
+        });
+        return maxUserId[0];
+    }
+
+    private static void insertKeys(JdbcTemplate primary, List<Object[]> keys) {
+        if (!keys.isEmpty()) {
+            primary.batchUpdate("INSERT INTO USER_KEYS (USER_ID, EMAIL, LOGIN) VALUES (?, ?, ?)", keys);
+            keys.clear();
+        }
+    }
+
+    private static void restoreForeignKey(JdbcTemplate primary, String sql) {
+        try {
+            primary.execute(sql);
+        } catch (DataAccessException ex) {
+            log.warn("Could not restore a user foreign key, rows still refer to users on other shards: {}",
+                    ex.getMessage());
+        }
+    }
+
+    /**
+     * H2 does not move an identity past values inserted explicitly, so the next generated id could collide with
+     * one of them.
+     */
+    private static void advanceIdentity(JdbcTemplate primary, String table, int maxUserId) {
+        Long next = primary.queryForObject("SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS " +
+                "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? AND COLUMN_NAME = 'USER_ID'", Long.class, table);
+
+        if (next != null && next <= maxUserId) {
+            primary.execute("ALTER TABLE " + table + " ALTER COLUMN USER_ID RESTART WITH " + (maxUserId + 1));
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardRouter shardRouter(JdbcTemplate jdbcTemplate, ShardingProperties properties) {
+        List<Shard> shards = new ArrayList<>();
+
+        properties.getShards().forEach((name, url) -> {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(url)
+                    .username(properties.getUsername())
+                    .password(properties.getPassword())
+                    .build();
+            new ResourceDatabasePopulator(new ClassPathResource("db/shard/user_tables.sql")).execute(dataSource);
+            shards.add(new Shard(name, new JdbcTemplate(dataSource)));
+        });
+
+        return new ShardRouter(jdbcTemplate, shards, properties.getVirtualNodes());
+    }
+
+    @Bean
+    public ShardedSchema shardedSchema(ShardRouter shardRouter, ShardRebalancer shardRebalancer,
+                                       ShardingProperties properties) {
+        return new ShardedSchema(shardRouter, properties.isRebalanceOnStartup() ? shardRebalancer : null);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter shardRouter, ShardingProperties properties) {
+        return new ShardRebalancer(shardRouter, properties.getRebalanceChunkSize());
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.sharding")
+public class ShardingProperties {
+
+    /**
+     * JDBC URLs of the H2 databases that hold users besides the primary one, keyed by shard name. Shard names
+     * place the shards on the hash ring, so renaming a shard moves its users.
+     */
+    private Map<String, String> shards = new LinkedHashMap<>();
+
+    private String username = "sa";
+
+    private String password = "password";
+
+    private int virtualNodes = 128;
+
+    private int rebalanceChunkSize = 1000;
+
+    /**
+     * Moves users to the shards the hash ring assigns them before the application starts serving requests, for
+     * the first start after shards were added or removed.
+     */
+    private boolean rebalanceOnStartup = false;
+
+}
@@ -0,0 +1,212 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.Getter;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+
+@Getter
+public class SnapshotColumn {
+
+    public static final byte INT = 1;
+
+    public static final byte LONG = 2;
+
+    public static final byte STRING = 3;
+
+    public static final byte DATE = 4;
+
+    /**
+     * Microseconds since the epoch; format version 1 stored milliseconds.
+     */
+    public static final byte TIMESTAMP = 5;
+
+    public static final byte BYTES = 6;
+
+
+    private final String name;
+
+    private final byte type;
+
+    private final BitSet nulls = new BitSet();
+
+    private int size;
+
+    private int[] ints;
+
+    private long[] longs;
+
+    private String[] strings;
+
+    private byte[][] bytes;
+
+
+    public SnapshotColumn(String name, byte type, int capacity) {
+        this.name = name;
+        this.type = type;
+        int initial = Math.max(capacity, 16);
+
+        switch (type) {
+            case INT:
+            case DATE:
+                ints = new int[initial];
+                break;
+            case LONG:
+            case TIMESTAMP:
+                longs = new long[initial];
+                break;
+            case STRING:
+                strings = new String[initial];
+                break;
+            case BYTES:
+                bytes = new byte[initial][];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown snapshot column type " + type);
+        }
+    }
+
+    /**
+     * Storage type of a SQL column type. Types without a dedicated encoding (decimals, booleans, times, UUIDs
+     * and the like) are kept in their string form, which the database converts back on restore.
+     */
+    public static byte typeOf(int sqlType) {
+        switch (sqlType) {
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return INT;
+            case Types.BIGINT:
+                return LONG;
+            case Types.DATE:
+                return DATE;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+            default:
+                return STRING;
+        }
+    }
+
+    public void read(ResultSet rs, int index) throws SQLException {
+        switch (type) {
+            case STRING:
+                add(rs.getString(index));
+                break;
+            case BYTES:
+                add(rs.getBytes(index));
+                break;
+            default:
+                add(rs.getObject(index));
+        }
+    }
+
+    public void add(Object value) {
+        grow();
+
+        if (value == null) {
+            nulls.set(size++);
+            return;
+        }
+
+        switch (type) {
+            case INT:
+                ints[size++] = ((Number) value).intValue();
+                break;
+            case DATE:
+                LocalDate date = value instanceof Date ? ((Date) value).toLocalDate() : (LocalDate) value;
+                ints[size++] = (int) date.toEpochDay();
+                break;
+            case LONG:
+                longs[size++] = ((Number) value).longValue();
+                break;
+            case TIMESTAMP:
+                Timestamp timestamp = (Timestamp) value;
+                longs[size++] = Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+                break;
+            case BYTES:
+                bytes[size++] = (byte[]) value;
+                break;
+            default:
+                strings[size++] = value.toString();
+        }
+    }
+
+    public Object get(int row) {
+        if (nulls.get(row)) {
+            return null;
+        }
+
+        switch (type) {
+            case INT:
+                return ints[row];
+            case DATE:
+                return Date.valueOf(LocalDate.ofEpochDay(ints[row]));
+            case LONG:
+                return longs[row];
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(Math.floorDiv(longs[row], 1_000_000) * 1000);
+                timestamp.setNanos((int) Math.floorMod(longs[row], 1_000_000) * 1000);
+                return timestamp;
+            case BYTES:
+                return bytes[row];
+            default:
+                return strings[row];
+        }
+    }
+
+    void setInts(int[] values, BitSet nulls) {
+        this.ints = values;
+        this.size = values.length;
+        this.nulls.or(nulls);
+    }
+
+    void setLongs(long[] values, BitSet nulls) {
+        this.longs = values;
+        this.size = values.length;
+        this.nulls.or(nulls);
+    }
+
+    void setStrings(String[] values) {
+        this.strings = values;
+        this.size = values.length;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+    }
+
+    void setBytes(byte[][] values) {
+        this.bytes = values;
+        this.size = values.length;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+    }
+
+    private void grow() {
+        if (ints != null && size == ints.length) {
+            ints = Arrays.copyOf(ints, size * 2);
+        } else if (longs != null && size == longs.length) {
+            longs = Arrays.copyOf(longs, size * 2);
+        } else if (strings != null && size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        } else if (bytes != null && size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+    }
+
+}
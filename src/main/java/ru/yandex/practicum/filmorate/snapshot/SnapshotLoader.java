@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.bloom.UserKeyFilters;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.service.SnapshotService;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Restores the database from the binary snapshot on a cold start and writes a fresh one on shutdown.
+ * The snapshot is only loaded into an empty database, so a live DB is never overwritten.
+ *
+ * <p>The restore runs once all beans exist and before the web server accepts requests. Beans that already
+ * read the empty database are then told that everything changed: the data version counters move on, so no
+ * entity tag or cached response from before the restore matches again; the materialized views and the
+ * friend graph are rebuilt on their next read, and the user key filters at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnapshotLoader implements SmartInitializingSingleton {
+
+    private final SnapshotService snapshotService;
+
+    private final DataVersions dataVersions;
+
+    private final CatalogStatsView catalogStatsView;
+
+    private final FilmColumnsView filmColumnsView;
+
+    private final UserKeyFilters userKeyFilters;
+
+    @Value("${filmorate.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${filmorate.snapshot.path:./db/filmorate.snapshot}")
+    private String path;
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Path snapshot = Paths.get(path);
+        if (!Files.exists(snapshot)) {
+            log.info("Snapshot {} not found, starting from the database", snapshot);
+            return;
+        }
+
+        if (!snapshotService.isDatabaseEmpty()) {
+            log.info("Database already contains data, snapshot {} is not loaded", snapshot);
+            return;
+        }
+
+        snapshotService.restore(snapshot);
+        allChanged();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        if (enabled) {
+            snapshotService.export(Paths.get(path));
+        }
+    }
+
+
+    private void allChanged() {
+        catalogStatsView.allFilmsChanged();
+        filmColumnsView.filmsChanged();
+        userKeyFilters.reload();
+        dataVersions.allFilmsChanged();
+        dataVersions.allUsersChanged();
+        dataVersions.changed(DataDomain.GENRES);
+        dataVersions.changed(DataDomain.RATINGS);
+    }
+
+}
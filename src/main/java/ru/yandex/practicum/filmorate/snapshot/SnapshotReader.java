@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+public class SnapshotReader {
+
+    @Getter
+    private final long createdAt;
+
+    private final short version;
+
+    private final int tableCount;
+
+    private final MappedByteBuffer buffer;
+
+
+    public SnapshotReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("File " + path + " is not a filmorate snapshot");
+        }
+
+        this.version = buffer.getShort();
+        if (version < 1 || version > SnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+
+        this.createdAt = buffer.getLong();
+        this.tableCount = buffer.getInt();
+    }
+
+    public List<SnapshotTable> readTables() {
+        List<SnapshotTable> tables = new ArrayList<>(tableCount);
+
+        for (int t = 0; t < tableCount; t++) {
+            SnapshotTable table = new SnapshotTable(readString());
+            int rows = buffer.getInt();
+            int columnCount = buffer.getInt();
+
+            for (int c = 0; c < columnCount; c++) {
+                String name = readString();
+                byte type = buffer.get();
+                table.addColumn(new SnapshotColumn(name, type, 0));
+            }
+
+            for (SnapshotColumn column : table.getColumns()) {
+                readColumn(column, rows);
+            }
+
+            tables.add(table);
+        }
+
+        return tables;
+    }
+
+
+    private void readColumn(SnapshotColumn column, int rows) {
+        BitSet nulls = BitSet.valueOf(readBytes());
+
+        switch (column.getType()) {
+            case SnapshotColumn.INT:
+            case SnapshotColumn.DATE:
+                int[] ints = new int[rows];
+                buffer.asIntBuffer().get(ints);
+                buffer.position(buffer.position() + rows * Integer.BYTES);
+                column.setInts(ints, nulls);
+                break;
+            case SnapshotColumn.LONG:
+            case SnapshotColumn.TIMESTAMP:
+                long[] longs = new long[rows];
+                buffer.asLongBuffer().get(longs);
+                buffer.position(buffer.position() + rows * Long.BYTES);
+                if (version == 1 && column.getType() == SnapshotColumn.TIMESTAMP) {
+                    for (int i = 0; i < rows; i++) {
+                        longs[i] *= 1000;
+                    }
+                }
+                column.setLongs(longs, nulls);
+                break;
+            case SnapshotColumn.BYTES:
+                byte[][] values = new byte[rows][];
+                for (int i = 0; i < rows; i++) {
+                    if (!nulls.get(i)) {
+                        values[i] = readBytes();
+                    }
+                }
+                column.setBytes(values);
+                break;
+            default:
+                String[] strings = new String[rows];
+                for (int i = 0; i < rows; i++) {
+                    if (!nulls.get(i)) {
+                        strings[i] = readString();
+                    }
+                }
+                column.setStrings(strings);
+        }
+    }
+
+    private String readString() {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
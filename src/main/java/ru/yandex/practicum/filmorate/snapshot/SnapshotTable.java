@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class SnapshotTable {
+
+    private final String name;
+
+    private final List<SnapshotColumn> columns = new ArrayList<>();
+
+
+    public SnapshotTable(String name) {
+        this.name = name;
+    }
+
+    public void addColumn(SnapshotColumn column) {
+        columns.add(column);
+    }
+
+    public int getRowCount() {
+        return columns.isEmpty() ? 0 : columns.get(0).getSize();
+    }
+
+}
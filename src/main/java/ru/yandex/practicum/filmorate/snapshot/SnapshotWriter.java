@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+public class SnapshotWriter implements AutoCloseable {
+
+    public static final int MAGIC = 0x464D534E;
+
+    public static final short FORMAT_VERSION = 2;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+
+    public SnapshotWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void writeHeader(long createdAt, int tableCount) throws IOException {
+        ensure(18);
+        buffer.putInt(MAGIC);
+        buffer.putShort(FORMAT_VERSION);
+        buffer.putLong(createdAt);
+        buffer.putInt(tableCount);
+    }
+
+    public void writeTable(SnapshotTable table) throws IOException {
+        writeString(table.getName());
+
+        int rows = table.getRowCount();
+        List<SnapshotColumn> columns = table.getColumns();
+
+        ensure(8);
+        buffer.putInt(rows);
+        buffer.putInt(columns.size());
+
+        for (SnapshotColumn column : columns) {
+            writeString(column.getName());
+            ensure(1);
+            buffer.put(column.getType());
+        }
+
+        for (SnapshotColumn column : columns) {
+            writeColumn(column, rows);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.force(true);
+        channel.close();
+    }
+
+
+    private void writeColumn(SnapshotColumn column, int rows) throws IOException {
+        writeBytes(column.getNulls().toByteArray());
+
+        switch (column.getType()) {
+            case SnapshotColumn.INT:
+            case SnapshotColumn.DATE:
+                int[] ints = column.getInts();
+                for (int i = 0; i < rows; i++) {
+                    ensure(4);
+                    buffer.putInt(ints[i]);
+                }
+                break;
+            case SnapshotColumn.LONG:
+            case SnapshotColumn.TIMESTAMP:
+                long[] longs = column.getLongs();
+                for (int i = 0; i < rows; i++) {
+                    ensure(8);
+                    buffer.putLong(longs[i]);
+                }
+                break;
+            case SnapshotColumn.BYTES:
+                byte[][] values = column.getBytes();
+                for (int i = 0; i < rows; i++) {
+                    if (!column.getNulls().get(i)) {
+                        writeBytes(values[i]);
+                    }
+                }
+                break;
+            default:
+                String[] strings = column.getStrings();
+                BitSet nulls = column.getNulls();
+                for (int i = 0; i < rows; i++) {
+                    if (!nulls.get(i)) {
+                        writeString(strings[i]);
+                    }
+                }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(4);
+        buffer.putInt(bytes.length);
+
+        if (bytes.length > buffer.capacity()) {
+            flush();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            return;
+        }
+
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
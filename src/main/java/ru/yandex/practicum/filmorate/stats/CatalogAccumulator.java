@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import ru.yandex.practicum.filmorate.model.CatalogBucket;
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+import ru.yandex.practicum.filmorate.model.FilmStatsRow;
+import ru.yandex.practicum.filmorate.model.GenrePair;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the catalog. Every film is added once and subtracted again before its new state is added,
+ * so a write touches only the buckets of that film.
+ */
+final class CatalogAccumulator {
+
+    private final Map<Integer, FilmStatsRow> rows = new HashMap<>();
+
+    private final Map<Integer, long[]> genres = new TreeMap<>();
+
+    private final Map<Integer, long[]> ratings = new TreeMap<>();
+
+    private final Map<Integer, long[]> decades = new TreeMap<>();
+
+    private final Map<Long, long[]> genrePairs = new TreeMap<>();
+
+    private long films;
+
+    private long likes;
+
+    private long duration;
+
+
+    void put(FilmStatsRow row) {
+        remove(row.getFilmId());
+        rows.put(row.getFilmId(), row);
+        apply(row, 1);
+    }
+
+    void remove(int filmId) {
+        FilmStatsRow previous = rows.remove(filmId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    CatalogStats toStats(Map<Integer, String> genreNames, Map<Integer, String> ratingNames) {
+        List<GenrePair> pairs = new ArrayList<>();
+        genrePairs.forEach((key, count) ->
+                pairs.add(new GenrePair((int) (key >>> 32), (int) (long) key, count[0])));
+
+        return new CatalogStats(films, likes, films == 0 ? 0 : (double) duration / films,
+                buckets(genres, genreNames), buckets(ratings, ratingNames), buckets(decades, null), pairs,
+                Instant.now());
+    }
+
+
+    private void apply(FilmStatsRow row, int sign) {
+        films += sign;
+        likes += (long) sign * row.getLikes();
+        duration += (long) sign * row.getDuration();
+
+        List<Integer> genreIds = row.getGenreIds();
+        for (int i = 0; i < genreIds.size(); i++) {
+            add(genres, genreIds.get(i), row, sign);
+            for (int j = i + 1; j < genreIds.size(); j++) {
+                int first = Math.min(genreIds.get(i), genreIds.get(j));
+                int second = Math.max(genreIds.get(i), genreIds.get(j));
+                add(genrePairs, (long) first << 32 | second, row, sign);
+            }
+        }
+
+        if (row.getRatingId() != null) {
+            add(ratings, row.getRatingId(), row, sign);
+        }
+        add(decades, row.getReleaseDate().getYear() / 10 * 10, row, sign);
+    }
+
+    private static <K> void add(Map<K, long[]> totals, K key, FilmStatsRow row, int sign) {
+        long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+        total[0] += sign;
+        total[1] += (long) sign * row.getLikes();
+
+        if (total[0] == 0) {
+            totals.remove(key);
+        }
+    }
+
+    private static List<CatalogBucket> buckets(Map<Integer, long[]> totals, Map<Integer, String> names) {
+        List<CatalogBucket> buckets = new ArrayList<>(totals.size());
+        totals.forEach((id, total) ->
+                buckets.add(new CatalogBucket(id, names == null ? id + "s" : names.get(id), total[0], total[1])));
+        return buckets;
+    }
+
+}
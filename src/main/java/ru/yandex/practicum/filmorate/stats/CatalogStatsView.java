@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.materialized.MaterializedView;
+import ru.yandex.practicum.filmorate.materialized.RefreshContext;
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+import ru.yandex.practicum.filmorate.model.FilmStatsRow;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.RatingRepository;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Film, like and duration totals per genre, MPA rating and release decade.
+ *
+ * <p>The film service reports every film it writes; a delta refresh re-reads only those films and moves their
+ * contribution between buckets. Changes nobody reported fall back to a full recount. That covers any write
+ * to genres, ratings or users in the window, e.g. films cascading away with their rating or likes cascading
+ * away with a deleted user.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogStatsView implements MaterializedView<CatalogStats> {
+
+    public static final String NAME = "catalog-stats";
+
+    private final FilmRepository filmRepository;
+
+    private final GenreRepository genreRepository;
+
+    private final RatingRepository ratingRepository;
+
+    private final Set<Integer> changedFilms = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean allChanged = new AtomicBoolean();
+
+    private CatalogAccumulator accumulator;
+
+    private Map<Integer, String> genreNames;
+
+    private Map<Integer, String> ratingNames;
+
+
+    /**
+     * Must be called before the write is published to {@code DataVersions}, so that the refresh it triggers
+     * already sees the film.
+     */
+    public void filmChanged(Integer filmId) {
+        changedFilms.add(filmId);
+    }
+
+    public void allFilmsChanged() {
+        allChanged.set(true);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Set<DataDomain> getSources() {
+        return EnumSet.of(DataDomain.FILMS, DataDomain.GENRES, DataDomain.RATINGS, DataDomain.USERS);
+    }
+
+    @Override
+    public CatalogStats refresh(RefreshContext<CatalogStats> context) {
+        List<Integer> filmIds = new ArrayList<>(changedFilms);
+        changedFilms.removeAll(filmIds);
+
+        if (context.isFull() || accumulator == null || allChanged.getAndSet(false) || filmIds.isEmpty()
+                || otherSourceChanged(context)) {
+            return recount();
+        }
+
+        try {
+            Map<Integer, FilmStatsRow> rows = new HashMap<>();
+            for (FilmStatsRow row : filmRepository.findStatsRows(filmIds)) {
+                rows.put(row.getFilmId(), row);
+            }
+
+            for (Integer filmId : filmIds) {
+                FilmStatsRow row = rows.get(filmId);
+                if (row == null) {
+                    accumulator.remove(filmId);
+                } else {
+                    accumulator.put(row);
+                }
+            }
+        } catch (RuntimeException ex) {
+            accumulator = null;
+            throw ex;
+        }
+
+        log.debug("Applied {} changed films to {}", filmIds.size(), NAME);
+        return accumulator.toStats(genreNames, ratingNames);
+    }
+
+
+    private static boolean otherSourceChanged(RefreshContext<CatalogStats> context) {
+        return context.hasChanged(DataDomain.GENRES) || context.hasChanged(DataDomain.RATINGS)
+                || context.hasChanged(DataDomain.USERS);
+    }
+
+    private CatalogStats recount() {
+        CatalogAccumulator recounted = new CatalogAccumulator();
+        for (FilmStatsRow row : filmRepository.findStatsRows()) {
+            recounted.put(row);
+        }
+
+        Map<Integer, String> genres = new HashMap<>();
+        for (Genre genre : genreRepository.findAll()) {
+            genres.put(genre.getId(), genre.getName());
+        }
+
+        Map<Integer, String> ratings = new HashMap<>();
+        for (Rating rating : ratingRepository.findAll()) {
+            ratings.put(rating.getId(), rating.getName());
+        }
+
+        accumulator = recounted;
+        genreNames = genres;
+        ratingNames = ratings;
+        return accumulator.toStats(genreNames, ratingNames);
+    }
+
+}
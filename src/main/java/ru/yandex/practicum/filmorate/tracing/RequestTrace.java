@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+
+/**
+ * Timings of one HTTP request. Besides the thread serving the request, worker threads that the request hands
+ * work to may record into it through {@link TraceContext#wrap}; anything they record after the request
+ * finished is dropped.
+ */
+@Getter
+public class RequestTrace {
+
+    private static final int MAX_SPANS = 256;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String method;
+
+    private final String uri;
+
+    @JsonIgnore
+    private final long startNanos = System.nanoTime();
+
+    private final List<Span> spans = new ArrayList<>();
+
+    private int status;
+
+    private int statementCount;
+
+    private double totalMillis;
+
+    private double dbMillis;
+
+    private double serializeMillis;
+
+    private double appMillis;
+
+    @JsonIgnore
+    private long dbNanos;
+
+    @JsonIgnore
+    private long serializeStartNanos;
+
+    /**
+     * Span nesting depth per thread recording into this trace.
+     */
+    @JsonIgnore
+    private final Map<Thread, Integer> depths = new HashMap<>();
+
+    @JsonIgnore
+    private boolean finished;
+
+    @JsonIgnore
+    private Span handlerSpan;
+
+
+    public RequestTrace(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized Span openSpan(String name) {
+        int depth = depths.getOrDefault(Thread.currentThread(), 0);
+        depths.put(Thread.currentThread(), depth + 1);
+
+        Span span = new Span(name, depth, System.nanoTime());
+        if (!finished && spans.size() < MAX_SPANS) {
+            spans.add(span);
+        }
+        return span;
+    }
+
+    public synchronized void closeSpan(Span span) {
+        span.close(System.nanoTime());
+        depths.computeIfPresent(Thread.currentThread(), (thread, depth) -> depth - 1);
+    }
+
+    /**
+     * Lets the current thread record into this trace with its spans nested at the given depth.
+     */
+    synchronized void enterThread(int depth) {
+        depths.put(Thread.currentThread(), depth);
+    }
+
+    synchronized void leaveThread() {
+        depths.remove(Thread.currentThread());
+    }
+
+    synchronized int currentDepth() {
+        return depths.getOrDefault(Thread.currentThread(), 0);
+    }
+
+    public void openHandlerSpan(String name) {
+        handlerSpan = openSpan(name);
+    }
+
+    public void closeHandlerSpan() {
+        if (handlerSpan != null) {
+            closeSpan(handlerSpan);
+            handlerSpan = null;
+        }
+    }
+
+    public synchronized void recordStatement(long elapsedNanos) {
+        if (finished) {
+            return;
+        }
+        statementCount++;
+        dbNanos += elapsedNanos;
+    }
+
+    public void markSerializeStart() {
+        closeHandlerSpan();
+        if (serializeStartNanos == 0) {
+            serializeStartNanos = System.nanoTime();
+        }
+    }
+
+    public synchronized void finish(int status) {
+        finished = true;
+        long endNanos = System.nanoTime();
+        long totalNanos = endNanos - startNanos;
+        long serializeNanos = serializeStartNanos == 0 ? 0 : endNanos - serializeStartNanos;
+
+        this.status = status;
+        this.totalMillis = totalNanos / NANOS_PER_MILLI;
+        this.dbMillis = dbNanos / NANOS_PER_MILLI;
+        this.serializeMillis = serializeNanos / NANOS_PER_MILLI;
+        this.appMillis = Math.max(0, totalNanos - dbNanos - serializeNanos) / NANOS_PER_MILLI;
+    }
+
+    public synchronized String toServerTiming() {
+        return String.format(Locale.ROOT,
+                "db;dur=%.3f;desc=\"%d statements\", app;dur=%.3f, serialize;dur=%.3f, total;dur=%.3f",
+                dbMillis, statementCount, appMillis, serializeMillis, totalMillis);
+    }
+
+
+    @Getter
+    public static class Span {
+
+        private final String name;
+
+        private final int depth;
+
+        @JsonIgnore
+        private final long startNanos;
+
+        private double millis;
+
+
+        Span(String name, int depth, long startNanos) {
+            this.name = name;
+            this.depth = depth;
+            this.startNanos = startNanos;
+        }
+
+        void close(long endNanos) {
+            this.millis = (endNanos - startNanos) / NANOS_PER_MILLI;
+        }
+
+    }
+
+}
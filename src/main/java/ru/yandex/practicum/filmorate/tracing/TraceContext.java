@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import java.util.concurrent.Callable;
+
+public final class TraceContext {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+
+    private TraceContext() {
+    }
+
+    public static RequestTrace begin(String method, String uri) {
+        RequestTrace trace = new RequestTrace(method, uri);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Binds the current trace to the thread that runs the task, so its statements and spans count towards
+     * the request that submitted it.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+
+        int depth = trace.currentDepth();
+        return () -> {
+            RequestTrace previous = CURRENT.get();
+            CURRENT.set(trace);
+            trace.enterThread(depth);
+            try {
+                return task.call();
+            } finally {
+                trace.leaveThread();
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the slowest finished requests; the fastest of them is evicted when a slower one arrives.
+ */
+@Component
+public class TraceStore {
+
+    private static final Comparator<RequestTrace> BY_TOTAL = Comparator.comparingDouble(RequestTrace::getTotalMillis);
+
+    private final PriorityQueue<RequestTrace> slowest = new PriorityQueue<>(BY_TOTAL);
+
+    private final int capacity;
+
+
+    public TraceStore(@Value("${filmorate.tracing.slowest-size:50}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void record(RequestTrace trace) {
+        if (slowest.size() < capacity) {
+            slowest.add(trace);
+        } else if (BY_TOTAL.compare(trace, slowest.peek()) > 0) {
+            slowest.poll();
+            slowest.add(trace);
+        }
+    }
+
+    public synchronized List<RequestTrace> getSlowest() {
+        List<RequestTrace> traces = new ArrayList<>(slowest);
+        traces.sort(BY_TOTAL.reversed());
+        return traces;
+    }
+
+    public synchronized void clear() {
+        slowest.clear();
+    }
+
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.jdbc.ObservedDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Adds a span around every call into the application's services and repositories
+ * and reports each JDBC statement to the current request trace.
+ */
+public class TracingBeanPostProcessor implements BeanPostProcessor {
+
+    private static final String BASE_PACKAGE = FilmorateApplication.class.getPackageName();
+
+    private static final MethodInterceptor SPAN_INTERCEPTOR = invocation -> {
+        RequestTrace trace = TraceContext.current();
+
+        if (trace == null) {
+            return invocation.proceed();
+        }
+
+        RequestTrace.Span span = trace.openSpan(
+                AopUtils.getTargetClass(invocation.getThis()).getSimpleName() + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            trace.closeSpan(span);
+        }
+    };
+
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof ObservedDataSource)) {
+            return new ObservedDataSource((DataSource) bean, (sql, elapsedNanos) -> {
+                RequestTrace trace = TraceContext.current();
+                if (trace != null) {
+                    trace.recordStatement(elapsedNanos);
+                }
+            });
+        }
+
+        Class<?> beanClass = AopUtils.getTargetClass(bean);
+        if (!beanClass.getName().startsWith(BASE_PACKAGE)) {
+            return bean;
+        }
+
+        boolean traced = AnnotatedElementUtils.hasAnnotation(beanClass, Service.class)
+                || AnnotatedElementUtils.hasAnnotation(beanClass, Repository.class);
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(beanClass);
+
+        if (!traced || interfaces.length == 0) {
+            return bean;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(interfaces);
+        proxyFactory.setTarget(bean);
+        proxyFactory.addAdvice(SPAN_INTERCEPTOR);
+        return proxyFactory.getProxy(beanClass.getClassLoader());
+    }
+
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class TracingConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public static TracingBeanPostProcessor tracingBeanPostProcessor() {
+        return new TracingBeanPostProcessor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TracingHandlerInterceptor());
+    }
+
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces every request and reports its db/app/serialize split in the {@code Server-Timing} header.
+ * Only sampled requests have their body buffered, which guarantees the header can still be set after
+ * serialization; the others get it when the container has not committed the response by then.
+ */
+@Component
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final String DEBUG_PATH = "/debug/";
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final TraceStore traceStore;
+
+    private final double sampleRate;
+
+
+    public TracingFilter(TraceStore traceStore, @Value("${filmorate.tracing.sample-rate:1.0}") double sampleRate) {
+        this.traceStore = traceStore;
+        this.sampleRate = sampleRate;
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = TraceContext.begin(request.getMethod(), request.getRequestURI());
+        boolean sampled = sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        ContentCachingResponseWrapper wrapper = sampled ? new ContentCachingResponseWrapper(response) : null;
+
+        try {
+            chain.doFilter(request, sampled ? wrapper : response);
+        } finally {
+            TraceContext.end();
+
+            if (sampled) {
+                trace.finish(wrapper.getStatus());
+                wrapper.setHeader(SERVER_TIMING, trace.toServerTiming());
+                wrapper.copyBodyToResponse();
+            } else {
+                trace.finish(response.getStatus());
+                if (!response.isCommitted()) {
+                    response.setHeader(SERVER_TIMING, trace.toServerTiming());
+                }
+            }
+
+            if (!request.getRequestURI().startsWith(DEBUG_PATH)) {
+                traceStore.record(trace);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class TracingHandlerInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTrace trace = TraceContext.current();
+
+        if (trace != null && handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            trace.openHandlerSpan(method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestTrace trace = TraceContext.current();
+
+        if (trace != null) {
+            trace.closeHandlerSpan();
+        }
+    }
+
+}
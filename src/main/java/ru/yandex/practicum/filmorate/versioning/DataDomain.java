@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.versioning;
+
+public enum DataDomain {
+
+    FILMS("f"),
+    USERS("u"),
+    GENRES("g"),
+    RATINGS("r");
+
+    private final String code;
+
+
+    DataDomain(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+}
@@ -0,0 +1,229 @@
+package ru.yandex.practicum.filmorate.versioning;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.RowVersion;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Source of the validators used for conditional GETs.
+ *
+ * <p>Each domain has an in-memory counter that services bump after every write, so list tags are computed
+ * without touching the database. Single films and users are tagged by the VERSION and UPDATED_AT columns of
+ * their row; those are read once and then served from memory until the row is written again. Counters only
+ * live as long as the process, so every tag carries the start-up epoch.
+ */
+@Component
+public class DataVersions {
+
+    private final long startedAt = toHttpDate(System.currentTimeMillis());
+
+    private final String epoch = Long.toString(startedAt / 1000, 36);
+
+    private final Map<DataDomain, Counter> counters = new EnumMap<>(DataDomain.class);
+
+    private final RowCache films;
+
+    private final RowCache users;
+
+    private final List<Consumer<DataDomain>> listeners = new CopyOnWriteArrayList<>();
+
+
+    public DataVersions(FilmRepository filmRepository, UserRepository userRepository) {
+        for (DataDomain domain : DataDomain.values()) {
+            counters.put(domain, new Counter(startedAt));
+        }
+        this.films = new RowCache(filmRepository::findRowVersion);
+        this.users = new RowCache(userRepository::findRowVersion);
+    }
+
+
+    public EntityTag tagOf(DataDomain... domains) {
+        return tag(null, 0, domains);
+    }
+
+    public EntityTag filmTag(Integer filmId) {
+        RowVersion row = films.get(filmId);
+
+        if (row == null) {
+            return null;
+        }
+
+        return tag("f" + filmId + "." + row.getVersion(), row.getUpdatedAt().toEpochMilli(),
+                DataDomain.GENRES, DataDomain.RATINGS);
+    }
+
+    public EntityTag userTag(Integer userId) {
+        RowVersion row = users.get(userId);
+
+        if (row == null) {
+            return null;
+        }
+
+        return tag("u" + userId + "." + row.getVersion(), row.getUpdatedAt().toEpochMilli());
+    }
+
+
+    public boolean filmExists(Integer filmId) {
+        return films.get(filmId) != null;
+    }
+
+    public boolean userExists(Integer userId) {
+        return users.get(userId) != null;
+    }
+
+    public long versionOf(DataDomain domain) {
+        return counters.get(domain).version.get();
+    }
+
+    public void changed(DataDomain domain) {
+        counters.get(domain).bump();
+        for (Consumer<DataDomain> listener : listeners) {
+            listener.accept(domain);
+        }
+    }
+
+    /**
+     * Registers a callback run on the writing thread after each bump of a domain counter.
+     */
+    public void onChange(Consumer<DataDomain> listener) {
+        listeners.add(listener);
+    }
+
+    public void filmChanged(Integer filmId) {
+        films.invalidate(filmId);
+        changed(DataDomain.FILMS);
+    }
+
+    public void allFilmsChanged() {
+        films.invalidateAll();
+        changed(DataDomain.FILMS);
+    }
+
+    public void userChanged(Integer userId) {
+        users.invalidate(userId);
+        changed(DataDomain.USERS);
+    }
+
+    public void allUsersChanged() {
+        users.invalidateAll();
+        changed(DataDomain.USERS);
+    }
+
+
+    private EntityTag tag(String row, long rowModified, DataDomain... domains) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        long lastModified = toHttpDate(rowModified);
+
+        if (row != null) {
+            etag.append('-').append(row);
+        }
+
+        for (DataDomain domain : domains) {
+            Counter counter = counters.get(domain);
+            etag.append('-').append(domain.getCode()).append(counter.version.get());
+            lastModified = Math.max(lastModified, counter.lastModified);
+        }
+
+        return new EntityTag(etag.append('"').toString(), lastModified);
+    }
+
+    private static long toHttpDate(long millis) {
+        return millis / 1000 * 1000;
+    }
+
+
+    private static class Counter {
+
+        private final AtomicLong version = new AtomicLong();
+
+        private volatile long lastModified;
+
+
+        Counter(long lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        void bump() {
+            lastModified = Math.max(lastModified, toHttpDate(System.currentTimeMillis()));
+            version.incrementAndGet();
+        }
+
+    }
+
+    /**
+     * Row versions read from the database. A read only populates the cache if no write to the same row,
+     * and no bulk invalidation, happened while it was in flight; otherwise a stale version could outlive
+     * the write that replaced it.
+     */
+    private static class RowCache {
+
+        private final ConcurrentMap<Integer, Slot> slots = new ConcurrentHashMap<>();
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private final Function<Integer, RowVersion> loader;
+
+
+        RowCache(Function<Integer, RowVersion> loader) {
+            this.loader = loader;
+        }
+
+        RowVersion get(Integer id) {
+            long readGeneration = generation.get();
+            Slot slot = slots.get(id);
+
+            if (slot != null && slot.row != null) {
+                return slot.row;
+            }
+
+            long readWrites = slot == null ? 0 : slot.writes;
+            RowVersion row = loader.apply(id);
+
+            if (row != null) {
+                slots.compute(id, (key, current) -> {
+                    long writes = current == null ? 0 : current.writes;
+                    boolean unchanged = writes == readWrites && generation.get() == readGeneration;
+                    return unchanged ? new Slot(writes, row) : current;
+                });
+            }
+
+            return row;
+        }
+
+        void invalidate(Integer id) {
+            slots.compute(id, (key, current) -> new Slot(current == null ? 1 : current.writes + 1, null));
+        }
+
+        void invalidateAll() {
+            generation.incrementAndGet();
+            slots.clear();
+        }
+
+    }
+
+    private static class Slot {
+
+        private final long writes;
+
+        private final RowVersion row;
+
+
+        Slot(long writes, RowVersion row) {
+            this.writes = writes;
+            this.row = row;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.versioning;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.codec.BinaryMediaTypes;
+
+import javax.servlet.http.HttpServletResponse;
+
+@Getter
+@AllArgsConstructor
+public class EntityTag {
+
+    private final String etag;
+
+    private final long lastModified;
+
+
+    /**
+     * Validates the request against this tag. Each encoding is a separate representation, so the tag sent
+     * to the client carries the negotiated binary variant, if any.
+     */
+    public boolean checkNotModified(WebRequest request) {
+        String variant = BinaryMediaTypes.variantOf(request.getHeader(HttpHeaders.ACCEPT));
+        String representationTag = variant == null
+                ? etag : etag.substring(0, etag.length() - 1) + "-" + variant + "\"";
+
+        if (request instanceof NativeWebRequest) {
+            HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+
+        return request.checkNotModified(representationTag, lastModified);
+    }
+
+}
@@ -1,5 +1,3 @@
---DROP TABLE FILM_GENRE, GENRES, FILM_RATING, FILM_FANS, USERS, USER_FRIENDSHIP, FILMS;
-
 create table IF NOT EXISTS FILM_RATING
 (
     RATING_ID   INTEGER AUTO_INCREMENT NOT NULL,
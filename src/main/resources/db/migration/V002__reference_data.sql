@@ -1,14 +1,14 @@
-insert into FILM_RATING (rating_name)
+merge into FILM_RATING (RATING_NAME) key (RATING_NAME)
 values ('G'),
        ('PG'),
        ('PG-13'),
        ('R'),
        ('NC-17');
 
-insert into GENRES (genre_name)
+merge into GENRES (GENRE_NAME) key (GENRE_NAME)
 values ('Комедия'),
        ('Драма'),
        ('Мультфильм'),
        ('Триллер'),
        ('Документальный'),
-       ('Боевик');
\ No newline at end of file
+       ('Боевик');
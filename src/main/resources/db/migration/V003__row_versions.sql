@@ -0,0 +1,5 @@
+alter table FILMS add column IF NOT EXISTS VERSION BIGINT DEFAULT 0 not null;
+alter table FILMS add column IF NOT EXISTS UPDATED_AT TIMESTAMP DEFAULT LOCALTIMESTAMP not null;
+
+alter table USERS add column IF NOT EXISTS VERSION BIGINT DEFAULT 0 not null;
+alter table USERS add column IF NOT EXISTS UPDATED_AT TIMESTAMP DEFAULT LOCALTIMESTAMP not null;
@@ -0,0 +1 @@
+create index IF NOT EXISTS FILM_FANS_FILM_USER_IDX on FILM_FANS (FILM_ID, USER_ID);
@@ -0,0 +1,3 @@
+alter table FILMS add column IF NOT EXISTS CONTENT_HASH BIGINT;
+
+create unique index IF NOT EXISTS FILMS_CONTENT_HASH_UIDX on FILMS (CONTENT_HASH);
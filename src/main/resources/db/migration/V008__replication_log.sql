@@ -0,0 +1,9 @@
+create table IF NOT EXISTS REPLICATION_LOG
+(
+    ID         BIGINT auto_increment,
+    TABLE_NAME CHARACTER VARYING not null,
+    KEY1       INTEGER           not null,
+    KEY2       INTEGER,
+    constraint REPLICATION_LOG_PK
+        primary key (ID)
+);
@@ -0,0 +1,8 @@
+create table IF NOT EXISTS USER_KEYS
+(
+    USER_ID INTEGER auto_increment,
+    EMAIL   CHARACTER VARYING UNIQUE not null,
+    LOGIN   CHARACTER VARYING UNIQUE not null,
+    constraint USER_KEYS_PK
+        primary key (USER_ID)
+);
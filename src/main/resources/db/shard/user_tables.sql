@@ -0,0 +1,22 @@
+create table IF NOT EXISTS USERS
+(
+    USER_ID       INTEGER auto_increment,
+    NAME          CHARACTER VARYING,
+    EMAIL         CHARACTER VARYING UNIQUE not null,
+    LOGIN         CHARACTER VARYING UNIQUE not null,
+    DATE_OF_BIRTH DATE              not null,
+    VERSION       BIGINT DEFAULT 0  not null,
+    UPDATED_AT    TIMESTAMP DEFAULT LOCALTIMESTAMP not null,
+    constraint USERS_PK
+        primary key (USER_ID)
+);
+
+create table IF NOT EXISTS USER_FRIENDSHIP
+(
+    USER_ID           INTEGER not null,
+    FRIEND_ID         INTEGER not null,
+    constraint USER_FRIENDSHIP_USERS_FK
+        foreign key (USER_ID) references USERS ON DELETE CASCADE,
+    constraint USER_FRIENDSHIP_PK
+        primary key (USER_ID, FRIEND_ID)
+);
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.batching.BatchLoader;
+import ru.yandex.practicum.filmorate.batching.BatchingProperties;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchLoaderTest {
+
+    private static final int CALLERS = 16;
+
+
+    @Test
+    public void testConcurrentLookupsShareOneBatch() throws Exception {
+        List<Collection<Integer>> batches = new CopyOnWriteArrayList<>();
+        AtomicReference<BatchLoader<Integer, String>> self = new AtomicReference<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test", keys -> {
+            batches.add(List.copyOf(keys));
+            while (batches.size() == 1 && self.get().getLookups() < CALLERS) {
+                Thread.onSpinWait();
+            }
+            return keys.stream()
+                    .filter(key -> key != 0)
+                    .collect(Collectors.toMap(Function.identity(), key -> "film " + key));
+        }, properties(Duration.ofMillis(500), CALLERS));
+        self.set(loader);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                int key = i;
+                results.add(executor.submit(() -> loader.load(key)));
+            }
+
+            for (int i = 0; i < CALLERS; i++) {
+                String expected = i == 0 ? null : "film " + i;
+                assertEquals(expected, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(CALLERS - 1, batches.get(1).size());
+        assertEquals(2, loader.getBatches());
+    }
+
+    @Test
+    public void testLoneLookupDoesNotWaitForWindow() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test", keys -> Map.of(1, "film"),
+                properties(Duration.ofSeconds(5), CALLERS));
+
+        long start = System.nanoTime();
+        assertEquals("film", loader.load(1));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, loader.getBatches());
+    }
+
+    @Test
+    public void testFailureReachesCaller() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test", keys -> {
+            throw new IllegalStateException();
+        }, properties(Duration.ofMillis(1), CALLERS));
+
+        assertThrows(IllegalStateException.class, () -> loader.load(1));
+        assertEquals(1, loader.getBatches());
+    }
+
+
+    @Test
+    public void testCallerInTransactionDoesNotJoinOpenBatch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, Thread> loadedOn = new ConcurrentHashMap<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test", keys -> {
+            keys.forEach(key -> loadedOn.put(key, Thread.currentThread()));
+            if (keys.contains(0)) {
+                await(release);
+            }
+            return keys.stream().collect(Collectors.toMap(Function.identity(), key -> "film " + key));
+        }, properties(Duration.ofSeconds(1), CALLERS));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> blocking = executor.submit(() -> loader.load(0));
+            while (!loadedOn.containsKey(0)) {
+                Thread.onSpinWait();
+            }
+            Future<String> waitingLeader = executor.submit(() -> loader.load(1));
+            while (loader.getLookups() < 2) {
+                Thread.onSpinWait();
+            }
+
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                long start = System.nanoTime();
+                assertEquals("film 2", loader.load(2));
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+            assertEquals(Thread.currentThread(), loadedOn.get(2));
+
+            release.countDown();
+            assertEquals("film 0", blocking.get(5, TimeUnit.SECONDS));
+            assertEquals("film 1", waitingLeader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPinnedCallerDoesNotJoinOpenBatch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, Thread> loadedOn = new ConcurrentHashMap<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test", keys -> {
+            keys.forEach(key -> loadedOn.put(key, Thread.currentThread()));
+            if (keys.contains(0)) {
+                await(release);
+            }
+            return keys.stream().collect(Collectors.toMap(Function.identity(), key -> "film " + key));
+        }, properties(Duration.ofSeconds(1), CALLERS));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> blocking = executor.submit(() -> loader.load(0));
+            while (!loadedOn.containsKey(0)) {
+                Thread.onSpinWait();
+            }
+            Future<String> waitingLeader = executor.submit(() -> loader.load(1));
+            while (loader.getLookups() < 2) {
+                Thread.onSpinWait();
+            }
+
+            ReadRouting.pin(true);
+            try {
+                long start = System.nanoTime();
+                assertEquals("film 2", loader.load(2));
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            } finally {
+                ReadRouting.pin(false);
+            }
+            assertEquals(Thread.currentThread(), loadedOn.get(2));
+
+            release.countDown();
+            assertEquals("film 0", blocking.get(5, TimeUnit.SECONDS));
+            assertEquals("film 1", waitingLeader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BatchingProperties properties(Duration window, int maxBatchSize) {
+        BatchingProperties properties = new BatchingProperties();
+        properties.setWindow(window);
+        properties.setMaxBatchSize(maxBatchSize);
+        return properties;
+    }
+
+}
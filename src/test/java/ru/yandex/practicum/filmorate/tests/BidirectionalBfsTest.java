@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.graph.BidirectionalBfs;
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.model.ConnectionStatus;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+public class BidirectionalBfsTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final BidirectionalBfs bfs = new BidirectionalBfs(2);
+
+
+    @Test
+    public void testFollowsFriendshipDirection() {
+        FriendGraph graph = graph(5, new int[][]{{10, 20}, {20, 30}, {30, 40}, {40, 10}});
+
+        BidirectionalBfs.SearchResult forward = search(graph, 10, 40, 6);
+        assertEquals(ConnectionStatus.CONNECTED, forward.getStatus());
+        assertArrayEquals(new int[]{10, 20, 30, 40}, userIds(graph, forward.getPath()));
+
+        BidirectionalBfs.SearchResult backward = search(graph, 40, 30, 6);
+        assertArrayEquals(new int[]{40, 10, 20, 30}, userIds(graph, backward.getPath()));
+
+        assertEquals(ConnectionStatus.NOT_CONNECTED, search(graph, 10, 50, 6).getStatus());
+        assertArrayEquals(new int[]{20}, userIds(graph, search(graph, 20, 20, 6).getPath()));
+    }
+
+    @Test
+    public void testStopsAtHopLimit() {
+        FriendGraph graph = graph(5, new int[][]{{10, 20}, {20, 30}, {30, 40}, {40, 50}});
+
+        assertEquals(ConnectionStatus.HOP_LIMIT_REACHED, search(graph, 10, 50, 3).getStatus());
+        assertEquals(4, search(graph, 10, 50, 4).getPath().length - 1);
+    }
+
+    @Test
+    public void testMatchesPlainBfsOnLargeGraph() {
+        int users = 200_000;
+        int edges = 2_000_000;
+        Random random = new Random(7);
+
+        FriendGraph.Builder builder = new FriendGraph.Builder();
+        for (int i = 1; i <= users; i++) {
+            builder.addUser(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.addFriendship(random.nextInt(users) + 1, random.nextInt(users) + 1);
+        }
+        FriendGraph graph = builder.build();
+
+        long slowest = 0;
+        for (int i = 0; i < 20; i++) {
+            int source = random.nextInt(users);
+            int target = random.nextInt(users);
+
+            long start = System.nanoTime();
+            BidirectionalBfs.SearchResult result = bfs.search(graph, source, target, 20, NO_DEADLINE);
+            slowest = Math.max(slowest, System.nanoTime() - start);
+
+            int expected = plainDistance(graph, source, target);
+            assertEquals(expected, result.getPath() == null ? -1 : result.getPath().length - 1);
+        }
+
+        log.info("{} users, {} friendships: slowest bidirectional search {} us", users, edges, slowest / 1000);
+        int distant = 1;
+        while (plainDistance(graph, 0, distant) < 5) {
+            distant++;
+        }
+        assertEquals(ConnectionStatus.TIME_BUDGET_EXCEEDED,
+                bfs.search(graph, 0, distant, 20, System.nanoTime()).getStatus());
+    }
+
+
+    private BidirectionalBfs.SearchResult search(FriendGraph graph, int userId, int otherId, int maxHops) {
+        return bfs.search(graph, graph.indexOf(userId), graph.indexOf(otherId), maxHops, NO_DEADLINE);
+    }
+
+    private static FriendGraph graph(int users, int[][] friendships) {
+        FriendGraph.Builder builder = new FriendGraph.Builder();
+        for (int i = users; i >= 1; i--) {
+            builder.addUser(i * 10);
+        }
+        for (int[] friendship : friendships) {
+            builder.addFriendship(friendship[0], friendship[1]);
+        }
+        return builder.addFriendship(10, 999).build();
+    }
+
+    private static int[] userIds(FriendGraph graph, int[] path) {
+        return Arrays.stream(path).map(graph::userIdAt).toArray();
+    }
+
+    private static int plainDistance(FriendGraph graph, int source, int target) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == target) {
+                return distance[node];
+            }
+            for (int friend : graph.friendsAt(node)) {
+                if (distance[friend] < 0) {
+                    distance[friend] = distance[node] + 1;
+                    queue.add(friend);
+                }
+            }
+        }
+        return -1;
+    }
+}
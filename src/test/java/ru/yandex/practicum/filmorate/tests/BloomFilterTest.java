@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.bloom.BloomFilter;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class BloomFilterTest {
+
+    private static final int KEYS = 100_000;
+
+
+    @Test
+    public void testHasNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("user" + i + "@mail.ru");
+        }
+
+        for (int i = 0; i < KEYS; i++) {
+            assertTrue(filter.mightContain("user" + i + "@mail.ru"));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("login" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = KEYS; i < KEYS * 2; i++) {
+            if (filter.mightContain("login" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / KEYS;
+        log.info("{} bits, {} hashes: false positive rate {}", filter.getBitSize(), filter.getHashCount(), rate);
+        assertTrue(rate < 0.02);
+    }
+
+}
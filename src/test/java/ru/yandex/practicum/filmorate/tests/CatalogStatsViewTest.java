@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.mapper.RatingMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.materialized.RefreshContext;
+import ru.yandex.practicum.filmorate.model.CatalogBucket;
+import ru.yandex.practicum.filmorate.model.CatalogStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenrePair;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.GenreRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.RatingRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class CatalogStatsViewTest {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private FilmRepositoryImpl filmRepository;
+
+    private GenreRepositoryImpl genreRepository;
+
+    private RatingRepositoryImpl ratingRepository;
+
+    private UserRepositoryImpl userRepository;
+
+    private CatalogStatsView view;
+
+    private List<Genre> genres;
+
+    private List<Rating> ratings;
+
+
+    @BeforeEach
+    public void setUp() {
+        filmRepository = new FilmRepositoryImpl(jdbcTemplate, new FilmMapper());
+        genreRepository = new GenreRepositoryImpl(jdbcTemplate, new GenreMapper());
+        ratingRepository = new RatingRepositoryImpl(jdbcTemplate, new RatingMapper());
+        userRepository = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), new UserMapper());
+        view = new CatalogStatsView(filmRepository, genreRepository, ratingRepository);
+
+        genres = genreRepository.findAll();
+        ratings = ratingRepository.findAll();
+    }
+
+
+    @Test
+    public void testFullRefreshAggregatesCatalog() {
+        User fan = userRepository.save(new User("fan", "fan@mail.ru", "fan", LocalDate.of(1990, 1, 1)));
+        Film first = save("First", LocalDate.of(1994, 5, 1), 100, ratings.get(0), genres.get(0), genres.get(1));
+        save("Second", LocalDate.of(1999, 5, 1), 120, ratings.get(0), genres.get(1));
+        save("Third", LocalDate.of(2003, 5, 1), 140, ratings.get(1));
+        filmRepository.addLike(first.getId(), fan.getId());
+
+        CatalogStats stats = view.refresh(new RefreshContext<>(null, null));
+
+        assertEquals(3, stats.getFilms());
+        assertEquals(1, stats.getLikes());
+        assertEquals(120.0, stats.getAverageDuration());
+        assertEquals(List.of(
+                new CatalogBucket(genres.get(0).getId(), genres.get(0).getName(), 1, 1),
+                new CatalogBucket(genres.get(1).getId(), genres.get(1).getName(), 2, 1)), stats.getByGenre());
+        assertEquals(List.of(
+                new CatalogBucket(ratings.get(0).getId(), ratings.get(0).getName(), 2, 1),
+                new CatalogBucket(ratings.get(1).getId(), ratings.get(1).getName(), 1, 0)), stats.getByRating());
+        assertEquals(List.of(new CatalogBucket(1990, "1990s", 2, 1), new CatalogBucket(2000, "2000s", 1, 0)),
+                stats.getByDecade());
+        assertEquals(List.of(new GenrePair(genres.get(0).getId(), genres.get(1).getId(), 1)), stats.getGenrePairs());
+    }
+
+    @Test
+    public void testDeltaRefreshMatchesRecount() {
+        User fan = userRepository.save(new User("fan", "fan@mail.ru", "fan", LocalDate.of(1990, 1, 1)));
+        Film first = save("First", LocalDate.of(1994, 5, 1), 100, ratings.get(0), genres.get(0), genres.get(1));
+        Film second = save("Second", LocalDate.of(1999, 5, 1), 120, ratings.get(0), genres.get(1));
+        CatalogStats stats = view.refresh(new RefreshContext<>(null, null));
+
+        Film third = save("Third", LocalDate.of(2003, 5, 1), 140, ratings.get(1), genres.get(2), genres.get(0));
+        view.filmChanged(third.getId());
+        filmRepository.addLike(third.getId(), fan.getId());
+        view.filmChanged(third.getId());
+        filmRepository.deleteById(first.getId());
+        view.filmChanged(first.getId());
+        second.setDuration(60);
+        second.setMpa(ratings.get(2));
+        filmRepository.update(second);
+        view.filmChanged(second.getId());
+
+        stats = view.refresh(new RefreshContext<>(stats, Instant.now(), EnumSet.of(DataDomain.FILMS)));
+        CatalogStats recounted = new CatalogStatsView(filmRepository, genreRepository, ratingRepository)
+                .refresh(new RefreshContext<>(null, null));
+
+        recounted.setComputedAt(stats.getComputedAt());
+        assertEquals(recounted, stats);
+        assertEquals(2, stats.getFilms());
+        assertEquals(1, stats.getLikes());
+    }
+
+    @Test
+    public void testUserWriteInWindowForcesRecount() {
+        User fan = userRepository.save(new User("fan", "fan@mail.ru", "fan", LocalDate.of(1990, 1, 1)));
+        Film first = save("First", LocalDate.of(1994, 5, 1), 100, ratings.get(0), genres.get(0));
+        Film second = save("Second", LocalDate.of(1999, 5, 1), 120, ratings.get(0), genres.get(1));
+        filmRepository.addLike(first.getId(), fan.getId());
+        CatalogStats stats = view.refresh(new RefreshContext<>(null, null));
+        assertEquals(1, stats.getLikes());
+
+        second.setDuration(60);
+        filmRepository.update(second);
+        view.filmChanged(second.getId());
+        userRepository.deleteById(fan.getId());
+
+        stats = view.refresh(new RefreshContext<>(stats, Instant.now(),
+                EnumSet.of(DataDomain.FILMS, DataDomain.USERS)));
+
+        assertTrue(view.getSources().contains(DataDomain.USERS));
+        assertEquals(0, stats.getLikes());
+        assertEquals(80.0, stats.getAverageDuration());
+    }
+
+
+    private Film save(String name, LocalDate releaseDate, int duration, Rating rating, Genre... filmGenres) {
+        Film film = filmRepository.save(new Film(0, name, "Description", releaseDate, duration, rating, 0));
+        genreRepository.add(film.getId(), List.of(filmGenres));
+        return film;
+    }
+
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.columnar.ColumnarScanner;
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+public class ColumnarScannerTest {
+
+    private static final int FILMS = 300_000;
+
+    private static final LocalDate EPOCH = LocalDate.of(1930, 1, 1);
+
+    private static final List<Row> rows = new ArrayList<>();
+
+    private static FilmColumns columns;
+
+    private static ColumnarScanner scanner;
+
+
+    @BeforeAll
+    public static void setUp() {
+        Random random = new Random(11);
+        FilmColumns.Builder builder = new FilmColumns.Builder();
+
+        for (int id = 1; id <= FILMS; id++) {
+            List<Integer> genreIds = new ArrayList<>();
+            for (int genreId = 1; genreId <= 70; genreId++) {
+                if (random.nextInt(20) == 0) {
+                    genreIds.add(genreId);
+                }
+            }
+            Row row = new Row(id * 2, 60 + random.nextInt(120), EPOCH.plusDays(random.nextInt(33_000)),
+                    random.nextInt(5) + 1, random.nextInt(1000), genreIds);
+            rows.add(row);
+            builder.addFilm(row.id, "Film " + row.id, "Description", row.releaseDate, row.duration, row.ratingId,
+                    row.popularity);
+            for (Integer genreId : genreIds) {
+                builder.addGenre(row.id, genreId);
+            }
+        }
+
+        columns = builder.build();
+        scanner = new ColumnarScanner(new ForkJoinPool(4), 4096);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        scanner.close();
+    }
+
+
+    @Test
+    public void testFilterMatchesRowByRowScan() {
+        List<FilmFilter> filters = List.of(
+                new FilmFilter(),
+                new FilmFilter(90, 120, null, null, null, null),
+                new FilmFilter(null, null, LocalDate.of(1980, 1, 1), LocalDate.of(1989, 12, 31), 3, null),
+                new FilmFilter(100, null, null, LocalDate.of(2000, 6, 1), null, 68),
+                new FilmFilter(null, null, null, null, null, 1000));
+
+        for (FilmFilter filter : filters) {
+            int[] expected = rows.stream().filter(matches(filter)).mapToInt(row -> row.id).toArray();
+
+            long start = System.nanoTime();
+            int[] actual = scanner.filter(columns, filter);
+            log.info("{}: {} of {} films in {} us", filter, actual.length, FILMS, (System.nanoTime() - start) / 1000);
+
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testTopByPopularityWithinRating() {
+        FilmFilter filter = new FilmFilter(null, null, null, null, 2, 5);
+
+        int[] expected = rows.stream()
+                .filter(matches(filter))
+                .sorted(Comparator.<Row>comparingInt(row -> row.popularity).reversed()
+                        .thenComparingInt(row -> row.id))
+                .limit(50)
+                .mapToInt(row -> row.id)
+                .toArray();
+
+        assertArrayEquals(expected, scanner.topByPopularity(columns, filter, 50));
+    }
+
+    @Test
+    public void testReleaseYearHistogram() {
+        FilmFilter filter = new FilmFilter(150, null, null, null, null, null);
+
+        Map<Integer, Long> expected = rows.stream()
+                .filter(matches(filter))
+                .collect(Collectors.groupingBy(row -> row.releaseDate.getYear(), TreeMap::new, Collectors.counting()));
+
+        assertEquals(expected, scanner.releaseYearHistogram(columns, filter));
+    }
+
+
+    private static Predicate<Row> matches(FilmFilter filter) {
+        return row -> (filter.getMinDuration() == null || row.duration >= filter.getMinDuration())
+                && (filter.getMaxDuration() == null || row.duration <= filter.getMaxDuration())
+                && (filter.getReleasedFrom() == null || !row.releaseDate.isBefore(filter.getReleasedFrom()))
+                && (filter.getReleasedTo() == null || !row.releaseDate.isAfter(filter.getReleasedTo()))
+                && (filter.getRatingId() == null || row.ratingId == filter.getRatingId())
+                && (filter.getGenreId() == null || row.genreIds.contains(filter.getGenreId()));
+    }
+
+
+    private static class Row {
+
+        private final int id;
+
+        private final int duration;
+
+        private final LocalDate releaseDate;
+
+        private final int ratingId;
+
+        private final int popularity;
+
+        private final List<Integer> genreIds;
+
+
+        Row(int id, int duration, LocalDate releaseDate, int ratingId, int popularity, List<Integer> genreIds) {
+            this.id = id;
+            this.duration = duration;
+            this.releaseDate = releaseDate;
+            this.ratingId = ratingId;
+            this.popularity = popularity;
+            this.genreIds = genreIds;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.RowVersion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
+import ru.yandex.practicum.filmorate.service.ConnectionService;
+import ru.yandex.practicum.filmorate.service.FilmScanService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ProfileService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends conditional GETs to the film and user controllers and checks when they answer 304.
+ */
+public class ConditionalGetTest {
+
+    private static final Instant UPDATED_AT = Instant.parse("2024-01-01T10:00:00Z");
+
+    private FilmRepository filmRepository;
+
+    private DataVersions dataVersions;
+
+    private MockMvc mockMvc;
+
+
+    @BeforeEach
+    public void setUp() {
+        filmRepository = mock(FilmRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(filmRepository.findRowVersion(1)).thenReturn(new RowVersion(1, UPDATED_AT));
+        when(userRepository.findRowVersion(1)).thenReturn(new RowVersion(1, UPDATED_AT));
+        dataVersions = new DataVersions(filmRepository, userRepository);
+
+        Film film = new Film(1, "Film", "Description", LocalDate.of(2000, 1, 1), 100, new Rating(1, "G"), 0,
+                new ArrayList<>());
+        FilmService filmService = mock(FilmService.class);
+        when(filmService.findById(1)).thenReturn(film);
+        when(filmService.findAll(any())).thenReturn(List.of(film));
+
+        User user = new User("User", "user@mail.ru", "user", LocalDate.of(1990, 1, 1));
+        user.setId(1);
+        UserService userService = mock(UserService.class);
+        when(userService.findById(1)).thenReturn(user);
+
+        ResponseCache responseCache = mock(ResponseCache.class);
+        when(responseCache.serve(eq("films/1"), any(), any(), any())).thenReturn(false);
+
+        FilmController filmController = new FilmController(filmService, mock(FilmScanService.class), dataVersions,
+                responseCache, mock(LikeIngestion.class));
+        UserController userController = new UserController(userService, filmService, dataVersions,
+                mock(ProfileService.class), mock(ConnectionService.class));
+
+        Jackson2ObjectMapperBuilder json = Jackson2ObjectMapperBuilder.json()
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+        mockMvc = MockMvcBuilders.standaloneSetup(filmController, userController)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(json.build()),
+                        new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor()
+                                .filters(new SimpleFilterProvider().setFailOnUnknownId(false)).build()))
+                .build();
+    }
+
+
+    @Test
+    public void testMatchingEtagAnswersNotModified() throws Exception {
+        String etag = fetch("/films/1", MediaType.APPLICATION_JSON).getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    public void testWriteInvalidatesEtag() throws Exception {
+        String etag = fetch("/films/1", MediaType.APPLICATION_JSON).getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(filmRepository.findRowVersion(1)).thenReturn(new RowVersion(2, UPDATED_AT.plusSeconds(60)));
+        dataVersions.filmChanged(1);
+
+        MvcResult result = mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void testIfModifiedSinceIsHonoured() throws Exception {
+        long lastModified = fetch("/users/1", MediaType.APPLICATION_JSON).getResponse()
+                .getDateHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified - 1000))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testIfNoneMatchWinsOverIfModifiedSince() throws Exception {
+        long lastModified = fetch("/users/1", MediaType.APPLICATION_JSON).getResponse()
+                .getDateHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testListEtagFollowsDomainVersion() throws Exception {
+        String etag = fetch("/films", MediaType.APPLICATION_JSON).getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        dataVersions.changed(DataDomain.GENRES);
+        mockMvc.perform(get("/films").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testEachEncodingHasItsOwnEtag() throws Exception {
+        MvcResult json = fetch("/films/1", MediaType.APPLICATION_JSON);
+        MvcResult cbor = fetch("/films/1", MediaType.APPLICATION_CBOR);
+        String jsonTag = json.getResponse().getHeader(HttpHeaders.ETAG);
+        String cborTag = cbor.getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(jsonTag, cborTag);
+        assertEquals(HttpHeaders.ACCEPT, cbor.getResponse().getHeader(HttpHeaders.VARY));
+
+        mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                .andExpect(status().isNotModified());
+    }
+
+
+    private MvcResult fetch(String path, MediaType mediaType) throws Exception {
+        return mockMvc.perform(get(path).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+    }
+
+}
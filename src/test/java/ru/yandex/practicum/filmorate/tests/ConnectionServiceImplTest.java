@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.graph.BidirectionalBfs;
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.graph.GraphProperties;
+import ru.yandex.practicum.filmorate.model.ConnectionStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.service.impl.ConnectionServiceImpl;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionServiceImplTest {
+
+    private final CountDownLatch rebuildStarted = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger builds = new AtomicInteger();
+
+    private final AtomicLong usersVersion = new AtomicLong(1);
+
+    private ConnectionServiceImpl connectionService;
+
+
+    @BeforeEach
+    public void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByIds(anyCollection())).thenReturn(Map.of(
+                1, new User(1, "first", "first@mail.ru", "first", LocalDate.of(1990, 1, 1)),
+                2, new User(2, "second", "second@mail.ru", "second", LocalDate.of(1990, 1, 1))));
+
+        doAnswer(invocation -> {
+            FriendGraph.Builder builder = invocation.getArgument(0);
+            builder.addUser(1).addUser(2);
+            if (builds.incrementAndGet() == 1) {
+                builder.addFriendship(1, 2);
+            } else {
+                rebuildStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(userRepository).loadFriendGraph(any());
+
+        DataVersions dataVersions = mock(DataVersions.class);
+        when(dataVersions.versionOf(DataDomain.USERS)).thenAnswer(invocation -> usersVersion.get());
+
+        connectionService = new ConnectionServiceImpl(userRepository, dataVersions, new GraphProperties(),
+                new BidirectionalBfs(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        connectionService.close();
+    }
+
+
+    @Test
+    public void testStaleGraphIsServedWhileOneRebuildRuns() throws Exception {
+        assertEquals(ConnectionStatus.CONNECTED, connectionService.findConnection(1, 2, null).getStatus());
+
+        usersVersion.incrementAndGet();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ConnectionStatus.CONNECTED, connectionService.findConnection(1, 2, null).getStatus());
+        }
+        assertTrue(rebuildStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, builds.get());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connectionService.findConnection(1, 2, null).getStatus() == ConnectionStatus.CONNECTED
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(ConnectionStatus.NOT_CONNECTED, connectionService.findConnection(1, 2, null).getStatus());
+        assertEquals(2, builds.get());
+    }
+
+}
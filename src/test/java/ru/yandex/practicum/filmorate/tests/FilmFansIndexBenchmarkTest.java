@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times the FILM_ID-keyed FILM_FANS lookups before and after V004 adds the (FILM_ID, USER_ID) index.
+ */
+@Slf4j
+public class FilmFansIndexBenchmarkTest {
+
+    private static final int FILMS = 2_000;
+
+    private static final int USERS = 3_000;
+
+    private static final int LIKES_PER_USER = 25;
+
+    private static final int ROUNDS = 1_000;
+
+    private static final String FANS_QUERY = "SELECT USER_ID FROM FILM_FANS WHERE FILM_ID = ? ORDER BY USER_ID";
+
+    private static final String RECOUNT_QUERY = "SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?";
+
+    private static EmbeddedDatabase database;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private static FilmRepositoryImpl filmRepository;
+
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .setScriptEncoding("UTF-8")
+                .addScripts("db/migration/V001__create_tables.sql", "db/migration/V002__reference_data.sql",
+                        "db/migration/V003__row_versions.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(database.getConnection(), true));
+        filmRepository = new FilmRepositoryImpl(jdbcTemplate, new FilmMapper());
+
+        jdbcTemplate.update("INSERT INTO FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID) " +
+                "SELECT 'Film ' || X, 'Description', DATE '2000-01-01', 100, 1 FROM SYSTEM_RANGE(1, ?)", FILMS);
+        jdbcTemplate.update("INSERT INTO USERS (NAME, EMAIL, LOGIN, DATE_OF_BIRTH) " +
+                "SELECT 'User ' || X, 'user' || X || '@mail.ru', 'user' || X, DATE '1990-01-01' " +
+                "FROM SYSTEM_RANGE(1, ?)", USERS);
+        jdbcTemplate.update("INSERT INTO FILM_FANS (FILM_ID, USER_ID) " +
+                "SELECT DISTINCT MOD(u.X * 7919 + l.X * 104729, ?) + 1, u.X " +
+                "FROM SYSTEM_RANGE(1, ?) u, SYSTEM_RANGE(1, ?) l", FILMS, USERS, LIKES_PER_USER);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        database.shutdown();
+    }
+
+
+    @Test
+    public void testFilmKeyedLookupsUseCoveringIndex() {
+        assertFalse(plan(FANS_QUERY).contains("FILM_FANS_FILM_USER_IDX"));
+        measure();
+        Map<String, Long> before = measure();
+
+        jdbcTemplate.execute(migration());
+        jdbcTemplate.execute("ANALYZE");
+
+        assertTrue(plan(FANS_QUERY).contains("FILM_FANS_FILM_USER_IDX: FILM_ID = 1"));
+        assertTrue(plan(RECOUNT_QUERY).matches("(?s).*FILM_FANS_\\w+: FILM_ID = 1.*"));
+        Map<String, Long> after = measure();
+
+        before.forEach((query, nanos) -> log.info("{}: {} ns before, {} ns after FILM_FANS_FILM_USER_IDX", query,
+                nanos, after.get(query)));
+        assertEquals(filmRepository.findFansIds(1).size(),
+                jdbcTemplate.queryForObject(RECOUNT_QUERY, Integer.class, 1));
+    }
+
+
+    private static Map<String, Long> measure() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        timings.put("findFansIds", time(filmId -> filmRepository.findFansIds(filmId)));
+        timings.put("existsLike", time(filmId -> filmRepository.existsLike(filmId, filmId % USERS + 1)));
+        timings.put("popularity recount", time(filmId -> jdbcTemplate.queryForObject(RECOUNT_QUERY, Integer.class,
+                filmId)));
+        return timings;
+    }
+
+    private static long time(IntConsumer query) {
+        Random random = new Random(42);
+        for (int i = 0; i < ROUNDS; i++) {
+            query.accept(random.nextInt(FILMS) + 1);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            query.accept(random.nextInt(FILMS) + 1);
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private static String plan(String query) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + query.replace("?", "1"), String.class);
+    }
+
+    private static String migration() {
+        try (InputStream in = FilmFansIndexBenchmarkTest.class.getResourceAsStream(
+                "/db/migration/V004__film_fans_film_index.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
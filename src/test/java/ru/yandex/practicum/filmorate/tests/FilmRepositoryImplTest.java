@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
@@ -13,10 +14,12 @@ import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
 import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
 import ru.yandex.practicum.filmorate.repository.impl.GenreRepositoryImpl;
 import ru.yandex.practicum.filmorate.repository.impl.RatingRepositoryImpl;
 import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -25,6 +28,7 @@ import java.util.List;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @JdbcTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -174,6 +178,60 @@ public class FilmRepositoryImplTest {
                 "Description2", LocalDate.of(1991, 12, 12), 1001));
     }
 
+    @Test
+    public void testFindByNameDescriptionReleaseDateAndDuration_shouldIgnoreCaseAndSpacing() {
+        Film savedFilm = filmRepositoryImpl.save(new Film("Name", "Long  description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+
+        Film found = filmRepositoryImpl.findByNameDescriptionReleaseDateAndDuration(" name",
+                "long description ", LocalDate.of(1990, 12, 12), 100);
+
+        assertEquals(savedFilm.getId(), found.getId());
+    }
+
+    @Test
+    public void testSave_shouldRejectDuplicateContent() {
+        filmRepositoryImpl.save(new Film("Name", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+
+        assertThrows(DuplicateKeyException.class, () -> filmRepositoryImpl.save(new Film("NAME", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating2, 0)));
+    }
+
+    @Test
+    public void testUpdate_shouldRejectDuplicateContent() {
+        filmRepositoryImpl.save(new Film("Name1", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+        Film second = filmRepositoryImpl.save(new Film("Name2", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+
+        second.setName("Name1");
+        assertThrows(DuplicateKeyException.class, () -> filmRepositoryImpl.update(second));
+    }
+
+    @Test
+    public void testUpdate_shouldKeepLegacyDuplicateWithoutHash() {
+        Film first = filmRepositoryImpl.save(new Film("Name", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+        Film legacy = filmRepositoryImpl.save(new Film("Legacy", "Description",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+        jdbcTemplate.update("UPDATE FILMS SET NAME = 'Name', CONTENT_HASH = NULL WHERE FILM_ID = ?", legacy.getId());
+
+        legacy.setName("Name");
+        legacy.setMpa(savedRating2);
+        assertTrue(filmRepositoryImpl.update(legacy));
+        assertEquals(savedRating2.getId(), filmRepositoryImpl.findById(legacy.getId()).getMpa().getId());
+        assertNull(jdbcTemplate.queryForObject("SELECT CONTENT_HASH FROM FILMS WHERE FILM_ID = ?", Long.class,
+                legacy.getId()));
+        assertEquals(first.getId(), filmRepositoryImpl.findByNameDescriptionReleaseDateAndDuration("Name",
+                "Description", LocalDate.of(1990, 12, 12), 100).getId());
+
+        legacy.setName("Merged away");
+        assertTrue(filmRepositoryImpl.update(legacy));
+        assertEquals(legacy.getId(), filmRepositoryImpl.findByNameDescriptionReleaseDateAndDuration("Merged away",
+                "Description", LocalDate.of(1990, 12, 12), 100).getId());
+    }
+
     @Test
     public void testFindAll() {
         Film newFilm1 = new Film("Name1", "Description1",
@@ -272,7 +330,7 @@ public class FilmRepositoryImplTest {
         //UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate);
 
 
-        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate, userMapper);
+        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
 
         User newUser1 = new User(1, "user1", "user1@gmail.com", "User1 Name",
                 LocalDate.of(1990, 1, 1));
@@ -311,7 +369,7 @@ public class FilmRepositoryImplTest {
     public void testRemoveLike() {
 
         //UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate);
-        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate, userMapper);
+        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
 
         User newUser1 = new User(1, "user1", "user1@gmail.com", "User1 Name",
                 LocalDate.of(1990, 1, 1));
@@ -355,7 +413,7 @@ public class FilmRepositoryImplTest {
     public void testGetTopByLikes() {
 
         //UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate);
-        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate, userMapper);
+        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
 
         User newUser1 = new User(1, "user1", "user1@gmail.com", "User1 Name",
                 LocalDate.of(1990, 1, 1));
@@ -426,7 +484,7 @@ public class FilmRepositoryImplTest {
     public void testFindFilmFansIds() {
 
         //UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate);
-        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate, userMapper);
+        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
 
         User newUser1 = new User(1, "user1", "user1@gmail.com", "User1 Name",
                 LocalDate.of(1990, 1, 1));
@@ -479,4 +537,49 @@ public class FilmRepositoryImplTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testFindLikedByUserAndRecommendations() {
+
+        UserRepositoryImpl userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
+
+        User savedUser1 = userRepositoryImpl.save(new User(1, "user1", "user1@gmail.com", "User1 Name",
+                LocalDate.of(1990, 1, 1)));
+        User savedUser2 = userRepositoryImpl.save(new User(2, "user2", "user2@gmail.com", "User2 Name",
+                LocalDate.of(1990, 1, 1)));
+        User savedUser3 = userRepositoryImpl.save(new User(3, "user3", "user3@gmail.com", "User3 Name",
+                LocalDate.of(1990, 1, 1)));
+
+        Film savedFilm1 = filmRepositoryImpl.save(new Film("Name1", "Description1",
+                LocalDate.of(1990, 12, 12), 100, savedRating1, 0));
+        Film savedFilm2 = filmRepositoryImpl.save(new Film("Name2", "Description2",
+                LocalDate.of(1990, 12, 12), 100, savedRating2, 0));
+        Film savedFilm3 = filmRepositoryImpl.save(new Film("Name3", "Description3",
+                LocalDate.of(1990, 12, 12), 100, savedRating3, 0));
+        Film savedFilm4 = filmRepositoryImpl.save(new Film("Name4", "Description4",
+                LocalDate.of(1990, 12, 12), 100, savedRating3, 0));
+
+        filmRepositoryImpl.addLike(savedFilm1.getId(), savedUser1.getId());
+        filmRepositoryImpl.addLike(savedFilm1.getId(), savedUser2.getId());
+        filmRepositoryImpl.addLike(savedFilm1.getId(), savedUser3.getId());
+        filmRepositoryImpl.addLike(savedFilm2.getId(), savedUser2.getId());
+        filmRepositoryImpl.addLike(savedFilm2.getId(), savedUser3.getId());
+        filmRepositoryImpl.addLike(savedFilm3.getId(), savedUser3.getId());
+
+        List<Film> likedFilms = filmRepositoryImpl.findLikedByUser(savedUser3.getId(), 0, 10, Projection.all());
+
+        assertEquals(3, likedFilms.size());
+        assertEquals(savedFilm1.getId(), likedFilms.get(0).getId());
+        assertEquals(savedRating1.getName(), likedFilms.get(0).getMpa().getName());
+
+        List<Film> recommendations = filmRepositoryImpl.findRecommendations(savedUser1.getId(), 10);
+
+        assertEquals(2, recommendations.size());
+        assertEquals(savedFilm2.getId(), recommendations.get(0).getId());
+        assertEquals(savedFilm3.getId(), recommendations.get(1).getId());
+        assertTrue(filmRepositoryImpl.findRecommendations(savedUser1.getId(), 1).stream()
+                .noneMatch(film -> film.getId().equals(savedFilm4.getId())));
+        assertTrue(filmRepositoryImpl.findLikedByUser(-1, 0, 10, Projection.all()).isEmpty());
+
+    }
+
+}
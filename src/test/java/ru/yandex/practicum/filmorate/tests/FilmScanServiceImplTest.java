@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.columnar.ColumnarScanner;
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.columnar.FilmFilter;
+import ru.yandex.practicum.filmorate.materialized.MaterializedViews;
+import ru.yandex.practicum.filmorate.materialized.ViewProperties;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.RatingRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.service.impl.FilmScanServiceImpl;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pins down how far a scan may lag a write: up to the view's max staleness for any client, not at all for a
+ * client pinned after its own write.
+ */
+public class FilmScanServiceImplTest {
+
+    private static final Duration MAX_STALENESS = Duration.ofMillis(300);
+
+    private final AtomicInteger films = new AtomicInteger(1);
+
+    private DataVersions dataVersions;
+
+    private FilmColumnsView view;
+
+    private MaterializedViews views;
+
+    private ColumnarScanner scanner;
+
+    private FilmScanServiceImpl scanService;
+
+
+    @BeforeEach
+    public void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        GenreRepository genreRepository = mock(GenreRepository.class);
+        RatingRepository ratingRepository = mock(RatingRepository.class);
+        when(genreRepository.findAll()).thenReturn(List.of(new Genre(1, "Комедия")));
+        when(ratingRepository.findAll()).thenReturn(List.of(new Rating(1, "G")));
+        doAnswer(invocation -> {
+            FilmColumns.Builder builder = invocation.getArgument(0);
+            for (int id = 1; id <= films.get(); id++) {
+                builder.addFilm(id, "Film " + id, "Description", LocalDate.of(2000, 1, 1), 100, 1, 0);
+            }
+            return null;
+        }).when(filmRepository).loadFilmColumns(any());
+
+        dataVersions = new DataVersions(mock(FilmRepository.class), mock(UserRepository.class));
+        view = new FilmColumnsView(filmRepository, genreRepository, ratingRepository);
+
+        ViewProperties properties = new ViewProperties();
+        properties.setRefreshInterval(Duration.ofHours(1));
+        properties.setDefaultMaxStaleness(MAX_STALENESS);
+        views = new MaterializedViews(List.of(view), dataVersions, properties);
+
+        scanner = new ColumnarScanner(new ForkJoinPool(1), 1024);
+        scanService = new FilmScanServiceImpl(views, view, scanner);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadRouting.pin(false);
+        views.close();
+        scanner.close();
+    }
+
+
+    @Test
+    public void testUnpinnedScanLagsAtMostMaxStaleness() throws InterruptedException {
+        assertEquals(1, scanService.scan(new FilmFilter(), "id", 10).size());
+
+        write();
+        assertEquals(1, scanService.scan(new FilmFilter(), "id", 10).size());
+
+        Thread.sleep(MAX_STALENESS.toMillis() + 50);
+        assertEquals(2, scanService.scan(new FilmFilter(), "id", 10).size());
+    }
+
+    @Test
+    public void testPinnedScanSeesOwnWrite() {
+        assertEquals(1, scanService.scan(new FilmFilter(), "id", 10).size());
+
+        write();
+        ReadRouting.pin(true);
+        assertEquals(2, scanService.scan(new FilmFilter(), "id", 10).size());
+        assertEquals(2L, scanService.getReleaseYearHistogram(new FilmFilter()).get(2000));
+    }
+
+
+    private void write() {
+        films.incrementAndGet();
+        view.filmsChanged();
+        dataVersions.changed(DataDomain.FILMS);
+    }
+
+}
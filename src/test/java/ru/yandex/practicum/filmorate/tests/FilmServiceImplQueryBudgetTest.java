@@ -0,0 +1,285 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.batching.BatchingConfiguration;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlightRegistry;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestionConfiguration;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.mapper.RatingMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.RatingRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.GenreRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.RatingRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.impl.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.impl.GenreServiceImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardingConfiguration;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudget;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudgetExtension;
+import ru.yandex.practicum.filmorate.tests.support.QueryCountingConfiguration;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ExtendWith(QueryBudgetExtension.class)
+@Import({QueryCountingConfiguration.class, FilmServiceImpl.class, GenreServiceImpl.class, FilmRepositoryImpl.class,
+        GenreRepositoryImpl.class, RatingRepositoryImpl.class, UserRepositoryImpl.class, FilmMapper.class,
+        GenreMapper.class, RatingMapper.class, UserMapper.class, DataVersions.class,
+        SingleFlightRegistry.class, BatchingConfiguration.class, CatalogStatsView.class, FilmColumnsView.class,
+        LikeIngestionConfiguration.class, ShardingConfiguration.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FilmServiceImplQueryBudgetTest {
+
+    private final FilmService filmService;
+
+    private final GenreRepository genreRepository;
+
+    private final RatingRepository ratingRepository;
+
+    private final UserRepository userRepository;
+
+    private final LikeIngestion likeIngestion;
+
+    private Rating rating;
+
+    private List<Genre> genres;
+
+    private User fan;
+
+    private User user;
+
+    private Film film;
+
+
+    @BeforeEach
+    public void setUp() {
+        rating = ratingRepository.findAll().get(0);
+        genres = genreRepository.findAll();
+
+        fan = userRepository.save(new User("fan", "fan@mail.ru", "fan", LocalDate.of(1990, 1, 1)));
+        user = userRepository.save(new User("user", "user@mail.ru", "user", LocalDate.of(1991, 1, 1)));
+
+        film = filmService.save(newFilm("Film", genres.subList(0, 2)));
+        filmService.addLike(film.getId(), fan.getId());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        likeIngestion.flush();
+    }
+
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testSaveWithoutGenres() {
+        filmService.save(newFilm("New film", new ArrayList<>()));
+    }
+
+    @Test
+    @QueryBudget(max = 5)
+    public void testSaveWithGenres() {
+        Film saved = filmService.save(newFilm("New film", genres.subList(0, 3)));
+
+        assertEquals(3, saved.getGenres().size());
+    }
+
+    @Test
+    @QueryBudget(max = 4)
+    public void testUpdate() {
+        film.setName("Updated");
+        film.setGenres(new ArrayList<>(genres.subList(1, 3)));
+
+        filmService.update(film);
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindById() {
+        Film found = filmService.findById(film.getId());
+
+        assertEquals(2, found.getGenres().size());
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindByName() {
+        filmService.findByName(film.getName());
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindAll() {
+        assertEquals(1, filmService.findAll().size());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindAllProjectedWithoutGenres() {
+        Film projected = filmService.findAll(Projection.forFilms("id,name,popularity", null)).get(0);
+
+        assertEquals("Film", projected.getName());
+        assertNull(projected.getDescription());
+        assertTrue(projected.getGenres().isEmpty());
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindByIds() {
+        List<Film> found = filmService.findByIds(List.of(-1, film.getId(), film.getId()), Projection.all());
+
+        assertEquals(1, found.size());
+        assertEquals(2, found.get(0).getGenres().size());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteById() {
+        assertTrue(filmService.deleteById(film.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteAll() {
+        assertTrue(filmService.deleteAll());
+    }
+
+    @Test
+    @QueryBudget(max = 4)
+    public void testAddLike() {
+        filmService.addLike(film.getId(), user.getId());
+    }
+
+    @Test
+    @QueryBudget(max = 5)
+    public void testAddLikeByUnknownUserIsNotFound() {
+        assertThrows(EntityNotFoundException.class, () -> filmService.addLike(film.getId(), -1));
+    }
+
+    @Test
+    @QueryBudget(max = 3)
+    public void testAcceptLike() {
+        filmService.acceptLike(film.getId(), user.getId());
+
+        assertTrue(likeIngestion.isPending(film.getId(), user.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 5)
+    public void testAcceptLikeAlreadyPersistedIsRejected() {
+        assertThrows(EntityAlreadyExistsException.class, () -> filmService.acceptLike(film.getId(), fan.getId()));
+
+        assertFalse(likeIngestion.hasPending());
+        assertEquals(1, filmService.findById(film.getId()).getPopularity());
+    }
+
+    @Test
+    @QueryBudget(max = 12)
+    public void testAcceptedLikeIsReadBeforeItIsPersisted() {
+        filmService.acceptLike(film.getId(), user.getId());
+
+        assertEquals(2, filmService.findById(film.getId()).getPopularity());
+        assertEquals(2, filmService.getTopByLikes(10).get(0).getPopularity());
+
+        likeIngestion.flush();
+
+        assertEquals(2, filmService.findById(film.getId()).getPopularity());
+    }
+
+    @Test
+    @QueryBudget(max = 4)
+    public void testRemoveLike() {
+        assertTrue(filmService.removeLike(film.getId(), fan.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testGetTopByLikes() {
+        assertEquals(1, filmService.getTopByLikes(10).size());
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testGetTopByLikesProjectedWithGenres() {
+        Film projected = filmService.getTopByLikes(10, Projection.forFilms("id,name", "genres")).get(0);
+
+        assertEquals(2, projected.getGenres().size());
+        assertNull(projected.getMpa());
+    }
+
+
+    @Test
+    @QueryBudget(max = 3)
+    public void testFindLikedByUser() {
+        List<Film> liked = filmService.findLikedByUser(fan.getId(), 0, 20, Projection.forFilms(null, "genres"));
+
+        assertEquals(List.of(film.getId()), liked.stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(2, liked.get(0).getGenres().size());
+    }
+
+    @Test
+    public void testFindLikedByUserIncludesPendingLikes() {
+        Film other = filmService.save(newFilm("Other", genres.subList(0, 1)));
+        filmService.acceptLike(other.getId(), fan.getId());
+
+        List<Film> liked = filmService.findLikedByUser(fan.getId(), 0, 20, Projection.all());
+
+        assertEquals(List.of(film.getId(), other.getId()),
+                liked.stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(1, liked.get(1).getPopularity());
+        assertEquals(List.of(other.getId()), filmService.findLikedByUser(fan.getId(), 1, 1, Projection.all()).stream()
+                .map(Film::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFindRecommendationsSkipsPendingLikes() {
+        Film other = filmService.save(newFilm("Other", genres.subList(0, 1)));
+        filmService.addLike(film.getId(), user.getId());
+        filmService.addLike(other.getId(), user.getId());
+
+        assertEquals(List.of(other.getId()), filmService.findRecommendations(fan.getId(), 5).stream()
+                .map(Film::getId).collect(Collectors.toList()));
+
+        filmService.acceptLike(other.getId(), fan.getId());
+
+        assertTrue(filmService.findRecommendations(fan.getId(), 5).isEmpty());
+    }
+
+
+    private Film newFilm(String name, List<Genre> filmGenres) {
+        return new Film(name, "Description", LocalDate.of(2000, 1, 1), 100, rating, 0,
+                new ArrayList<>(filmGenres));
+    }
+
+}
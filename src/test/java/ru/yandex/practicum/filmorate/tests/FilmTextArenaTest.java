@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.columnar.ChunkPool;
+import ru.yandex.practicum.filmorate.columnar.FilmColumns;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.columnar.TextArena;
+import ru.yandex.practicum.filmorate.materialized.RefreshContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.RatingRepository;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers the off-heap text of {@link FilmColumns}: round trips through the arena, reuse of released chunks,
+ * and like-only refreshes of {@link FilmColumnsView} that keep the arena instead of rebuilding it.
+ */
+public class FilmTextArenaTest {
+
+    private static final int FILMS = 10_000;
+
+    private final List<Genre> genres = List.of(new Genre(1, "Комедия"), new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"));
+
+    private final List<Rating> ratings = List.of(new Rating(1, "G"), new Rating(2, "PG"), new Rating(3, "PG-13"));
+
+
+    @Test
+    public void testArenaRoundTripsAcrossChunks() {
+        TextArena arena = new TextArena(16);
+        List<String> values = List.of("", "Комедия", "a".repeat(40), "Фильм №1", "x");
+        List<long[]> references = new ArrayList<>();
+
+        for (String value : values) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            references.add(new long[]{arena.append(utf8), utf8.length});
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i), arena.read(references.get(i)[0], (int) references.get(i)[1]));
+        }
+        assertEquals(values.stream().mapToInt(value -> value.getBytes(StandardCharsets.UTF_8).length).sum(),
+                arena.getUsedBytes());
+    }
+
+    @Test
+    public void testReleasedArenaGivesChunksBackOnceReadersAreDone() {
+        ChunkPool pool = new ChunkPool(16, 8);
+        TextArena first = new TextArena(pool);
+        for (int i = 0; i < 4; i++) {
+            first.append("0123456789".getBytes(StandardCharsets.UTF_8));
+        }
+        first.append("a value longer than one chunk".getBytes(StandardCharsets.UTF_8));
+        assertEquals(5, pool.getAllocatedChunks());
+
+        assertTrue(first.retain());
+        first.release();
+        assertFalse(first.isReleased());
+        assertEquals("0123456789", first.read(0, 10));
+        assertEquals(0, pool.getSpareChunks());
+
+        first.release();
+        assertTrue(first.isReleased());
+        assertFalse(first.retain());
+        assertEquals(4, pool.getSpareChunks());
+
+        TextArena second = new TextArena(pool);
+        long reference = 0;
+        for (int i = 0; i < 4; i++) {
+            reference = second.append("abcdefghij".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("abcdefghij", second.read(reference, 10));
+        assertEquals(5, pool.getAllocatedChunks());
+        assertEquals(4, pool.getReusedChunks());
+        assertEquals(0, pool.getSpareChunks());
+    }
+
+    @Test
+    public void testColumnsKeepTextInArena() {
+        FilmColumns.Builder builder = new FilmColumns.Builder();
+        genres.forEach(genre -> builder.addGenreName(genre.getId(), genre.getName()));
+        ratings.forEach(rating -> builder.addRatingName(rating.getId(), rating.getName()));
+
+        long textBytes = 0;
+        for (int id = 1; id <= FILMS; id++) {
+            Film film = film(id);
+            add(builder, film);
+            textBytes += film.getName().getBytes(StandardCharsets.UTF_8).length
+                    + film.getDescription().getBytes(StandardCharsets.UTF_8).length;
+        }
+        FilmColumns columns = builder.build();
+
+        assertTrue(columns.getTextBytes() >= textBytes);
+        assertTrue(columns.getTextBytes() < textBytes + TextArena.DEFAULT_CHUNK_SIZE);
+        for (int id : new int[]{1, FILMS / 2, FILMS}) {
+            assertEquals(film(id), columns.filmAt(columns.rowOf(id)));
+        }
+    }
+
+    @Test
+    public void testLikeOnlyRefreshKeepsArena() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        GenreRepository genreRepository = mock(GenreRepository.class);
+        RatingRepository ratingRepository = mock(RatingRepository.class);
+        when(genreRepository.findAll()).thenReturn(genres);
+        when(ratingRepository.findAll()).thenReturn(ratings);
+        doAnswer(invocation -> {
+            FilmColumns.Builder builder = invocation.getArgument(0);
+            for (int id = 1; id <= 3; id++) {
+                add(builder, film(id));
+            }
+            return null;
+        }).when(filmRepository).loadFilmColumns(any());
+        when(filmRepository.findPopularity(anyCollection())).thenReturn(Map.of(2, 500));
+
+        FilmColumnsView view = new FilmColumnsView(filmRepository, genreRepository, ratingRepository);
+        ChunkPool pool = view.getChunkPool();
+
+        FilmColumns built = view.refresh(new RefreshContext<>(null, null));
+        assertEquals(1, pool.getAllocatedChunks());
+
+        view.likesChanged(2);
+        FilmColumns liked = view.refresh(new RefreshContext<>(built, Instant.now(), EnumSet.of(DataDomain.FILMS)));
+
+        verify(filmRepository, times(1)).loadFilmColumns(any());
+        assertEquals(1, pool.getAllocatedChunks());
+        assertEquals(500, liked.filmAt(liked.rowOf(2)).getPopularity());
+        assertEquals(film(2).getPopularity(), built.filmAt(built.rowOf(2)).getPopularity());
+        assertEquals(film(3), liked.filmAt(liked.rowOf(3)));
+
+        assertTrue(liked.acquire());
+        view.filmsChanged();
+        FilmColumns rebuilt = view.refresh(new RefreshContext<>(liked, Instant.now(), EnumSet.of(DataDomain.FILMS)));
+
+        verify(filmRepository, times(2)).loadFilmColumns(any());
+        assertEquals(2, pool.getAllocatedChunks());
+        assertEquals(film(1), liked.filmAt(liked.rowOf(1)));
+        assertEquals(0, pool.getSpareChunks());
+
+        liked.release();
+        assertFalse(liked.acquire());
+        assertEquals(1, pool.getSpareChunks());
+
+        view.refresh(new RefreshContext<>(null, null));
+        assertEquals(2, pool.getAllocatedChunks());
+        assertEquals(1, pool.getReusedChunks());
+        assertFalse(rebuilt.acquire());
+    }
+
+
+    private Film film(int id) {
+        List<Genre> filmGenres = new ArrayList<>(genres.subList(0, id % genres.size() + 1));
+        return new Film(id, "Фильм номер " + id, ("Описание фильма номер " + id + ". ").repeat(5),
+                LocalDate.of(1950 + id % 70, id % 12 + 1, id % 28 + 1), 60 + id % 120,
+                ratings.get(id % ratings.size()), id % 1000, filmGenres);
+    }
+
+    private static void add(FilmColumns.Builder builder, Film film) {
+        builder.addFilm(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getMpa().getId(), film.getPopularity());
+        for (Genre genre : film.getGenres()) {
+            builder.addGenre(film.getId(), genre.getId());
+        }
+    }
+
+}
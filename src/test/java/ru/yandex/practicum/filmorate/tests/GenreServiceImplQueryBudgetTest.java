@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.GenreRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.impl.GenreServiceImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardingConfiguration;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudget;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudgetExtension;
+import ru.yandex.practicum.filmorate.tests.support.QueryCountingConfiguration;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ExtendWith(QueryBudgetExtension.class)
+@Import({QueryCountingConfiguration.class, GenreServiceImpl.class, GenreRepositoryImpl.class, GenreMapper.class,
+        DataVersions.class, FilmRepositoryImpl.class, UserRepositoryImpl.class, FilmMapper.class, UserMapper.class,
+        ShardingConfiguration.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class GenreServiceImplQueryBudgetTest {
+
+    private final GenreService genreService;
+
+    private Genre genre;
+
+
+    @BeforeEach
+    public void setUp() {
+        genre = genreService.save(new Genre(null, "Test genre"));
+    }
+
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testSave() {
+        genreService.save(new Genre(null, "New genre"));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testUpdate() {
+        genre.setName("Updated genre");
+
+        genreService.update(genre);
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindAll() {
+        assertTrue(genreService.findAll().contains(genre));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindById() {
+        assertEquals(genre, genreService.findByID(genre.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindByName() {
+        assertEquals(genre, genreService.findByName(genre.getName()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteById() {
+        assertTrue(genreService.deleteById(genre.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteAll() {
+        assertTrue(genreService.deleteAll());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testLoad() {
+        List<Film> films = List.of(new Film(1, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+                new Rating(1, "G"), 0), new Film(2, "Other", "Description", LocalDate.of(2000, 1, 1), 100,
+                new Rating(1, "G"), 0));
+
+        genreService.load(films);
+    }
+
+}
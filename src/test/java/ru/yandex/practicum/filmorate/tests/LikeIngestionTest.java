@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
+import ru.yandex.practicum.filmorate.exceptions.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestionProperties;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LikeIngestionTest {
+
+    private FilmRepository filmRepository;
+
+    private LikeIngestion likeIngestion;
+
+    private List<Set<Integer>> notifications;
+
+
+    @BeforeEach
+    public void setUp() {
+        filmRepository = mock(FilmRepository.class);
+        when(filmRepository.addLikes(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LikeIngestionProperties properties = new LikeIngestionProperties();
+        properties.setQueueCapacity(3);
+        properties.setBatchSize(2);
+        likeIngestion = new LikeIngestion(filmRepository, mock(PlatformTransactionManager.class), properties);
+
+        notifications = new ArrayList<>();
+        likeIngestion.onPersisted(notifications::add);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        likeIngestion.close();
+    }
+
+
+    @Test
+    public void testPendingLikesAreVisibleUntilFlushed() {
+        likeIngestion.accept(1, 10);
+        likeIngestion.accept(1, 11);
+        likeIngestion.accept(2, 10);
+
+        assertTrue(likeIngestion.isPending(1, 10));
+        assertEquals(2, likeIngestion.pendingLikes(1));
+        assertEquals(Set.of(1, 2), likeIngestion.pendingFilms());
+
+        likeIngestion.flush();
+
+        assertFalse(likeIngestion.hasPending());
+        assertEquals(0, likeIngestion.pendingLikes(1));
+        assertEquals(List.of(Set.of(1), Set.of(2)), notifications);
+        assertEquals(2L, likeIngestion.getStatistics().get("batches"));
+        assertEquals(3L, likeIngestion.getStatistics().get("persisted"));
+    }
+
+    @Test
+    public void testDuplicatePendingLikeIsRejected() {
+        likeIngestion.accept(1, 10);
+
+        assertThrows(EntityAlreadyExistsException.class, () -> likeIngestion.accept(1, 10));
+        assertEquals(1, likeIngestion.pendingLikes(1));
+    }
+
+    @Test
+    public void testFullQueueIsRejectedWithoutOverlay() {
+        likeIngestion.accept(1, 10);
+        likeIngestion.accept(1, 11);
+        likeIngestion.accept(1, 12);
+
+        assertThrows(TooManyRequestsException.class, () -> likeIngestion.accept(2, 10));
+        assertFalse(likeIngestion.isPending(2, 10));
+        assertEquals(0, likeIngestion.pendingLikes(2));
+        assertEquals(1L, likeIngestion.getStatistics().get("rejected"));
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedLikeByLike() {
+        when(filmRepository.addLikes(anyList())).thenAnswer(invocation -> {
+            List<FilmLike> likes = invocation.getArgument(0);
+            if (likes.stream().anyMatch(like -> like.getFilmId() == 2)) {
+                throw new DataIntegrityViolationException("film 2 is gone");
+            }
+            return likes;
+        });
+
+        likeIngestion.accept(1, 10);
+        likeIngestion.accept(2, 10);
+        likeIngestion.flush();
+
+        assertFalse(likeIngestion.hasPending());
+        assertEquals(1L, likeIngestion.getStatistics().get("persisted"));
+        assertEquals(1L, likeIngestion.getStatistics().get("dropped"));
+        assertEquals(0L, likeIngestion.getStatistics().get("ignored"));
+    }
+
+    @Test
+    public void testBatchThatCannotStartATransactionLeavesTheOverlay() {
+        when(filmRepository.addLikes(anyList())).thenThrow(new CannotCreateTransactionException("no connection"));
+
+        likeIngestion.accept(1, 10);
+        likeIngestion.accept(2, 10);
+
+        assertThrows(CannotCreateTransactionException.class, likeIngestion::flush);
+        assertFalse(likeIngestion.hasPending());
+        assertFalse(likeIngestion.isPending(1, 10));
+        assertEquals(List.of(Set.of(1, 2)), notifications);
+        assertEquals(0L, likeIngestion.getStatistics().get("persisted"));
+        assertEquals(2L, likeIngestion.getStatistics().get("dropped"));
+    }
+
+}
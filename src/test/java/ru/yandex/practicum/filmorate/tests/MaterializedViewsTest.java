@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.materialized.MaterializedView;
+import ru.yandex.practicum.filmorate.materialized.MaterializedViews;
+import ru.yandex.practicum.filmorate.materialized.RefreshContext;
+import ru.yandex.practicum.filmorate.materialized.ViewProperties;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class MaterializedViewsTest {
+
+    private DataVersions dataVersions;
+
+    private CountingView view;
+
+    private MaterializedViews views;
+
+
+    @BeforeEach
+    public void setUp() {
+        dataVersions = new DataVersions(mock(FilmRepository.class), mock(UserRepository.class));
+        view = new CountingView();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        views.close();
+    }
+
+
+    @Test
+    public void testReadsServeSnapshotUntilSourcesChange() {
+        views = new MaterializedViews(List.of(view), dataVersions, properties(Duration.ofHours(1), Duration.ZERO));
+
+        assertEquals("full:1", views.read(view));
+        assertEquals("full:1", views.read(view));
+
+        dataVersions.changed(DataDomain.USERS);
+        assertEquals("full:1", views.read(view));
+
+        dataVersions.changed(DataDomain.FILMS);
+        assertEquals("delta:2", views.read(view));
+        assertEquals(2, view.refreshes.get());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsPreviousSnapshot() {
+        views = new MaterializedViews(List.of(view), dataVersions, properties(Duration.ofHours(1), Duration.ZERO));
+        views.read(view);
+
+        view.failing.set(true);
+        dataVersions.changed(DataDomain.FILMS);
+        assertEquals("full:1", views.read(view));
+
+        Map<String, Object> statistics = views.getStatistics().get(0);
+        assertEquals(1L, statistics.get("failures"));
+        assertEquals(true, statistics.get("stale"));
+
+        view.failing.set(false);
+        assertEquals("delta:3", views.read(view));
+    }
+
+    @Test
+    public void testFirstReadFailureIsRethrown() {
+        views = new MaterializedViews(List.of(view), dataVersions, properties(Duration.ofHours(1), Duration.ZERO));
+        view.failing.set(true);
+
+        assertThrows(IllegalStateException.class, () -> views.read(view));
+    }
+
+    @Test
+    public void testStalenessCountsFromFirstWriteNotSnapshotAge() throws InterruptedException {
+        views = new MaterializedViews(List.of(view), dataVersions,
+                properties(Duration.ofHours(1), Duration.ofMillis(200)));
+        views.read(view);
+
+        Thread.sleep(300);
+        dataVersions.changed(DataDomain.FILMS);
+
+        assertEquals("full:1", views.read(view));
+        Map<String, Object> statistics = views.getStatistics().get(0);
+        assertEquals(true, statistics.get("stale"));
+        assertTrue((Long) statistics.get("lagMillis") < 200);
+
+        Thread.sleep(250);
+        assertTrue((Long) views.getStatistics().get(0).get("lagMillis") >= 200);
+        assertEquals("delta:2", views.read(view));
+        assertEquals(0L, views.getStatistics().get(0).get("lagMillis"));
+    }
+
+    @Test
+    public void testSchedulerRefreshesStaleViews() throws InterruptedException {
+        views = new MaterializedViews(List.of(view), dataVersions,
+                properties(Duration.ofMillis(10), Duration.ofHours(1)));
+        views.read(view);
+
+        dataVersions.changed(DataDomain.FILMS);
+        for (int i = 0; i < 500 && view.refreshes.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(2, view.refreshes.get());
+        assertEquals("delta:2", views.read(view));
+        assertEquals(false, views.getStatistics().get(0).get("stale"));
+    }
+
+
+    private static ViewProperties properties(Duration refreshInterval, Duration maxStaleness) {
+        ViewProperties properties = new ViewProperties();
+        properties.setRefreshInterval(refreshInterval);
+        properties.setDefaultMaxStaleness(maxStaleness);
+        return properties;
+    }
+
+
+    private static class CountingView implements MaterializedView<String> {
+
+        private final AtomicInteger refreshes = new AtomicInteger();
+
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public Set<DataDomain> getSources() {
+            return Set.of(DataDomain.FILMS);
+        }
+
+        @Override
+        public String refresh(RefreshContext<String> context) {
+            int refresh = refreshes.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("refresh " + refresh + " failed");
+            }
+            return (context.isFull() ? "full:" : "delta:") + refresh;
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.exceptions.CustomExceptionHandler;
+import ru.yandex.practicum.filmorate.ingestion.LikeIngestion;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
+import ru.yandex.practicum.filmorate.service.ConnectionService;
+import ru.yandex.practicum.filmorate.service.FilmScanService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ProfileService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends {@code ?ids=} and {@code /by-ids} lookups to the film and user controllers and checks the order of the
+ * answer, the missing ids header and the rejected requests.
+ */
+public class MultiGetTest {
+
+    private FilmService filmService;
+
+    private UserService userService;
+
+    private MockMvc mockMvc;
+
+
+    @BeforeEach
+    public void setUp() {
+        DataVersions dataVersions = new DataVersions(mock(FilmRepository.class), mock(UserRepository.class));
+
+        Map<Integer, Film> films = Map.of(
+                1, newFilm(1),
+                2, newFilm(2),
+                3, newFilm(3));
+        filmService = mock(FilmService.class);
+        when(filmService.findByIds(any(), any(Projection.class))).thenAnswer(invocation -> {
+            List<Integer> ids = invocation.getArgument(0);
+            return ids.stream().distinct().map(films::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+
+        Map<Integer, User> users = Map.of(
+                1, newUser(1),
+                2, newUser(2));
+        userService = mock(UserService.class);
+        when(userService.findByIds(any(), any(Projection.class))).thenAnswer(invocation -> {
+            List<Integer> ids = invocation.getArgument(0);
+            return ids.stream().distinct().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+
+        FilmController filmController = new FilmController(filmService, mock(FilmScanService.class), dataVersions,
+                mock(ResponseCache.class), mock(LikeIngestion.class));
+        UserController userController = new UserController(userService, filmService, dataVersions,
+                mock(ProfileService.class), mock(ConnectionService.class));
+
+        Jackson2ObjectMapperBuilder json = Jackson2ObjectMapperBuilder.json()
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+        mockMvc = MockMvcBuilders.standaloneSetup(filmController, userController)
+                .setControllerAdvice(new CustomExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(json.build()))
+                .build();
+    }
+
+
+    @Test
+    public void testFilmsComeBackInRequestOrder() throws Exception {
+        mockMvc.perform(get("/films").param("ids", "3,1,2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(1))
+                .andExpect(jsonPath("$[2].id").value(2))
+                .andExpect(header().doesNotExist("X-Missing-Ids"));
+    }
+
+    @Test
+    public void testMissingFilmsAreListedInHeader() throws Exception {
+        mockMvc.perform(get("/films").param("ids", "7,2,5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(header().string("X-Missing-Ids", "7,5"));
+    }
+
+    @Test
+    public void testPostFilmsByIds() throws Exception {
+        mockMvc.perform(post("/films/by-ids").contentType(MediaType.APPLICATION_JSON).content("[2,9,1]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1))
+                .andExpect(header().string("X-Missing-Ids", "9"));
+    }
+
+    @Test
+    public void testUsersComeBackInRequestOrder() throws Exception {
+        mockMvc.perform(get("/users").param("ids", "2,4,1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1))
+                .andExpect(header().string("X-Missing-Ids", "4"));
+    }
+
+    @Test
+    public void testPostUsersByIds() throws Exception {
+        mockMvc.perform(post("/users/by-ids").contentType(MediaType.APPLICATION_JSON).content("[1,2]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(header().doesNotExist("X-Missing-Ids"));
+    }
+
+    @Test
+    public void testMoreThanFiveHundredIdsAreRejected() throws Exception {
+        String ids = IntStream.rangeClosed(1, 501).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/films").param("ids", ids).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/films/by-ids").contentType(MediaType.APPLICATION_JSON).content("[" + ids + "]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users").param("ids", ids).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/users/by-ids").contentType(MediaType.APPLICATION_JSON).content("[" + ids + "]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(filmService, never()).findByIds(any(), any(Projection.class));
+        verify(userService, never()).findByIds(any(), any(Projection.class));
+    }
+
+    @Test
+    public void testFiveHundredIdsAreAccepted() throws Exception {
+        String ids = IntStream.rangeClosed(1, 500).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(post("/films/by-ids").contentType(MediaType.APPLICATION_JSON).content("[" + ids + "]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    public void testMalformedIdIsRejected() throws Exception {
+        mockMvc.perform(get("/films").param("ids", "1,abc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users").param("ids", "1,,2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(filmService, never()).findByIds(any(), any(Projection.class));
+        verify(userService, never()).findByIds(any(), any(Projection.class));
+    }
+
+
+    private static Film newFilm(int id) {
+        return new Film(id, "Film" + id, "Description", LocalDate.of(2000, 1, 1), 100, new Rating(1, "G"), 0,
+                new ArrayList<>());
+    }
+
+    private static User newUser(int id) {
+        User user = new User("User" + id, "user" + id + "@mail.ru", "user" + id, LocalDate.of(1990, 1, 1));
+        user.setId(id);
+        return user;
+    }
+
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.codec.ProtobufWriter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the size and encode time of the binary representations of a popular-films page with JSON.
+ */
+@Slf4j
+public class PayloadEncodingTest {
+
+    private static final int FILMS = 500;
+
+    private static final int ROUNDS = 200;
+
+    private static List<Film> films;
+
+    private static byte[] json;
+
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        films = new ArrayList<>();
+
+        for (int i = 1; i <= FILMS; i++) {
+            List<Genre> genres = new ArrayList<>(List.of(new Genre(1, "Комедия"), new Genre(i % 6 + 1, "Драма")));
+            films.add(new Film(i, "Film " + i, "Description of film number " + i,
+                    LocalDate.of(1950 + i % 70, i % 12 + 1, i % 28 + 1), 90 + i % 60, new Rating(i % 5 + 1, "PG-13"),
+                    i * 7, genres));
+        }
+
+        json = mapper(null).writeValueAsBytes(films);
+    }
+
+
+    @Test
+    public void testCborIsSmallerAndRoundTrips() throws IOException {
+        ObjectMapper cbor = mapper(new CBORFactory());
+        byte[] payload = report("cbor", () -> cbor.writeValueAsBytes(films));
+
+        assertTrue(payload.length < json.length);
+        assertEquals(films, cbor.readValue(payload, new TypeReference<List<Film>>() { }));
+    }
+
+    @Test
+    public void testSmileIsSmallerAndRoundTrips() throws IOException {
+        ObjectMapper smile = mapper(new SmileFactory());
+        byte[] payload = report("smile", () -> smile.writeValueAsBytes(films));
+
+        assertTrue(payload.length < json.length);
+        assertEquals(films, smile.readValue(payload, new TypeReference<List<Film>>() { }));
+    }
+
+    @Test
+    public void testProtobufIsSmallerAndListsEveryFilm() throws IOException {
+        byte[] payload = report("protobuf", () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ProtobufWriter.write(films, out);
+            return out.toByteArray();
+        });
+
+        assertTrue(payload.length < json.length);
+
+        CodedInputStream in = CodedInputStream.newInstance(payload);
+        int messages = 0;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            assertEquals(1, WireFormat.getTagFieldNumber(tag));
+            in.skipField(tag);
+            messages++;
+        }
+        assertEquals(FILMS, messages);
+    }
+
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+
+        if (factory != null) {
+            builder.factory(factory);
+        }
+
+        return builder.build();
+    }
+
+    private static byte[] report(String format, Encoder encoder) throws IOException {
+        ObjectMapper jsonMapper = mapper(null);
+        long jsonNanos = time(() -> jsonMapper.writeValueAsBytes(films));
+        long formatNanos = time(encoder);
+        byte[] payload = encoder.encode();
+
+        log.info("{} films: json {} bytes, {} us; {} {} bytes ({}%), {} us", FILMS,
+                json.length, jsonNanos / 1000, format, payload.length, payload.length * 100 / json.length,
+                formatNanos / 1000);
+        return payload;
+    }
+
+    private static long time(Encoder encoder) throws IOException {
+        for (int i = 0; i < ROUNDS; i++) {
+            encoder.encode();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            encoder.encode();
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+
+    private interface Encoder {
+
+        byte[] encode() throws IOException;
+
+    }
+
+}
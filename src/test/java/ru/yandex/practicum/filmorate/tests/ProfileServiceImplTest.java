@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserProfile;
+import ru.yandex.practicum.filmorate.profile.ProfileProperties;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.impl.ProfileServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProfileServiceImplTest {
+
+    private static final int USER_ID = 1;
+
+    private final User user = new User(USER_ID, "user", "user@mail.ru", "user", LocalDate.of(1990, 1, 1));
+
+    private final User friend = new User(2, "friend", "friend@mail.ru", "friend", LocalDate.of(1990, 1, 1));
+
+    private final Film film = new Film(1, "film", "description", LocalDate.of(2000, 1, 1), 100, null, 1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private UserService userService;
+
+    private FilmService filmService;
+
+    private ThreadPoolExecutor executor;
+
+    private ProfileServiceImpl profileService;
+
+
+    @BeforeEach
+    public void setUp() {
+        userService = mock(UserService.class);
+        filmService = mock(FilmService.class);
+
+        when(userService.findById(USER_ID)).thenReturn(user);
+        when(userService.findFriendsById(USER_ID)).thenReturn(List.of(friend));
+        when(filmService.findLikedByUser(eq(USER_ID), eq(0), eq(3), any(Projection.class))).thenReturn(List.of(film));
+        when(filmService.findRecommendations(USER_ID, 5)).thenReturn(List.of(film));
+
+        ProfileProperties properties = new ProfileProperties();
+        properties.setTimeout(Duration.ofMillis(200));
+        properties.setLikedFilms(3);
+
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        profileService = new ProfileServiceImpl(userService, filmService, executor, properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    public void testAllSectionsComplete() {
+        UserProfile profile = profileService.getProfile(USER_ID, 5);
+
+        assertEquals(user, profile.getUser());
+        assertEquals(List.of(friend), profile.getFriends());
+        assertEquals(List.of(film), profile.getLikedFilms());
+        assertEquals(List.of(film), profile.getRecommendations());
+        assertTrue(profile.getIncomplete().isEmpty());
+    }
+
+    @Test
+    public void testSectionsKeepTheCallersPrimaryPin() {
+        AtomicBoolean pinned = new AtomicBoolean();
+        when(filmService.findRecommendations(USER_ID, 5)).thenAnswer(invocation -> {
+            pinned.set(ReadRouting.isPinned());
+            return List.of(film);
+        });
+
+        ReadRouting.pin(true);
+        try {
+            profileService.getProfile(USER_ID, 5);
+        } finally {
+            ReadRouting.pin(false);
+        }
+
+        assertTrue(pinned.get());
+    }
+
+    @Test
+    public void testLateSectionIsLeftOutWithoutInterruptingIt() throws Exception {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(filmService.findRecommendations(USER_ID, 5)).thenAnswer(invocation -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                interrupted.set(true);
+            }
+            finished.countDown();
+            return List.of(film);
+        });
+
+        UserProfile profile = profileService.getProfile(USER_ID, 5);
+
+        assertEquals(List.of(friend), profile.getFriends());
+        assertEquals(List.of(film), profile.getLikedFilms());
+        assertNull(profile.getRecommendations());
+        assertEquals(List.of("recommendations"), profile.getIncomplete());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    public void testFailedSectionLeavesPartialProfile() {
+        when(filmService.findLikedByUser(eq(USER_ID), eq(0), eq(3), any(Projection.class)))
+                .thenThrow(new IllegalStateException("boom"));
+
+        UserProfile profile = profileService.getProfile(USER_ID, 5);
+
+        assertEquals(List.of(friend), profile.getFriends());
+        assertNull(profile.getLikedFilms());
+        assertEquals(List.of(film), profile.getRecommendations());
+        assertEquals(List.of("likedFilms"), profile.getIncomplete());
+    }
+
+    @Test
+    public void testSaturatedExecutorSkipsSections() {
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        UserProfile profile = profileService.getProfile(USER_ID, 5);
+
+        assertEquals(user, profile.getUser());
+        assertNull(profile.getFriends());
+        assertNull(profile.getLikedFilms());
+        assertNull(profile.getRecommendations());
+        assertEquals(List.of("friends", "likedFilms", "recommendations"), profile.getIncomplete());
+    }
+
+}
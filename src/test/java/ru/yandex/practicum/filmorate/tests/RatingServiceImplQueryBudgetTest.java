@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.RatingMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.RatingRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.service.RatingService;
+import ru.yandex.practicum.filmorate.service.impl.RatingServiceImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardingConfiguration;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudget;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudgetExtension;
+import ru.yandex.practicum.filmorate.tests.support.QueryCountingConfiguration;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ExtendWith(QueryBudgetExtension.class)
+@Import({QueryCountingConfiguration.class, RatingServiceImpl.class, RatingRepositoryImpl.class, RatingMapper.class,
+        DataVersions.class, FilmRepositoryImpl.class, UserRepositoryImpl.class, FilmMapper.class, UserMapper.class,
+        ShardingConfiguration.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RatingServiceImplQueryBudgetTest {
+
+    private final RatingService ratingService;
+
+    private Rating rating;
+
+
+    @BeforeEach
+    public void setUp() {
+        rating = ratingService.save(new Rating(null, "Test rating"));
+    }
+
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testSave() {
+        ratingService.save(new Rating(null, "New rating"));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testUpdate() {
+        rating.setName("Updated rating");
+
+        ratingService.update(rating);
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindAll() {
+        assertTrue(ratingService.findAll().contains(rating));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindById() {
+        assertEquals(rating, ratingService.findByID(rating.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindByName() {
+        assertEquals(rating, ratingService.findByName(rating.getName()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteById() {
+        assertTrue(ratingService.deleteById(rating.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteAll() {
+        assertTrue(ratingService.deleteAll());
+    }
+
+}
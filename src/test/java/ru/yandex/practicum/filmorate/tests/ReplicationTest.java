@@ -0,0 +1,276 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.replication.ChangeCaptureTrigger;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+import ru.yandex.practicum.filmorate.replication.Replica;
+import ru.yandex.practicum.filmorate.replication.ReplicaRoutingDataSource;
+import ru.yandex.practicum.filmorate.replication.Replication;
+import ru.yandex.practicum.filmorate.replication.ReplicationProperties;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Replicates a file-based H2 primary to two replicas and routes reads between them.
+ */
+public class ReplicationTest {
+
+    private static final Duration RETRY_INTERVAL = Duration.ofMillis(200);
+
+    @TempDir
+    static Path directory;
+
+    private static JdbcTemplate primary;
+
+    private static Replication replication;
+
+    private static ReplicaRoutingDataSource routingDataSource;
+
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        HikariDataSource migrationDataSource = dataSource("primary");
+        Resource[] migrations = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:db/migration/V*.sql");
+        Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+        new ResourceDatabasePopulator(migrations).execute(migrationDataSource);
+        migrationDataSource.close();
+
+        replication = replication(Duration.ZERO, "replica-1", "replica-2");
+        primary = new JdbcTemplate(replication.getPrimary());
+        routingDataSource = new ReplicaRoutingDataSource(replication);
+        awaitCaughtUp(replication);
+    }
+
+    @AfterAll
+    public static void tearDown() throws InterruptedException {
+        replication.close();
+    }
+
+    @AfterEach
+    public void unpin() {
+        ReadRouting.pin(false);
+    }
+
+
+    @Test
+    public void testChangesReachEveryReplica() {
+        primary.update("INSERT INTO USERS (EMAIL, LOGIN, NAME, DATE_OF_BIRTH) VALUES ('fan@mail.ru', 'fan', 'Fan', " +
+                "'1990-01-01')");
+        primary.update("INSERT INTO FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID) " +
+                "VALUES ('Film', 'Description', '2000-01-01', 100, 1)");
+        Integer userId = primary.queryForObject("SELECT USER_ID FROM USERS WHERE LOGIN = 'fan'", Integer.class);
+        Integer filmId = primary.queryForObject("SELECT FILM_ID FROM FILMS WHERE NAME = 'Film'", Integer.class);
+        primary.update("INSERT INTO FILM_GENRE (FILM_ID, GENRE_ID) VALUES (?, 1)", filmId);
+        primary.update("INSERT INTO FILM_FANS (FILM_ID, USER_ID) VALUES (?, ?)", filmId, userId);
+        primary.update("UPDATE FILMS SET NAME = 'Renamed' WHERE FILM_ID = ?", filmId);
+        awaitCaughtUp(replication);
+
+        for (Replica replica : replication.getReplicas()) {
+            JdbcTemplate copy = replica.getJdbcTemplate();
+            assertEquals("Renamed", copy.queryForObject("SELECT NAME FROM FILMS WHERE FILM_ID = ?", String.class,
+                    filmId));
+            assertEquals(1, copy.queryForObject("SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?", Integer.class,
+                    filmId));
+            assertEquals(1, copy.queryForObject("SELECT COUNT(*) FROM FILM_GENRE WHERE FILM_ID = ?", Integer.class,
+                    filmId));
+        }
+
+        primary.update("DELETE FROM FILMS WHERE FILM_ID = ?", filmId);
+        awaitCaughtUp(replication);
+
+        for (Replica replica : replication.getReplicas()) {
+            JdbcTemplate copy = replica.getJdbcTemplate();
+            assertEquals(0, copy.queryForObject("SELECT COUNT(*) FROM FILMS WHERE FILM_ID = ?", Integer.class,
+                    filmId));
+            assertEquals(0, copy.queryForObject("SELECT COUNT(*) FROM FILM_FANS WHERE FILM_ID = ?", Integer.class,
+                    filmId));
+            assertEquals(0, copy.queryForObject("SELECT COUNT(*) FROM FILM_GENRE WHERE FILM_ID = ?", Integer.class,
+                    filmId));
+            assertEquals("fan", copy.queryForObject("SELECT LOGIN FROM USERS WHERE USER_ID = ?", String.class,
+                    userId));
+        }
+    }
+
+    @Test
+    public void testReadsGoToPrimaryOutsideReplicaReads() throws SQLException {
+        assertTrue(url(routingDataSource).contains("primary"));
+        awaitCaughtUp(replication);
+
+        boolean previous = ReadRouting.enterReplicaRead();
+        try {
+            assertTrue(url(routingDataSource).contains("replica"));
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    @Test
+    public void testReadsGoToPrimaryUntilRolledBackWriteEnds() throws SQLException {
+        try (Connection writer = replication.getPrimary().getConnection()) {
+            writer.setAutoCommit(false);
+            try (Statement statement = writer.createStatement()) {
+                statement.executeUpdate("INSERT INTO GENRES (GENRE_NAME) VALUES ('Pending')");
+            }
+
+            boolean previous = ReadRouting.enterReplicaRead();
+            try {
+                assertNull(replication.choose());
+                assertTrue(url(routingDataSource).contains("primary"));
+            } finally {
+                ReadRouting.restore(previous);
+            }
+
+            writer.rollback();
+        }
+
+        awaitCaughtUp(replication);
+        for (Replica replica : replication.getReplicas()) {
+            assertEquals(0, replica.getJdbcTemplate().queryForObject(
+                    "SELECT COUNT(*) FROM GENRES WHERE GENRE_NAME = 'Pending'", Integer.class));
+        }
+    }
+
+    @Test
+    public void testLongTransactionIsReplicatedAfterLaterCommits() throws Exception {
+        Replication late = null;
+        try (Connection writer = replication.getPrimary().getConnection()) {
+            writer.setAutoCommit(false);
+            try (Statement statement = writer.createStatement()) {
+                statement.executeUpdate("INSERT INTO GENRES (GENRE_NAME) VALUES ('Slow')");
+            }
+            primary.update("INSERT INTO GENRES (GENRE_NAME) VALUES ('Fast')");
+
+            late = replication(Duration.ZERO, "replica-4");
+            List<Replica> replicas = new ArrayList<>(replication.getReplicas());
+            replicas.addAll(late.getReplicas());
+            await(() -> replicas.stream().allMatch(replica ->
+                    replica.getApplied() >= 0 && genreCount(replica, "Fast") == 1));
+
+            Thread.sleep(RETRY_INTERVAL.toMillis() * 2);
+            for (Replica replica : replicas) {
+                assertEquals(0, genreCount(replica, "Slow"));
+                assertTrue(replica.getApplied() < ChangeCaptureTrigger.captured());
+            }
+
+            writer.commit();
+            awaitCaughtUp(replication);
+            awaitCaughtUp(late);
+
+            for (Replica replica : replicas) {
+                assertEquals(1, genreCount(replica, "Slow"));
+            }
+        } finally {
+            if (late != null) {
+                late.close();
+            }
+        }
+    }
+
+    @Test
+    public void testLaggingReplicaServesUnpinnedReadsWithinMaxStaleness() throws Exception {
+        Replication stale = replication(Duration.ofMinutes(1), "replica-3");
+        try {
+            awaitCaughtUp(stale);
+
+            try (Connection writer = stale.getPrimary().getConnection()) {
+                writer.setAutoCommit(false);
+                try (Statement statement = writer.createStatement()) {
+                    statement.executeUpdate("INSERT INTO GENRES (GENRE_NAME) VALUES ('Lagging')");
+                }
+
+                assertEquals("replica-3", stale.choose().getName());
+
+                ReadRouting.pin(true);
+                assertNull(stale.choose());
+
+                writer.rollback();
+            }
+        } finally {
+            stale.close();
+        }
+    }
+
+
+    private static Replication replication(Duration maxStaleness, String... replicaNames) {
+        ReplicationProperties properties = new ReplicationProperties();
+        properties.setPollInterval(Duration.ofMillis(5));
+        properties.setRetryInterval(RETRY_INTERVAL);
+        properties.setMaxStaleness(maxStaleness);
+
+        List<Replica> replicas = Arrays.stream(replicaNames)
+                .map(name -> new Replica(name, dataSource(name)))
+                .collect(Collectors.toList());
+        Replication replication = new Replication(dataSource("primary"), replicas, properties);
+        replication.afterSingletonsInstantiated();
+        return replication;
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url("jdbc:h2:file:" + directory.resolve(name))
+                .username("sa")
+                .password("password")
+                .build();
+    }
+
+    private static int genreCount(Replica replica, String name) {
+        return replica.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM GENRES WHERE GENRE_NAME = ?",
+                Integer.class, name);
+    }
+
+    private static String url(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private static void awaitCaughtUp(Replication replication) {
+        await(() -> replication.getReplicas().stream().allMatch(replica ->
+                replica.getApplied() >= 0 && replica.getApplied() >= ChangeCaptureTrigger.captured()));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Replicas haven't caught up with the primary");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+}
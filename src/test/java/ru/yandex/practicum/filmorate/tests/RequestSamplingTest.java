@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Sink;
+import ru.yandex.practicum.filmorate.logging.LoggingProperties;
+import ru.yandex.practicum.filmorate.logging.RequestSampling;
+import ru.yandex.practicum.filmorate.logging.RequestSamplingFilter;
+import ru.yandex.practicum.filmorate.logging.SamplingStrategy;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RequestSamplingTest {
+
+    private SamplingStrategy samplingStrategy;
+
+
+    @BeforeEach
+    public void setUp() {
+        LoggingProperties properties = new LoggingProperties();
+        properties.getSampleRates().put("/films/popular", 0.0);
+        samplingStrategy = new SamplingStrategy(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestSampling.clear();
+    }
+
+
+    @Test
+    public void testSampledOutRequestIsOnlyCounted() throws Exception {
+        HttpRequest request = request("/films/popular");
+        HttpResponse response = response(200);
+        Sink sink = mock(Sink.class);
+
+        samplingStrategy.process(request);
+        assertFalse(RequestSampling.isSampled());
+        samplingStrategy.write(mock(Correlation.class), request, response, sink);
+
+        verify(sink, never()).writeBoth(any(), any(), any());
+        assertEquals(1, samplingStrategy.getSampledOut());
+        assertTrue(RequestSampling.isSampled());
+    }
+
+    @Test
+    public void testErrorResponseIsLoggedEvenWhenSampledOut() throws Exception {
+        HttpRequest request = request("/films/popular");
+        HttpResponse response = response(500);
+        Sink sink = mock(Sink.class);
+        Correlation correlation = mock(Correlation.class);
+
+        samplingStrategy.process(request);
+        samplingStrategy.write(correlation, request, response, sink);
+
+        verify(sink).writeBoth(correlation, request, response);
+        assertEquals(0, samplingStrategy.getSampledOut());
+    }
+
+    @Test
+    public void testFilterClearsDecisionOfFailedRequest() throws Exception {
+        HttpRequest request = request("/films/popular");
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                try {
+                    samplingStrategy.process(request);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IllegalStateException("Handler failed before the response was logged");
+            }
+        });
+
+        assertThrows(IllegalStateException.class, () -> new RequestSamplingFilter()
+                .doFilter(new MockHttpServletRequest("GET", "/films/popular"), new MockHttpServletResponse(), chain));
+
+        assertTrue(RequestSampling.isSampled());
+    }
+
+
+    private static HttpRequest request(String path) throws Exception {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getPath()).thenReturn(path);
+        when(request.withBody()).thenReturn(request);
+        return request;
+    }
+
+    private static HttpResponse response(int status) {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+
+}
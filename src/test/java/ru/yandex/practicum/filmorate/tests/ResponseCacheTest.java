@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.response.ResponseCache;
+import ru.yandex.practicum.filmorate.response.ResponseCacheProperties;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ResponseCacheTest {
+
+    private DataVersions dataVersions;
+
+    private ResponseCache responseCache;
+
+    private AtomicInteger loads;
+
+    private Supplier<List<Genre>> genres;
+
+
+    @BeforeEach
+    public void setUp() {
+        dataVersions = new DataVersions(mock(FilmRepository.class), mock(UserRepository.class));
+        responseCache = new ResponseCache(Jackson2ObjectMapperBuilder.json().build(), new ResponseCacheProperties());
+        loads = new AtomicInteger();
+        genres = () -> {
+            loads.incrementAndGet();
+            List<Genre> all = new ArrayList<>();
+            for (int i = 1; i <= 50; i++) {
+                all.add(new Genre(i, "Genre " + i));
+            }
+            return all;
+        };
+    }
+
+
+    @Test
+    public void testServesSameBytesUntilVersionChanges() throws IOException {
+        MockHttpServletResponse first = serve(null, null);
+        MockHttpServletResponse second = serve(null, null);
+
+        assertEquals(1, loads.get());
+        assertEquals("application/json", first.getContentType());
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertTrue(first.getContentAsString().startsWith("[{\"id\":1,\"name\":\"Genre 1\"}"));
+
+        dataVersions.changed(DataDomain.GENRES);
+        serve(null, null);
+        assertEquals(2, loads.get());
+        assertEquals(1L, responseCache.getStatistics().get("hits"));
+        assertEquals(1, responseCache.getStatistics().get("entries"));
+    }
+
+    @Test
+    public void testGzipVariantIsSentOnlyWhenAccepted() throws IOException {
+        MockHttpServletResponse identity = serve(null, "deflate");
+        MockHttpServletResponse gzip = serve(null, "gzip, deflate");
+        MockHttpServletResponse refused = serve(null, "gzip;q=0");
+
+        assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(refused.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzip.getHeader(HttpHeaders.VARY));
+        assertTrue(gzip.getContentAsByteArray().length < identity.getContentAsByteArray().length);
+        assertArrayEquals(identity.getContentAsByteArray(),
+                new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray())).readAllBytes());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testBinaryRepresentationsAreNotCached() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/genres");
+        request.addHeader(HttpHeaders.ACCEPT, "application/cbor");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(responseCache.serve("genres", () -> dataVersions.tagOf(DataDomain.GENRES),
+                new ServletWebRequest(request, response), genres));
+        assertEquals(0, loads.get());
+        assertEquals(0, response.getContentLength());
+    }
+
+    @Test
+    public void testProjectionFiltersAreApplied() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films/popular");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Projection projection = Projection.forFilms("id", null);
+
+        responseCache.serve("films/popular", () -> dataVersions.tagOf(DataDomain.FILMS),
+                new ServletWebRequest(request, response), () -> projection.apply(List.of(new Film(7, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+                        new Rating(1, "G"), 3))));
+
+        assertEquals("[{\"id\":7}]", response.getContentAsString());
+    }
+
+    @Test
+    public void testBodyLoadedAcrossAWriteIsNotStored() {
+        Supplier<List<Genre>> racingWrite = () -> {
+            List<Genre> all = genres.get();
+            if (loads.get() == 1) {
+                dataVersions.changed(DataDomain.GENRES);
+            }
+            return all;
+        };
+
+        serve(racingWrite);
+        assertEquals(0, responseCache.getStatistics().get("entries"));
+
+        serve(racingWrite);
+        serve(racingWrite);
+        assertEquals(2, loads.get());
+        assertEquals(1L, responseCache.getStatistics().get("hits"));
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneBuild() throws Exception {
+        int callers = 4;
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<Genre>> slow = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return genres.get();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                responses.add(executor.submit(() -> serve(slow)));
+            }
+            while ((Long) responseCache.getStatistics().get("coalesced") < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertTrue(response.get(5, TimeUnit.SECONDS).getContentAsString().startsWith("[{\"id\":1"));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1L, responseCache.getStatistics().get("misses"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private MockHttpServletResponse serve(Supplier<List<Genre>> body) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(responseCache.serve("genres", () -> dataVersions.tagOf(DataDomain.GENRES),
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/genres"), response), body));
+        return response;
+    }
+
+    private MockHttpServletResponse serve(String accept, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/genres");
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(responseCache.serve("genres", () -> dataVersions.tagOf(DataDomain.GENRES),
+                new ServletWebRequest(request, response), genres));
+        return response;
+    }
+
+}
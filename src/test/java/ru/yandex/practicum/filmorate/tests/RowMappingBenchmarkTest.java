@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.jdbc.CompiledInsert;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares reading film rows by column name with the index-resolving {@link FilmMapper}, and a
+ * {@link SimpleJdbcInsert} built per call with a {@link CompiledInsert}.
+ */
+@Slf4j
+public class RowMappingBenchmarkTest {
+
+    private static final int FILMS = 2_000;
+
+    private static final int MAPS_PER_ROW = 20;
+
+    private static final int INSERTS = 2_000;
+
+    private static final String FILMS_QUERY = "SELECT f.*, fr.RATING_NAME FROM FILMS f " +
+            "JOIN FILM_RATING fr ON f.RATING_ID = fr.RATING_ID ORDER BY f.FILM_ID";
+
+    private static final RowMapper<Film> BY_NAME = (rs, rowNum) -> new Film(rs.getInt("film_id"),
+            rs.getString("name"), rs.getString("description"), rs.getDate("release_date").toLocalDate(),
+            rs.getInt("duration"), new Rating(rs.getInt("rating_id"), rs.getString("rating_name")),
+            rs.getInt("popularity"));
+
+    private static EmbeddedDatabase database;
+
+    private static JdbcTemplate jdbcTemplate;
+
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .setScriptEncoding("UTF-8")
+                .addScripts("db/migration/V001__create_tables.sql", "db/migration/V002__reference_data.sql",
+                        "db/migration/V003__row_versions.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(database.getConnection(), true));
+
+        jdbcTemplate.update("INSERT INTO FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID) " +
+                "SELECT 'Film ' || X, 'Description', DATE '2000-01-01', 100, MOD(X, 5) + 1 " +
+                "FROM SYSTEM_RANGE(1, ?)", FILMS);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        database.shutdown();
+    }
+
+
+    @Test
+    public void testIndexedMappingMatchesNamedMapping() {
+        FilmMapper byIndex = new FilmMapper();
+        assertEquals(jdbcTemplate.query(FILMS_QUERY, BY_NAME), jdbcTemplate.query(FILMS_QUERY, byIndex));
+
+        map(BY_NAME);
+        map(byIndex);
+        long byNameNanos = map(BY_NAME);
+        long byIndexNanos = map(byIndex);
+
+        log.info("Mapping a film row: {} ns by column name, {} ns by resolved index", byNameNanos, byIndexNanos);
+    }
+
+    @Test
+    public void testCompiledInsertIsReused() {
+        CompiledInsert compiled = new CompiledInsert("USERS", "user_id", "name", "email", "login", "date_of_birth");
+
+        long perCallNanos = insert(i -> new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("USERS")
+                .usingColumns("name", "email", "login", "date_of_birth")
+                .usingGeneratedKeyColumns("user_id")
+                .executeAndReturnKey(user("per-call", i)));
+        long compiledNanos = insert(i -> compiled.executeAndReturnKey(jdbcTemplate, user("compiled", i)));
+
+        log.info("Inserting a user: {} us with a new SimpleJdbcInsert, {} us with a compiled one",
+                perCallNanos / 1000, compiledNanos / 1000);
+        assertEquals(INSERTS * 4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM USERS WHERE LOGIN LIKE 'per-call%' OR LOGIN LIKE 'compiled%'", Integer.class));
+    }
+
+
+    @Test
+    public void testCompiledInsertRunsAgainstTheGivenTemplate() {
+        EmbeddedDatabase other = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("db/migration/V001__create_tables.sql")
+                .build();
+        try {
+            JdbcTemplate otherTemplate = new JdbcTemplate(other);
+            CompiledInsert compiled = new CompiledInsert("USERS", "user_id", "name", "email", "login", "date_of_birth");
+            compiled.executeAndReturnKey(jdbcTemplate, user("first", 0));
+            compiled.executeAndReturnKey(otherTemplate, user("second", 0));
+
+            String countByLogin = "SELECT COUNT(*) FROM USERS WHERE LOGIN = ?";
+            assertEquals(1, jdbcTemplate.queryForObject(countByLogin, Integer.class, "first0"));
+            assertEquals(0, jdbcTemplate.queryForObject(countByLogin, Integer.class, "second0"));
+            assertEquals(1, otherTemplate.queryForObject(countByLogin, Integer.class, "second0"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testMissingColumnIsReportedByName() {
+        DataAccessException e = assertThrows(DataAccessException.class, () -> jdbcTemplate.query(
+                "SELECT FILM_ID, NAME, DESCRIPTION, RELEASE_DATE, DURATION, POPULARITY, RATING_ID FROM FILMS",
+                new FilmMapper()));
+
+        assertTrue(e.getMostSpecificCause().getMessage().contains("rating_name"));
+    }
+
+
+    /**
+     * Returns the time of one mapper call, calling the mapper repeatedly on every row of the result.
+     */
+    private static long map(RowMapper<Film> mapper) {
+        List<Film> films = new ArrayList<>();
+        long start = System.nanoTime();
+        jdbcTemplate.query(FILMS_QUERY, rs -> {
+            for (int i = 0; i < MAPS_PER_ROW; i++) {
+                films.add(mapper.mapRow(rs, rs.getRow()));
+            }
+            films.clear();
+        });
+        return (System.nanoTime() - start) / (FILMS * MAPS_PER_ROW);
+    }
+
+    private static long insert(IntConsumer insert) {
+        for (int i = 0; i < INSERTS; i++) {
+            insert.accept(i);
+        }
+
+        long start = System.nanoTime();
+        for (int i = INSERTS; i < INSERTS * 2; i++) {
+            insert.accept(i);
+        }
+        return (System.nanoTime() - start) / INSERTS;
+    }
+
+    private static Map<String, Object> user(String prefix, int i) {
+        return Map.of("name", prefix + i, "email", prefix + i + "@mail.ru", "login", prefix + i,
+                "date_of_birth", "1990-01-01");
+    }
+
+}
@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.migration.FilmContentHashBackfill;
+import ru.yandex.practicum.filmorate.migration.JavaMigration;
+import ru.yandex.practicum.filmorate.migration.SchemaMigrator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrator against a file-based H2 database, including migrations that fail halfway.
+ */
+public class SchemaMigratorTest {
+
+    private static final String NO_SCRIPTS = "classpath*:db/no-migration/V*__*.sql";
+
+    @TempDir
+    Path directory;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url("jdbc:h2:file:" + directory.resolve("filmorate"))
+                .username("sa")
+                .password("password")
+                .build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+    }
+
+
+    @Test
+    public void testRerunAppliesNothing() {
+        List<JavaMigration> javaMigrations = List.of(new FilmContentHashBackfill());
+        new SchemaMigrator(jdbcTemplate, javaMigrations).afterPropertiesSet();
+        List<Long> checksums = jdbcTemplate.queryForList("SELECT CHECKSUM FROM SCHEMA_VERSION ORDER BY VERSION",
+                Long.class);
+
+        new SchemaMigrator(jdbcTemplate, javaMigrations).afterPropertiesSet();
+
+        assertEquals(checksums, jdbcTemplate.queryForList("SELECT CHECKSUM FROM SCHEMA_VERSION ORDER BY VERSION",
+                Long.class));
+        assertTrue(checksums.size() >= 8);
+    }
+
+    @Test
+    public void testFailedScriptIsRolledBackAndRetried() {
+        SchemaMigrator migrator = new SchemaMigrator(jdbcTemplate, List.of(),
+                "classpath*:db/failing-migration/V*__*.sql");
+
+        assertThrows(RuntimeException.class, migrator::afterPropertiesSet);
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT VERSION FROM SCHEMA_VERSION", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WATCHLIST", Integer.class));
+
+        assertThrows(RuntimeException.class, migrator::afterPropertiesSet);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WATCHLIST", Integer.class));
+    }
+
+    @Test
+    public void testFailedJavaMigrationLeavesNoVersion() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER PRIMARY KEY)");
+
+        assertThrows(IllegalStateException.class,
+                new SchemaMigrator(jdbcTemplate, List.of(new FailingMigration()), NO_SCRIPTS)::afterPropertiesSet);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WATCHLIST", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SCHEMA_VERSION", Integer.class));
+
+        new SchemaMigrator(jdbcTemplate, List.of(new FixedMigration()), NO_SCRIPTS).afterPropertiesSet();
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WATCHLIST", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SCHEMA_VERSION", Integer.class));
+    }
+
+    @Test
+    public void testNonTransactionalMigrationKeepsItsProgress() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER PRIMARY KEY)");
+
+        assertThrows(IllegalStateException.class, new SchemaMigrator(jdbcTemplate,
+                List.of(new ChunkedMigration(true)), NO_SCRIPTS)::afterPropertiesSet);
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT ENTRY_ID FROM WATCHLIST", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SCHEMA_VERSION", Integer.class));
+
+        new SchemaMigrator(jdbcTemplate, List.of(new ChunkedMigration(false)), NO_SCRIPTS).afterPropertiesSet();
+        assertEquals(List.of(1, 2), jdbcTemplate.queryForList("SELECT ENTRY_ID FROM WATCHLIST ORDER BY ENTRY_ID",
+                Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SCHEMA_VERSION", Integer.class));
+    }
+
+    @Test
+    public void testChangedJavaMigrationIsDetected() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER PRIMARY KEY)");
+        new SchemaMigrator(jdbcTemplate, List.of(new FixedMigration()), NO_SCRIPTS).afterPropertiesSet();
+
+        assertThrows(IllegalStateException.class,
+                new SchemaMigrator(jdbcTemplate, List.of(new FailingMigration()), NO_SCRIPTS)::afterPropertiesSet);
+    }
+
+    @Test
+    public void testNameChecksumOfEarlierVersionsIsUpgraded() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER PRIMARY KEY)");
+        new SchemaMigrator(jdbcTemplate, List.of(new FixedMigration()), NO_SCRIPTS).afterPropertiesSet();
+        long checksum = jdbcTemplate.queryForObject("SELECT CHECKSUM FROM SCHEMA_VERSION", Long.class);
+
+        CRC32 legacy = new CRC32();
+        legacy.update(FixedMigration.class.getName().getBytes(StandardCharsets.UTF_8));
+        jdbcTemplate.update("UPDATE SCHEMA_VERSION SET CHECKSUM = ?", legacy.getValue());
+
+        new SchemaMigrator(jdbcTemplate, List.of(new FixedMigration()), NO_SCRIPTS).afterPropertiesSet();
+        assertNotEquals(legacy.getValue(), checksum);
+        assertEquals(checksum, jdbcTemplate.queryForObject("SELECT CHECKSUM FROM SCHEMA_VERSION", Long.class));
+    }
+
+    @Test
+    public void testRemovedMigrationDoesNotStopStart() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER PRIMARY KEY)");
+        new SchemaMigrator(jdbcTemplate, List.of(new FixedMigration()), NO_SCRIPTS).afterPropertiesSet();
+
+        new SchemaMigrator(jdbcTemplate, List.of(), NO_SCRIPTS).afterPropertiesSet();
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT VERSION FROM SCHEMA_VERSION", Integer.class));
+    }
+
+
+    private static class FailingMigration implements JavaMigration {
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+
+        @Override
+        public String getDescription() {
+            return "fill watchlist";
+        }
+
+        @Override
+        public void migrate(JdbcTemplate jdbcTemplate) {
+            jdbcTemplate.update("INSERT INTO WATCHLIST (ENTRY_ID) VALUES (1)");
+            throw new IllegalStateException("Migration failed after its first statement");
+        }
+
+    }
+
+    private static class FixedMigration implements JavaMigration {
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+
+        @Override
+        public String getDescription() {
+            return "fill watchlist";
+        }
+
+        @Override
+        public void migrate(JdbcTemplate jdbcTemplate) {
+            jdbcTemplate.update("INSERT INTO WATCHLIST (ENTRY_ID) VALUES (1)");
+            jdbcTemplate.update("INSERT INTO WATCHLIST (ENTRY_ID) VALUES (2)");
+        }
+
+    }
+
+    /**
+     * Commits one entry per chunk and, when told to, fails before the second.
+     */
+    private static class ChunkedMigration implements JavaMigration {
+
+        private final boolean failing;
+
+        ChunkedMigration(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+
+        @Override
+        public String getDescription() {
+            return "fill watchlist in chunks";
+        }
+
+        @Override
+        public boolean isTransactional() {
+            return false;
+        }
+
+        @Override
+        public void migrate(JdbcTemplate jdbcTemplate) {
+            jdbcTemplate.update("MERGE INTO WATCHLIST (ENTRY_ID) KEY (ENTRY_ID) VALUES (1)");
+            if (failing) {
+                throw new IllegalStateException("Migration failed after its first chunk");
+            }
+            jdbcTemplate.update("MERGE INTO WATCHLIST (ENTRY_ID) KEY (ENTRY_ID) VALUES (2)");
+        }
+
+    }
+
+}
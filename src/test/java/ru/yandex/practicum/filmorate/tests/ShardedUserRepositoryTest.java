@@ -0,0 +1,337 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.sharding.HashRing;
+import ru.yandex.practicum.filmorate.sharding.Shard;
+import ru.yandex.practicum.filmorate.sharding.ShardRebalancer;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
+import ru.yandex.practicum.filmorate.sharding.ShardedSchema;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the user repository against a primary and two file-based H2 shards.
+ */
+public class ShardedUserRepositoryTest {
+
+    private static final int USERS = 60;
+
+    @TempDir
+    Path directory;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+    private JdbcTemplate primary;
+
+    private ShardRouter shardRouter;
+
+    private UserRepositoryImpl userRepository;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        HikariDataSource primaryDataSource = dataSource("primary");
+        Resource[] migrations = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:db/migration/V*.sql");
+        Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+        new ResourceDatabasePopulator(migrations).execute(primaryDataSource);
+        primary = new JdbcTemplate(primaryDataSource);
+
+        shardRouter = router("users-1", "users-2");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shardRouter.close();
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+
+    @Test
+    public void testUsersAreSpreadOverShards() {
+        List<User> saved = saveUsers(USERS);
+
+        Map<String, Long> usersByShard = saved.stream()
+                .collect(Collectors.groupingBy(user -> shardRouter.shardOf(user.getId()).getName(),
+                        Collectors.counting()));
+        assertEquals(3, usersByShard.size());
+
+        for (User user : saved) {
+            assertEquals(user.getEmail(), userRepository.findById(user.getId()).getEmail());
+            assertEquals(1, shardRouter.forUser(user.getId())
+                    .queryForObject("SELECT COUNT(*) FROM USERS WHERE USER_ID = ?", Integer.class, user.getId()));
+        }
+
+        assertEquals(saved, userRepository.findAll());
+        assertEquals(saved.get(7), userRepository.findByEmail(saved.get(7).getEmail()));
+        assertEquals(saved.get(9), userRepository.findByLogin(saved.get(9).getLogin()));
+        assertNull(userRepository.findByEmail("nobody@mail.ru"));
+        assertEquals(USERS, userRepository.findByIds(saved.stream().map(User::getId).collect(Collectors.toList()))
+                .size());
+    }
+
+    @Test
+    public void testFriendsAreGatheredFromAllShards() {
+        List<User> saved = saveUsers(USERS);
+        User user = saved.get(0);
+        User other = saved.get(1);
+
+        List<User> friends = new ArrayList<>();
+        for (int i = 2; i < USERS; i += 3) {
+            userRepository.addFriend(user.getId(), saved.get(i).getId());
+            friends.add(saved.get(i));
+        }
+        for (int i = 2; i < USERS; i += 6) {
+            userRepository.addFriend(other.getId(), saved.get(i).getId());
+        }
+
+        assertTrue(friends.stream().map(friend -> shardRouter.shardOf(friend.getId())).distinct().count() > 1);
+        assertEquals(friends, userRepository.findFriendsById(user.getId()));
+
+        List<User> common = userRepository.getCommonFriends(user.getId(), other.getId());
+        assertEquals(friends.stream().filter(friend -> (friend.getId() - saved.get(2).getId()) % 6 == 0)
+                .collect(Collectors.toList()), common);
+    }
+
+    @Test
+    public void testDeleteRemovesFriendshipsOnOtherShards() {
+        List<User> saved = saveUsers(USERS);
+        User user = saved.get(0);
+        User friend = saved.stream()
+                .filter(candidate -> shardRouter.shardOf(candidate.getId()) != shardRouter.shardOf(user.getId()))
+                .findFirst()
+                .orElseThrow();
+
+        userRepository.addFriend(user.getId(), friend.getId());
+        assertTrue(userRepository.deleteById(friend.getId()));
+
+        assertTrue(userRepository.findFriendsById(user.getId()).isEmpty());
+        assertNull(userRepository.findById(friend.getId()));
+    }
+
+    @Test
+    public void testRebalanceMovesUsersToAddedShard() {
+        shardRouter.close();
+        shardRouter = router("users-1");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+
+        List<User> saved = saveUsers(USERS);
+        User user = saved.get(0);
+        for (int i = 1; i < USERS; i += 2) {
+            userRepository.addFriend(user.getId(), saved.get(i).getId());
+        }
+        List<User> friends = userRepository.findFriendsById(user.getId());
+
+        shardRouter.close();
+        shardRouter = router("users-1", "users-2");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+        ShardRebalancer rebalancer = new ShardRebalancer(shardRouter, 7);
+
+        assertEquals(saved, saved.stream().map(savedUser -> userRepository.findById(savedUser.getId()))
+                .collect(Collectors.toList()));
+        assertEquals(USERS, userRepository.findByIds(saved.stream().map(User::getId).collect(Collectors.toList()))
+                .size());
+        assertEquals(friends, userRepository.findFriendsById(user.getId()));
+
+        Map<String, Object> statistics = rebalancer.rebalance();
+        long moved = (Long) statistics.get("movedUsers");
+        assertTrue(moved > 0 && moved < USERS);
+
+        Map<String, Integer> counts = rebalancer.countUsers();
+        assertEquals(USERS, counts.values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(counts.get("users-2") > 0);
+
+        for (User savedUser : saved) {
+            assertNotNull(shardRouter.forUser(savedUser.getId()).queryForObject(
+                    "SELECT EMAIL FROM USERS WHERE USER_ID = ?", String.class, savedUser.getId()));
+        }
+        assertEquals(saved, userRepository.findAll());
+        assertEquals(friends, userRepository.findFriendsById(user.getId()));
+        assertEquals(0L, rebalancer.rebalance().get("movedUsers"));
+    }
+
+    @Test
+    public void testRebalanceWaitsForUserWrites() throws Exception {
+        shardRouter.close();
+        shardRouter = router("users-1");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+        List<User> saved = saveUsers(USERS);
+
+        shardRouter.close();
+        shardRouter = router("users-1", "users-2");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+        ShardRebalancer rebalancer = new ShardRebalancer(shardRouter, 7);
+        User user = saved.stream()
+                .filter(candidate -> shardRouter.shardOf(candidate.getId()).getName().equals("users-2"))
+                .findFirst()
+                .orElseThrow();
+
+        CompletableFuture<Map<String, Object>> rebalance = shardRouter.writingUsers(() -> {
+            CompletableFuture<Map<String, Object>> started = CompletableFuture.supplyAsync(rebalancer::rebalance);
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(started.isDone());
+
+            user.setName("Renamed while rebalancing");
+            assertTrue(userRepository.update(user));
+            return started;
+        });
+
+        assertTrue((Long) rebalance.get(5, TimeUnit.SECONDS).get("movedUsers") > 0);
+        assertEquals("Renamed while rebalancing", shardRouter.forUser(user.getId()).queryForObject(
+                "SELECT NAME FROM USERS WHERE USER_ID = ?", String.class, user.getId()));
+    }
+
+    @Test
+    public void testUnmovedUserCanBeUpdatedAndBefriended() {
+        shardRouter.close();
+        shardRouter = router("users-1");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+        List<User> saved = saveUsers(USERS);
+
+        shardRouter.close();
+        shardRouter = router("users-1", "users-2");
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+        User unmoved = saved.stream()
+                .filter(candidate -> shardRouter.shardOf(candidate.getId()).getName().equals("users-2"))
+                .findFirst()
+                .orElseThrow();
+
+        unmoved.setName("Renamed");
+        assertTrue(userRepository.update(unmoved));
+        userRepository.addFriend(unmoved.getId(), saved.get(0).getId());
+
+        assertEquals("Renamed", userRepository.findById(unmoved.getId()).getName());
+        assertEquals(List.of(saved.get(0)), userRepository.findFriendsById(unmoved.getId()));
+        assertEquals(0, shardRouter.forUser(unmoved.getId())
+                .queryForObject("SELECT COUNT(*) FROM USERS WHERE USER_ID = ?", Integer.class, unmoved.getId()));
+    }
+
+    @Test
+    public void testEmailAndLoginAreUniqueAcrossShards() {
+        User first = userRepository.save(new User("First", "same@mail.ru", "first", LocalDate.of(1990, 1, 1)));
+        List<User> others = saveUsers(USERS);
+        User onOtherShard = others.stream()
+                .filter(candidate -> shardRouter.shardOf(candidate.getId()) != shardRouter.shardOf(first.getId()))
+                .findFirst()
+                .orElseThrow();
+
+        assertThrows(DuplicateKeyException.class, () -> userRepository.save(
+                new User("Second", "same@mail.ru", "second", LocalDate.of(1990, 1, 1))));
+        assertThrows(DuplicateKeyException.class, () -> userRepository.save(
+                new User("Third", "third@mail.ru", "first", LocalDate.of(1990, 1, 1))));
+
+        onOtherShard.setLogin("first");
+        assertThrows(DuplicateKeyException.class, () -> userRepository.update(onOtherShard));
+
+        assertEquals(USERS + 1, userRepository.findAll().size());
+        assertEquals(first, userRepository.findByEmail("same@mail.ru"));
+    }
+
+    @Test
+    public void testIdsContinueAfterShardsAreRemoved() {
+        List<User> saved = saveUsers(USERS);
+        int maxId = saved.get(saved.size() - 1).getId();
+
+        shardRouter.close();
+        shardRouter = new ShardRouter(primary);
+        new ShardedSchema(shardRouter).apply();
+        userRepository = new UserRepositoryImpl(shardRouter, new UserMapper());
+
+        User user = userRepository.save(new User("Unsharded", "unsharded@mail.ru", "unsharded",
+                LocalDate.of(1990, 1, 1)));
+        assertTrue(user.getId() > maxId);
+    }
+
+    @Test
+    public void testAddingNodeOnlyMovesKeysToIt() {
+        HashRing before = new HashRing(List.of("primary", "users-1", "users-2"), 128);
+        HashRing after = new HashRing(List.of("primary", "users-1", "users-2", "users-3"), 128);
+
+        int keys = 100_000;
+        int moved = 0;
+        Map<String, Integer> owned = new HashMap<>();
+        for (int key = 1; key <= keys; key++) {
+            String owner = after.locate(key);
+            owned.merge(owner, 1, Integer::sum);
+
+            if (!owner.equals(before.locate(key))) {
+                assertEquals("users-3", owner);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > keys / 8 && moved < keys * 3 / 8, "moved " + moved);
+        owned.values().forEach(count -> assertTrue(count > keys / 8 && count < keys * 3 / 8, "owned " + owned));
+    }
+
+
+    private List<User> saveUsers(int count) {
+        List<User> saved = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            saved.add(userRepository.save(new User("User " + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1).plusDays(i))));
+        }
+        return saved;
+    }
+
+    private ShardRouter router(String... shardNames) {
+        List<Shard> shards = new ArrayList<>();
+        for (String name : shardNames) {
+            HikariDataSource dataSource = dataSource(name);
+            new ResourceDatabasePopulator(new ClassPathResource("db/shard/user_tables.sql")).execute(dataSource);
+            shards.add(new Shard(name, new JdbcTemplate(dataSource)));
+        }
+        ShardRouter router = new ShardRouter(primary, shards, 128);
+        new ShardedSchema(router).apply();
+        return router;
+    }
+
+    private HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url("jdbc:h2:file:" + directory.resolve(name).toAbsolutePath())
+                .username("sa")
+                .password("password")
+                .build();
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlight;
+import ru.yandex.practicum.filmorate.replication.ReadRouting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+
+    @Test
+    public void testConcurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute(1, () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "film";
+                })));
+            }
+
+            while (flight.getExecutions() + flight.getCoalesced() < CALLERS) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("film", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(CALLERS - 1, flight.getCoalesced());
+        assertEquals(CALLERS - 1, flight.getTopCoalescedKeys(1).get("1"));
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    public void testFailureIsNotRemembered() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+
+        assertThrows(IllegalStateException.class, () -> flight.execute(1, () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals("film", flight.execute(1, () -> "film"));
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    public void testForgottenKeyStartsNewExecution() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> stale = executor.submit(() -> flight.execute(1, () -> {
+                started.countDown();
+                await(release);
+                return "before write";
+            }));
+            await(started);
+
+            flight.forget(1);
+            assertEquals("after write", flight.execute(1, () -> "after write"));
+
+            release.countDown();
+            assertEquals("before write", stale.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    public void testPinnedCallerDoesNotJoinFlight() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> replicaRead = executor.submit(() -> flight.execute(1, () -> {
+                started.countDown();
+                await(release);
+                return "from replica";
+            }));
+            await(started);
+
+            ReadRouting.pin(true);
+            try {
+                assertEquals("from primary", flight.execute(1, () -> "from primary"));
+            } finally {
+                ReadRouting.pin(false);
+            }
+            assertEquals(1, flight.getInFlight());
+
+            release.countDown();
+            assertEquals("from replica", replicaRead.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, flight.getExecutions());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+
+    @Test
+    public void testEveryCallerGetsItsOwnCopy() throws Exception {
+        SingleFlight<Integer, List<String>> flight = new SingleFlight<>("test");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute(1, () -> {
+                    await(release);
+                    return new ArrayList<>(List.of("film"));
+                }, ArrayList::new)));
+            }
+
+            while (flight.getExecutions() + flight.getCoalesced() < CALLERS) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Set<List<String>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<List<String>> result : results) {
+                List<String> films = result.get(5, TimeUnit.SECONDS);
+                films.add("changed by caller");
+                distinct.add(films);
+            }
+            assertEquals(CALLERS, distinct.size());
+            for (List<String> films : distinct) {
+                assertEquals(List.of("film", "changed by caller"), films);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
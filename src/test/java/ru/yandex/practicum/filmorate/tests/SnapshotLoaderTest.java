@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.yandex.practicum.filmorate.bloom.UserKeyFilters;
+import ru.yandex.practicum.filmorate.columnar.FilmColumnsView;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.service.SnapshotService;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotLoader;
+import ru.yandex.practicum.filmorate.stats.CatalogStatsView;
+import ru.yandex.practicum.filmorate.versioning.DataDomain;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SnapshotLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    private SnapshotService snapshotService;
+
+    private DataVersions dataVersions;
+
+    private CatalogStatsView catalogStatsView;
+
+    private FilmColumnsView filmColumnsView;
+
+    private UserKeyFilters userKeyFilters;
+
+    private SnapshotLoader snapshotLoader;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        snapshotService = mock(SnapshotService.class);
+        dataVersions = new DataVersions(mock(FilmRepository.class), mock(UserRepository.class));
+        catalogStatsView = mock(CatalogStatsView.class);
+        filmColumnsView = mock(FilmColumnsView.class);
+        userKeyFilters = mock(UserKeyFilters.class);
+
+        Path snapshot = Files.createFile(directory.resolve("filmorate.snapshot"));
+        snapshotLoader = new SnapshotLoader(snapshotService, dataVersions, catalogStatsView, filmColumnsView,
+                userKeyFilters);
+        ReflectionTestUtils.setField(snapshotLoader, "enabled", true);
+        ReflectionTestUtils.setField(snapshotLoader, "path", snapshot.toString());
+    }
+
+
+    @Test
+    public void testRestoreInvalidatesWhatWasReadBefore() {
+        when(snapshotService.isDatabaseEmpty()).thenReturn(true);
+        String before = dataVersions.tagOf(DataDomain.values()).getEtag();
+
+        snapshotLoader.afterSingletonsInstantiated();
+
+        for (DataDomain domain : DataDomain.values()) {
+            assertEquals(1, dataVersions.versionOf(domain));
+        }
+        assertNotEquals(before, dataVersions.tagOf(DataDomain.values()).getEtag());
+        verify(snapshotService).restore(any());
+        verify(catalogStatsView).allFilmsChanged();
+        verify(filmColumnsView).filmsChanged();
+        verify(userKeyFilters).reload();
+    }
+
+    @Test
+    public void testLiveDatabaseIsLeftAlone() {
+        when(snapshotService.isDatabaseEmpty()).thenReturn(false);
+
+        snapshotLoader.afterSingletonsInstantiated();
+
+        verify(snapshotService, never()).restore(any());
+        verify(userKeyFilters, never()).reload();
+        assertEquals(0, dataVersions.versionOf(DataDomain.FILMS));
+    }
+
+}
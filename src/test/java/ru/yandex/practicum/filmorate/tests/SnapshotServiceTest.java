@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.service.impl.SnapshotServiceImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
+import ru.yandex.practicum.filmorate.snapshot.SnapshotColumn;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Exports and restores a migrated H2 database, including tables and column types added after the snapshot
+ * code was written.
+ */
+public class SnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private SnapshotServiceImpl snapshotService;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url("jdbc:h2:file:" + directory.resolve("filmorate"))
+                .username("sa")
+                .password("password")
+                .build();
+        Resource[] migrations = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:db/migration/V*.sql");
+        Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+        new ResourceDatabasePopulator(migrations).execute(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        snapshotService = new SnapshotServiceImpl(jdbcTemplate, new ShardRouter(jdbcTemplate));
+
+        jdbcTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, NAME, DATE_OF_BIRTH) " +
+                "VALUES ('fan@mail.ru', 'fan', 'Fan', '1990-01-01')");
+        jdbcTemplate.update("INSERT INTO FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID) " +
+                "VALUES ('Film', 'Description', '2000-01-01', 100, 1)");
+        jdbcTemplate.update("INSERT INTO FILM_FANS (FILM_ID, USER_ID) SELECT FILM_ID, USER_ID FROM FILMS, USERS");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+    }
+
+
+    @Test
+    public void testRoundTripKeepsRowsAndIdentities() {
+        Path snapshot = directory.resolve("filmorate.snapshot");
+        List<Map<String, Object>> films = jdbcTemplate.queryForList("SELECT * FROM FILMS ORDER BY FILM_ID");
+
+        snapshotService.export(snapshot);
+        jdbcTemplate.update("DELETE FROM FILMS");
+        jdbcTemplate.update("DELETE FROM USERS");
+        snapshotService.restore(snapshot);
+
+        assertEquals(films, jdbcTemplate.queryForList("SELECT * FROM FILMS ORDER BY FILM_ID"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILM_FANS", Integer.class));
+
+        jdbcTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, NAME, DATE_OF_BIRTH) " +
+                "VALUES ('new@mail.ru', 'new', 'New', '1990-01-01')");
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT MAX(USER_ID) FROM USERS", Integer.class));
+    }
+
+    @Test
+    public void testFailedRestoreKeepsTheRowsItFound() {
+        Path snapshot = directory.resolve("filmorate.snapshot");
+        snapshotService.export(snapshot);
+
+        jdbcTemplate.update("DELETE FROM FILMS");
+        jdbcTemplate.execute("ALTER TABLE FILMS ADD CONSTRAINT FILMS_LONG_ONLY CHECK (DURATION > 1000)");
+        assertThrows(DataIntegrityViolationException.class, () -> snapshotService.restore(snapshot));
+
+        assertEquals("fan", jdbcTemplate.queryForObject("SELECT LOGIN FROM USERS", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILMS", Integer.class));
+
+        jdbcTemplate.execute("ALTER TABLE FILMS DROP CONSTRAINT FILMS_LONG_ONLY");
+        jdbcTemplate.update("DELETE FROM USERS");
+        snapshotService.restore(snapshot);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILM_FANS", Integer.class));
+    }
+
+    @Test
+    public void testTablesAndTypesUnknownToTheCodeAreKept() {
+        jdbcTemplate.execute("CREATE TABLE WATCHLIST (ENTRY_ID INTEGER AUTO_INCREMENT PRIMARY KEY, " +
+                "USER_ID INTEGER NOT NULL REFERENCES USERS (USER_ID), PRICE DECIMAL(10, 2), WATCHED BOOLEAN, " +
+                "RATING DOUBLE PRECISION, POSTER VARBINARY(16), TOKEN UUID, ADDED_AT TIME)");
+        jdbcTemplate.update("INSERT INTO WATCHLIST (USER_ID, PRICE, WATCHED, RATING, POSTER, TOKEN, ADDED_AT) " +
+                "SELECT USER_ID, 9.99, TRUE, 7.5, X'CAFE', RANDOM_UUID(), '20:15:00' FROM USERS");
+        jdbcTemplate.update("INSERT INTO WATCHLIST (USER_ID) SELECT USER_ID FROM USERS");
+        List<Map<String, Object>> watchlist = jdbcTemplate.queryForList("SELECT * FROM WATCHLIST ORDER BY ENTRY_ID");
+        Path snapshot = directory.resolve("filmorate.snapshot");
+
+        snapshotService.export(snapshot);
+        jdbcTemplate.update("DELETE FROM WATCHLIST");
+        jdbcTemplate.update("DELETE FROM USERS");
+        snapshotService.restore(snapshot);
+
+        List<Map<String, Object>> restored = jdbcTemplate.queryForList("SELECT * FROM WATCHLIST ORDER BY ENTRY_ID");
+        assertEquals(watchlist.size(), restored.size());
+        for (int i = 0; i < watchlist.size(); i++) {
+            Map<String, Object> expected = watchlist.get(i);
+            Map<String, Object> actual = restored.get(i);
+            assertArrayEquals((byte[]) expected.remove("POSTER"), (byte[]) actual.remove("POSTER"));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testRestoreAfterSchemaChange() {
+        Path snapshot = directory.resolve("filmorate.snapshot");
+        snapshotService.export(snapshot);
+
+        jdbcTemplate.execute("ALTER TABLE USERS DROP COLUMN NAME");
+        jdbcTemplate.execute("ALTER TABLE FILMS ADD COLUMN TAGLINE CHARACTER VARYING");
+        jdbcTemplate.update("DELETE FROM FILMS");
+        jdbcTemplate.update("DELETE FROM USERS");
+        snapshotService.restore(snapshot);
+
+        assertEquals("fan", jdbcTemplate.queryForObject("SELECT LOGIN FROM USERS", String.class));
+        assertEquals("Film", jdbcTemplate.queryForObject("SELECT NAME FROM FILMS", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT TAGLINE FROM FILMS", String.class));
+    }
+
+    @Test
+    public void testUnmappedSqlTypesFallBackToStrings() {
+        assertEquals(SnapshotColumn.STRING, SnapshotColumn.typeOf(Types.DECIMAL));
+        assertEquals(SnapshotColumn.STRING, SnapshotColumn.typeOf(Types.BOOLEAN));
+        assertEquals(SnapshotColumn.STRING, SnapshotColumn.typeOf(Types.OTHER));
+        assertEquals(SnapshotColumn.BYTES, SnapshotColumn.typeOf(Types.VARBINARY));
+    }
+
+}
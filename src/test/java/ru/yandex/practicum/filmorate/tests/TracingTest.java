@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.yandex.practicum.filmorate.tracing.RequestTrace;
+import ru.yandex.practicum.filmorate.tracing.TraceContext;
+import ru.yandex.practicum.filmorate.tracing.TraceStore;
+import ru.yandex.practicum.filmorate.tracing.TracingFilter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TracingTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+
+    @AfterEach
+    public void tearDown() {
+        TraceContext.end();
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    public void testSampledRequestIsBufferedAndTimed() throws Exception {
+        List<HttpServletResponse> seen = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        TraceStore traceStore = new TraceStore(10);
+
+        new TracingFilter(traceStore, 1.0).doFilter(new MockHttpServletRequest("GET", "/films"), response,
+                chain(seen));
+
+        assertTrue(seen.get(0) instanceof ContentCachingResponseWrapper);
+        assertNotNull(response.getHeader("Server-Timing"));
+        assertEquals("[]", response.getContentAsString());
+        assertEquals(1, traceStore.getSlowest().size());
+    }
+
+    @Test
+    public void testUnsampledRequestIsNotBuffered() throws Exception {
+        List<HttpServletResponse> seen = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        TraceStore traceStore = new TraceStore(10);
+
+        new TracingFilter(traceStore, 0.0).doFilter(new MockHttpServletRequest("GET", "/films"), response,
+                chain(seen));
+
+        assertFalse(seen.get(0) instanceof ContentCachingResponseWrapper);
+        assertNotNull(response.getHeader("Server-Timing"));
+        assertEquals("[]", response.getContentAsString());
+        assertEquals(1, traceStore.getSlowest().size());
+    }
+
+    @Test
+    public void testWorkerThreadsRecordIntoTheSubmittingTrace() throws Exception {
+        RequestTrace trace = TraceContext.begin("GET", "/users/1/profile");
+        RequestTrace.Span handler = trace.openSpan("ProfileController.getProfile");
+
+        executor.submit(TraceContext.wrap(() -> {
+            RequestTrace.Span span = TraceContext.current().openSpan("FilmRepository.findLikedByUser");
+            TraceContext.current().recordStatement(1_000);
+            TraceContext.current().closeSpan(span);
+            return null;
+        })).get();
+        trace.closeSpan(handler);
+
+        assertEquals(1, trace.getStatementCount());
+        assertEquals(1, trace.getSpans().get(1).getDepth());
+        assertNull(executor.submit(TraceContext::current).get());
+
+        trace.finish(200);
+        executor.submit(TraceContext.wrap(() -> {
+            TraceContext.current().recordStatement(1_000);
+            return null;
+        })).get();
+        assertEquals(1, trace.getStatementCount());
+    }
+
+
+    private static MockFilterChain chain(List<HttpServletResponse> seen) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                seen.add(resp);
+                TraceContext.current().recordStatement(1_000);
+                resp.getWriter().write("[]");
+            }
+        });
+    }
+
+}
@@ -12,6 +12,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardRouter;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -36,7 +37,7 @@ public class UserRepositoryImplTest {
     public void setUp() {
         userMapper = new UserMapper();
 
-        userRepositoryImpl = new UserRepositoryImpl(jdbcTemplate, userMapper);
+        userRepositoryImpl = new UserRepositoryImpl(new ShardRouter(jdbcTemplate), userMapper);
         jdbcTemplate.execute("DELETE FROM USERS");
     }
 
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.tests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.batching.BatchingConfiguration;
+import ru.yandex.practicum.filmorate.bloom.BloomConfiguration;
+import ru.yandex.practicum.filmorate.coalescing.SingleFlightRegistry;
+import ru.yandex.practicum.filmorate.exceptions.EntityAlreadyExistsException;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.projection.Projection;
+import ru.yandex.practicum.filmorate.repository.impl.FilmRepositoryImpl;
+import ru.yandex.practicum.filmorate.repository.impl.UserRepositoryImpl;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.impl.UserServiceImpl;
+import ru.yandex.practicum.filmorate.sharding.ShardingConfiguration;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudget;
+import ru.yandex.practicum.filmorate.tests.support.QueryBudgetExtension;
+import ru.yandex.practicum.filmorate.tests.support.QueryCountingConfiguration;
+import ru.yandex.practicum.filmorate.versioning.DataVersions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ExtendWith(QueryBudgetExtension.class)
+@Import({QueryCountingConfiguration.class, UserServiceImpl.class, UserRepositoryImpl.class, UserMapper.class,
+        DataVersions.class, FilmRepositoryImpl.class, FilmMapper.class, SingleFlightRegistry.class,
+        BatchingConfiguration.class, BloomConfiguration.class, ShardingConfiguration.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserServiceImplQueryBudgetTest {
+
+    private final UserService userService;
+
+    private User user;
+
+    private User friend;
+
+    private User other;
+
+
+    @BeforeEach
+    public void setUp() {
+        user = userService.save(new User("user", "user@mail.ru", "user", LocalDate.of(1990, 1, 1)));
+        friend = userService.save(new User("friend", "friend@mail.ru", "friend", LocalDate.of(1991, 1, 1)));
+        other = userService.save(new User("other", "other@mail.ru", "other", LocalDate.of(1992, 1, 1)));
+
+        userService.addFriend(user.getId(), friend.getId());
+        userService.addFriend(other.getId(), friend.getId());
+    }
+
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testSave() {
+        userService.save(new User("new", "new@mail.ru", "new", LocalDate.of(1993, 1, 1)));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testSaveWithTakenEmail() {
+        assertThrows(EntityAlreadyExistsException.class,
+                () -> userService.save(new User("taken", "user@mail.ru", "taken", LocalDate.of(1993, 1, 1))));
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testUpdateToTakenLogin() {
+        user.setLogin(friend.getLogin());
+
+        assertThrows(EntityAlreadyExistsException.class, () -> userService.update(user));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testUpdate() {
+        user.setName("Updated");
+
+        userService.update(user);
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindById() {
+        assertEquals(user.getLogin(), userService.findById(user.getId()).getLogin());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindByName() {
+        userService.findByName(user.getName());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindAll() {
+        assertEquals(3, userService.findAll().size());
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testFindByIds() {
+        List<User> found = userService.findByIds(List.of(other.getId(), -1, user.getId()), Projection.all());
+
+        assertEquals(List.of(other.getId(), user.getId()),
+                found.stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteById() {
+        assertTrue(userService.deleteById(other.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    public void testDeleteAll() {
+        assertTrue(userService.deleteAll());
+    }
+
+    @Test
+    @QueryBudget(max = 4)
+    public void testAddFriend() {
+        userService.addFriend(user.getId(), other.getId());
+    }
+
+    @Test
+    @QueryBudget(max = 2)
+    public void testFindFriendsById() {
+        assertEquals(1, userService.findFriendsById(user.getId()).size());
+    }
+
+    @Test
+    @QueryBudget(max = 3)
+    public void testRemoveFriend() {
+        assertTrue(userService.removeFriend(user.getId(), friend.getId()));
+    }
+
+    @Test
+    @QueryBudget(max = 3)
+    public void testGetCommonFriends() {
+        assertEquals(1, userService.getCommonFriends(user.getId(), other.getId()).size());
+    }
+
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.tests.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when its body executes more than {@code max} JDBC statements (a batch counts as one).
+ * Requires {@link QueryBudgetExtension} and {@link QueryCountingConfiguration} on the test class.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int max();
+
+}
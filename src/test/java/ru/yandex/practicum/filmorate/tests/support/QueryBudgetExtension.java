@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.tests.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Counts the statements executed by the test method body (not by {@code @BeforeEach})
+ * and checks them against its {@link QueryBudget}.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        queryCounter(context).reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        QueryCounter counter = queryCounter(context);
+        if (counter.getCount() > budget.max()) {
+            throw new AssertionError("Query budget exceeded: expected at most " + budget.max() +
+                    " statement(s) but " + counter.getCount() + " were executed: " + counter.getStatements());
+        }
+    }
+
+
+    private static QueryCounter queryCounter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(QueryCounter.class);
+    }
+
+}
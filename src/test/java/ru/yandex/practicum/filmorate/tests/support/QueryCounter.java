@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.tests.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class QueryCounter {
+
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+
+    public void record(String sql) {
+        statements.add(sql);
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    public int getCount() {
+        return statements.size();
+    }
+
+    public List<String> getStatements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.tests.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import ru.yandex.practicum.filmorate.jdbc.ObservedDataSource;
+
+import javax.sql.DataSource;
+
+@TestConfiguration
+public class QueryCountingConfiguration {
+
+    @Bean
+    public QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(ObjectProvider<QueryCounter> queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ObservedDataSource)) {
+                    return new ObservedDataSource((DataSource) bean,
+                            (sql, elapsedNanos) -> queryCounter.getObject().record(sql));
+                }
+                return bean;
+            }
+        };
+    }
+
+}
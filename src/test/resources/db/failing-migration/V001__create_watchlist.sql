@@ -0,0 +1,6 @@
+create table IF NOT EXISTS WATCHLIST
+(
+    ENTRY_ID INTEGER not null,
+    constraint WATCHLIST_PK
+        primary key (ENTRY_ID)
+);
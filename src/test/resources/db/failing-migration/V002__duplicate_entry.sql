@@ -0,0 +1,5 @@
+insert into WATCHLIST (ENTRY_ID)
+values (1);
+
+insert into WATCHLIST (ENTRY_ID)
+values (1);